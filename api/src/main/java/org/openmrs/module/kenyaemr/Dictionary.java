@@ -12,6 +12,7 @@ package org.openmrs.module.kenyaemr;
 import org.openmrs.Concept;
 import org.openmrs.ConceptNumeric;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.MetadataCache;
 import org.openmrs.module.metadatadeploy.MissingMetadataException;
 
 import java.util.ArrayList;
@@ -29,7 +30,10 @@ public class Dictionary extends Metadata.Concept {
 	 * @throws org.openmrs.module.metadatadeploy.MissingMetadataException if the concept could not be found
 	 */
 	public static Concept getConcept(String identifier) {
-		Concept concept;
+		Concept concept = MetadataCache.getConcept(identifier);
+		if (concept != null) {
+			return concept;
+		}
 
 		if (identifier.contains(":")) {
 			String[] tokens = identifier.split(":");
@@ -53,6 +57,7 @@ public class Dictionary extends Metadata.Concept {
 			}
 		}
 
+		MetadataCache.putConcept(identifier, concept);
 		return concept;
 	}
 
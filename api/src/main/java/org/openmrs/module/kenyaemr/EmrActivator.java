@@ -19,6 +19,9 @@ import org.openmrs.Visit;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.ModuleActivator;
 import org.openmrs.module.kenyacore.CoreContext;
+import org.openmrs.module.kenyaemr.metadata.MetadataCache;
+import org.openmrs.module.kenyaemr.metadata.sync.MflFacilityIndex;
+import org.openmrs.module.kenyaemr.util.ZScoreUtil;
 import org.openmrs.module.reporting.report.service.ReportService;
 import org.openmrs.util.OpenmrsUtil;
 
@@ -65,6 +68,7 @@ public class EmrActivator implements ModuleActivator {
 
 		try {
 			CoreContext.getInstance().refresh();
+			MetadataCache.warm();
 		}
 		catch (Exception ex) {
 			// If an error occurs during core refresh, we need KenyaEMR to still start so that the error can be
@@ -82,6 +86,23 @@ public class EmrActivator implements ModuleActivator {
 	public void started() {
 		// Context.getService(ReportService.class).deleteOldReportRequests();
 		log.info("KenyaEMR started");
+		try {
+			ZScoreUtil.loadTables();
+		}
+		catch (Exception ex) {
+			// Only z-score calculations are affected, so the rest of startup must still run
+			log.error("Unable to load z-score tables", ex);
+		}
+		catch (ExceptionInInitializerError err) {
+			log.error("Unable to load z-score tables", err);
+		}
+		try {
+			Context.getRegisteredComponents(MflFacilityIndex.class).get(0).rebuild();
+		}
+		catch (Exception ex) {
+			// The index is built when first used instead
+			log.error("Unable to build MFL facility index", ex);
+		}
 		Context.getAdministrationService().executeSQL("UPDATE form SET published = 1 where retired = 0", false);
 
 	}
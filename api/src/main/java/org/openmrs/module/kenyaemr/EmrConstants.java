@@ -69,4 +69,5 @@ public class EmrConstants {
 	public static final String DEFAULT_EXTERNAL_HELP_URL = "/help";
 
 	public static final String GP_CONFIGURE_FACILITY_LIST_REFRESH_ON_STARTUP = "kenyaemr.refresh.facility.metadata";
+	public static final String GP_FACILITY_LIST_CHECKSUM = "kenyaemr.refresh.facility.metadata.checksum";
 }
@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Encounter;
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.visit.ActiveVisitIndex;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Keeps the active visit index current when visits are saved, ended, voided, unvoided or purged, including visits
+ * which are created when encounters are saved
+ */
+public class ActiveVisitIndexAdvice implements AfterReturningAdvice {
+
+	protected static final Log log = LogFactory.getLog(ActiveVisitIndexAdvice.class);
+
+	private static final String[] MODIFYING_METHOD_PREFIXES = { "save", "end", "void", "unvoid" };
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		try {
+			if ("stopVisits".equals(method.getName())) {
+				getIndex().invalidate();
+				return;
+			}
+			if (args == null || args.length == 0 || args[0] == null) {
+				return;
+			}
+
+			Object changed = args[0];
+			if (changed instanceof Visit) {
+				if (method.getName().startsWith("purge")) {
+					getIndex().onVisitPurged((Visit) changed);
+				}
+				else if (isModifyingMethod(method)) {
+					getIndex().onVisitChanged((Visit) changed);
+				}
+			}
+			else if (changed instanceof Encounter && method.getName().startsWith("save")) {
+				getIndex().onVisitChanged(((Encounter) changed).getVisit());
+			}
+		}
+		catch (Exception ex) {
+			// Never fail the save because of the index, at worst it is corrected when next rebuilt
+			log.error("Unable to update active visit index after " + method.getName(), ex);
+		}
+	}
+
+	private static boolean isModifyingMethod(Method method) {
+		for (String prefix : MODIFYING_METHOD_PREFIXES) {
+			if (method.getName().startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static ActiveVisitIndex getIndex() {
+		return Context.getRegisteredComponents(ActiveVisitIndex.class).get(0);
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.visit.AppointmentBookings;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Discards the cached appointment booking counts when encounters or obs are saved, voided, unvoided or purged
+ */
+public class AppointmentBookingsAdvice implements AfterReturningAdvice {
+
+	protected static final Log log = LogFactory.getLog(AppointmentBookingsAdvice.class);
+
+	private static final String[] MODIFYING_METHOD_PREFIXES = { "save", "void", "unvoid", "purge" };
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		try {
+			if (args == null || args.length == 0 || !(args[0] instanceof Encounter || args[0] instanceof Obs)) {
+				return;
+			}
+			if (isModifyingMethod(method)) {
+				Context.getRegisteredComponents(AppointmentBookings.class).get(0).invalidate();
+			}
+		}
+		catch (Exception ex) {
+			// Never fail the save because of the counts
+			log.error("Unable to invalidate appointment booking counts after " + method.getName(), ex);
+		}
+	}
+
+	private static boolean isModifyingMethod(Method method) {
+		for (String prefix : MODIFYING_METHOD_PREFIXES) {
+			if (method.getName().startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.OpenmrsMetadata;
+import org.openmrs.module.kenyaemr.metadata.MetadataCache;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Evicts metadata from the metadata cache when it is saved or purged
+ */
+public class MetadataCacheAdvice implements AfterReturningAdvice {
+
+	protected static final Log log = LogFactory.getLog(MetadataCacheAdvice.class);
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (args == null || args.length == 0 || !(args[0] instanceof OpenmrsMetadata || args[0] instanceof Concept)) {
+			return;
+		}
+		if (method.getName().startsWith("save") || method.getName().startsWith("purge")) {
+			try {
+				MetadataCache.evict(args[0]);
+			}
+			catch (Exception ex) {
+				log.error("Unable to evict " + args[0] + " from metadata cache", ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.sync.MflFacilityIndex;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Keeps the MFL facility index current when locations are saved, retired, unretired or purged
+ */
+public class MflFacilityIndexAdvice implements AfterReturningAdvice {
+
+	protected static final Log log = LogFactory.getLog(MflFacilityIndexAdvice.class);
+
+	private static final String[] MODIFYING_METHOD_PREFIXES = { "save", "retire", "unretire" };
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		try {
+			if (args == null || args.length == 0 || !(args[0] instanceof Location)) {
+				return;
+			}
+
+			Location changed = (Location) args[0];
+			if (method.getName().startsWith("purge")) {
+				getIndex().onLocationPurged(changed);
+			}
+			else if (isModifyingMethod(method)) {
+				getIndex().onLocationChanged(changed);
+			}
+		}
+		catch (Exception ex) {
+			// Never fail the save because of the index, at worst it is corrected when next rebuilt
+			log.error("Unable to update MFL facility index after " + method.getName(), ex);
+		}
+	}
+
+	private static boolean isModifyingMethod(Method method) {
+		for (String prefix : MODIFYING_METHOD_PREFIXES) {
+			if (method.getName().startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static MflFacilityIndex getIndex() {
+		return Context.getRegisteredComponents(MflFacilityIndex.class).get(0);
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.Order;
+import org.openmrs.Patient;
+import org.openmrs.PatientProgram;
+import org.openmrs.Person;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Invalidates the cached flags of a patient when their encounters, obs, orders, program enrollments or the patient
+ * record itself are saved, voided, unvoided, purged or discontinued. The patient record includes the person record,
+ * as gender and death are changed through person saves and processing deaths.
+ */
+public class PatientFlagCacheAdvice implements AfterReturningAdvice {
+
+	protected static final Log log = LogFactory.getLog(PatientFlagCacheAdvice.class);
+
+	private static final String[] MODIFYING_METHOD_PREFIXES = { "save", "void", "unvoid", "purge", "discontinue", "process" };
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (args == null || args.length == 0 || args[0] == null || !isModifyingMethod(method)) {
+			return;
+		}
+
+		try {
+			Object changed = args[0];
+			if (changed instanceof Encounter) {
+				onEncounterChanged((Encounter) changed);
+			}
+			else if (changed instanceof Obs) {
+				onObsChanged((Obs) changed);
+			}
+			else if (changed instanceof Order) {
+				onOrderChanged((Order) changed);
+			}
+			else if (changed instanceof PatientProgram) {
+				onPatientProgramChanged((PatientProgram) changed);
+			}
+			else if (changed instanceof Person) {
+				// A patient shares the UUID of their person record
+				getFlagEvaluator().invalidateAll(((Person) changed).getUuid());
+			}
+		}
+		catch (Exception ex) {
+			// Never fail the save because of the cache, at worst the flags are re-evaluated on expiry
+			log.error("Unable to invalidate patient flags after " + method.getName(), ex);
+		}
+	}
+
+	protected void onEncounterChanged(Encounter encounter) {
+		if (encounter.getPatient() == null) {
+			return;
+		}
+		Set<String> encounterTypes = new HashSet<String>();
+		if (encounter.getEncounterType() != null) {
+			encounterTypes.add(encounter.getEncounterType().getUuid());
+		}
+		Set<String> concepts = new HashSet<String>();
+		for (Obs obs : encounter.getAllObs(true)) {
+			if (obs.getConcept() != null) {
+				concepts.add(obs.getConcept().getUuid());
+			}
+		}
+		getFlagEvaluator().invalidate(encounter.getPatient().getUuid(), encounterTypes, concepts, null);
+	}
+
+	protected void onObsChanged(Obs obs) {
+		if (obs.getPerson() == null || obs.getConcept() == null) {
+			return;
+		}
+		List<String> encounterTypes = obs.getEncounter() != null && obs.getEncounter().getEncounterType() != null
+				? Collections.singletonList(obs.getEncounter().getEncounterType().getUuid()) : null;
+		getFlagEvaluator().invalidate(obs.getPerson().getUuid(), encounterTypes, Collections.singletonList(obs.getConcept().getUuid()), null);
+	}
+
+	protected void onOrderChanged(Order order) {
+		if (order.getPatient() == null || order.getConcept() == null) {
+			return;
+		}
+		List<String> encounterTypes = order.getEncounter() != null && order.getEncounter().getEncounterType() != null
+				? Collections.singletonList(order.getEncounter().getEncounterType().getUuid()) : null;
+		getFlagEvaluator().invalidate(order.getPatient().getUuid(), encounterTypes, Collections.singletonList(order.getConcept().getUuid()), null);
+	}
+
+	protected void onPatientProgramChanged(PatientProgram patientProgram) {
+		if (patientProgram.getPatient() == null || patientProgram.getProgram() == null) {
+			return;
+		}
+		getFlagEvaluator().invalidate(patientProgram.getPatient().getUuid(), null, null, Collections.singletonList(patientProgram.getProgram().getUuid()));
+	}
+
+	private static boolean isModifyingMethod(Method method) {
+		for (String prefix : MODIFYING_METHOD_PREFIXES) {
+			if (method.getName().startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected PatientFlagEvaluator getFlagEvaluator() {
+		return Context.getRegisteredComponents(PatientFlagEvaluator.class).get(0);
+	}
+}
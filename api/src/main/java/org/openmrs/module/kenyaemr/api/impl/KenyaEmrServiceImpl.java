@@ -41,6 +41,7 @@ import org.openmrs.module.kenyaemr.api.db.KenyaEmrDAO;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.sync.MflFacilityIndex;
 import org.openmrs.module.kenyaemr.util.RowMapper;
 import org.openmrs.module.kenyaemr.util.SqlQueryHelper;
 import org.openmrs.module.kenyaemr.wrapper.Facility;
@@ -72,6 +73,9 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	@Autowired
 	private LocationService locationService;
 
+	@Autowired
+	private MflFacilityIndex mflFacilityIndex;
+
 	private boolean setupRequired = true;
 
 	private KenyaEmrDAO dao;
@@ -152,13 +156,26 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	 */
 	@Override
 	public Location getLocationByMflCode(String mflCode) {
+		Integer locationId = mflFacilityIndex.getLocationId(mflCode);
+		if (locationId != null) {
+			Location location = locationService.getLocation(locationId);
+			if (location != null && !location.isRetired() && OpenmrsUtil.nullSafeEquals(mflCode.trim(), new Facility(location).getMflCode())) {
+				return location;
+			}
+			// The location was changed by other means since it was indexed
+			mflFacilityIndex.onLocationChanged(location);
+		}
+
 		LocationAttributeType mflCodeAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
 		Map<LocationAttributeType, Object> attrVals = new HashMap<LocationAttributeType, Object>();
 		attrVals.put(mflCodeAttrType, mflCode);
 
 		List<Location> locations = locationService.getLocations(null, null, attrVals, false, null, null);
-
-		return locations.size() > 0 ? locations.get(0) : null;
+		if (locations.size() > 0) {
+			mflFacilityIndex.onLocationChanged(locations.get(0));
+			return locations.get(0);
+		}
+		return null;
 	}
 
 	/**
@@ -11,6 +11,7 @@ package org.openmrs.module.kenyaemr.calculation;
 
 import org.openmrs.Concept;
 import org.openmrs.DrugOrder;
+import org.openmrs.calculation.patient.PatientCalculation;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
@@ -21,6 +22,7 @@ import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.reporting.data.patient.definition.DrugOrdersForPatientDataDefinition;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -28,14 +30,36 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Previously the base class for calculations, replaced by AbstractPatientCalculation in KenyaCore.
+ * Base class for calculations which are built from other calculations. Calculations evaluated with
+ * {@link #calculate(PatientCalculation, Collection, PatientCalculationContext)} are memoized in the calculation context,
+ * so sibling calculations which depend on the same calculation over the same cohort evaluate it only once.
  *
- * This class is deprecated because it now only contains drug order related functionality which should be moved into a
- * different class, and also may not work with OpenMRS 1.10
+ * The drug order methods may not work with OpenMRS 1.10 and should be moved into a different class.
  */
-@Deprecated
 public abstract class BaseEmrCalculation extends AbstractPatientCalculation {
 
+	/**
+	 * Evaluates a calculation, reusing its result if it has already been evaluated for the same cohort in this context
+	 * @param calculation the calculation
+	 * @param cohort the patient ids
+	 * @param calculationContext the calculation context
+	 * @return the calculation results
+	 */
+	protected static CalculationResultMap calculate(PatientCalculation calculation, Collection<Integer> cohort, PatientCalculationContext calculationContext) {
+		return CalculationMemo.forContext(calculationContext).evaluate(calculation, cohort, calculationContext);
+	}
+
+	/**
+	 * Evaluates calculations which don't depend on each other concurrently, so that subsequent calls to
+	 * {@link #calculate(PatientCalculation, Collection, PatientCalculationContext)} for them return memoized results
+	 * @param cohort the patient ids
+	 * @param calculationContext the calculation context
+	 * @param calculations the calculations
+	 */
+	protected static void calculateConcurrently(Collection<Integer> cohort, PatientCalculationContext calculationContext, PatientCalculation... calculations) {
+		CalculationMemo.forContext(calculationContext).evaluateConcurrently(Arrays.asList(calculations), cohort, calculationContext);
+	}
+
 	/**
 	 * Evaluates the active drug orders for each patient
 	 * @param medSet the medset concept that specifies which drugs to include
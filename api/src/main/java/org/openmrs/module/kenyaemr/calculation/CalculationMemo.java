@@ -0,0 +1,266 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.APIException;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculation;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Memoized results of calculations evaluated as part of other calculations. Results are keyed by calculation class,
+ * calculation configuration, parameter values, context date and cohort, and each is evaluated at most once even when
+ * requested from several threads.
+ *
+ * A memo is kept in the cache of a calculation context, and can be attached to several contexts (e.g. all the flag
+ * calculations of a flags pass) so that they share results. Results are only shared between sessions when their values
+ * are plain values such as booleans and dates, as other values may hold objects from another session, see
+ * {@link EvaluationExecutor#getSessionToken()}.
+ */
+public class CalculationMemo {
+
+	protected static final Log log = LogFactory.getLog(CalculationMemo.class);
+
+	public static final String CACHE_KEY = CalculationMemo.class.getName();
+
+	/**
+	 * Smaller cohorts aren't evaluated concurrently, as opening the extra sessions would cost more than it saves
+	 */
+	static final int MIN_CONCURRENT_COHORT_SIZE = 100;
+
+	private final ConcurrentMap<List<Object>, Entry> entries = new ConcurrentHashMap<List<Object>, Entry>();
+
+	/**
+	 * Gets the memo of a calculation context, creating it if it doesn't have one
+	 * @param context the calculation context
+	 * @return the memo
+	 */
+	public static CalculationMemo forContext(PatientCalculationContext context) {
+		synchronized (context) {
+			CalculationMemo memo = (CalculationMemo) context.getFromCache(CACHE_KEY);
+			if (memo == null) {
+				memo = new CalculationMemo();
+				memo.attach(context);
+			}
+			return memo;
+		}
+	}
+
+	/**
+	 * Attaches this memo to a calculation context, so that calculations evaluated in that context share its results
+	 * @param context the calculation context
+	 */
+	public void attach(PatientCalculationContext context) {
+		context.addToCache(CACHE_KEY, this);
+	}
+
+	/**
+	 * Evaluates a calculation, or returns its memoized result
+	 * @param calculation the calculation
+	 * @param cohort the patient ids
+	 * @param context the calculation context
+	 * @return the calculation results
+	 */
+	public CalculationResultMap evaluate(PatientCalculation calculation, Collection<Integer> cohort, PatientCalculationContext context) {
+		return evaluate(calculation, cohort, null, context);
+	}
+
+	/**
+	 * Evaluates a calculation with parameter values, or returns its memoized result
+	 * @param calculation the calculation
+	 * @param cohort the patient ids
+	 * @param parameterValues the parameter values (may be null)
+	 * @param context the calculation context
+	 * @return the calculation results
+	 */
+	public CalculationResultMap evaluate(final PatientCalculation calculation, final Collection<Integer> cohort, final Map<String, Object> parameterValues, final PatientCalculationContext context) {
+		List<Object> key = Arrays.<Object>asList(calculation.getClass().getName(), getConfiguration(calculation),
+				parameterValues != null ? new HashMap<String, Object>(parameterValues) : Collections.emptyMap(),
+				context.getNow(), new HashSet<Integer>(cohort));
+		Entry entry = new Entry(new Callable<CalculationResultMap>() {
+			@Override
+			public CalculationResultMap call() {
+				return Context.getService(PatientCalculationService.class).evaluate(cohort, calculation, parameterValues, context);
+			}
+		});
+
+		Entry existing = entries.putIfAbsent(key, entry);
+		if (existing == null) {
+			entry.task.run();
+			return get(key, entry);
+		}
+
+		CalculationResultMap results = get(key, existing);
+		if (existing.owner == EvaluationExecutor.getSessionToken() || isShareable(results)) {
+			return results;
+		}
+		return Context.getService(PatientCalculationService.class).evaluate(cohort, calculation, parameterValues, context);
+	}
+
+	/**
+	 * Evaluates calculations which don't depend on each other concurrently, so that their results are memoized before
+	 * they are requested. Each calculation is evaluated on the {@link EvaluationExecutor} with its own context, which
+	 * shares this memo. Calculations which fail are logged and left to be evaluated again when they are requested.
+	 * Calculations for small cohorts, or requested from a pooled thread, are left to be evaluated when they are
+	 * requested.
+	 * @param calculations the calculations
+	 * @param cohort the patient ids
+	 * @param context the calculation context
+	 */
+	public void evaluateConcurrently(Collection<PatientCalculation> calculations, final Collection<Integer> cohort, PatientCalculationContext context) {
+		if (cohort.size() < MIN_CONCURRENT_COHORT_SIZE || EvaluationExecutor.isSerial()) {
+			return;
+		}
+
+		final Date now = context.getNow();
+		EvaluationExecutor executor = EvaluationExecutor.getInstance();
+
+		List<Future<CalculationResultMap>> futures = new ArrayList<Future<CalculationResultMap>>();
+		for (final PatientCalculation calculation : calculations) {
+			futures.add(executor.submit(new Callable<CalculationResultMap>() {
+				@Override
+				public CalculationResultMap call() {
+					PatientCalculationContext workerContext = Context.getService(PatientCalculationService.class).createCalculationContext();
+					workerContext.setNow(now);
+					attach(workerContext);
+					return evaluate(calculation, cohort, workerContext);
+				}
+			}));
+		}
+
+		for (Future<CalculationResultMap> future : futures) {
+			try {
+				future.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ExecutionException ex) {
+				log.warn("Unable to evaluate calculation concurrently", ex.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Gets the configuration of a calculation, i.e. the values of the instance fields declared by the calculation
+	 * classes above the calculation framework, so that differently configured instances of a class don't share
+	 * results. Calculations held in fields are represented by their own class and configuration.
+	 * @param calculation the calculation
+	 * @return the field values by name
+	 */
+	static Map<String, Object> getConfiguration(PatientCalculation calculation) {
+		Map<String, Object> configuration = new TreeMap<String, Object>();
+		for (Class<?> clazz = calculation.getClass(); clazz != null && !isFrameworkClass(clazz); clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+					Object value = field.get(calculation);
+					if (value instanceof PatientCalculation) {
+						value = Arrays.<Object>asList(value.getClass().getName(), getConfiguration((PatientCalculation) value));
+					}
+					configuration.put(clazz.getName() + "." + field.getName(), value);
+				}
+				catch (IllegalAccessException ex) {
+					throw new APIException("Unable to read configuration of calculation " + calculation.getClass().getName(), ex);
+				}
+			}
+		}
+		return configuration;
+	}
+
+	private static boolean isFrameworkClass(Class<?> clazz) {
+		return clazz.getName().startsWith("java.") || clazz.getName().startsWith("org.openmrs.calculation.");
+	}
+
+	/**
+	 * Waits for the result of an entry. Failed entries are removed so that they can be evaluated again.
+	 */
+	private CalculationResultMap get(List<Object> key, Entry entry) {
+		try {
+			return entry.task.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while waiting for calculation " + key.get(0), ex);
+		}
+		catch (ExecutionException ex) {
+			entries.remove(key, entry);
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new APIException("Unable to evaluate calculation " + key.get(0), ex.getCause());
+		}
+	}
+
+	/**
+	 * Checks whether results can be used by a thread other than the one which evaluated them
+	 * @param results the results
+	 * @return true if all result values are plain values
+	 */
+	private static boolean isShareable(CalculationResultMap results) {
+		for (CalculationResult result : results.values()) {
+			Object value = result != null ? result.getValue() : null;
+			if (value != null && !(value instanceof Boolean || value instanceof Number || value instanceof Date
+					|| value instanceof String || value instanceof Enum)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A memoized evaluation and the session in which it was evaluated
+	 */
+	private static class Entry {
+
+		final FutureTask<CalculationResultMap> task;
+
+		volatile Object owner;
+
+		Entry(final Callable<CalculationResultMap> evaluation) {
+			this.task = new FutureTask<CalculationResultMap>(new Callable<CalculationResultMap>() {
+				@Override
+				public CalculationResultMap call() throws Exception {
+					owner = EvaluationExecutor.getSessionToken();
+					return evaluation.call();
+				}
+			});
+		}
+	}
+}
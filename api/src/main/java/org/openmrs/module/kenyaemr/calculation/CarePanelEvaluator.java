@@ -0,0 +1,507 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.PatientProgram;
+import org.openmrs.Program;
+import org.openmrs.api.APIException;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculation;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyacore.calculation.CalculationUtils;
+import org.openmrs.module.kenyacore.calculation.Calculations;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.HIVEnrollment;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.LastCd4PercentageCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.LastWhoStageCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.art.LastCd4CountDateCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.art.ViralLoadAndLdlCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.tb.PatientInTbProgramCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.tb.TbDiseaseClassificationCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.tb.TbPatientClassificationCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.tb.TbTreatmentNumberCalculation;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
+import org.openmrs.module.kenyaemr.util.EmrUtils;
+import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.module.kenyaemr.wrapper.EncounterWrapper;
+import org.openmrs.module.kenyaemr.wrapper.PatientWrapper;
+import org.openmrs.module.kenyaemrorderentry.util.Utils;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.ui.framework.SimpleObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates the care panels of a patient's chart, i.e. the HIV, TB and MCH panels. The panels are evaluated
+ * concurrently on the {@link EvaluationExecutor}, and all their calculations share a single memo so that the
+ * calculations they are built from are evaluated once. Obs in the panels are reloaded by the requesting thread, so they
+ * can still be serialized once the pooled sessions are closed.
+ */
+@Component
+public class CarePanelEvaluator {
+
+	protected static final Log log = LogFactory.getLog(CarePanelEvaluator.class);
+
+	private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+
+	@Autowired
+	private EvaluationExecutor executor;
+
+	/**
+	 * Gets the care panels of a patient. Panels for programs which don't apply to the patient are omitted.
+	 * @param patient the patient
+	 * @return the map of panel names (HIV, TB, mchMother and mchChild) to panel data
+	 */
+	public Map<String, SimpleObject> getCarePanels(Patient patient) {
+		final Integer patientId = patient.getPatientId();
+		final Date now = new Date();
+		final CalculationMemo memo = new CalculationMemo();
+
+		List<Panel> panels = Arrays.asList(Panel.values());
+		List<Future<Map<String, SimpleObject>>> futures = new ArrayList<Future<Map<String, SimpleObject>>>();
+		for (final Panel panel : panels.subList(1, panels.size())) {
+			futures.add(executor.submit(new Callable<Map<String, SimpleObject>>() {
+				@Override
+				public Map<String, SimpleObject> call() {
+					return evaluate(panel, Context.getPatientService().getPatient(patientId), now, memo);
+				}
+			}));
+		}
+
+		// The first panel is evaluated by the requesting thread while the others are evaluated by the pool
+		Map<String, SimpleObject> ret = evaluate(panels.get(0), patient, now, memo);
+		for (Future<Map<String, SimpleObject>> future : futures) {
+			try {
+				ret.putAll(future.get());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new APIException("Interrupted while evaluating care panels", ex);
+			}
+			catch (ExecutionException ex) {
+				if (ex.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getCause();
+				}
+				throw new APIException("Unable to evaluate care panels", ex.getCause());
+			}
+		}
+
+		// Obs loaded by the pool belong to sessions which are closed by now, so they are serialized from this one
+		reloadObs(ret);
+		return ret;
+	}
+
+	/**
+	 * Replaces the obs values of the given panels with the same obs loaded in the current session
+	 * @param panels the map of panel names to panel data
+	 */
+	protected static void reloadObs(Map<String, SimpleObject> panels) {
+		for (SimpleObject panel : panels.values()) {
+			for (Map.Entry<String, Object> entry : panel.entrySet()) {
+				if (entry.getValue() instanceof Obs) {
+					entry.setValue(Context.getObsService().getObs(((Obs) entry.getValue()).getObsId()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a care panel
+	 * @param panel the panel
+	 * @param patient the patient
+	 * @param now the date as of which calculations are evaluated
+	 * @param memo the memo of calculation results shared by the panels
+	 * @return the map of panel names to panel data
+	 */
+	private Map<String, SimpleObject> evaluate(Panel panel, Patient patient, Date now, CalculationMemo memo) {
+		PatientCalculationContext context = Context.getService(PatientCalculationService.class).createCalculationContext();
+		context.setNow(now);
+		memo.attach(context);
+
+		Map<String, SimpleObject> panels = new HashMap<String, SimpleObject>();
+		switch (panel) {
+			case HIV:
+				hivPanel(patient, context, panels);
+				break;
+			case TB:
+				tbPanel(patient, context, panels);
+				break;
+			case MCH:
+				mchPanels(patient, context, panels);
+				break;
+		}
+		return panels;
+	}
+
+	/**
+	 * Adds the HIV panel
+	 */
+	private void hivPanel(Patient patient, PatientCalculationContext context, Map<String, SimpleObject> panels) {
+		SimpleObject hivResponseObj = new SimpleObject();
+		CalculationResult enrolledInHiv = evaluate(HIVEnrollment.class, patient, context);
+
+		if((Boolean) enrolledInHiv.getValue() == false) {
+			CalculationResult lastWhoStage = evaluate(LastWhoStageCalculation.class, patient, context);
+			if(lastWhoStage != null && lastWhoStage.getValue() != null) {
+				hivResponseObj.put("whoStage", EmrUtils.whoStage(((Obs) lastWhoStage.getValue()).getValueCoded()));
+				hivResponseObj.put("whoStageDate", formatDate(((Obs) lastWhoStage.getValue()).getObsDatetime()));
+			} else {
+				hivResponseObj.put("whoStage", "");
+				hivResponseObj.put("whoStageDate", "");
+			}
+			CalculationResult lastCd4 = evaluate(LastCd4CountDateCalculation.class, patient, context);
+			if(lastCd4 != null  && lastCd4.getValue() != null) {
+				hivResponseObj.put("cd4", ((Obs) lastCd4.getValue()).getValueNumeric().toString());
+				hivResponseObj.put("cd4Date", formatDate(((Obs) lastCd4.getValue()).getObsDatetime()));
+			} else {
+				hivResponseObj.put("cd4", "None");
+				hivResponseObj.put("cd4Date", "");
+			}
+			CalculationResult lastCd4Percent = evaluate(LastCd4PercentageCalculation.class, patient, context);
+			if(lastCd4Percent != null && lastCd4Percent.getValue() != null) {
+				hivResponseObj.put("cd4Percent", ((Obs) lastCd4Percent.getValue()).getValueNumeric().toString());
+				hivResponseObj.put("cd4PercentDate", formatDate(((Obs) lastCd4Percent.getValue()).getObsDatetime()));
+			} else {
+				hivResponseObj.put("cd4Percent", "None");
+				hivResponseObj.put("cd4PercentDate", "");
+			}
+
+			CalculationResult lastViralLoad = evaluate(ViralLoadAndLdlCalculation.class, patient, context);
+			String valuesRequired = "None";
+			Date datesRequired = null;
+			if(!lastViralLoad.isEmpty()){
+				String values = lastViralLoad.getValue().toString();
+				//split by brace
+				String value = values.replaceAll("\\{", "").replaceAll("\\}","");
+				//split by equal sign
+				if(!value.isEmpty()) {
+					String[] splitByEqualSign = value.split("=");
+					valuesRequired = splitByEqualSign[0];
+					//for a date from a string
+					String dateSplitedBySpace = splitByEqualSign[1].split(" ")[0].trim();
+					String yearPart = dateSplitedBySpace.split("-")[0].trim();
+					String monthPart = dateSplitedBySpace.split("-")[1].trim();
+					String dayPart = dateSplitedBySpace.split("-")[2].trim();
+
+					Calendar calendar = Calendar.getInstance();
+					calendar.set(Calendar.YEAR, Integer.parseInt(yearPart));
+					calendar.set(Calendar.MONTH, Integer.parseInt(monthPart) - 1);
+					calendar.set(Calendar.DATE, Integer.parseInt(dayPart));
+
+					datesRequired = calendar.getTime();
+				}
+			}
+			hivResponseObj.put("ldlValue", valuesRequired);
+			hivResponseObj.put("ldlDate", formatDate(datesRequired));
+			hivResponseObj.put("enrolledInHiv", (Boolean) enrolledInHiv.getValue());
+
+			Encounter lastEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");
+			SimpleObject lastEncDetails = null;
+			if (lastEnc != null) {
+				lastEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastEnc.getObs(), lastEnc);
+			}
+			hivResponseObj.put("lastEncDetails", lastEncDetails);
+			panels.put("HIV", hivResponseObj);
+
+		}
+	}
+
+	/**
+	 * Adds the TB panel
+	 */
+	private void tbPanel(Patient patient, PatientCalculationContext context, Map<String, SimpleObject> panels) {
+		SimpleObject tbResponseObj = new SimpleObject();
+		CalculationResult patientEnrolledInTbProgram = evaluate(PatientInTbProgramCalculation.class, patient, context);
+		if((Boolean) patientEnrolledInTbProgram.getValue() == true) {
+			CalculationResult tbDiseaseClassification = evaluate(TbDiseaseClassificationCalculation.class, patient, context);
+			if(tbDiseaseClassification != null && tbDiseaseClassification.getValue() != null) {
+				tbResponseObj.put("tbDiseaseClassification", ((Obs) tbDiseaseClassification.getValue()).getValueCoded().getName().getName());
+				tbResponseObj.put("tbDiseaseClassificationDate", formatDate(((Obs) tbDiseaseClassification.getValue()).getObsDatetime()));
+			} else {
+				tbResponseObj.put("tbDiseaseClassification", "None");
+				tbResponseObj.put("tbDiseaseClassificationDate", "");
+			}
+
+			CalculationResult tbPatientClassification = evaluate(TbPatientClassificationCalculation.class, patient, context);
+			if(tbPatientClassification != null){
+				Obs obs  = (Obs) tbPatientClassification.getValue();
+				if(obs.getValueCoded().equals(Dictionary.getConcept(Dictionary.SMEAR_POSITIVE_NEW_TUBERCULOSIS_PATIENT))) {
+					tbResponseObj.put("tbPatientClassification", "New tuberculosis patient");
+				}
+				else {
+					tbResponseObj.put("tbPatientClassification", obs.getValueCoded().getName().getName());
+				}
+			}
+
+			CalculationResult tbTreatmentNo = evaluate(TbTreatmentNumberCalculation.class, patient, context);
+			if(tbTreatmentNo != null && tbTreatmentNo.getValue() != null) {
+				tbResponseObj.put("tbTreatmentNumber", (Obs) tbTreatmentNo.getValue());
+			} else {
+				tbResponseObj.put("tbTreatmentNumber", "None");
+			}
+			Encounter lastTBEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "TB");
+			SimpleObject lastTBEncDetails = null;
+			if (lastTBEnc != null) {
+				lastTBEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastTBEnc.getObs(), lastTBEnc);
+			}
+			tbResponseObj.put("lastTbEncounter", lastTBEncDetails);
+			panels.put("TB", tbResponseObj);
+		}
+	}
+
+	/**
+	 * Adds the MCH mother and child panels
+	 */
+	private void mchPanels(Patient patient, PatientCalculationContext context, Map<String, SimpleObject> panels) {
+		SimpleObject mchMotherResponseObj = new SimpleObject();
+		SimpleObject mchChildResponseObj = new SimpleObject();
+		Program hivProgram = MetadataUtils.existing(Program.class, HivMetadata._Program.HIV);
+		PatientWrapper patientWrapper = new PatientWrapper(patient);
+
+		Encounter lastMchEnrollment = patientWrapper.lastEncounter(MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHMS_ENROLLMENT));
+		Encounter lastMchFollowup = patientWrapper.lastEncounter(MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHMS_CONSULTATION));
+
+		if(lastMchEnrollment != null ) {
+			EncounterWrapper lastMchEnrollmentWrapped = null;
+			EncounterWrapper lastMchFollowUpWrapped = null;
+			//Check whether already in hiv program
+			CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()), context);
+			PatientProgram program = EmrCalculationUtils.resultForPatient(enrolled, patient.getPatientId());
+
+			if (lastMchEnrollment != null) {
+				lastMchEnrollmentWrapped = new EncounterWrapper(lastMchEnrollment);
+			}
+			if (lastMchFollowup != null) {
+				lastMchFollowUpWrapped = new EncounterWrapper(lastMchFollowup);
+			}
+
+			Obs hivEnrollmentStatusObs = null;
+			Obs hivFollowUpStatusObs = null;
+
+			if (lastMchEnrollmentWrapped != null) {
+				hivEnrollmentStatusObs = lastMchEnrollmentWrapped.firstObs(Dictionary.getConcept(Dictionary.HIV_STATUS));
+			}
+			if (lastMchFollowUpWrapped != null) {
+				hivFollowUpStatusObs = lastMchFollowUpWrapped.firstObs(Dictionary.getConcept(Dictionary.HIV_STATUS));
+			}
+			//Check if already enrolled in HIV, add regimen
+			if(program != null) {
+				String regimenName = null;
+				String regimenStartDate = null;
+				Encounter lastDrugRegimenEditorEncounter = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");   //last DRUG_REGIMEN_EDITOR encounter
+				if (lastDrugRegimenEditorEncounter != null) {
+					SimpleObject o = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastDrugRegimenEditorEncounter.getAllObs(), lastDrugRegimenEditorEncounter);
+					regimenName = o.get("regimenShortDisplay").toString();
+					regimenStartDate = o.get("startDate").toString();
+					if (regimenName != null) {
+						mchMotherResponseObj.put("hivStatus", "Positive");
+						mchMotherResponseObj.put("hivStatusDate", regimenStartDate);
+						mchMotherResponseObj.put("onHaart", "Yes (" + regimenName + ")");
+						mchMotherResponseObj.put("onHaartDate", regimenStartDate);
+					} else {
+						mchMotherResponseObj.put("hivStatus", "Positive");
+						mchMotherResponseObj.put("hivStatusDate", regimenStartDate);
+						mchMotherResponseObj.put("onHaart", "Not specified");
+						mchMotherResponseObj.put("onHaartDate", regimenStartDate);
+					}
+				}
+				//Check mch enrollment and followup forms
+			} else if(hivEnrollmentStatusObs != null || hivFollowUpStatusObs != null) {
+				String regimenName = null;
+				if(hivFollowUpStatusObs != null){
+					mchMotherResponseObj.put("hivStatus", hivFollowUpStatusObs.getValueCoded().getName().getName());
+					mchMotherResponseObj.put("hivStatusDate", hivFollowUpStatusObs.getValueDatetime());
+				}else {
+					mchMotherResponseObj.put("hivStatus", hivEnrollmentStatusObs.getValueCoded().getName().getName());
+					mchMotherResponseObj.put("hivStatusDate", hivEnrollmentStatusObs.getValueDatetime());
+				}
+				Encounter lastDrugRegimenEditorEncounter = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");   //last DRUG_REGIMEN_EDITOR encounter
+				mchMotherResponseObj.put("onHaart", hivEnrollmentStatusObs.getValueDatetime());
+				if (lastDrugRegimenEditorEncounter != null) {
+					SimpleObject o = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastDrugRegimenEditorEncounter.getAllObs(), lastDrugRegimenEditorEncounter);
+					regimenName = o.get("regimenShortDisplay").toString();
+					if (regimenName != null) {
+						if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("positive")) {
+							mchMotherResponseObj.put("onHaart", "Yes (" + regimenName + ")");
+						} else {
+							mchMotherResponseObj.put("onHaart", "Not specified");
+						}
+					} else {
+						mchMotherResponseObj.put("onHaart", "Not specified");
+					}
+
+				} else {
+					if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("negative")) {
+						mchMotherResponseObj.put("onHaart", "Not applicable");
+					}
+					if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("unknown")) {
+						mchMotherResponseObj.put("onHaart", "Not applicable");
+					}
+					if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("positive")) {
+						mchMotherResponseObj.put("onHaart", "Not specified");
+					}
+				}
+			}
+			panels.put("mchMother", mchMotherResponseObj);
+
+		}
+
+		//mch child details
+		Encounter lastHeiEnrollmentEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_ENROLLMENT));
+
+		if(lastHeiEnrollmentEncounter != null) {
+			List<Obs> milestones = new ArrayList<Obs>();
+			String prophylaxis;
+			String feeding;
+			String heiOutcomes;
+			Integer prophylaxisQuestion = 1282;
+			Integer feedingMethodQuestion = 1151;
+			Integer heiOutcomesQuestion = 159427;
+
+			EncounterType mchcs_consultation_encounterType = MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHCS_CONSULTATION);
+			Encounter lastMchcsConsultation = patientWrapper.lastEncounter(mchcs_consultation_encounterType);
+
+			Encounter lastHeiCWCFollowupEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_CONSULTATION));
+			Encounter lastHeiOutComeEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_HEI_COMPLETION));
+
+			if(lastHeiOutComeEncounter !=null){
+				for (Obs obs : lastHeiOutComeEncounter.getAllObs() ){
+					if (obs.getConcept().getConceptId().equals(heiOutcomesQuestion)) {
+						heiOutcomes = obs.getValueCoded().getName().toString();
+						mchChildResponseObj.put("heiOutcome", heiOutcomes);
+						mchChildResponseObj.put("heiOutcomeDate", obs.getValueDatetime());
+						break;
+					}
+				}
+			}
+			if (lastHeiEnrollmentEncounter != null) {
+				for (Obs obs : lastHeiEnrollmentEncounter.getObs()) {
+					if (obs.getConcept().getConceptId().equals(prophylaxisQuestion)) {
+						Integer heiProphylaxisObsAnswer = obs.getValueCoded().getConceptId();
+						if (heiProphylaxisObsAnswer.equals(86663)) {
+							prophylaxis = obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						} else if (heiProphylaxisObsAnswer.equals(80586)) {
+							prophylaxis =  obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						} else if (heiProphylaxisObsAnswer.equals(1652)) {
+							prophylaxis =  obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						} else if (heiProphylaxisObsAnswer.equals(1149)) {
+							prophylaxis =  obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						} else if (heiProphylaxisObsAnswer.equals(1107)) {
+							prophylaxis =  obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						} else {
+							mchChildResponseObj.put("currentProphylaxisUsed", "Not Specified");
+							mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
+						}
+					}
+
+				}
+			}
+			if (lastHeiCWCFollowupEncounter != null) {
+				for (Obs obs : lastHeiCWCFollowupEncounter.getObs()) {
+					if (obs.getConcept().getConceptId().equals(feedingMethodQuestion)) {
+						Integer heiBabyFeedingObsAnswer = obs.getValueCoded().getConceptId();
+						if (heiBabyFeedingObsAnswer.equals(5526)) {
+							feeding = obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentFeedingOption", feeding);
+							mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
+						} else if (heiBabyFeedingObsAnswer.equals(1595)) {
+							feeding = obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentFeedingOption", feeding);
+							mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
+						} else if (heiBabyFeedingObsAnswer.equals(6046)) {
+							feeding = obs.getValueCoded().getName().toString();
+							mchChildResponseObj.put("currentFeedingOption", feeding);
+							mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
+						} else {
+							mchChildResponseObj.put("currentFeedingOption", "Not Specified");
+							mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
+						}
+					}
+				}
+			}
+			if (lastMchcsConsultation != null) {
+				EncounterWrapper mchcsConsultationWrapper = new EncounterWrapper(lastMchcsConsultation);
+
+				milestones.addAll(mchcsConsultationWrapper.allObs(Dictionary.getConcept(Dictionary.DEVELOPMENTAL_MILESTONES)));
+				String joined = "";
+				if (milestones.size() > 0) {
+					StringBuilder sb = new StringBuilder();
+					for (Obs milestone : milestones) {
+						sb.append(milestone.getValueCoded().getName().toString());
+						sb.append(", ");
+					}
+					joined = sb.substring(0, sb.length() - 2);
+					mchChildResponseObj.put("milestonesAttained", joined);
+				} else {
+					mchChildResponseObj.put("milestonesAttained", "Not Specified");
+				}
+			}
+
+			panels.put("mchChild", mchChildResponseObj);
+		}
+	}
+
+	/**
+	 * Evaluates a calculation for a patient, sharing the results of the calculations it is built from
+	 */
+	private static CalculationResult evaluate(Class<? extends PatientCalculation> calculationClass, Patient patient, PatientCalculationContext context) {
+		PatientCalculation calculation = CalculationUtils.instantiateCalculation(calculationClass, null);
+		List<Integer> cohort = Collections.singletonList(patient.getPatientId());
+		return CalculationMemo.forContext(context).evaluate(calculation, cohort, context).get(patient.getPatientId());
+	}
+
+	/**
+	 * Formats a date, with a new format each time as formats aren't thread safe
+	 */
+	private static String formatDate(Date date) {
+		return date == null ? "" : new SimpleDateFormat(DATE_FORMAT).format(date);
+	}
+
+	/**
+	 * The care panels, which are evaluated independently
+	 */
+	private enum Panel {
+		HIV, TB, MCH
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the data which a patient flag calculation depends on, so that a cached flag is only re-evaluated when
+ * that data changes for the patient. Flag calculations without this annotation are re-evaluated after any change
+ * to the patient's encounters, obs, orders or program enrollments.
+ *
+ * Changes to the patient record itself (e.g. gender, birthdate or death) always invalidate all the patient's flags.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface FlagDependencies {
+
+	/**
+	 * @return the UUIDs of the encounter types whose encounters affect the flag
+	 */
+	String[] encounterTypes() default {};
+
+	/**
+	 * @return the UUIDs of the concepts whose obs or orders affect the flag
+	 */
+	String[] concepts() default {};
+
+	/**
+	 * @return the UUIDs of the programs whose enrollments affect the flag
+	 */
+	String[] programs() default {};
+
+	/**
+	 * @return whether the flag depends on the current date, e.g. days since the last visit, in which case it is
+	 * re-evaluated once a day
+	 */
+	boolean dateSensitive() default true;
+}
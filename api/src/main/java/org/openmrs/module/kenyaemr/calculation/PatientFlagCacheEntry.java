@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The cached flags of a patient. Besides the flags which evaluated to true, an entry records which flag
+ * calculations were evaluated and which of those have since been invalidated by changes to the patient's data.
+ */
+public class PatientFlagCacheEntry implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final HashMap<String, String> flags;
+
+	private final HashSet<String> evaluated;
+
+	private final ConcurrentHashMap<String, Date> invalidated = new ConcurrentHashMap<String, Date>();
+
+	private final Date lastUpdated;
+
+	/**
+	 * Creates a new entry
+	 * @param flags the map of flag calculation names to messages of the flags which evaluated to true
+	 * @param evaluated the names of all the flag calculations which were evaluated
+	 * @param lastUpdated the date as of which the flags were evaluated
+	 */
+	public PatientFlagCacheEntry(Map<String, String> flags, Collection<String> evaluated, Date lastUpdated) {
+		this.flags = new HashMap<String, String>(flags);
+		this.evaluated = new HashSet<String>(evaluated);
+		this.lastUpdated = lastUpdated;
+	}
+
+	/**
+	 * Gets the flags which evaluated to true
+	 * @return the map of flag calculation names to flag messages
+	 */
+	public Map<String, String> getFlags() {
+		return flags;
+	}
+
+	/**
+	 * Gets the date as of which the flags were evaluated
+	 * @return the date
+	 */
+	public Date getLastUpdated() {
+		return lastUpdated;
+	}
+
+	/**
+	 * Checks whether the given flag calculation has a valid result in this entry
+	 * @param flagName the flag calculation name
+	 * @return true if the calculation was evaluated and has not been invalidated since
+	 */
+	public boolean isValid(String flagName) {
+		return evaluated.contains(flagName) && !invalidated.containsKey(flagName);
+	}
+
+	/**
+	 * Marks the given flag calculation as needing re-evaluation
+	 * @param flagName the flag calculation name
+	 * @param date when the patient's data changed
+	 */
+	public void invalidate(String flagName, Date date) {
+		invalidated.put(flagName, date);
+	}
+
+	/**
+	 * Copies the invalidations of another entry which happened after the given date. Used when replacing an entry so
+	 * that changes made while the new flags were being evaluated are not lost.
+	 * @param other the entry being replaced
+	 * @param since when the evaluation of the new flags started
+	 */
+	public void retainInvalidations(PatientFlagCacheEntry other, Date since) {
+		for (Map.Entry<String, Date> invalidation : other.invalidated.entrySet()) {
+			if (!invalidation.getValue().before(since)) {
+				invalidated.put(invalidation.getKey(), invalidation.getValue());
+			}
+		}
+	}
+}
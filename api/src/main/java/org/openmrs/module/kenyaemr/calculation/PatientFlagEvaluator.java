@@ -0,0 +1,472 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyacore.calculation.CalculationManager;
+import org.openmrs.module.kenyacore.calculation.CalculationUtils;
+import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates patient flag calculations. Each flag calculation is evaluated once over all the requested patients and
+ * the calculations are evaluated concurrently on the {@link EvaluationExecutor}. Flags are cached per patient in the
+ * patientFlagCache and invalidated per flag calculation when the data it depends on changes, see
+ * {@link FlagDependencies}.
+ */
+@Component
+public class PatientFlagEvaluator {
+
+	protected static final Log log = LogFactory.getLog(PatientFlagEvaluator.class);
+
+	public static final String FLAG_CACHE = "patientFlagCache";
+
+	/**
+	 * Flags which can change in the course of a visit, so are re-evaluated even when cached
+	 */
+	private static final List<String> FLAGS_TO_REFRESH_ON_EVERY_REQUEST = Arrays.asList(
+			"EligibleForIDSRFlagsCalculation"
+	);
+
+	@Autowired
+	private CalculationManager calculationManager;
+
+	@Autowired
+	private EvaluationExecutor executor;
+
+	/**
+	 * The number of evaluations in progress for each patient, by patient UUID
+	 */
+	private final Map<String, Integer> evaluating = new HashMap<String, Integer>();
+
+	/**
+	 * When the data of patients being evaluated last changed, for patients without cached flags to record that on
+	 */
+	private final Map<String, Date> uncachedInvalidations = new HashMap<String, Date>();
+
+	/**
+	 * Gets the flags of a patient, from the flag cache where possible
+	 * @param patient the patient
+	 * @return the map of flag calculation names to flag messages
+	 */
+	public Map<String, String> getFlags(Patient patient) {
+		return getFlags(Collections.singletonList(patient)).get(patient.getId());
+	}
+
+	/**
+	 * Gets the flags of several patients, e.g. a clinic queue. Cached flags are only re-evaluated if they have been
+	 * invalidated by a change to the patient's data, are date sensitive and were evaluated for another day, or must be
+	 * refreshed on every request. Each flag calculation runs once over all the patients which need it.
+	 * @param patients the patients
+	 * @return the map of patient ids to maps of flag calculation names to flag messages
+	 */
+	public Map<Integer, Map<String, String>> getFlags(Collection<Patient> patients) {
+		return getFlags(patients, new Date());
+	}
+
+	/**
+	 * Gets the flags of several patients as they will be on the given date, e.g. to populate the flag cache the
+	 * night before an appointment day. Cached flags which are date sensitive and were evaluated for another day are
+	 * re-evaluated.
+	 * @param patients the patients
+	 * @param onDate the date as of which calculations are evaluated
+	 * @return the map of patient ids to maps of flag calculation names to flag messages
+	 */
+	public Map<Integer, Map<String, String>> getFlags(Collection<Patient> patients, Date onDate) {
+		Date evaluationStarted = beginEvaluation(patients);
+		try {
+			return getFlags(patients, onDate, evaluationStarted);
+		}
+		finally {
+			endEvaluation(patients);
+		}
+	}
+
+	/**
+	 * Gets the flags of several patients, see {@link #getFlags(Collection, Date)}
+	 * @param patients the patients
+	 * @param onDate the date as of which calculations are evaluated
+	 * @param evaluationStarted when the patients were registered as being evaluated
+	 * @return the map of patient ids to maps of flag calculation names to flag messages
+	 */
+	private Map<Integer, Map<String, String>> getFlags(Collection<Patient> patients, Date onDate, Date evaluationStarted) {
+		Cache cache = getFlagCache();
+
+		List<PatientFlagCalculation> calculations = new ArrayList<PatientFlagCalculation>(calculationManager.getFlagCalculations());
+		List<String> flagNames = new ArrayList<String>();
+		for (PatientFlagCalculation calc : calculations) {
+			flagNames.add(getFlagName(calc));
+		}
+
+		Map<Integer, Map<String, String>> ret = new HashMap<Integer, Map<String, String>>();
+		Map<PatientFlagCalculation, Set<Integer>> toEvaluate = new LinkedHashMap<PatientFlagCalculation, Set<Integer>>();
+		Set<Integer> evaluatedPatients = new HashSet<Integer>();
+
+		for (Patient patient : patients) {
+			PatientFlagCacheEntry entry = getCacheEntry(cache, patient.getUuid());
+			Map<String, String> flags = new HashMap<String, String>();
+			if (entry != null) {
+				flags.putAll(entry.getFlags());
+				flags.keySet().retainAll(flagNames);
+			}
+			ret.put(patient.getId(), flags);
+
+			for (PatientFlagCalculation calc : calculations) {
+				if (needsEvaluation(calc, entry, onDate)) {
+					flags.remove(getFlagName(calc));
+					if (!toEvaluate.containsKey(calc)) {
+						toEvaluate.put(calc, new HashSet<Integer>());
+					}
+					toEvaluate.get(calc).add(patient.getId());
+					evaluatedPatients.add(patient.getId());
+				}
+			}
+		}
+
+		Map<Integer, Map<String, String>> evaluated = evaluate(toEvaluate, onDate);
+		for (Map.Entry<Integer, Map<String, String>> patientFlags : evaluated.entrySet()) {
+			ret.get(patientFlags.getKey()).putAll(patientFlags.getValue());
+		}
+
+		if (cache != null && !evaluatedPatients.isEmpty()) {
+			synchronized (this) {
+				for (Patient patient : patients) {
+					if (evaluatedPatients.contains(patient.getId())) {
+						PatientFlagCacheEntry entry = new PatientFlagCacheEntry(ret.get(patient.getId()), flagNames, onDate);
+						PatientFlagCacheEntry current = getCacheEntry(cache, patient.getUuid());
+						if (current != null) {
+							entry.retainInvalidations(current, evaluationStarted);
+						}
+						else if (isInvalidatedSince(patient.getUuid(), evaluationStarted)) {
+							// The patient's data changed while their flags were evaluated, so they may already be stale
+							continue;
+						}
+						cache.put(patient.getUuid(), entry);
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Invalidates the cached flags of a patient which depend on the given data
+	 * @param patientUuid the patient UUID
+	 * @param encounterTypeUuids the UUIDs of the encounter types of the changed encounters
+	 * @param conceptUuids the UUIDs of the concepts of the changed obs and orders
+	 * @param programUuids the UUIDs of the programs of the changed enrollments
+	 */
+	public void invalidate(String patientUuid, Collection<String> encounterTypeUuids, Collection<String> conceptUuids, Collection<String> programUuids) {
+		List<String> flagNames = new ArrayList<String>();
+		for (PatientFlagCalculation calc : calculationManager.getFlagCalculations()) {
+			FlagDependencies dependencies = calc.getClass().getAnnotation(FlagDependencies.class);
+			if (dependencies == null
+					|| containsAny(encounterTypeUuids, dependencies.encounterTypes())
+					|| containsAny(conceptUuids, dependencies.concepts())
+					|| containsAny(programUuids, dependencies.programs())) {
+				flagNames.add(getFlagName(calc));
+			}
+		}
+		invalidate(patientUuid, flagNames);
+	}
+
+	/**
+	 * Invalidates all the cached flags of a patient, e.g. when the patient record itself changes
+	 * @param patientUuid the patient UUID
+	 */
+	public void invalidateAll(String patientUuid) {
+		Cache cache = getFlagCache();
+		if (cache == null) {
+			return;
+		}
+		synchronized (this) {
+			cache.evict(patientUuid);
+			recordUncachedInvalidation(patientUuid, new Date());
+		}
+	}
+
+	/**
+	 * Evaluates the given flag calculations for the given patients without using the flag cache
+	 * @param patientIds the patient ids
+	 * @param calculations the flag calculations
+	 * @return the map of patient ids to maps of flag calculation names to messages of the flags which evaluated to true
+	 */
+	public Map<Integer, Map<String, String>> evaluate(Collection<Integer> patientIds, Collection<PatientFlagCalculation> calculations) {
+		Map<PatientFlagCalculation, Set<Integer>> toEvaluate = new LinkedHashMap<PatientFlagCalculation, Set<Integer>>();
+		for (PatientFlagCalculation calc : calculations) {
+			toEvaluate.put(calc, new HashSet<Integer>(patientIds));
+		}
+
+		Map<Integer, Map<String, String>> ret = evaluate(toEvaluate, new Date());
+		for (Integer patientId : patientIds) {
+			if (!ret.containsKey(patientId)) {
+				ret.put(patientId, new HashMap<String, String>());
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Evaluates each flag calculation for its own set of patients. Calculations run concurrently, and calculations
+	 * which can only be evaluated one patient at a time are split into one batch of patients per pooled thread.
+	 * @param toEvaluate the map of flag calculations to the ids of the patients to evaluate them for
+	 * @param onDate the date as of which calculations are evaluated
+	 * @return the map of patient ids to maps of flag calculation names to messages of the flags which evaluated to true
+	 */
+	private Map<Integer, Map<String, String>> evaluate(Map<PatientFlagCalculation, Set<Integer>> toEvaluate, final Date onDate) {
+		Map<Integer, Map<String, String>> ret = new HashMap<Integer, Map<String, String>>();
+		List<Future<Map<Integer, String>>> futures = new ArrayList<Future<Map<Integer, String>>>();
+		List<PatientFlagCalculation> submitted = new ArrayList<PatientFlagCalculation>();
+
+		// Flag calculations share the results of the calculations they are built from
+		final CalculationMemo memo = new CalculationMemo();
+
+		for (Map.Entry<PatientFlagCalculation, Set<Integer>> entry : toEvaluate.entrySet()) {
+			final PatientFlagCalculation calc = entry.getKey();
+			final List<Integer> cohort = new ArrayList<Integer>(entry.getValue());
+			for (Integer patientId : cohort) {
+				if (!ret.containsKey(patientId)) {
+					ret.put(patientId, new HashMap<String, String>());
+				}
+			}
+
+			if (calc instanceof SinglePatientFlagCalculation) {
+				// Each pooled thread takes a share of the patients, rather than queueing a task per patient
+				int batches = Math.min(cohort.size(), executor.getThreads());
+				for (int b = 0; b < batches; b++) {
+					final List<Integer> batch = cohort.subList(b * cohort.size() / batches, (b + 1) * cohort.size() / batches);
+					futures.add(executor.submit(new Callable<Map<Integer, String>>() {
+						@Override
+						public Map<Integer, String> call() {
+							Map<Integer, String> flags = new HashMap<Integer, String>();
+							for (Integer patientId : batch) {
+								flags.putAll(evaluate(Collections.singletonList(patientId), calc.getClass(), onDate, memo));
+							}
+							return flags;
+						}
+					}));
+					submitted.add(calc);
+				}
+			}
+			else {
+				futures.add(executor.submit(new Callable<Map<Integer, String>>() {
+					@Override
+					public Map<Integer, String> call() {
+						return evaluate(cohort, calc.getClass(), onDate, memo);
+					}
+				}));
+				submitted.add(calc);
+			}
+		}
+
+		for (int i = 0; i < futures.size(); i++) {
+			String flagName = getFlagName(submitted.get(i));
+			try {
+				for (Map.Entry<Integer, String> flag : futures.get(i).get().entrySet()) {
+					ret.get(flag.getKey()).put(flagName, flag.getValue());
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				log.error("Interrupted evaluating " + flagName, ex);
+			}
+			catch (ExecutionException ex) {
+				log.error("Error evaluating " + flagName, ex.getCause());
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Evaluates a fresh instance of a flag calculation, as some flag calculations keep state between evaluations
+	 * @param cohort the patient ids
+	 * @param calculationClass the flag calculation class
+	 * @param onDate the date as of which the calculation is evaluated
+	 * @param memo the memo of calculation results shared by the flag calculations
+	 * @return the map of patient ids to flag messages for the patients whose flag evaluated to true
+	 */
+	private Map<Integer, String> evaluate(Collection<Integer> cohort, Class<? extends PatientFlagCalculation> calculationClass, Date onDate, CalculationMemo memo) {
+		PatientFlagCalculation calc = CalculationUtils.instantiateCalculation(calculationClass, null);
+		PatientCalculationService calculationService = Context.getService(PatientCalculationService.class);
+		PatientCalculationContext context = calculationService.createCalculationContext();
+		context.setNow(onDate);
+		memo.attach(context);
+		CalculationResultMap results = calculationService.evaluate(cohort, calc, context);
+
+		Map<Integer, String> flags = new HashMap<Integer, String>();
+		for (Integer patientId : cohort) {
+			CalculationResult result = results.get(patientId);
+			if (result != null && Boolean.TRUE.equals(result.getValue())) {
+				flags.put(patientId, calc.getFlagMessage());
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * Checks whether a flag calculation must be evaluated for a patient
+	 * @param calc the flag calculation
+	 * @param entry the cached flags of the patient (may be null)
+	 * @param onDate the date as of which flags are required
+	 * @return true if the flag must be evaluated
+	 */
+	private boolean needsEvaluation(PatientFlagCalculation calc, PatientFlagCacheEntry entry, Date onDate) {
+		String flagName = getFlagName(calc);
+		if (entry == null || !entry.isValid(flagName) || FLAGS_TO_REFRESH_ON_EVERY_REQUEST.contains(flagName)) {
+			return true;
+		}
+		FlagDependencies dependencies = calc.getClass().getAnnotation(FlagDependencies.class);
+		boolean dateSensitive = dependencies == null || dependencies.dateSensitive();
+		return dateSensitive && !DateUtils.isSameDay(entry.getLastUpdated(), onDate);
+	}
+
+	/**
+	 * Marks the given flags of a patient as needing re-evaluation
+	 * @param patientUuid the patient UUID
+	 * @param flagNames the flag calculation names
+	 */
+	private void invalidate(String patientUuid, Collection<String> flagNames) {
+		Cache cache = getFlagCache();
+		if (cache == null || flagNames.isEmpty()) {
+			return;
+		}
+		Date now = new Date();
+		synchronized (this) {
+			PatientFlagCacheEntry entry = getCacheEntry(cache, patientUuid);
+			if (entry != null) {
+				for (String flagName : flagNames) {
+					entry.invalidate(flagName, now);
+				}
+				cache.put(patientUuid, entry);
+			}
+			else {
+				recordUncachedInvalidation(patientUuid, now);
+			}
+		}
+	}
+
+	/**
+	 * Registers patients as being evaluated, so that changes to their data during the evaluation are recorded even if
+	 * they have no cached flags yet
+	 * @param patients the patients
+	 * @return when the evaluation started
+	 */
+	private synchronized Date beginEvaluation(Collection<Patient> patients) {
+		for (Patient patient : patients) {
+			Integer count = evaluating.get(patient.getUuid());
+			evaluating.put(patient.getUuid(), count != null ? count + 1 : 1);
+		}
+		return new Date();
+	}
+
+	/**
+	 * Unregisters patients as being evaluated, forgetting their recorded changes once no evaluation needs them
+	 * @param patients the patients
+	 */
+	private synchronized void endEvaluation(Collection<Patient> patients) {
+		for (Patient patient : patients) {
+			Integer count = evaluating.get(patient.getUuid());
+			if (count == null || count <= 1) {
+				evaluating.remove(patient.getUuid());
+				uncachedInvalidations.remove(patient.getUuid());
+			}
+			else {
+				evaluating.put(patient.getUuid(), count - 1);
+			}
+		}
+	}
+
+	/**
+	 * Records a change to the data of a patient without cached flags, if their flags are being evaluated. Must be
+	 * called while synchronized on this evaluator.
+	 * @param patientUuid the patient UUID
+	 * @param date when the data changed
+	 */
+	private void recordUncachedInvalidation(String patientUuid, Date date) {
+		if (evaluating.containsKey(patientUuid)) {
+			uncachedInvalidations.put(patientUuid, date);
+		}
+	}
+
+	/**
+	 * Checks whether the data of a patient without cached flags changed during an evaluation. Must be called while
+	 * synchronized on this evaluator.
+	 * @param patientUuid the patient UUID
+	 * @param since when the evaluation started
+	 * @return true if the data changed on or after that date
+	 */
+	private boolean isInvalidatedSince(String patientUuid, Date since) {
+		Date invalidated = uncachedInvalidations.get(patientUuid);
+		return invalidated != null && !invalidated.before(since);
+	}
+
+	/**
+	 * Gets the cached flags of a patient
+	 * @param cache the flag cache (may be null)
+	 * @param patientUuid the patient UUID
+	 * @return the cache entry or null
+	 */
+	private static PatientFlagCacheEntry getCacheEntry(Cache cache, String patientUuid) {
+		Cache.ValueWrapper cached = cache != null ? cache.get(patientUuid) : null;
+		return cached != null && cached.get() instanceof PatientFlagCacheEntry ? (PatientFlagCacheEntry) cached.get() : null;
+	}
+
+	private static String getFlagName(PatientFlagCalculation calc) {
+		return calc.getClass().getSimpleName();
+	}
+
+	private static boolean containsAny(Collection<String> values, String[] dependencies) {
+		if (values == null) {
+			return false;
+		}
+		for (String dependency : dependencies) {
+			if (values.contains(dependency)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the patient flag cache
+	 * @return the cache or null if caching is not configured
+	 */
+	protected Cache getFlagCache() {
+		CacheManager cacheManager = Context.getRegisteredComponent("apiCacheManager", CacheManager.class);
+		return cacheManager != null ? cacheManager.getCache(FLAG_CACHE) : null;
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.Person;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculation;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.module.kenyacore.calculation.CalculationUtils;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.metadatadeploy.MissingMetadataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles the data of a patient summary, which is shown by the patient summary fragment and returned by the patient
+ * summary REST resource. The obs of all the concepts in a summary are fetched in a single query, and the first, last
+ * and all obs of each concept are taken from those. The calculations in a summary are evaluated in a single context
+ * which memoizes their results, so calculations which several of them are built from are evaluated only once.
+ */
+public class PatientSummaryAssembler {
+
+	protected static final Log log = LogFactory.getLog(PatientSummaryAssembler.class);
+
+	/**
+	 * The concepts whose obs are shown in a summary
+	 */
+	public static final String[] CONCEPTS = {
+			Dictionary.CIVIL_STATUS,
+			Dictionary.DATE_OF_HIV_DIAGNOSIS,
+			Dictionary.HEIGHT_CM,
+			Dictionary.WEIGHT_KG,
+			Dictionary.OXYGEN_SATURATION,
+			Dictionary.PULSE_RATE,
+			Dictionary.BLOOD_PRESSURE,
+			Dictionary.BLOOD_PRESSURE_DIASTOLIC,
+			Dictionary.LMP,
+			Dictionary.RESPIRATORY_RATE,
+			Dictionary.TB_SCREENING,
+			Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE,
+			Dictionary.TB_END_DATE,
+			Dictionary.CD4_COUNT,
+			Dictionary.CURRENT_WHO_STAGE,
+			Dictionary.CACX_SCREENING,
+			Dictionary.STI_SCREENING,
+			Dictionary.FAMILY_PLANNING_METHODS,
+			Dictionary.METHOD_OF_ENROLLMENT,
+			Dictionary.TRANSFER_FROM_FACILITY,
+			Dictionary.TRANSFER_OUT_FACILITY,
+			Dictionary.TREATMENT_SUPPORTER_NAME,
+			Dictionary.TREATMENT_SUPPORTER_RELATION,
+			Dictionary.TREATMENT_SUPPORTER_CONTACTS,
+			Dictionary.CHRONIC_ILLNESS,
+			Dictionary.ALLERGIES,
+			Dictionary.PREVIOUS_ON_ART,
+			Dictionary.PREVIOUS_ON_ART_PURPOSE_PMTCT,
+			Dictionary.PREVIOUS_ON_ART_PURPOSE_PEP,
+			Dictionary.PREVIOUS_ON_ART_PURPOSE_HAART,
+			Dictionary.PMTCT_REGIMEN_HIV_ENROLL,
+			Dictionary.PEP_REGIMEN_HIV_ENROLL,
+			Dictionary.PROBLEM_ADDED,
+			Dictionary.MEDICATION_ORDERS,
+			Dictionary.COTRIMOXAZOLE_DISPENSED,
+			Dictionary.ISONIAZID_DISPENSED
+	};
+
+	/**
+	 * Orders obs as calculations do, i.e. by date and then by id
+	 */
+	private static final Comparator<Obs> OBS_ORDER = new Comparator<Obs>() {
+		@Override
+		public int compare(Obs obs1, Obs obs2) {
+			int byDate = obs1.getObsDatetime().compareTo(obs2.getObsDatetime());
+			return byDate != 0 ? byDate : obs1.getObsId().compareTo(obs2.getObsId());
+		}
+	};
+
+	private final Patient patient;
+
+	private final PatientCalculationContext context;
+
+	private final CalculationMemo memo = new CalculationMemo();
+
+	/**
+	 * The obs of each concept, in order
+	 */
+	private final Map<Integer, List<Obs>> obsByConcept = new HashMap<Integer, List<Obs>>();
+
+	private final Map<Class<? extends PatientCalculation>, CalculationResult> results = new HashMap<Class<? extends PatientCalculation>, CalculationResult>();
+
+	/**
+	 * Creates an assembler for a patient's summary as of now
+	 * @param patient the patient
+	 */
+	public PatientSummaryAssembler(Patient patient) {
+		this(patient, new Date());
+	}
+
+	/**
+	 * Creates an assembler for a patient's summary as of a date
+	 * @param patient the patient
+	 * @param now the date
+	 */
+	public PatientSummaryAssembler(Patient patient, Date now) {
+		this.patient = patient;
+		this.context = Context.getService(PatientCalculationService.class).createCalculationContext();
+		this.context.setNow(now);
+		memo.attach(context);
+
+		List<Concept> concepts = new ArrayList<Concept>();
+		for (String identifier : CONCEPTS) {
+			// Missing concepts are reported if and when their obs are requested
+			try {
+				concepts.add(Dictionary.getConcept(identifier));
+			}
+			catch (MissingMetadataException ex) {
+				log.debug("Not loading obs of missing concept " + identifier);
+			}
+		}
+		loadObs(concepts);
+	}
+
+	/**
+	 * Gets the calculation context, for evaluating data which isn't taken from obs or calculations
+	 * @return the context
+	 */
+	public PatientCalculationContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Gets the first obs of a concept
+	 * @param conceptIdentifier the concept identifier
+	 * @return the obs, or null if there are none
+	 * @throws MissingMetadataException if the concept doesn't exist
+	 */
+	public Obs firstObs(String conceptIdentifier) {
+		List<Obs> obss = getObs(conceptIdentifier);
+		return obss.isEmpty() ? null : obss.get(0);
+	}
+
+	/**
+	 * Gets the last obs of a concept
+	 * @param conceptIdentifier the concept identifier
+	 * @return the obs, or null if there are none
+	 * @throws MissingMetadataException if the concept doesn't exist
+	 */
+	public Obs lastObs(String conceptIdentifier) {
+		List<Obs> obss = getObs(conceptIdentifier);
+		return obss.isEmpty() ? null : obss.get(obss.size() - 1);
+	}
+
+	/**
+	 * Gets all obs of a concept
+	 * @param conceptIdentifier the concept identifier
+	 * @return the obs, in order
+	 * @throws MissingMetadataException if the concept doesn't exist
+	 */
+	public List<Obs> allObs(String conceptIdentifier) {
+		return new ArrayList<Obs>(getObs(conceptIdentifier));
+	}
+
+	/**
+	 * Evaluates a calculation for the patient, or returns its result if it has already been evaluated
+	 * @param calculationClass the calculation class
+	 * @return the result
+	 */
+	public CalculationResult calculate(Class<? extends PatientCalculation> calculationClass) {
+		if (!results.containsKey(calculationClass)) {
+			PatientCalculation calculation = CalculationUtils.instantiateCalculation(calculationClass, null);
+			List<Integer> cohort = Arrays.asList(patient.getPatientId());
+			results.put(calculationClass, memo.evaluate(calculation, cohort, context).get(patient.getPatientId()));
+		}
+		return results.get(calculationClass);
+	}
+
+	private List<Obs> getObs(String conceptIdentifier) {
+		Concept concept = Dictionary.getConcept(conceptIdentifier);
+		if (!obsByConcept.containsKey(concept.getConceptId())) {
+			// Concepts which aren't part of the summary are loaded when first requested
+			loadObs(Collections.singletonList(concept));
+		}
+		return obsByConcept.get(concept.getConceptId());
+	}
+
+	/**
+	 * Loads the obs of concepts up to now, excluding voided obs as calculations do
+	 */
+	private void loadObs(List<Concept> concepts) {
+		if (concepts.isEmpty()) {
+			return;
+		}
+		for (Concept concept : concepts) {
+			obsByConcept.put(concept.getConceptId(), new ArrayList<Obs>());
+		}
+
+		List<Person> whom = Collections.singletonList((Person) patient);
+		for (Obs obs : Context.getObsService().getObservations(whom, null, concepts, null, null, null, null, null, null, null, context.getNow(), false)) {
+			List<Obs> obss = obsByConcept.get(obs.getConcept().getConceptId());
+			if (obss != null) {
+				obss.add(obs);
+			}
+		}
+		for (Concept concept : concepts) {
+			Collections.sort(obsByConcept.get(concept.getConceptId()), OBS_ORDER);
+		}
+	}
+}
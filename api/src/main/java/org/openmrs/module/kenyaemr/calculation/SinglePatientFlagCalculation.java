@@ -0,0 +1,19 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+
+/**
+ * A flag calculation whose message is built while it is evaluated, so it has to be evaluated for one patient at a
+ * time rather than over a cohort
+ */
+public interface SinglePatientFlagCalculation extends PatientFlagCalculation {
+}
@@ -14,7 +14,6 @@ import org.joda.time.Days;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.DateOfDiagnosisCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.DateOfEnrollmentArtCalculation;
 
@@ -27,7 +26,7 @@ import java.util.Map;
  * If HIV diagnosis date is blank, then Timely linkage = “Unknown”
  * Created by codehub on 18/06/15.
  */
-public class TimelyLinkageCalculation extends AbstractPatientCalculation {
+public class TimelyLinkageCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
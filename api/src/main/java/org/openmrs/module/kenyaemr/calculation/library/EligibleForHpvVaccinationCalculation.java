@@ -28,6 +28,7 @@ import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collection;
@@ -41,6 +42,7 @@ import java.util.Set;
 // This is for girls aged 9 - 14 years
 // No prior HPV vaccination question in triage is YES.
 //
+@FlagDependencies(concepts = { "160325AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" })
 public class EligibleForHpvVaccinationCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(EligibleForPregnancyTestCalculation.class);
 
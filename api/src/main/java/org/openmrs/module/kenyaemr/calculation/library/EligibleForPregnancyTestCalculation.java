@@ -18,9 +18,13 @@ import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 
 import java.util.Collection;
 import java.util.Map;
@@ -40,7 +44,10 @@ import java.util.Set;
  */
 
 
-        public class EligibleForPregnancyTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+        @FlagDependencies(
+                encounterTypes = { CommonMetadata._EncounterType.TRIAGE, MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHMS_DISCONTINUATION },
+                concepts = { Dictionary.PREGNANCY_STATUS, Dictionary.DATE_OF_CONFINEMENT })
+        public class EligibleForPregnancyTestCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
         protected static final Log log = LogFactory.getLog(EligibleForPregnancyTestCalculation.class);
 
        public static final EncounterType triageEncType = MetadataUtils.existing(EncounterType.class, CommonMetadata._EncounterType.TRIAGE);
@@ -32,6 +32,8 @@ import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.kenyaemr.util.HtsConstants;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -44,6 +46,10 @@ import java.util.Set;
  * There is a need to categorize high-risk Negative PMTCT Client
  */
 
+@FlagDependencies(
+        encounterTypes = { CommonMetadata._EncounterType.HTS, MchMetadata._EncounterType.MCHMS_CONSULTATION, "6e5ec039-8d2a-4172-b3fb-ee9d0ba647b7", "f091b067-bea5-4657-8445-cfec05dc46a2" },
+        programs = { MchMetadata._Program.MCHMS },
+        dateSensitive = false)
 public class HighRiskNegativeClientCategorizationCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(HighRiskNegativeClientCategorizationCalculation.class);
 
@@ -39,6 +39,8 @@ import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.kenyaemr.util.HtsConstants;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 
 import java.util.Collection;
 import java.util.Date;
@@ -51,6 +53,10 @@ import java.util.Set;
  * There is a need to categorize high-risk PMTCT Client
  */
 
+@FlagDependencies(
+        encounterTypes = { CommonMetadata._EncounterType.HTS, MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, HivMetadata._EncounterType.HIV_ENROLLMENT },
+        concepts = { Dictionary.HIV_VIRAL_LOAD },
+        programs = { HivMetadata._Program.HIV, MchMetadata._Program.MCHMS })
 public class HighRiskPositiveClientCategorizationCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(HighRiskPositiveClientCategorizationCalculation.class);
 
@@ -22,6 +22,7 @@ import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 
@@ -32,6 +33,10 @@ import java.util.Set;
 /**
  * Calculates the recorded pregnancy status of patients
  */
+@FlagDependencies(
+		encounterTypes = { MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHMS_DISCONTINUATION },
+		concepts = { Dictionary.PREGNANCY_STATUS, Dictionary.DATE_OF_CONFINEMENT },
+		dateSensitive = false)
 public class IsPregnantCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
 
 	@Override
@@ -21,7 +21,7 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -49,7 +49,7 @@ import java.util.Set;
  * alive, has a scheduled return visit in the past, and hasn't had an encounter since that date
  * Retired flag
  */
-public class MissedLastAppointmentCalculation extends AbstractPatientCalculation  {
+public class MissedLastAppointmentCalculation extends BaseEmrCalculation  {
 
 //	@Override
 //	public String getFlagMessage() {
@@ -14,7 +14,7 @@ import org.joda.time.Days;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.LastReturnVisitDateCalculation;
 
@@ -25,7 +25,7 @@ import java.util.Map;
 /**
  * Created by codehub on 10/7/15.
  */
-public class NumberOfDaysLateCalculation extends AbstractPatientCalculation {
+public class NumberOfDaysLateCalculation extends BaseEmrCalculation {
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> map, PatientCalculationContext context) {
 
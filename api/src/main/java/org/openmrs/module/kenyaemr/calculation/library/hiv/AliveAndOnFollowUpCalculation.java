@@ -12,7 +12,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv;
 import org.openmrs.Program;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Filters;
@@ -27,7 +27,7 @@ import java.util.Set;
 /**
  * Created by codehub on 24/06/15.
  */
-public class AliveAndOnFollowUpCalculation extends AbstractPatientCalculation {
+public class AliveAndOnFollowUpCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
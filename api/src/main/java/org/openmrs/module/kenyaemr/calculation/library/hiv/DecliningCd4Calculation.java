@@ -12,7 +12,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv;
 import org.openmrs.Program;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -33,7 +33,7 @@ import java.util.Set;
  * is alive, enrolled in the HIV program and last CD4 count is less than CD4 count from 6 months ago
  *  Retired flag
  */
-public class DecliningCd4Calculation extends AbstractPatientCalculation  {
+public class DecliningCd4Calculation extends BaseEmrCalculation  {
 
 	/**
 	 * @see org.openmrs.module.kenyacore.calculation.PatientFlagCalculation#getFlagMessage()
@@ -25,7 +25,7 @@ import org.openmrs.module.appointments.service.AppointmentsService;
 import org.openmrs.module.appointments.model.Appointment;
 import org.openmrs.module.appointments.model.AppointmentSearchRequest;
 import org.openmrs.module.appointments.model.AppointmentStatus;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -51,7 +51,7 @@ import java.util.Set;
  * longer follow-up intervals (depends on clinician ==>longer than 30 days)
  *
  **/
-public class EligibleForFastrackPatientsCalculation extends AbstractPatientCalculation {
+public class EligibleForFastrackPatientsCalculation extends BaseEmrCalculation {
 
     protected static final Log log = LogFactory.getLog(EligibleForFastrackPatientsCalculation.class);
     static ConceptService conceptService = Context.getConceptService();
@@ -19,6 +19,7 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.ActiveInMCHProgramCalculation;
@@ -36,7 +37,7 @@ import java.util.*;
 
 import static org.openmrs.module.kenyaemrorderentry.util.Utils.daysBetween;
 
-public class LastestVLTakenWithinIntervalCalculation extends AbstractPatientCalculation {
+public class LastestVLTakenWithinIntervalCalculation extends BaseEmrCalculation {
     protected static final Log log = LogFactory.getLog(LastestVLTakenWithinIntervalCalculation.class);
 
     /**
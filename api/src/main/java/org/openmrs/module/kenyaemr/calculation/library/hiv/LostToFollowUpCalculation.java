@@ -33,6 +33,7 @@ import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,6 +48,9 @@ import static org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils.daysSi
  * is alive and discontinued from Hiv program,
  * Or enrolled in the HIV program, but hasn't had an encounter in LOST_TO_FOLLOW_UP_THRESHOLD_DAYS days = 30 days
  */
+@FlagDependencies(
+		encounterTypes = { HivMetadata._EncounterType.HIV_ENROLLMENT, HivMetadata._EncounterType.HIV_CONSULTATION, HivMetadata._EncounterType.HIV_DISCONTINUATION },
+		programs = { HivMetadata._Program.HIV })
 public class LostToFollowUpCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
 
 	@Override
@@ -34,6 +34,7 @@ import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,6 +48,8 @@ import static org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils.daysSi
 /**
  * Created by codehub on 05/06/15.
  */
+@FlagDependencies(
+        encounterTypes = { CommonMetadata._EncounterType.CACX_SCREENING, CommonMetadata._EncounterType.ONCOLOGY_SCREENING })
 public class NeedsCACXTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(NeedsCACXTestCalculation.class);
 
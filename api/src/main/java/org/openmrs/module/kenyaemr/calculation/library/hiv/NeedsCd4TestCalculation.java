@@ -21,12 +21,14 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ObsResult;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.PreviousHIVClinicalVisitTCACalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.*;
 
@@ -37,7 +39,11 @@ import java.util.*;
  * 2. Is PLHIV ≥5 years of age and who had previously initiated ART and are re-initiating after more than 3 months)
  * 3. Individuals who have documented persistent unsuppressed viral load (2 viral load vl >1000 copies within 3-6 months)
  */
-public class NeedsCd4TestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { HivMetadata._EncounterType.HIV_ENROLLMENT, HivMetadata._EncounterType.HIV_CONSULTATION, HivMetadata._EncounterType.HIV_DISCONTINUATION },
+        concepts = { Dictionary.CD4_COUNT, Dictionary.CD4_PERCENT, Dictionary.CD4_COUNT_QUALITATIVE, Dictionary.HIV_VIRAL_LOAD },
+        programs = { HivMetadata._Program.HIV })
+public class NeedsCd4TestCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
 
     @Override
     public String getFlagMessage() {
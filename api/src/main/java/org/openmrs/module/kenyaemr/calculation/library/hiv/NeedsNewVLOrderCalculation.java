@@ -20,13 +20,23 @@ import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 
 import java.util.*;
 
 /**
  * Created by codehub on 05/06/15.
  */
-public class NeedsNewVLOrderCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { HivMetadata._EncounterType.HIV_ENROLLMENT, HivMetadata._EncounterType.HIV_CONSULTATION, HivMetadata._EncounterType.HIV_DISCONTINUATION, CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR, MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHMS_DISCONTINUATION },
+        concepts = { Dictionary.HIV_VIRAL_LOAD, Dictionary.HIV_VIRAL_LOAD_QUALITATIVE, Dictionary.ANTIRETROVIRAL_TREATMENT_START_DATE, Dictionary.PREGNANCY_STATUS, Dictionary.DATE_OF_CONFINEMENT, Dictionary.CURRENTLY_BREASTFEEDING, Dictionary.INFANT_FEEDING_METHOD },
+        programs = { HivMetadata._Program.HIV, MchMetadata._Program.MCHMS })
+public class NeedsNewVLOrderCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(StablePatientsCalculation.class);
     /**
      * @see PatientFlagCalculation#getFlagMessage()
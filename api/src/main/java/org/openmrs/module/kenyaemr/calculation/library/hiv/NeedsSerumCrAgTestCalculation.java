@@ -20,16 +20,22 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.Dictionary;
 
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 
-public class NeedsSerumCrAgTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        concepts = { Dictionary.CD4_COUNT, Dictionary.CREATININE, "167452AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" },
+        programs = { HivMetadata._Program.HIV })
+public class NeedsSerumCrAgTestCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(StablePatientsCalculation.class);
 
     /**
@@ -21,6 +21,7 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.*;
@@ -30,6 +31,9 @@ import org.openmrs.module.kenyaemr.calculation.library.hiv.art.OnArtCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.ui.framework.SimpleObject;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 
 import java.util.Collection;
 import java.util.Date;
@@ -39,7 +43,11 @@ import java.util.Set;
 import static org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils.daysSince;
 import static org.openmrs.module.kenyaemrorderentry.util.Utils.getLatestObs;
 
-public class NeedsViralLoadTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { HivMetadata._EncounterType.HIV_ENROLLMENT, HivMetadata._EncounterType.HIV_CONSULTATION, HivMetadata._EncounterType.HIV_DISCONTINUATION, CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR, MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHMS_DISCONTINUATION },
+        concepts = { Dictionary.HIV_VIRAL_LOAD, Dictionary.HIV_VIRAL_LOAD_QUALITATIVE, Dictionary.ANTIRETROVIRAL_TREATMENT_START_DATE, Dictionary.PREGNANCY_STATUS, Dictionary.DATE_OF_CONFINEMENT, Dictionary.CURRENTLY_BREASTFEEDING, Dictionary.INFANT_FEEDING_METHOD },
+        programs = { HivMetadata._Program.HIV, MchMetadata._Program.MCHMS })
+public class NeedsViralLoadTestCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(StablePatientsCalculation.class);
 
     /**
@@ -64,6 +72,10 @@ public class NeedsViralLoadTestCalculation extends AbstractPatientCalculation im
 
         Set<Integer> alive = Filters.alive(cohort, context);
         Set<Integer> inHivProgram = Filters.inProgram(hivProgram, alive, context);
+        // These don't depend on each other, so evaluate them up front and concurrently
+        calculateConcurrently(cohort, context, new IsPregnantCalculation(), new IsBreastFeedingCalculation(), new OnArtCalculation(),
+                new PendingViralLoadResultCalculation(), new PregnancyStartDateCalculation(), new BreastFeedingStartDateCalculation(),
+                new InitialArtStartDateCalculation(), new LostToFollowUpCalculation(), new ActiveInMCHProgramCalculation());
         //Cohorts to consider
         //  Pregnant
         Set<Integer> pregnant = CalculationUtils.patientsThatPass(calculate(new IsPregnantCalculation(), cohort, context));
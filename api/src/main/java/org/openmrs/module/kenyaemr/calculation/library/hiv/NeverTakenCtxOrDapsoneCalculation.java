@@ -16,7 +16,7 @@ import org.openmrs.Program;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -36,7 +36,7 @@ import java.util.Set;
 /**
  * Calculates whether patients have taken CTX or Dapsone
  */
-public class NeverTakenCtxOrDapsoneCalculation extends AbstractPatientCalculation {
+public class NeverTakenCtxOrDapsoneCalculation extends BaseEmrCalculation {
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -18,7 +18,7 @@ import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -29,6 +29,8 @@ import org.openmrs.module.kenyaemr.calculation.library.hiv.art.OnArtCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.Dictionary;
 
 import java.util.Collection;
 import java.util.Map;
@@ -41,7 +43,10 @@ import java.util.Set;
  * 1.2 Patients with CD4 cell count of <200 cells for adults, adolescents, and children 5yrs and older
  * 1.3 All children younger than five years
  */
-public class PatientsWithAdvancedHivDiseaseCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+		concepts = { Dictionary.CURRENT_WHO_STAGE, Dictionary.Initial_World_Health_Organization_HIV_stage, Dictionary.CD4_COUNT, "167718AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" },
+		programs = { HivMetadata._Program.HIV })
+public class PatientsWithAdvancedHivDiseaseCalculation extends BaseEmrCalculation implements PatientFlagCalculation {
 	protected static final Log log = LogFactory.getLog(PatientsWithAdvancedHivDiseaseCalculation.class);
 
 	@Override
@@ -26,6 +26,7 @@ import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Collection;
 import java.util.List;
@@ -35,6 +36,9 @@ import java.util.Set;
 /**
  * Created by schege on 27/04/23.
  */
+@FlagDependencies(
+        concepts = { Dictionary.CD4_COUNT, Dictionary.CD4_PERCENT, Dictionary.CD4_COUNT_QUALITATIVE },
+        programs = { HivMetadata._Program.HIV })
 public class PendingCD4ResultCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
 
     /**
@@ -21,6 +21,8 @@ import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.api.context.Context;
@@ -33,6 +35,7 @@ import java.util.Set;
 /**
  * Created by pwangoo on 04/03/19.
  */
+@FlagDependencies(concepts = { Dictionary.HIV_VIRAL_LOAD }, programs = { HivMetadata._Program.HIV })
 public class PendingViralLoadResultCalculation  extends AbstractPatientCalculation implements PatientFlagCalculation {
 
     /**
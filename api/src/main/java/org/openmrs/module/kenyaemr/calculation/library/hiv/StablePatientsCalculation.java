@@ -18,7 +18,7 @@ import org.openmrs.api.ConceptService;
 import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Filters;
@@ -45,7 +45,7 @@ import java.util.Set;
  *
  * Adds "Stable" flag on patient's dashboard
  */
-public class StablePatientsCalculation extends AbstractPatientCalculation{
+public class StablePatientsCalculation extends BaseEmrCalculation{
 
     protected static final Log log = LogFactory.getLog(StablePatientsCalculation.class);
     static ConceptService conceptService = Context.getConceptService();
@@ -15,7 +15,7 @@ import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyaemr.Dictionary;
@@ -29,7 +29,7 @@ import java.util.Map;
 /**
  * Created by codehub on 22/01/15.
  */
-public class CD4AtARTInitiationCalculation  extends AbstractPatientCalculation {
+public class CD4AtARTInitiationCalculation  extends BaseEmrCalculation {
 	/**
 	 * Evaluates a calculation for a cohort of patients taking into consideration any specified
 	 * parameter values and contextual information. <br/>
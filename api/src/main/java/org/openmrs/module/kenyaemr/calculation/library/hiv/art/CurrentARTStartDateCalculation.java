@@ -14,7 +14,7 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.regimen.RegimenOrder;
 
 import java.util.Collection;
@@ -25,7 +25,7 @@ import java.util.Set;
 /**
  * Created by codehub on 22/01/15.
  */
-public class CurrentARTStartDateCalculation extends AbstractPatientCalculation {
+public class CurrentARTStartDateCalculation extends BaseEmrCalculation {
 	/**
 	 * Evaluates a calculation for a cohort of patients taking into consideration any specified
 	 * parameter values and contextual information. <br/>
@@ -12,7 +12,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv.art;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 
@@ -24,7 +24,7 @@ import java.util.Set;
 /**
  * Created by codehub on 06/07/15.
  */
-public class CurrentArtLineCalculation extends AbstractPatientCalculation {
+public class CurrentArtLineCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
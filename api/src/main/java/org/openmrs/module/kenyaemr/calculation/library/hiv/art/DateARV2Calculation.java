@@ -13,7 +13,7 @@ import org.openmrs.DrugOrder;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyaemr.regimen.RegimenOrder;
 
@@ -25,7 +25,7 @@ import java.util.Set;
 /**
  * Date a patient changed to second line of arv
  */
-public class DateARV2Calculation extends AbstractPatientCalculation {
+public class DateARV2Calculation extends BaseEmrCalculation {
 
 	@Override
 	public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues,
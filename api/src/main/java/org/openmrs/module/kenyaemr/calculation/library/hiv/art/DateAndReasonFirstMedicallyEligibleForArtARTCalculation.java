@@ -20,7 +20,7 @@ import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyacore.calculation.Filters;
@@ -47,7 +47,7 @@ import java.util.Set;
 /**
  * Created by codehub on 9/14/15.
  */
-public class DateAndReasonFirstMedicallyEligibleForArtARTCalculation extends AbstractPatientCalculation {
+public class DateAndReasonFirstMedicallyEligibleForArtARTCalculation extends BaseEmrCalculation {
 
 
 
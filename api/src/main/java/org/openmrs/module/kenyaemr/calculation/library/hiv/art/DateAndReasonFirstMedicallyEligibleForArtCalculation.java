@@ -16,7 +16,7 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyacore.calculation.Filters;
@@ -44,7 +44,7 @@ import java.util.Set;
  * Created by codehub on 23/06/15.
  * Calculates the date and reason a patient was eligible for ART
  */
-public class DateAndReasonFirstMedicallyEligibleForArtCalculation extends AbstractPatientCalculation {
+public class DateAndReasonFirstMedicallyEligibleForArtCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
@@ -13,7 +13,7 @@ import org.openmrs.Encounter;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.reporting.common.DateUtil;
@@ -27,7 +27,7 @@ import java.util.Map;
 /**
  * Created by codehub on 9/8/15.
  */
-public class DateLastSeenArtCalculation extends AbstractPatientCalculation {
+public class DateLastSeenArtCalculation extends BaseEmrCalculation {
 
 
     @Override
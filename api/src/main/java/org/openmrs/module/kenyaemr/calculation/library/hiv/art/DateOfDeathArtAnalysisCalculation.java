@@ -12,7 +12,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv.art;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.rdqa.DateOfDeathCalculation;
 import org.openmrs.module.reporting.common.DateUtil;
@@ -25,7 +25,7 @@ import java.util.Map;
 /**
  * Created by codehub on 9/8/15.
  */
-public class DateOfDeathArtAnalysisCalculation extends AbstractPatientCalculation {
+public class DateOfDeathArtAnalysisCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
@@ -14,7 +14,7 @@ import org.joda.time.Days;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 
 import java.util.Collection;
@@ -24,7 +24,7 @@ import java.util.Map;
 /**
  * Created by codehub on 16/07/15.
  */
-public class DaysFromEnrollmentToArtInitiationCalculation extends AbstractPatientCalculation {
+public class DaysFromEnrollmentToArtInitiationCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
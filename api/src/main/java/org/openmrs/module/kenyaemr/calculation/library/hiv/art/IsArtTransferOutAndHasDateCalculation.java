@@ -12,7 +12,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv.art;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.SimpleResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.models.TransferInAndDate;
 import org.openmrs.module.reporting.common.DateUtil;
@@ -25,7 +25,7 @@ import java.util.Map;
 /**
  * Created by codehub on 10/6/15.
  */
-public class IsArtTransferOutAndHasDateCalculation extends AbstractPatientCalculation {
+public class IsArtTransferOutAndHasDateCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params,PatientCalculationContext context) {
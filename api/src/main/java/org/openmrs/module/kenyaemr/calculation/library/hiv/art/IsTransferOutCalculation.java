@@ -15,7 +15,7 @@ import org.joda.time.DateTime;
 import org.joda.time.Days;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.DateOfLatestEnrollmentHivCalculation;
@@ -27,7 +27,7 @@ import java.util.Map;
 /**
  * Calculates whether a patient is a transfer out based on the status
  */
-public class IsTransferOutCalculation extends AbstractPatientCalculation {
+public class IsTransferOutCalculation extends BaseEmrCalculation {
 
 	/**
 	 * @see org.openmrs.calculation.patient.PatientCalculation#evaluate(java.util.Collection,
@@ -17,7 +17,7 @@ import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
 import org.openmrs.calculation.result.SimpleResult;
 import org.openmrs.module.kenyacore.CoreUtils;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.reporting.data.patient.definition.DrugOrdersForPatientDataDefinition;
@@ -32,7 +32,7 @@ import java.util.Set;
 /**
  * Created by codehub on 9/10/15.
  */
-public class StoppedARTDateCalculation extends AbstractPatientCalculation {
+public class StoppedARTDateCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
@@ -11,7 +11,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv.art;
 
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.IsTransferInAndHasDateCalculation;
@@ -29,7 +29,7 @@ import java.util.Map;
  * if artstart date is before transfer in date should return true
  * such that we can combine with other definition using AND NOT
  */
-public class TransferredInAfterArtStartCalculation extends AbstractPatientCalculation {
+public class TransferredInAfterArtStartCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
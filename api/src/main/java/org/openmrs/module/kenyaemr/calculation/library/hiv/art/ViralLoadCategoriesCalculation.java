@@ -16,12 +16,18 @@ import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
+import org.openmrs.module.kenyaemr.calculation.SinglePatientFlagCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.LostToFollowUpCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.NeedsViralLoadTestCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.PendingViralLoadResultCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.ui.framework.SimpleObject;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 
 import java.util.Collection;
 import java.util.Date;
@@ -29,7 +35,11 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils.daysSince;
-public class ViralLoadCategoriesCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { HivMetadata._EncounterType.HIV_ENROLLMENT, HivMetadata._EncounterType.HIV_CONSULTATION, HivMetadata._EncounterType.HIV_DISCONTINUATION, CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR, MchMetadata._EncounterType.MCHMS_ENROLLMENT, MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHMS_DISCONTINUATION },
+        concepts = { Dictionary.HIV_VIRAL_LOAD, Dictionary.HIV_VIRAL_LOAD_QUALITATIVE, Dictionary.ANTIRETROVIRAL_TREATMENT_START_DATE, Dictionary.PREGNANCY_STATUS, Dictionary.DATE_OF_CONFINEMENT, Dictionary.CURRENTLY_BREASTFEEDING, Dictionary.INFANT_FEEDING_METHOD },
+        programs = { HivMetadata._Program.HIV, MchMetadata._Program.MCHMS })
+public class ViralLoadCategoriesCalculation extends BaseEmrCalculation implements SinglePatientFlagCalculation {
         private String vlMessage;
         /*
         KHP3-525: Get the Last VL load- Categorize them into Unsuppressed (>1000), high viremia (400-999), low viremia (0-399)
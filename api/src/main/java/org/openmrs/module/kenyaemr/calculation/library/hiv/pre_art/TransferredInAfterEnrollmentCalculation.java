@@ -11,7 +11,7 @@ package org.openmrs.module.kenyaemr.calculation.library.hiv.pre_art;
 
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.FirstProgramEnrollment;
@@ -27,7 +27,7 @@ import java.util.Map;
 /**
  * Created by codehub on 11/19/15.
  */
-public class TransferredInAfterEnrollmentCalculation extends AbstractPatientCalculation {
+public class TransferredInAfterEnrollmentCalculation extends BaseEmrCalculation {
 
     @Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> params, PatientCalculationContext context) {
@@ -13,7 +13,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 
 import java.util.Collection;
@@ -25,7 +25,7 @@ import java.util.Set;
 /**
  * Takes a cohort of patients and returns mother/guardian visits
  */
-public class MotherGuardianVisitsCalculation extends AbstractPatientCalculation {
+public class MotherGuardianVisitsCalculation extends BaseEmrCalculation {
 	/**
 	 * @see org.openmrs.calculation.patient.PatientCalculation#evaluate(java.util.Collection, java.util.Map, org.openmrs.calculation.patient.PatientCalculationContext)
 	 */
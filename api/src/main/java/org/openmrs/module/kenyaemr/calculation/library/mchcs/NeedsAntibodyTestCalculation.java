@@ -19,11 +19,14 @@ import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.SinglePatientFlagCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Collection;
 import java.util.Date;
@@ -36,7 +39,11 @@ import static org.openmrs.module.kenyaemrorderentry.util.Utils.getLatestObs;
 /**
  * Determines whether a child at 9 months and above has had antibody test
  */
-public class NeedsAntibodyTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { MchMetadata._EncounterType.MCHCS_ENROLLMENT, MchMetadata._EncounterType.MCHCS_CONSULTATION, MchMetadata._EncounterType.MCHCS_HEI_COMPLETION, MchMetadata._EncounterType.MCHCS_DISCONTINUATION },
+        concepts = { Dictionary.HIV_DNA_POLYMERASE_CHAIN_REACTION_QUALITATIVE, "163722AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", Dictionary.RAPID_HIV_CONFIRMATORY_TEST, Dictionary.CHILDS_CURRENT_HIV_STATUS, Dictionary.EID_CWC_TEST, Dictionary.HEI_OUTCOME, Dictionary.INFANT_FEEDING_METHOD, Dictionary.TEXT_CONTEXT_STATUS },
+        programs = { MchMetadata._Program.MCHCS, HivMetadata._Program.HIV })
+public class NeedsAntibodyTestCalculation extends BaseEmrCalculation implements SinglePatientFlagCalculation {
     protected static final Log log = LogFactory.getLog(NeedsPcrTestCalculation.class);
 
     /**
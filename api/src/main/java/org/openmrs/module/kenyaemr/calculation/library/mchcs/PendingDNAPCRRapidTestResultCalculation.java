@@ -23,9 +23,11 @@ import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyaemr.calculation.SinglePatientFlagCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Collection;
 import java.util.List;
@@ -35,7 +37,10 @@ import java.util.Set;
 /**
  * Created by schege on 14/03/2023.
  */
-public class PendingDNAPCRRapidTestResultCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        concepts = { Dictionary.HIV_DNA_POLYMERASE_CHAIN_REACTION_QUALITATIVE, "163722AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" },
+        programs = { MchMetadata._Program.MCHCS })
+public class PendingDNAPCRRapidTestResultCalculation extends AbstractPatientCalculation implements SinglePatientFlagCalculation {
 
     /**
      * @see PatientFlagCalculation#getFlagMessage()
@@ -28,6 +28,7 @@ import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyaemr.calculation.SinglePatientFlagCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
@@ -35,13 +36,19 @@ import org.openmrs.module.kenyaemr.metadata.MchMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.kenyaemr.util.HtsConstants;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 
-public class DualHIVSyphilisCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+        encounterTypes = { MchMetadata._EncounterType.MCHMS_CONSULTATION, CommonMetadata._EncounterType.HTS },
+        concepts = { Dictionary.LAST_MONTHLY_PERIOD, "45AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", "165040AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", "159430AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", "299AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", "1029AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" },
+        programs = { HivMetadata._Program.HIV, MchMetadata._Program.MCHMS })
+public class DualHIVSyphilisCalculation extends AbstractPatientCalculation implements SinglePatientFlagCalculation {
     StringBuilder dualMessage = new StringBuilder();
 
     private Date currentDate = new Date();
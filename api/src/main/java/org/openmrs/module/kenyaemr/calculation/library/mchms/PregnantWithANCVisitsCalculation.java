@@ -16,7 +16,7 @@ import org.openmrs.Program;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
-import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyaemr.calculation.BaseEmrCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
@@ -33,7 +33,7 @@ import java.util.Set;
 /**
  * Calculates if a pregnant woman has a given number of ANC visits during a given period of time
  */
-public class PregnantWithANCVisitsCalculation extends AbstractPatientCalculation {
+public class PregnantWithANCVisitsCalculation extends BaseEmrCalculation {
 
 	@Override
     public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
@@ -18,6 +18,7 @@ import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
 import org.openmrs.module.kenyacore.calculation.BooleanResult;
 import org.openmrs.module.kenyacore.calculation.Filters;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 import org.openmrs.module.kenyaemr.metadata.OTZMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 
@@ -29,6 +30,7 @@ import java.util.Set;
  * Calculates whether a patient is currently enrolled in OTZ program
  *
  */
+@FlagDependencies(programs = { OTZMetadata._Program.OTZ }, dateSensitive = false)
 public class OnOTZProgramCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
 
 	protected static final Log log = LogFactory.getLog(OnOTZProgramCalculation.class);
@@ -10,28 +10,34 @@
 package org.openmrs.module.kenyaemr.calculation.library.surveillance;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.DateUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.DateTime;
-import org.joda.time.Days;
+import org.joda.time.Years;
 import org.openmrs.*;
-import org.openmrs.api.ConceptService;
-import org.openmrs.api.PatientService;
+import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.module.kenyacore.calculation.*;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.SinglePatientFlagCalculation;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
-import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
- * Calculates the eligibility for ILI screening flag for  patients
+ * Calculates the eligibility for IDSR flags for patients with an active visit, from the findings of their last triage,
+ * green card and clinical encounters. The findings of the whole cohort are loaded in a few queries and the suspected
+ * conditions are then worked out in memory by {@link IdsrScreening}.
  *
  * @should calculate Active visit
  * @should calculate cough for <= 10 days
@@ -42,10 +48,11 @@ import java.util.*;
  * SARI
  * * @should calculate admitted
  */
-public class EligibleForIDSRFlagsCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+@FlagDependencies(
+		encounterTypes = { CommonMetadata._EncounterType.TRIAGE, CommonMetadata._EncounterType.CONSULTATION, HivMetadata._EncounterType.HIV_CONSULTATION })
+public class EligibleForIDSRFlagsCalculation extends AbstractPatientCalculation implements SinglePatientFlagCalculation {
 	protected static final Log log = LogFactory.getLog(EligibleForIDSRFlagsCalculation.class);
 
-	List<String> idsrMessage = new ArrayList<String>();
 	String idsrMessageString = "";
 
 	public static final EncounterType triageEncType = MetadataUtils.existing(EncounterType.class, CommonMetadata._EncounterType.TRIAGE);
@@ -55,41 +62,10 @@ public class EligibleForIDSRFlagsCalculation extends AbstractPatientCalculation
 	public static final EncounterType greenCardEncType = MetadataUtils.existing(EncounterType.class, HivMetadata._EncounterType.HIV_CONSULTATION);
 	public static final Form greenCardForm = MetadataUtils.existing(Form.class, HivMetadata._Form.HIV_GREEN_CARD);
 
-	String SCREENING_QUESTION = "5219AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-
-	String FEVER = "140238AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String COUGH_PRESENCE = "143264AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String DURATION = "159368AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-
 	String TEMPERATURE = "5088AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
 	String PATIENT_OUTCOME = "160433AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
 	String INPATIENT_ADMISSION = "1654AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Chikungunya
-	String JOINT_PAIN = "116558AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Cholera
-	String VOMITING = "122983AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String WATERY_DIARRHEA = "161887AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Dysentry
-	String BLOOD_IN_STOOL = "117671AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String DIARRHEA = "142412AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Viral Haemorrhagic Fever
-	String BLEEDING_TENDENCIES = "162628AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//MALARIA
-	String HEADACHE = "139084AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String CHILLS = "871AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Measles
-	String RASH = "512AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String CORYZA = "106AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String CONJUCTIVITIS = "127777AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Rift Valley Fever
-	String JAUNDICE = "136443AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String DIZZINESS = "141830AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String MALAISE = "135367AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String SCREENING_QUESTION_EXAMINATION = "162737AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	//Polio
-	String LIMBS_WEAKNESS = "157498AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-	String ONSET_QUESTION = "d7a3441d-6aeb-49be-b7d6-b2a3bb39e78d";
-	String SUDDEN_ONSET = "162707AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	String INPATIENT_VISIT_TYPE = "a73e2ac6-263b-47fc-99fc-e0f2c09fc914";
 
 	/**
 	 * Evaluates the calculation
@@ -99,655 +75,146 @@ public class EligibleForIDSRFlagsCalculation extends AbstractPatientCalculation
 	public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
 
 		Set<Integer> alive = Filters.alive(cohort, context);
-		PatientService patientService = Context.getPatientService();
+		Map<Integer, IdsrScreening> screenings = getScreenings(alive, context);
 		CalculationResultMap ret = new CalculationResultMap();
 
+		Set<IdsrCondition> suspected = EnumSet.noneOf(IdsrCondition.class);
 		for (Integer ptId : alive) {
-			boolean eligible = false;			
-			List<Visit> activeVisits = Context.getVisitService().getActiveVisitsByPatient(patientService.getPatient(ptId));
-			if (!activeVisits.isEmpty()) {
-				Date currentDate = new Date();
-				Double tempValue = 0.0;
-				Double duration = 0.0;
-				Date dateCreated = null;
-				String onsetStatus = null;
-				SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-				String todayDate = dateFormat.format(currentDate);
-				Patient patient = patientService.getPatient(ptId);
-
-				Encounter lastTriageEncounter = EmrUtils.lastEncounter(patient, triageEncType, triageScreeningForm);
-				Encounter lastHivFollowUpEncounter = EmrUtils.lastEncounter(patient, greenCardEncType, greenCardForm);   //last greencard followup form
-				Encounter lastClinicalEncounter = EmrUtils.lastEncounter(patient, consultationEncType, clinicalEncounterForm);   //last clinical encounter form
+			IdsrScreening screening = screenings.get(ptId);
+			Set<IdsrCondition> conditions = screening != null ? screening.getSuspectedConditions() : EnumSet.noneOf(IdsrCondition.class);
+			suspected.addAll(conditions);
+			ret.put(ptId, new BooleanResult(!conditions.isEmpty(), this));
+		}
 
-				ConceptService cs = Context.getConceptService();
-				Concept screeningQuestion = cs.getConceptByUuid(SCREENING_QUESTION);
-				Concept screeningQuestionExam = cs.getConceptByUuid(SCREENING_QUESTION_EXAMINATION);
+		List<String> idsrMessage = new ArrayList<String>();
+		for (IdsrCondition condition : suspected) {
+			idsrMessage.add(condition.getName());
+		}
+		idsrMessageString = StringUtils.join(idsrMessage, ",");
+		return ret;
+	}
 
-				Concept measureFeverResult = cs.getConceptByUuid(FEVER);
-				Concept coughPresenceResult = cs.getConceptByUuid(COUGH_PRESENCE);
-				Concept adminQuestion = cs.getConceptByUuid(PATIENT_OUTCOME);
-				Concept admissionAnswer = cs.getConceptByUuid(INPATIENT_ADMISSION);
-				Concept jointPainResult = cs.getConceptByUuid(JOINT_PAIN);
-				Concept vomitingResult = cs.getConceptByUuid(VOMITING);
-				Concept wateryDiarrheaResult = cs.getConceptByUuid(WATERY_DIARRHEA);
-				Concept bloodyStoolResult = cs.getConceptByUuid(BLOOD_IN_STOOL);
-				Concept diarrheaResult = cs.getConceptByUuid(DIARRHEA);
-				Concept bleedingResult = cs.getConceptByUuid(BLEEDING_TENDENCIES);
-				Concept headacheResult = cs.getConceptByUuid(HEADACHE);
-				Concept chillsResult = cs.getConceptByUuid(CHILLS);
-				Concept rashResult = cs.getConceptByUuid(RASH);
-				Concept coryzaResult = cs.getConceptByUuid(CORYZA);
-				Concept conjunctivitisResult = cs.getConceptByUuid(CONJUCTIVITIS);
-				Concept jaundiceResult = cs.getConceptByUuid(JAUNDICE);
-				Concept dizzinessResult = cs.getConceptByUuid(DIZZINESS);
-				Concept malaiseResult = cs.getConceptByUuid(MALAISE);
-				Concept limbsWeaknessResult = cs.getConceptByUuid(LIMBS_WEAKNESS);				
-				//Conditions					
-				String chikungunya = "Chikungunya";				
-				String ili = "ILI";				
-				String sari = "SARI";				
-				String cholera = "Cholera";				
-				String dysentry = "Dysentery";				
-				String haemorrhagic_fever = "Haemorrhagic Fever";				
-				String malaria = "Malaria";				
-				String measles = "Measles";				
-				String rift_valley_fever = "Rift Valley Fever";				
-				String poliomyelitis = "Poliomyelitis";						
-				//Temperature
-				CalculationResultMap tempMap = Calculations.lastObs(cs.getConceptByUuid(TEMPERATURE), cohort, context);
-				//Fever
-				boolean triageEncounterHasFever = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, measureFeverResult) : false;
-				boolean hivFollowupEncounterHasFever = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, measureFeverResult) : false;
-				boolean clinicalEncounterHasFever = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, measureFeverResult) : false;
-				//Cough
-				boolean triageEncounterHasCough = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, coughPresenceResult) : false;
-				boolean hivFollowupEncounterHasCough = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, coughPresenceResult) : false;
-				boolean clinicalEncounterHasCough = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, coughPresenceResult) : false;
-				//Joint Pains
-				boolean triageEncounterHasJointPain = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, jointPainResult) : false;
-				boolean hivFollowupEncounterHasJointPain = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, jointPainResult) : false;
-				boolean clinicalEncounterHasJointPain = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, jointPainResult) : false;
-				// Vomiting
-				boolean triageEncounterHasVomit = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, vomitingResult) : false;
-				boolean hivFollowupEncounterHasVomit = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, vomitingResult) : false;
-				boolean clinicalEncounterHasVomit = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, vomitingResult) : false;
-				//Watery diarrhea
-				boolean triageEncounterHasWateryDiarrhea = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, wateryDiarrheaResult) : false;
-				boolean hivFollowupEncounterHasWateryDiarrhea = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, wateryDiarrheaResult) : false;
-				boolean clinicalEncounterHasWateryDiarrhea = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, wateryDiarrheaResult) : false;
-				//Diarrhea
-				boolean triageEncounterHasDiarrhea = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, diarrheaResult) : false;
-				boolean hivFollowupEncounterHasDiarrhea = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, diarrheaResult) : false;
-				boolean clinicalEncounterHasDiarrhea = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, diarrheaResult) : false;
-				//Blood in stool
-				boolean triageEncounterHasBloodyStool = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, bloodyStoolResult) : false;
-				boolean hivFollowupEncounterHasBloodyStool = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, bloodyStoolResult) : false;
-				boolean clinicalEncounterHasBloodyStool = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, bloodyStoolResult) : false;
-				//Bleeding tendencies
-				boolean triageEncounterHasBleeding = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, bleedingResult) : false;
-				boolean hivFollowupEncounterHasBleeding = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, bleedingResult) : false;
-				boolean clinicalEncounterHasBleeding = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, bleedingResult) : false;
-				//Headache
-				boolean triageEncounterHasHeadache = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, headacheResult) : false;
-				boolean hivFollowupEncounterHasHeadache = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, headacheResult) : false;
-				boolean clinicalEncounterHasHeadache = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, headacheResult) : false;
-				//Chills
-				boolean triageEncounterHasChills= lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, chillsResult) : false;
-				boolean hivFollowupEncounterHasChills = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, chillsResult) : false;
-				boolean clinicalEncounterHasChills = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, chillsResult) : false;
-				//Rash
-				boolean triageEncounterHasRash = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, rashResult) : false;
-				boolean hivFollowupEncounterHasRash = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, rashResult) : false;
-				boolean clinicalEncounterHasRash = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, rashResult) : false;
-				//Coryza
-				boolean triageEncounterHasCoryza = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, coryzaResult) : false;
-				boolean hivFollowupEncounterHasCoryza = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, coryzaResult) : false;
-				boolean clinicalEncounterHasCoryza = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, coryzaResult) : false;
-				//Conjunctivitis
-				boolean triageEncounterHasConjunctivitis = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, conjunctivitisResult) : false;
-				boolean hivFollowupEncounterHasConjunctivitis = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, conjunctivitisResult) : false;
-				boolean clinicalEncounterHasConjunctivitis = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, conjunctivitisResult) : false;
-				//Jaundice
-				boolean triageEncounterHasJaundice = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestionExam, jaundiceResult) : false;
-				boolean hivFollowupEncounterHasJaundice = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestionExam, jaundiceResult) : false;
-				boolean clinicalEncounterHasJaundice = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestionExam, jaundiceResult) : false;
-				//Dizziness
-				boolean triageEncounterHasDizziness = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, dizzinessResult) : false;
-				boolean hivFollowupEncounterHasDizziness = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, dizzinessResult) : false;
-				boolean clinicalEncounterHasDizziness = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, dizzinessResult) : false;
-				//Malaise
-				boolean triageEncounterHasMalaise = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, malaiseResult) : false;
-				boolean hivFollowupEncounterHasMalaise = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, malaiseResult) : false;
-				boolean clinicalEncounterHasMalaise = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, malaiseResult) : false;
-				//Weakness of limbs
-				boolean triageEncounterHasWeakLimbs = lastTriageEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastTriageEncounter, screeningQuestion, limbsWeaknessResult) : false;
-				boolean hivFollowupEncounterHasWeakLimbs = lastHivFollowUpEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastHivFollowUpEncounter, screeningQuestion, limbsWeaknessResult) : false;
-				boolean clinicalEncounterHasWeakLimbs = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, screeningQuestion, limbsWeaknessResult) : false;
+	/**
+	 * Loads the screenings of the patients who have an active visit
+	 * @param cohort the patient ids
+	 * @param context the calculation context
+	 * @return the screenings by patient id
+	 */
+	protected Map<Integer, IdsrScreening> getScreenings(Collection<Integer> cohort, PatientCalculationContext context) {
+		Map<Integer, IdsrScreening> screenings = new HashMap<Integer, IdsrScreening>();
+		if (cohort.isEmpty()) {
+			return screenings;
+		}
 
-				//Check admission status : Found in clinical encounter and type of visit
-				boolean patientAdmissionStatus = lastClinicalEncounter != null ? EmrUtils.encounterThatPassCodedAnswer(lastClinicalEncounter, adminQuestion, admissionAnswer) : false;
-				//Visit type is inpatient
-				Visit currentVisit = activeVisits.get(0);
-				Obs lastTempObs = EmrCalculationUtils.obsResultForPatient(tempMap, ptId);
-				if (lastTempObs != null) {
-					tempValue = lastTempObs.getValueNumeric();
+		EvaluationService evaluationService = Context.getService(EvaluationService.class);
+		EvaluationContext evaluationContext = new EvaluationContext();
+		Date now = context.getNow();
+
+		try {
+			// The type of the latest active visit and the age of each patient
+			SqlQueryBuilder visitQuery = new SqlQueryBuilder();
+			visitQuery.append("select v.patient_id, vt.uuid, p.birthdate from visit v");
+			visitQuery.append(" inner join visit_type vt on vt.visit_type_id = v.visit_type_id");
+			visitQuery.append(" inner join person p on p.person_id = v.patient_id");
+			visitQuery.append(" where v.voided = 0 and v.date_stopped is null and v.patient_id in (:patientIds)");
+			visitQuery.append(" order by v.date_started desc");
+			visitQuery.addParameter("patientIds", cohort);
+
+			Map<Integer, String> visitTypes = new HashMap<Integer, String>();
+			Map<Integer, Integer> ages = new HashMap<Integer, Integer>();
+			for (Object[] row : evaluationService.evaluateToList(visitQuery, evaluationContext)) {
+				Integer ptId = ((Number) row[0]).intValue();
+				if (!visitTypes.containsKey(ptId)) {
+					visitTypes.put(ptId, (String) row[1]);
+					ages.put(ptId, row[2] != null ? Years.yearsBetween(new DateTime(row[2]), new DateTime(now)).getYears() : null);
 				}
-				//Triage
-				if (lastTriageEncounter != null) {
-					//1. SARI and ILI
-					if (triageEncounterHasFever && triageEncounterHasCough) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if ((duration > 0.0 && duration < 10) && tempValue != null && tempValue >= 38.0) {
-									if (createdDate.equals(todayDate)) {
-										if (!patientAdmissionStatus && !currentVisit.getVisitType().getUuid().equals("a73e2ac6-263b-47fc-99fc-e0f2c09fc914")) {
-											eligible = true;
-											idsrMessage.add(ili);
-											break;
-										} else {
-											eligible = true;
-											idsrMessage.add(sari);											
-											break;
-										}
-									}
-								}
-							}							
-						}
-					}
-					//2. CHIKUNGUNYA
-					if (triageEncounterHasJointPain && triageEncounterHasFever) {						
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 38.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(chikungunya);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//3. CHOLERA
-					if (triageEncounterHasVomit && triageEncounterHasWateryDiarrhea) {
-						if (patient.getAge() > 2) {
-							for (Obs obs : lastTriageEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (dateCreated != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(cholera);
-										break;
-									}
-								}								
-							}
-						}
-					}
-					//4.Dysentry
-					if (triageEncounterHasBloodyStool && triageEncounterHasDiarrhea) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(dysentry);
-									break;
-								}
-							}							
-						}
-					}
-					//5. Viral Haemorrhagic fever
-					if (triageEncounterHasFever && triageEncounterHasBleeding) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(haemorrhagic_fever);
-									break;
-								}
-							}							
-						}
-					}
-					//6. Malaria
-					if (triageEncounterHasHeadache && triageEncounterHasChills && triageEncounterHasFever) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 1 && tempValue != null && tempValue >= 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(malaria);										
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//7.Measles				
-					if (triageEncounterHasFever && triageEncounterHasRash && triageEncounterHasCoryza && triageEncounterHasCough && triageEncounterHasConjunctivitis) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(measles);				
-										break;
-									}
-								}
-							}							
-						}
-					}
-
-					//8.Rift Valley Fever					
-					if (triageEncounterHasJaundice && triageEncounterHasDizziness && triageEncounterHasMalaise && triageEncounterHasFever) {
-						for (Obs obs : lastTriageEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(rift_valley_fever);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//9.Poliomyelitis
-					if (triageEncounterHasWeakLimbs) {
-						if (patient.getAge() < 15) {							
-							for (Obs obs : lastTriageEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (obs.getConcept().getUuid().equals(ONSET_QUESTION)) {
-									onsetStatus = obs.getValueCoded().getUuid();
-								}								
-								if (dateCreated != null && onsetStatus != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate) && onsetStatus.equals(SUDDEN_ONSET)) {
-										eligible = true;
-										idsrMessage.add(poliomyelitis);
-										break;
-									}
-								}								
-							}
-						}
+			}
+			if (visitTypes.isEmpty()) {
+				return screenings;
+			}
 
-					}
+			// The last triage, green card and clinical encounter of each patient
+			SqlQueryBuilder encounterQuery = new SqlQueryBuilder();
+			encounterQuery.append("select e.patient_id, e.encounter_type, max(e.encounter_id) from encounter e");
+			encounterQuery.append(" inner join (select patient_id, encounter_type, form_id, max(encounter_datetime) as last_datetime from encounter");
+			encounterQuery.append("  where voided = 0 and patient_id in (:patientIds) and ((encounter_type = :triageType and form_id = :triageForm)");
+			encounterQuery.append("  or (encounter_type = :greenCardType and form_id = :greenCardForm)");
+			encounterQuery.append("  or (encounter_type = :clinicalType and form_id = :clinicalForm))");
+			encounterQuery.append("  group by patient_id, encounter_type, form_id) l on l.patient_id = e.patient_id");
+			encounterQuery.append("  and l.encounter_type = e.encounter_type and l.form_id = e.form_id and l.last_datetime = e.encounter_datetime");
+			encounterQuery.append(" where e.voided = 0");
+			encounterQuery.append(" group by e.patient_id, e.encounter_type, e.form_id");
+			encounterQuery.addParameter("patientIds", visitTypes.keySet());
+			encounterQuery.addParameter("triageType", triageEncType.getEncounterTypeId());
+			encounterQuery.addParameter("triageForm", triageScreeningForm.getFormId());
+			encounterQuery.addParameter("greenCardType", greenCardEncType.getEncounterTypeId());
+			encounterQuery.addParameter("greenCardForm", greenCardForm.getFormId());
+			encounterQuery.addParameter("clinicalType", consultationEncType.getEncounterTypeId());
+			encounterQuery.addParameter("clinicalForm", clinicalEncounterForm.getFormId());
+
+			Map<Integer, Integer> encounterPatients = new HashMap<Integer, Integer>();
+			Set<Integer> clinicalEncounters = new HashSet<Integer>();
+			Map<Integer, IdsrScreening.Findings> findings = new HashMap<Integer, IdsrScreening.Findings>();
+			Map<Integer, List<IdsrScreening.Findings>> patientFindings = new HashMap<Integer, List<IdsrScreening.Findings>>();
+			for (Object[] row : evaluationService.evaluateToList(encounterQuery, evaluationContext)) {
+				Integer ptId = ((Number) row[0]).intValue();
+				Integer encounterId = ((Number) row[2]).intValue();
+				encounterPatients.put(encounterId, ptId);
+				if (consultationEncType.getEncounterTypeId().equals(((Number) row[1]).intValue())) {
+					clinicalEncounters.add(encounterId);
 				}
-
-				//Hiv followup encounter
-				if (lastHivFollowUpEncounter != null) {
-					//1. SARI and ILI
-					if (hivFollowupEncounterHasFever && hivFollowupEncounterHasCough) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if ((duration > 0.0 && duration < 10) && tempValue != null && tempValue >= 38.0) {
-									if (createdDate.equals(todayDate)) {
-										if (!patientAdmissionStatus && !currentVisit.getVisitType().getUuid().equals("a73e2ac6-263b-47fc-99fc-e0f2c09fc914")) {
-											eligible = true;
-											idsrMessage.add(ili);
-											break;
-										} else {
-											eligible = true;
-											idsrMessage.add(sari);
-											break;
-										}
-									}
-								}
-							}							
-						}
-					}
-					//2. CHIKUNGUNYA
-					if (hivFollowupEncounterHasJointPain && hivFollowupEncounterHasFever) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 38.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(chikungunya);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//3. CHOLERA
-					if (hivFollowupEncounterHasVomit && hivFollowupEncounterHasWateryDiarrhea) {
-						if (patient.getAge() > 2) {
-							for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (dateCreated != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(cholera);
-										break;
-									}
-								}	break;
-							}							
-						}
-					}
-
-					//4.Dysentry
-					if (hivFollowupEncounterHasBloodyStool && hivFollowupEncounterHasDiarrhea) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(dysentry);			
-									break;
-								}
-							}							
-						}
-					}
-					//5. Viral Haemorrhagic fever
-					if (hivFollowupEncounterHasFever && hivFollowupEncounterHasBleeding) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(haemorrhagic_fever);
-									break;
-								}
-							}							
-						}
-					}
-					//6. Malaria
-					if (hivFollowupEncounterHasHeadache && hivFollowupEncounterHasChills && hivFollowupEncounterHasFever) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 1 && tempValue != null && tempValue >= 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(malaria);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//7.Measles
-					if (hivFollowupEncounterHasFever && hivFollowupEncounterHasRash && hivFollowupEncounterHasCoryza && hivFollowupEncounterHasCough && hivFollowupEncounterHasConjunctivitis) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(measles);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//8.Rift Valley Fever
-					if (hivFollowupEncounterHasJaundice && hivFollowupEncounterHasDizziness && hivFollowupEncounterHasFever && hivFollowupEncounterHasMalaise) {
-						for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(rift_valley_fever);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//9.Poliomyelitis
-					if (hivFollowupEncounterHasWeakLimbs) {
-						if (patient.getAge() < 15) {
-							for (Obs obs : lastHivFollowUpEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (obs.getConcept().getUuid().equals(ONSET_QUESTION)) {
-									onsetStatus = obs.getValueCoded().getUuid();
-								}
-								if (dateCreated != null && onsetStatus != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate) && onsetStatus.equals(SUDDEN_ONSET)) {
-										eligible = true;
-										idsrMessage.add(poliomyelitis);
-										break;
-									}
-								}							
-							}
-
-						}
-					}
-
+				IdsrScreening.Findings encounterFindings = new IdsrScreening.Findings();
+				findings.put(encounterId, encounterFindings);
+				if (!patientFindings.containsKey(ptId)) {
+					patientFindings.put(ptId, new ArrayList<IdsrScreening.Findings>());
 				}
-				//Clinical Encounter
-				if (lastClinicalEncounter != null) {
-					//1. SARI and ILI
-					if (clinicalEncounterHasFever && clinicalEncounterHasCough) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-								if (dateCreated != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if ((duration > 0.0 && duration < 10) && tempValue != null && tempValue >= 38.0) {
-										if (createdDate.equals(todayDate)) {									
-											if (!patientAdmissionStatus && !currentVisit.getVisitType().getUuid().equals("a73e2ac6-263b-47fc-99fc-e0f2c09fc914")) {
-												eligible = true;
-												idsrMessage.add(ili);									
-												break;
-											} else {
-												eligible = true;
-												idsrMessage.add(sari);										
-												break;
-											}
-										}
-									}
-								}
-							}							
-						}
-					}
-					//2. CHIKUNGUNYA
-					if (clinicalEncounterHasJointPain && clinicalEncounterHasFever) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 38.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(chikungunya);							
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//3. CHOLERA
-					if (clinicalEncounterHasVomit && clinicalEncounterHasWateryDiarrhea) {
-						if (patient.getAge() > 2) {
-							for (Obs obs : lastClinicalEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (dateCreated != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(cholera);								
-										break;
-									}
-								}								
-							}
-							
-						}
-					}
-					//4.DYSENTRY
-					if (clinicalEncounterHasDiarrhea && clinicalEncounterHasBloodyStool) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(dysentry);						
-									break;
-								}
-							}							
-						}
-					}
-					//5. Viral Haemorrhagic fever
-					if (clinicalEncounterHasFever && clinicalEncounterHasBleeding) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (createdDate.equals(todayDate)) {
-									eligible = true;
-									idsrMessage.add(haemorrhagic_fever);					
-									break;
-								}
-							}							
-						}
-					}
-					//6. Malaria
-					if (clinicalEncounterHasHeadache && clinicalEncounterHasChills && clinicalEncounterHasFever) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 1 && tempValue != null && tempValue >= 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(malaria);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//7.Measles					
-					if (clinicalEncounterHasFever && clinicalEncounterHasRash && clinicalEncounterHasCoryza && clinicalEncounterHasCough && clinicalEncounterHasConjunctivitis) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(measles);
-										break;
-									}
-								}
-							}							
-						}
-					}
-					//8.Rift Valley Fever
-					if (clinicalEncounterHasJaundice && clinicalEncounterHasDizziness && clinicalEncounterHasFever && clinicalEncounterHasMalaise) {
-						for (Obs obs : lastClinicalEncounter.getObs()) {
-							dateCreated = obs.getDateCreated();
-							if (obs.getConcept().getUuid().equals(DURATION)) {
-								duration = obs.getValueNumeric();
-							}
-							if (dateCreated != null) {
-								String createdDate = dateFormat.format(dateCreated);
-								if (duration > 2 && tempValue != null && tempValue > 37.5) {
-									if (createdDate.equals(todayDate)) {
-										eligible = true;
-										idsrMessage.add(rift_valley_fever);
-									    break;
-									}
-								}
-							}							
-						}
-					}
-					//9.Poliomyelitis
-					if (clinicalEncounterHasWeakLimbs) {
-						if (patient.getAge() < 15) {
-							for (Obs obs : lastClinicalEncounter.getObs()) {
-								dateCreated = obs.getDateCreated();
-								if (obs.getConcept().getUuid().equals(ONSET_QUESTION)) {
-									onsetStatus = obs.getValueCoded().getUuid();
-								}
-								if (dateCreated != null && onsetStatus != null) {
-									String createdDate = dateFormat.format(dateCreated);
-									if (createdDate.equals(todayDate) && onsetStatus.equals(SUDDEN_ONSET)) {
-										eligible = true;
-										idsrMessage.add(poliomyelitis);						
-										break;
-									}
-								}								
-							}
-						}
-					}
+				patientFindings.get(ptId).add(encounterFindings);
+			}
+
+			// The screening obs of those encounters, and whether the clinical encounter admitted the patient
+			Set<Integer> admitted = new HashSet<Integer>();
+			if (!findings.isEmpty()) {
+				List<String> questions = new ArrayList<String>(IdsrScreening.QUESTIONS);
+				questions.add(PATIENT_OUTCOME);
+
+				SqlQueryBuilder obsQuery = new SqlQueryBuilder();
+				obsQuery.append("select o.encounter_id, q.uuid, a.uuid, o.value_numeric, o.date_created from obs o");
+				obsQuery.append(" inner join concept q on q.concept_id = o.concept_id");
+				obsQuery.append(" left join concept a on a.concept_id = o.value_coded");
+				obsQuery.append(" where o.voided = 0 and o.encounter_id in (:encounterIds) and q.uuid in (:questions)");
+				obsQuery.addParameter("encounterIds", findings.keySet());
+				obsQuery.addParameter("questions", questions);
+
+				for (Object[] row : evaluationService.evaluateToList(obsQuery, evaluationContext)) {
+					Integer encounterId = ((Number) row[0]).intValue();
+					String question = (String) row[1];
+					String answer = (String) row[2];
+					if (PATIENT_OUTCOME.equals(question)) {
+						if (INPATIENT_ADMISSION.equals(answer) && clinicalEncounters.contains(encounterId)) {
+							admitted.add(encounterPatients.get(encounterId));
+						}
+						continue;
+					}
+					Double valueNumeric = row[3] != null ? ((Number) row[3]).doubleValue() : null;
+					boolean createdToday = row[4] != null && DateUtils.isSameDay((Date) row[4], now);
+					findings.get(encounterId).addObs(question, answer, valueNumeric, createdToday);
 				}
 			}
-			if (idsrMessage.size() > 0) {
-				idsrMessageString = StringUtils.join(idsrMessage, ",");
 
+			CalculationResultMap tempMap = Calculations.lastObs(Context.getConceptService().getConceptByUuid(TEMPERATURE), visitTypes.keySet(), context);
+
+			for (Map.Entry<Integer, String> visit : visitTypes.entrySet()) {
+				Integer ptId = visit.getKey();
+				Obs lastTempObs = EmrCalculationUtils.obsResultForPatient(tempMap, ptId);
+				List<IdsrScreening.Findings> screeningFindings = patientFindings.containsKey(ptId) ? patientFindings.get(ptId) : new ArrayList<IdsrScreening.Findings>();
+				boolean isAdmitted = admitted.contains(ptId) || INPATIENT_VISIT_TYPE.equals(visit.getValue());
+				screenings.put(ptId, new IdsrScreening(ages.get(ptId), lastTempObs != null ? lastTempObs.getValueNumeric() : null, isAdmitted, screeningFindings));
 			}
-			ret.put(ptId, new BooleanResult(eligible, this));
 		}
-		return ret;
+		catch (EvaluationException ex) {
+			throw new APIException("Unable to load IDSR screenings", ex);
+		}
+		return screenings;
 	}
 
 	@Override
@@ -0,0 +1,149 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation.library.surveillance;
+
+/**
+ * The IDSR conditions which are flagged from screening encounters, and the findings which suggest each of them
+ */
+public enum IdsrCondition {
+
+	ILI("ILI") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return isRespiratoryIllness(findings, screening) && !screening.isAdmitted();
+		}
+	},
+
+	SARI("SARI") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return isRespiratoryIllness(findings, screening) && screening.isAdmitted();
+		}
+	},
+
+	CHIKUNGUNYA("Chikungunya") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(JOINT_PAIN, FEVER) && durationAbove(findings, 2) && temperatureAbove(screening, 38.5);
+		}
+	},
+
+	CHOLERA("Cholera") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(VOMITING, WATERY_DIARRHEA) && screening.getAge() != null && screening.getAge() > 2;
+		}
+	},
+
+	DYSENTERY("Dysentery") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(BLOOD_IN_STOOL, DIARRHEA);
+		}
+	},
+
+	HAEMORRHAGIC_FEVER("Haemorrhagic Fever") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(FEVER, BLEEDING_TENDENCIES);
+		}
+	},
+
+	MALARIA("Malaria") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(HEADACHE, CHILLS, FEVER) && durationAbove(findings, 1) && temperatureAtLeast(screening, 37.5);
+		}
+	},
+
+	MEASLES("Measles") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(FEVER, RASH, CORYZA, COUGH, CONJUNCTIVITIS) && durationAbove(findings, 2);
+		}
+	},
+
+	RIFT_VALLEY_FEVER("Rift Valley Fever") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSign(JAUNDICE) && findings.hasSymptoms(DIZZINESS, MALAISE, FEVER)
+					&& durationAbove(findings, 2) && temperatureAbove(screening, 37.5);
+		}
+	},
+
+	POLIOMYELITIS("Poliomyelitis") {
+		@Override
+		boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening) {
+			return findings.hasSymptoms(LIMBS_WEAKNESS) && screening.getAge() != null && screening.getAge() < 15
+					&& SUDDEN_ONSET.equals(findings.getOnset());
+		}
+	};
+
+	public static final String FEVER = "140238AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String COUGH = "143264AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String JOINT_PAIN = "116558AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String VOMITING = "122983AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String WATERY_DIARRHEA = "161887AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String BLOOD_IN_STOOL = "117671AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String DIARRHEA = "142412AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String BLEEDING_TENDENCIES = "162628AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String HEADACHE = "139084AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String CHILLS = "871AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String RASH = "512AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String CORYZA = "106AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String CONJUNCTIVITIS = "127777AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String JAUNDICE = "136443AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String DIZZINESS = "141830AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String MALAISE = "135367AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String LIMBS_WEAKNESS = "157498AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String SUDDEN_ONSET = "162707AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+	private final String name;
+
+	IdsrCondition(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name of the condition as shown in the flag message
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Checks whether the findings of a screening encounter suggest this condition
+	 * @param findings the findings of the encounter
+	 * @param screening the screening of the patient
+	 * @return true if the condition is suggested
+	 */
+	abstract boolean isSuggestedBy(IdsrScreening.Findings findings, IdsrScreening screening);
+
+	/**
+	 * Fever and cough of less than 10 days with a temperature of at least 38, which is ILI or SARI depending on admission
+	 */
+	private static boolean isRespiratoryIllness(IdsrScreening.Findings findings, IdsrScreening screening) {
+		return findings.hasSymptoms(FEVER, COUGH) && durationAbove(findings, 0) && findings.getDuration() < 10
+				&& temperatureAtLeast(screening, 38.0);
+	}
+
+	private static boolean durationAbove(IdsrScreening.Findings findings, double days) {
+		return findings.getDuration() != null && findings.getDuration() > days;
+	}
+
+	private static boolean temperatureAbove(IdsrScreening screening, double temperature) {
+		return screening.getTemperature() != null && screening.getTemperature() > temperature;
+	}
+
+	private static boolean temperatureAtLeast(IdsrScreening screening, double temperature) {
+		return screening.getTemperature() != null && screening.getTemperature() >= temperature;
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation.library.surveillance;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The IDSR screening of a patient: the findings of their last screening encounters along with their age, last
+ * temperature and whether they have been admitted. Conditions are only suggested by encounters recorded today.
+ */
+public class IdsrScreening {
+
+	public static final String SCREENING_QUESTION = "5219AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String SCREENING_QUESTION_EXAMINATION = "162737AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String DURATION = "159368AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	public static final String ONSET_QUESTION = "d7a3441d-6aeb-49be-b7d6-b2a3bb39e78d";
+
+	/**
+	 * The questions of a screening encounter which findings are read from
+	 */
+	public static final List<String> QUESTIONS = Arrays.asList(SCREENING_QUESTION, SCREENING_QUESTION_EXAMINATION, DURATION, ONSET_QUESTION);
+
+	private final Integer age;
+
+	private final Double temperature;
+
+	private final boolean admitted;
+
+	private final List<Findings> findings;
+
+	/**
+	 * @param age the age in years, or null if not known
+	 * @param temperature the last temperature, or null if not known
+	 * @param admitted whether the patient has been admitted
+	 * @param findings the findings of each screening encounter
+	 */
+	public IdsrScreening(Integer age, Double temperature, boolean admitted, List<Findings> findings) {
+		this.age = age;
+		this.temperature = temperature;
+		this.admitted = admitted;
+		this.findings = findings;
+	}
+
+	/**
+	 * Gets the conditions suggested by any of the screening encounters recorded today
+	 * @return the conditions
+	 */
+	public Set<IdsrCondition> getSuspectedConditions() {
+		Set<IdsrCondition> conditions = EnumSet.noneOf(IdsrCondition.class);
+		for (Findings encounterFindings : findings) {
+			if (!encounterFindings.isRecordedToday()) {
+				continue;
+			}
+			for (IdsrCondition condition : IdsrCondition.values()) {
+				if (condition.isSuggestedBy(encounterFindings, this)) {
+					conditions.add(condition);
+				}
+			}
+		}
+		return conditions;
+	}
+
+	public Integer getAge() {
+		return age;
+	}
+
+	public Double getTemperature() {
+		return temperature;
+	}
+
+	public boolean isAdmitted() {
+		return admitted;
+	}
+
+	/**
+	 * The findings recorded in a single screening encounter
+	 */
+	public static class Findings {
+
+		private final Set<String> symptoms = new HashSet<String>();
+
+		private final Set<String> signs = new HashSet<String>();
+
+		private Double duration;
+
+		private String onset;
+
+		private boolean recordedToday;
+
+		/**
+		 * Adds an obs of the encounter
+		 * @param question the question concept uuid
+		 * @param answer the coded answer concept uuid, if any
+		 * @param valueNumeric the numeric value, if any
+		 * @param createdToday whether the obs was created today
+		 */
+		public void addObs(String question, String answer, Double valueNumeric, boolean createdToday) {
+			if (SCREENING_QUESTION.equals(question) && answer != null) {
+				symptoms.add(answer);
+			}
+			else if (SCREENING_QUESTION_EXAMINATION.equals(question) && answer != null) {
+				signs.add(answer);
+			}
+			else if (DURATION.equals(question)) {
+				duration = valueNumeric;
+			}
+			else if (ONSET_QUESTION.equals(question)) {
+				onset = answer;
+			}
+			recordedToday |= createdToday;
+		}
+
+		public boolean hasSymptoms(String... answers) {
+			return symptoms.containsAll(Arrays.asList(answers));
+		}
+
+		public boolean hasSign(String answer) {
+			return signs.contains(answer);
+		}
+
+		public Double getDuration() {
+			return duration;
+		}
+
+		public String getOnset() {
+			return onset;
+		}
+
+		public boolean isRecordedToday() {
+			return recordedToday;
+		}
+	}
+}
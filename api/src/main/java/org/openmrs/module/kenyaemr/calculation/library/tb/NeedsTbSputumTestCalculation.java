@@ -27,6 +27,7 @@ import org.openmrs.module.kenyaemr.metadata.TbMetadata;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.common.DateUtil;
 import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.kenyaemr.calculation.FlagDependencies;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -40,6 +41,10 @@ import java.util.Set;
  * those on treatment with pulmonary tb positive, a repeat is done 2, 4, and 6 months
  * sputum results recorded
  */
+@FlagDependencies(
+		encounterTypes = { TbMetadata._EncounterType.TB_SCREENING, TbMetadata._EncounterType.TB_ENROLLMENT, TbMetadata._EncounterType.TB_CONSULTATION, TbMetadata._EncounterType.TB_DISCONTINUATION },
+		concepts = { Dictionary.TUBERCULOSIS_DISEASE_STATUS, Dictionary.SITE_OF_TUBERCULOSIS_DISEASE, Dictionary.RESULTS_TUBERCULOSIS_CULTURE, Dictionary.SPUTUM_FOR_ACID_FAST_BACILLI, Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE, "162202AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA" },
+		programs = { TbMetadata._Program.TB })
 public class NeedsTbSputumTestCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
 
 	/**
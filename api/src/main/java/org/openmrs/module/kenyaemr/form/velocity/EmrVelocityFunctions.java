@@ -19,8 +19,8 @@ import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.Person;
-import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculation;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.module.htmlformentry.FormEntrySession;
 import org.openmrs.module.kenyaemr.Dictionary;
@@ -47,13 +47,22 @@ import org.openmrs.module.reporting.common.DateUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 /**
  * Velocity functions for adding logic to HTML forms
  */
 public class EmrVelocityFunctions {
 
 	private FormEntrySession session;
+
+	/**
+	 * Results of calculations, global properties and concepts looked up during this session. Forms like the Green Card
+	 * call the same functions many times as they render, so each is evaluated at most once per form session.
+	 */
+	private Map<String, Object> cache = new HashMap<String, Object>();
+
 	protected static final Log log = LogFactory.getLog(EmrVelocityFunctions.class);
 	/**
 	 * Constructs a new functions provider
@@ -94,7 +103,11 @@ public class EmrVelocityFunctions {
 	 * @throws org.openmrs.module.metadatadeploy.MissingMetadataException if no such concept exists
 	 */
 	public Concept getConcept(String conceptIdentifier) {
-		return Dictionary.getConcept(conceptIdentifier);
+		String key = "concept:" + conceptIdentifier;
+		if (!cache.containsKey(key)) {
+			cache.put(key, Dictionary.getConcept(conceptIdentifier));
+		}
+		return (Concept) cache.get(key);
 	}
 
 	/**
@@ -104,7 +117,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean patientIsStable() {
 
-		CalculationResult stablePatient = EmrCalculationUtils.evaluateForPatient(StablePatientsCalculation.class, null,session.getPatient());
+		CalculationResult stablePatient = evaluateCalculation(StablePatientsCalculation.class);
 		return 	(Boolean) stablePatient.getValue();
 
 
@@ -117,7 +130,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean currentInArt() {
 
-		CalculationResult patientCurrentInART = EmrCalculationUtils.evaluateForPatient(OnArtCalculation.class, null,session.getPatient());
+		CalculationResult patientCurrentInART = evaluateCalculation(OnArtCalculation.class);
 		return 	(Boolean) patientCurrentInART.getValue();
 
 	}
@@ -142,7 +155,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean patientInTbProgram() {
 
-		CalculationResult patientEnrolledInTbProgram = EmrCalculationUtils.evaluateForPatient(PatientInTbProgramCalculation.class, null,session.getPatient());
+		CalculationResult patientEnrolledInTbProgram = evaluateCalculation(PatientInTbProgramCalculation.class);
 		return 	(Boolean) patientEnrolledInTbProgram.getValue();
 
 	}
@@ -154,7 +167,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean patientDueForTbProgramEnrollment() {
 
-		CalculationResult patientEligibleForEnrollmentTbProgram = EmrCalculationUtils.evaluateForPatient(PatientDueForTbProgramEnrollmentCalculation.class, null,session.getPatient());
+		CalculationResult patientEligibleForEnrollmentTbProgram = evaluateCalculation(PatientDueForTbProgramEnrollmentCalculation.class);
 		return 	(Boolean) patientEligibleForEnrollmentTbProgram.getValue();
 
 	}
@@ -166,7 +179,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean currentInIPT() {
 
-		CalculationResult patientEnrolledInIPTProgram = EmrCalculationUtils.evaluateForPatient(OnIptProgramCalculation.class, null,session.getPatient());
+		CalculationResult patientEnrolledInIPTProgram = evaluateCalculation(OnIptProgramCalculation.class);
 		return 	(Boolean) patientEnrolledInIPTProgram.getValue();
 
 	}
@@ -178,7 +191,7 @@ public class EmrVelocityFunctions {
 
 	public String GreenCardVelocityCalculation() {
 
-		CalculationResult greenCardVelocity = EmrCalculationUtils.evaluateForPatient(GreenCardVelocityCalculation.class, null,session.getPatient());
+		CalculationResult greenCardVelocity = evaluateCalculation(GreenCardVelocityCalculation.class);
 		return 	(String) greenCardVelocity.getValue();
 
 
@@ -186,7 +199,7 @@ public class EmrVelocityFunctions {
 
 	public String DiscontinuationVelocityCalculation() {
 
-		CalculationResult discontinuationVelocity = EmrCalculationUtils.evaluateForPatient(DiscontinuationVelocityCalculation.class, null,session.getPatient());
+		CalculationResult discontinuationVelocity = evaluateCalculation(DiscontinuationVelocityCalculation.class);
 		return 	(String) discontinuationVelocity.getValue();
 
 
@@ -194,14 +207,14 @@ public class EmrVelocityFunctions {
 
 	public String IptDiscontinuationVelocityCalculation() {
 
-		CalculationResult iptDiscontinuationVelocity = EmrCalculationUtils.evaluateForPatient(IptDiscontinuationVelocityCalculation.class, null,session.getPatient());
+		CalculationResult iptDiscontinuationVelocity = evaluateCalculation(IptDiscontinuationVelocityCalculation.class);
 		return 	(String) iptDiscontinuationVelocity.getValue();
 
 
 	}
 	public String TbDiscontinuationVelocityCalculation() {
 
-		CalculationResult tbDiscontinuationVelocity = EmrCalculationUtils.evaluateForPatient(TbDiscontinuationVelocityCalculation.class, null,session.getPatient());
+		CalculationResult tbDiscontinuationVelocity = evaluateCalculation(TbDiscontinuationVelocityCalculation.class);
 		return 	(String) tbDiscontinuationVelocity.getValue();
 
 
@@ -209,13 +222,13 @@ public class EmrVelocityFunctions {
 
 	public String OtzDiscontinuationVelocityCalculation() {
 
-		CalculationResult otzDiscontinuationVelocity = EmrCalculationUtils.evaluateForPatient(OtzDiscontinuationVelocityCalculation.class, null,session.getPatient());
+		CalculationResult otzDiscontinuationVelocity = evaluateCalculation(OtzDiscontinuationVelocityCalculation.class);
 		return 	(String) otzDiscontinuationVelocity.getValue();
 	}
 
 	public String OvcDiscontinuationVelocityCalculation() {
 
-		CalculationResult ovcDiscontinuationVelocity = EmrCalculationUtils.evaluateForPatient(OvcDiscontinuationVelocityCalculation.class, null,session.getPatient());
+		CalculationResult ovcDiscontinuationVelocity = evaluateCalculation(OvcDiscontinuationVelocityCalculation.class);
 		return 	(String) ovcDiscontinuationVelocity.getValue();
 	}
 	/**
@@ -224,7 +237,8 @@ public class EmrVelocityFunctions {
 		 * @return the global property value
 		 */
 	public String getGlobalProperty(String name) {
-		return Context.getAdministrationService().getGlobalProperty(name);
+		GlobalProperty globalProperty = getGlobalPropertyObject(name);
+		return globalProperty != null ? globalProperty.getPropertyValue() : null;
 	}
 
 	/**
@@ -233,8 +247,7 @@ public class EmrVelocityFunctions {
 	 * @return the list of obs
 	 */
 	public String location() {
-		AdministrationService administrationService = org.openmrs.api.context.Context.getAdministrationService();
-		GlobalProperty globalProperty = administrationService.getGlobalPropertyObject("kenyaemr.defaultLocation");
+		GlobalProperty globalProperty = getGlobalPropertyObject("kenyaemr.defaultLocation");
 		if (globalProperty.getValue() != null) {
 			return ((Location) globalProperty.getValue()).getName();
 		}
@@ -247,7 +260,11 @@ public class EmrVelocityFunctions {
 	 * @return the MFL code
 	 */
 	public String currentFacilityMFLCode() {
-		String facilityCode = Context.getService(KenyaEmrService.class).getDefaultLocationMflCode();
+		String key = "facilityCode";
+		if (!cache.containsKey(key)) {
+			cache.put(key, Context.getService(KenyaEmrService.class).getDefaultLocationMflCode());
+		}
+		String facilityCode = (String) cache.get(key);
 		if (facilityCode != "") {
 			return facilityCode;
 		}
@@ -265,8 +282,7 @@ public class EmrVelocityFunctions {
 			return Context.getObsService().getObservationsByPersonAndConcept(p, getConcept(conceptIdentifier));
 	}
 	public String getFacilityType() {
-		AdministrationService administrationService = org.openmrs.api.context.Context.getAdministrationService();
-		GlobalProperty globalProperty = administrationService.getGlobalPropertyObject("kenyaemr.isKDoD");
+		GlobalProperty globalProperty = getGlobalPropertyObject("kenyaemr.isKDoD");
 		if (globalProperty.getValue() != null) {
 			return globalProperty.getPropertyValue();
 		}
@@ -274,8 +290,7 @@ public class EmrVelocityFunctions {
 	}
 
 	public String getRecencySite() {
-		AdministrationService administrationService = org.openmrs.api.context.Context.getAdministrationService();
-		GlobalProperty globalProperty = administrationService.getGlobalPropertyObject("kenyaemr.isRecencySite");
+		GlobalProperty globalProperty = getGlobalPropertyObject("kenyaemr.isRecencySite");
 		if (globalProperty.getValue() != null) {
 			return globalProperty.getPropertyValue();
 		}
@@ -287,8 +302,7 @@ public class EmrVelocityFunctions {
 	 *
 	 */
 	public String generateUPN() {
-		AdministrationService administrationService = org.openmrs.api.context.Context.getAdministrationService();
-		GlobalProperty globalProperty = administrationService.getGlobalPropertyObject("kenyaemr.generateUPN");
+		GlobalProperty globalProperty = getGlobalPropertyObject("kenyaemr.generateUPN");
 		if (globalProperty.getValue() != null) {
 			return globalProperty.getPropertyValue();
 		}
@@ -348,7 +362,7 @@ public class EmrVelocityFunctions {
 
 	public Boolean isHighRiskPositiveMchClient() {
 
-		CalculationResult highRiskPositiveMchClient = EmrCalculationUtils.evaluateForPatient(HighRiskPositiveClientCategorizationCalculation.class, null,session.getPatient());
+		CalculationResult highRiskPositiveMchClient = evaluateCalculation(HighRiskPositiveClientCategorizationCalculation.class);
 		return 	(Boolean) highRiskPositiveMchClient.getValue();
 
 	}
@@ -361,8 +375,34 @@ public class EmrVelocityFunctions {
 
 	public Boolean isHighRiskNegativeMchClient() {
 
-		CalculationResult highRiskNegativeMchClient = EmrCalculationUtils.evaluateForPatient(HighRiskNegativeClientCategorizationCalculation.class, null,session.getPatient());
+		CalculationResult highRiskNegativeMchClient = evaluateCalculation(HighRiskNegativeClientCategorizationCalculation.class);
 		return 	(Boolean) highRiskNegativeMchClient.getValue();
 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Evaluates a calculation for the current patient, once per form session
+	 * @param calculationClass the calculation class
+	 * @return the calculation result
+	 */
+	protected CalculationResult evaluateCalculation(Class<? extends PatientCalculation> calculationClass) {
+		String key = "calculation:" + calculationClass.getName();
+		if (!cache.containsKey(key)) {
+			cache.put(key, EmrCalculationUtils.evaluateForPatient(calculationClass, null, session.getPatient()));
+		}
+		return (CalculationResult) cache.get(key);
+	}
+
+	/**
+	 * Fetches a global property, once per form session
+	 * @param name the property name
+	 * @return the global property or null if it doesn't exist
+	 */
+	protected GlobalProperty getGlobalPropertyObject(String name) {
+		String key = "globalProperty:" + name;
+		if (!cache.containsKey(key)) {
+			cache.put(key, Context.getAdministrationService().getGlobalPropertyObject(name));
+		}
+		return (GlobalProperty) cache.get(key);
+	}
+}
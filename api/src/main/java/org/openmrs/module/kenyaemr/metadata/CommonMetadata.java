@@ -64,6 +64,11 @@ public class CommonMetadata extends AbstractMetadataBundle {
 	public static final String GP_CLIENT_VERIFICATION_QUERY_UPI_END_POINT = "kenyaemr.client.registry.query.upi.api";
 	public static final String GP_CLIENT_VERIFICATION_QUERY_CCC_END_POINT = "kenyaemr.client.registry.query.ccc.api";
 	public static final String GP_CLIENT_VERIFICATION_UPDATE_END_POINT = "kenyaemr.client.registry.update.api";
+	public static final String GP_CLIENT_VERIFICATION_USE_STUB = "kenyaemr.client.registry.use.stub";
+	public static final String GP_CLIENT_VERIFICATION_REQUESTS_PER_SECOND = "kenyaemr.client.registry.requests.per.second";
+	public static final String GP_CLIENT_VERIFICATION_MAX_ATTEMPTS = "kenyaemr.client.registry.max.attempts";
+	public static final String GP_CLIENT_VERIFICATION_NUPI_THREADS = "kenyaemr.client.registry.nupi.threads";
+	public static final String GP_CLIENT_VERIFICATION_NUPI_CHECKPOINT = "kenyaemr.client.registry.nupi.checkpoint";
 	public static final String HIV_CONSULTATION_SERVICE = "885b4ad3-fd4c-4a16-8ed3-08813e6b01fa";
 	public static final String PREP_MONTHLY_REFILL_SERVICE = "b8c3efd9-e106-4409-ae0e-b9c651484a20";
 	public static final String DRUG_REFILL_SERVICE = "a96921a1-b89e-4dd2-b6b4-7310f13bbabe";
@@ -383,6 +388,21 @@ public class CommonMetadata extends AbstractMetadataBundle {
 		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_UPDATE_END_POINT) == null) {
 			install(globalProperty(GP_CLIENT_VERIFICATION_UPDATE_END_POINT, "A PUT API for updating client information at the client registry", "https://dhpstagingapi.health.go.ke/partners/registry"));
 		}
+		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_USE_STUB) == null) {
+			install(globalProperty(GP_CLIENT_VERIFICATION_USE_STUB, "Whether NUPI requests use an in-memory client registry instead of the real one, for local runs (true/false)", "false"));
+		}
+		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_REQUESTS_PER_SECOND) == null) {
+			install(globalProperty(GP_CLIENT_VERIFICATION_REQUESTS_PER_SECOND, "The maximum number of NUPI requests made to the client registry per second", "2"));
+		}
+		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_MAX_ATTEMPTS) == null) {
+			install(globalProperty(GP_CLIENT_VERIFICATION_MAX_ATTEMPTS, "The maximum number of attempts at a NUPI request when the client registry is unavailable", "3"));
+		}
+		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_NUPI_THREADS) == null) {
+			install(globalProperty(GP_CLIENT_VERIFICATION_NUPI_THREADS, "The number of patients whose NUPI is requested at once", "4"));
+		}
+		if(Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_NUPI_CHECKPOINT) == null) {
+			install(globalProperty(GP_CLIENT_VERIFICATION_NUPI_CHECKPOINT, "The last patient processed by an incomplete run of the NUPI task, which the next run resumes after", "0"));
+		}
 
 		install(patientIdentifierType("Old Identification Number", "Identifier given out prior to OpenMRS",
 				null, null, null,
@@ -10,17 +10,14 @@
 package org.openmrs.module.kenyaemr.metadata;
 
 import org.apache.commons.lang3.StringUtils;
-import org.openmrs.Location;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.customdatatype.datatype.FreeTextDatatype;
 import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
 import org.openmrs.module.kenyaemr.EmrConstants;
-import org.openmrs.module.kenyaemr.metadata.sync.LocationMflCsvSource;
-import org.openmrs.module.kenyaemr.metadata.sync.LocationMflSynchronization;
+import org.openmrs.module.kenyaemr.metadata.sync.LocationMflIncrementalSync;
 import org.openmrs.module.metadatadeploy.bundle.AbstractMetadataBundle;
 import org.openmrs.module.metadatadeploy.bundle.Requires;
-import org.openmrs.module.metadatadeploy.source.ObjectSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -34,7 +31,7 @@ import static org.openmrs.module.metadatadeploy.bundle.CoreConstructors.location
 public class FacilityMetadata extends AbstractMetadataBundle {
 
 	@Autowired
-	private LocationMflSynchronization mflSynchronization;
+	private LocationMflIncrementalSync mflSync;
 
 	public static final class _Location {
 		public static final String UNKNOWN = "8d6c993e-c2cc-11de-8d13-0010c6dffd0f";
@@ -114,8 +111,7 @@ public class FacilityMetadata extends AbstractMetadataBundle {
 		));
 
 		if (full) {
-			ObjectSource<Location> source = new LocationMflCsvSource("metadata/mfl_2014-05-12.csv");
-			sync(source, mflSynchronization);
+			mflSync.sync("metadata/mfl_2014-05-12.csv");
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,281 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.EncounterType;
+import org.openmrs.Form;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.Program;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.util.PrivilegeConstants;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the ids of metadata by UUID, so that frequently resolved metadata is fetched by id, which is served from
+ * the session and the second-level cache, rather than by a query on its UUID. Only ids are cached so that resolved
+ * objects always belong to the current session.
+ *
+ * The ids of encounter types, forms, identifier types, attribute types, programs and visit types are loaded when the
+ * cache is warmed, and those of concepts as they are first resolved. Entries are evicted when their metadata is saved
+ * or purged.
+ */
+public class MetadataCache {
+
+	protected static final Log log = LogFactory.getLog(MetadataCache.class);
+
+	/**
+	 * The tables and id columns of the cached metadata classes
+	 */
+	private static final Map<Class<? extends OpenmrsObject>, String[]> TABLES = new LinkedHashMap<Class<? extends OpenmrsObject>, String[]>();
+
+	static {
+		TABLES.put(EncounterType.class, new String[] { "encounter_type", "encounter_type_id" });
+		TABLES.put(Form.class, new String[] { "form", "form_id" });
+		TABLES.put(PatientIdentifierType.class, new String[] { "patient_identifier_type", "patient_identifier_type_id" });
+		TABLES.put(PersonAttributeType.class, new String[] { "person_attribute_type", "person_attribute_type_id" });
+		TABLES.put(LocationAttributeType.class, new String[] { "location_attribute_type", "location_attribute_type_id" });
+		TABLES.put(Program.class, new String[] { "program", "program_id" });
+		TABLES.put(VisitType.class, new String[] { "visit_type", "visit_type_id" });
+	}
+
+	private static final Map<Class<? extends OpenmrsObject>, ConcurrentMap<String, Integer>> ids = new LinkedHashMap<Class<? extends OpenmrsObject>, ConcurrentMap<String, Integer>>();
+
+	static {
+		for (Class<? extends OpenmrsObject> clazz : TABLES.keySet()) {
+			ids.put(clazz, new ConcurrentHashMap<String, Integer>());
+		}
+	}
+
+	/**
+	 * Concept ids by identifier (mapping or UUID), and whether each concept is numeric
+	 */
+	private static final ConcurrentMap<String, ConceptEntry> conceptIds = new ConcurrentHashMap<String, ConceptEntry>();
+
+	public static EncounterType encounterType(String uuid) {
+		return existing(EncounterType.class, uuid);
+	}
+
+	public static Form form(String uuid) {
+		return existing(Form.class, uuid);
+	}
+
+	public static PatientIdentifierType patientIdentifierType(String uuid) {
+		return existing(PatientIdentifierType.class, uuid);
+	}
+
+	public static PersonAttributeType personAttributeType(String uuid) {
+		return existing(PersonAttributeType.class, uuid);
+	}
+
+	public static LocationAttributeType locationAttributeType(String uuid) {
+		return existing(LocationAttributeType.class, uuid);
+	}
+
+	public static Program program(String uuid) {
+		return existing(Program.class, uuid);
+	}
+
+	public static VisitType visitType(String uuid) {
+		return existing(VisitType.class, uuid);
+	}
+
+	/**
+	 * Fetches existing metadata, as {@link MetadataUtils#existing(Class, String)} does
+	 * @param clazz the metadata class
+	 * @param uuid the metadata UUID
+	 * @return the metadata
+	 * @throws org.openmrs.module.metadatadeploy.MissingMetadataException if the metadata doesn't exist
+	 */
+	public static <T extends OpenmrsObject> T existing(Class<T> clazz, String uuid) {
+		T cached = getCached(clazz, uuid);
+		if (cached != null) {
+			return cached;
+		}
+		T obj = MetadataUtils.existing(clazz, uuid);
+		put(clazz, uuid, obj);
+		return obj;
+	}
+
+	/**
+	 * Fetches metadata which may not exist, as {@link MetadataUtils#possible(Class, String)} does
+	 * @param clazz the metadata class
+	 * @param uuid the metadata UUID
+	 * @return the metadata, or null if it doesn't exist
+	 */
+	public static <T extends OpenmrsObject> T possible(Class<T> clazz, String uuid) {
+		T cached = getCached(clazz, uuid);
+		if (cached != null) {
+			return cached;
+		}
+		T obj = MetadataUtils.possible(clazz, uuid);
+		if (obj != null) {
+			put(clazz, uuid, obj);
+		}
+		return obj;
+	}
+
+	/**
+	 * Gets a concept by the id it was last resolved to from an identifier
+	 * @param identifier the identifier (mapping or UUID)
+	 * @return the concept, or null if the identifier hasn't been resolved
+	 */
+	public static Concept getConcept(String identifier) {
+		ConceptEntry entry = conceptIds.get(identifier);
+		if (entry == null) {
+			return null;
+		}
+		Concept concept = entry.numeric ? Context.getConceptService().getConceptNumeric(entry.conceptId) : Context.getConceptService().getConcept(entry.conceptId);
+		// Concepts resolved by UUID are checked, those resolved by mapping are evicted when the concept is saved
+		if (concept == null || (!identifier.contains(":") && !identifier.equals(concept.getUuid()))) {
+			conceptIds.remove(identifier, entry);
+			return null;
+		}
+		return concept;
+	}
+
+	/**
+	 * Caches the concept which an identifier was resolved to
+	 * @param identifier the identifier (mapping or UUID)
+	 * @param concept the concept
+	 */
+	public static void putConcept(String identifier, Concept concept) {
+		if (concept != null && concept.getConceptId() != null) {
+			conceptIds.put(identifier, new ConceptEntry(concept.getConceptId(), concept.getDatatype() != null && concept.getDatatype().isNumeric()));
+		}
+	}
+
+	/**
+	 * Evicts metadata which has been saved or purged
+	 * @param object the metadata
+	 */
+	public static void evict(Object object) {
+		if (object instanceof Concept) {
+			Integer conceptId = ((Concept) object).getConceptId();
+			for (Iterator<ConceptEntry> i = conceptIds.values().iterator(); i.hasNext(); ) {
+				if (i.next().conceptId.equals(conceptId)) {
+					i.remove();
+				}
+			}
+			return;
+		}
+		for (Map.Entry<Class<? extends OpenmrsObject>, ConcurrentMap<String, Integer>> entry : ids.entrySet()) {
+			if (entry.getKey().isInstance(object)) {
+				OpenmrsObject obj = (OpenmrsObject) object;
+				entry.getValue().remove(obj.getUuid());
+				// The UUID may have been changed, so also evict any entry for the id
+				if (obj.getId() != null) {
+					entry.getValue().values().remove(obj.getId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clears the cache and loads the ids of all cached metadata other than concepts, e.g. after the context is refreshed
+	 */
+	public static void warm() {
+		conceptIds.clear();
+
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (Map.Entry<Class<? extends OpenmrsObject>, String[]> entry : TABLES.entrySet()) {
+				ConcurrentMap<String, Integer> classIds = ids.get(entry.getKey());
+				classIds.clear();
+
+				String sql = "select uuid, " + entry.getValue()[1] + " from " + entry.getValue()[0];
+				for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+					classIds.put((String) row.get(0), ((Number) row.get(1)).intValue());
+				}
+				log.debug("Cached " + classIds.size() + " " + entry.getKey().getSimpleName() + " ids");
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+	}
+
+	/**
+	 * Gets metadata by its cached id, evicting the entry if it no longer matches
+	 */
+	private static <T extends OpenmrsObject> T getCached(Class<T> clazz, String uuid) {
+		ConcurrentMap<String, Integer> classIds = ids.get(clazz);
+		Integer id = classIds != null && uuid != null ? classIds.get(uuid) : null;
+		if (id == null) {
+			return null;
+		}
+		T obj = clazz.cast(getById(clazz, id));
+		if (obj != null && uuid.equals(obj.getUuid())) {
+			return obj;
+		}
+		classIds.remove(uuid, id);
+		return null;
+	}
+
+	private static void put(Class<? extends OpenmrsObject> clazz, String uuid, OpenmrsObject obj) {
+		ConcurrentMap<String, Integer> classIds = ids.get(clazz);
+		if (classIds != null && obj.getId() != null) {
+			classIds.put(uuid, obj.getId());
+		}
+	}
+
+	private static Object getById(Class<?> clazz, Integer id) {
+		if (EncounterType.class.equals(clazz)) {
+			return Context.getEncounterService().getEncounterType(id);
+		}
+		else if (Form.class.equals(clazz)) {
+			return Context.getFormService().getForm(id);
+		}
+		else if (PatientIdentifierType.class.equals(clazz)) {
+			return Context.getPatientService().getPatientIdentifierType(id);
+		}
+		else if (PersonAttributeType.class.equals(clazz)) {
+			return Context.getPersonService().getPersonAttributeType(id);
+		}
+		else if (LocationAttributeType.class.equals(clazz)) {
+			return Context.getLocationService().getLocationAttributeType(id);
+		}
+		else if (Program.class.equals(clazz)) {
+			return Context.getProgramWorkflowService().getProgram(id);
+		}
+		else if (VisitType.class.equals(clazz)) {
+			return Context.getVisitService().getVisitType(id);
+		}
+		return null;
+	}
+
+	/**
+	 * The id of a resolved concept
+	 */
+	private static class ConceptEntry {
+
+		final Integer conceptId;
+
+		final boolean numeric;
+
+		ConceptEntry(Integer conceptId, boolean numeric) {
+			this.conceptId = conceptId;
+			this.numeric = numeric;
+		}
+	}
+}
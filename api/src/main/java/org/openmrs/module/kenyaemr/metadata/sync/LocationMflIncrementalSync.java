@@ -0,0 +1,378 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata.sync;
+
+import au.com.bytecode.opencsv.CSVReader;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.GlobalProperty;
+import org.openmrs.Location;
+import org.openmrs.LocationAttribute;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.api.APIException;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.LocationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Synchronizes locations with a CSV copy of the Kenya Master Facility List, only touching the locations which differ
+ * from their rows. The checksum of the last synchronized file is stored so that the sync is skipped entirely when the
+ * file hasn't changed. Otherwise each row is compared with its location by a hash of the synchronized fields, which for
+ * existing locations is computed from a single query rather than by loading every location.
+ */
+@Component
+public class LocationMflIncrementalSync {
+
+	protected static final Log log = LogFactory.getLog(LocationMflIncrementalSync.class);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final String RETIRE_REASON = "Not in master facility list";
+
+	private static final int CODE = 0, NAME = 1, PROVINCE = 2, COUNTY = 3, DISTRICT = 4, DIVISION = 5, TYPE = 6,
+			LANDLINE = 15, FAX = 16, MOBILE = 17, POSTCODE = 22;
+
+	@Autowired
+	private LocationService locationService;
+
+	@Autowired
+	private MflFacilityIndex mflFacilityIndex;
+
+	/**
+	 * Synchronizes locations with a facility list CSV resource, unless it is unchanged since it was last synchronized
+	 * @param csvFile the csv resource path
+	 * @return the result
+	 */
+	public Result sync(String csvFile) throws IOException {
+		AdministrationService administrationService = Context.getAdministrationService();
+		String checksum = checksum(csvFile);
+		if (checksum.equals(administrationService.getGlobalProperty(EmrConstants.GP_FACILITY_LIST_CHECKSUM))) {
+			log.info("Facility list " + csvFile + " is unchanged since it was last synchronized");
+			return new Result(true);
+		}
+
+		LocationAttributeType codeAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
+		LocationAttributeType landlineAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.TELEPHONE_LANDLINE);
+		LocationAttributeType faxAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.TELEPHONE_FAX);
+		LocationAttributeType mobileAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.TELEPHONE_MOBILE);
+
+		// Existing locations are compared as they are in the database
+		Context.flushSession();
+		Map<String, Existing> existingByCode = fetchAllExisting();
+		Set<String> syncedCodes = new HashSet<String>();
+		List<Location> batch = new ArrayList<Location>();
+		Result result = new Result(false);
+
+		CSVReader reader = new CSVReader(new InputStreamReader(open(csvFile), Charset.forName("UTF-8")));
+		try {
+			reader.readNext(); // Skip header
+			String[] line;
+			while ((line = reader.readNext()) != null) {
+				String code = field(line, CODE);
+				if (code.length() == 0 || !syncedCodes.add(code)) {
+					continue;
+				}
+
+				Existing existing = existingByCode.get(code);
+				if (existing != null && !existing.retired && existing.hash.equals(hash(line))) {
+					continue;
+				}
+
+				Location location;
+				if (existing != null) {
+					location = locationService.getLocation(existing.locationId);
+					location.setRetired(false);
+					location.setRetireReason(null);
+					location.setRetiredBy(null);
+					location.setDateRetired(null);
+					result.updated++;
+				}
+				else {
+					location = new Location();
+					location.setCountry("Kenya");
+					setAsAttribute(location, codeAttrType, code);
+					result.created++;
+				}
+
+				location.setName(field(line, NAME));
+				location.setDescription(field(line, TYPE));
+				location.setAddress5(field(line, DIVISION));
+				location.setAddress6(field(line, DISTRICT));
+				location.setCountyDistrict(field(line, COUNTY));
+				location.setStateProvince(field(line, PROVINCE));
+				location.setPostalCode(field(line, POSTCODE));
+				setAsAttribute(location, landlineAttrType, field(line, LANDLINE));
+				setAsAttribute(location, faxAttrType, field(line, FAX));
+				setAsAttribute(location, mobileAttrType, field(line, MOBILE));
+
+				batch.add(locationService.saveLocation(location));
+				if (batch.size() >= BATCH_SIZE) {
+					flush(batch);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		// Retire locations which are no longer in the list
+		for (Map.Entry<String, Existing> entry : existingByCode.entrySet()) {
+			if (!entry.getValue().retired && !syncedCodes.contains(entry.getKey())) {
+				batch.add(locationService.retireLocation(locationService.getLocation(entry.getValue().locationId), RETIRE_REASON));
+				result.retired++;
+				if (batch.size() >= BATCH_SIZE) {
+					flush(batch);
+				}
+			}
+		}
+		flush(batch);
+
+		GlobalProperty gp = administrationService.getGlobalPropertyObject(EmrConstants.GP_FACILITY_LIST_CHECKSUM);
+		if (gp == null) {
+			gp = new GlobalProperty(EmrConstants.GP_FACILITY_LIST_CHECKSUM);
+		}
+		gp.setPropertyValue(checksum);
+		administrationService.saveGlobalProperty(gp);
+
+		if (result.isChanged()) {
+			mflFacilityIndex.invalidate();
+		}
+
+		log.info("Synchronized facility list " + csvFile + ": " + result.created + " created, " + result.updated + " updated, " + result.retired + " retired");
+		return result;
+	}
+
+	/**
+	 * Loads the synchronized fields of all locations with an MFL code, as hashes keyed by code. Where several locations
+	 * have the same code, a non-retired one is preferred.
+	 * @return the existing locations by MFL code
+	 */
+	private Map<String, Existing> fetchAllExisting() {
+		String sql = "select l.location_id, l.retired, l.name, l.description, l.address5, l.address6, l.county_district," +
+				" l.state_province, l.postal_code," +
+				" max(case when t.uuid = '" + FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE + "' then a.value_reference end)," +
+				" max(case when t.uuid = '" + FacilityMetadata._LocationAttributeType.TELEPHONE_LANDLINE + "' then a.value_reference end)," +
+				" max(case when t.uuid = '" + FacilityMetadata._LocationAttributeType.TELEPHONE_FAX + "' then a.value_reference end)," +
+				" max(case when t.uuid = '" + FacilityMetadata._LocationAttributeType.TELEPHONE_MOBILE + "' then a.value_reference end)" +
+				" from location l" +
+				" inner join location_attribute a on a.location_id = l.location_id and a.voided = 0" +
+				" inner join location_attribute_type t on t.location_attribute_type_id = a.attribute_type_id" +
+				" group by l.location_id, l.retired, l.name, l.description, l.address5, l.address6, l.county_district," +
+				" l.state_province, l.postal_code";
+
+		Map<String, Existing> existingByCode = new HashMap<String, Existing>();
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				String code = StringUtils.trimToEmpty((String) row.get(9));
+				if (code.length() == 0) {
+					continue;
+				}
+				Existing existing = new Existing(((Number) row.get(0)).intValue(), isTrue(row.get(1)),
+						hash(row.get(2), row.get(3), row.get(4), row.get(5), row.get(6), row.get(7), row.get(8), row.get(10), row.get(11), row.get(12)));
+				Existing other = existingByCode.get(code);
+				if (other == null || (other.retired && !existing.retired)) {
+					existingByCode.put(code, existing);
+				}
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		return existingByCode;
+	}
+
+	/**
+	 * Hashes the synchronized fields of a row, in the same order as they are loaded for existing locations
+	 */
+	private static String hash(String[] line) {
+		return hash(field(line, NAME), field(line, TYPE), field(line, DIVISION), field(line, DISTRICT), field(line, COUNTY),
+				field(line, PROVINCE), field(line, POSTCODE), field(line, LANDLINE), field(line, FAX), field(line, MOBILE));
+	}
+
+	/**
+	 * Hashes field values, treating missing values as blank
+	 */
+	private static String hash(Object... values) {
+		MessageDigest digest = newDigest();
+		for (Object value : values) {
+			digest.update(StringUtils.trimToEmpty(value != null ? value.toString() : null).getBytes(Charset.forName("UTF-8")));
+			digest.update((byte) 0);
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Computes the checksum of a resource
+	 */
+	private static String checksum(String csvFile) throws IOException {
+		MessageDigest digest = newDigest();
+		InputStream stream = open(csvFile);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		finally {
+			stream.close();
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private static InputStream open(String csvFile) throws IOException {
+		InputStream stream = LocationMflIncrementalSync.class.getClassLoader().getResourceAsStream(csvFile);
+		if (stream == null) {
+			throw new IOException("Unable to find resource " + csvFile);
+		}
+		return stream;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new APIException("SHA-1 is not available", ex);
+		}
+	}
+
+	private static String field(String[] line, int index) {
+		return index < line.length ? StringUtils.trimToEmpty(line[index]) : "";
+	}
+
+	private static boolean isTrue(Object value) {
+		return value instanceof Boolean ? (Boolean) value : value instanceof Number && ((Number) value).intValue() != 0;
+	}
+
+	/**
+	 * Sets the value of an attribute, voiding it if the value is blank
+	 * @param location the location
+	 * @param type the attribute type
+	 * @param value the value
+	 */
+	private static void setAsAttribute(Location location, LocationAttributeType type, String value) {
+		for (LocationAttribute attr : location.getActiveAttributes()) {
+			if (attr.getAttributeType().getUuid().equals(type.getUuid())) {
+				if (StringUtils.isBlank(value)) {
+					attr.setVoided(true);
+					attr.setVoidReason(RETIRE_REASON);
+				}
+				else if (!value.equals(attr.getValueReference())) {
+					attr.setValue(value);
+				}
+				return;
+			}
+		}
+		if (StringUtils.isNotBlank(value)) {
+			LocationAttribute attr = new LocationAttribute();
+			attr.setAttributeType(type);
+			attr.setValue(value);
+			attr.setOwner(location);
+			location.addAttribute(attr);
+		}
+	}
+
+	/**
+	 * Flushes a batch of saved locations and evicts them, so that the session doesn't grow with the whole list
+	 */
+	private static void flush(List<Location> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		Context.flushSession();
+		for (Location location : batch) {
+			Context.evictFromSession(location);
+		}
+		batch.clear();
+	}
+
+	/**
+	 * The MFL code hash of an existing location
+	 */
+	private static class Existing {
+
+		final Integer locationId;
+
+		final boolean retired;
+
+		final String hash;
+
+		Existing(Integer locationId, boolean retired, String hash) {
+			this.locationId = locationId;
+			this.retired = retired;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * The result of a sync
+	 */
+	public static class Result {
+
+		private final boolean skipped;
+
+		private int created, updated, retired;
+
+		Result(boolean skipped) {
+			this.skipped = skipped;
+		}
+
+		/**
+		 * Gets whether the sync was skipped because the file is unchanged
+		 * @return true if skipped
+		 */
+		public boolean isSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * Gets whether any locations were created, updated or retired
+		 * @return true if changed
+		 */
+		public boolean isChanged() {
+			return created + updated + retired > 0;
+		}
+
+		public int getCreated() {
+			return created;
+		}
+
+		public int getUpdated() {
+			return updated;
+		}
+
+		public int getRetired() {
+			return retired;
+		}
+	}
+}
@@ -0,0 +1,307 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata.sync;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.kenyaemr.wrapper.Facility;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of locations by MFL code and by name, so that facility lookups and type-ahead searches don't query
+ * location attributes for every request. Names are indexed by prefix for short queries, and by trigram for longer
+ * queries which can match anywhere in the name. The index is built on startup, kept current as locations are saved,
+ * retired and purged, and rebuilt periodically to pick up locations changed by other means.
+ */
+@Component
+public class MflFacilityIndex {
+
+	protected static final Log log = LogFactory.getLog(MflFacilityIndex.class);
+
+	/**
+	 * How long the index is used before it is rebuilt from the database
+	 */
+	private static final long REBUILD_INTERVAL = 60 * 60 * 1000L;
+
+	private static final int TRIGRAM_LENGTH = 3;
+
+	private volatile Index index;
+
+	private volatile long builtAt;
+
+	/**
+	 * Gets the id of the non-retired location with an MFL code
+	 * @param mflCode the MFL code
+	 * @return the location id, or null if no location has that code
+	 */
+	public Integer getLocationId(String mflCode) {
+		return StringUtils.isNotBlank(mflCode) ? getIndex().byCode.get(mflCode.trim()) : null;
+	}
+
+	/**
+	 * Gets the MFL code of a location
+	 * @param locationId the location id
+	 * @return the MFL code, or null if the location doesn't have one
+	 */
+	public String getMflCode(Integer locationId) {
+		Entry entry = locationId != null ? getIndex().entries.get(locationId) : null;
+		return entry != null ? entry.mflCode : null;
+	}
+
+	/**
+	 * Searches for locations by name. Queries shorter than a trigram match the start of names, and longer queries
+	 * match anywhere in names, with names which start with the query first.
+	 * @param query the query
+	 * @param limit the maximum number of results
+	 * @return the matching location ids, ordered by name
+	 */
+	public List<Integer> search(String query, int limit) {
+		List<Integer> ret = new ArrayList<Integer>();
+		final String term = StringUtils.isNotBlank(query) ? query.trim().toLowerCase() : null;
+		if (term == null || limit <= 0) {
+			return ret;
+		}
+
+		Index current = getIndex();
+		if (term.length() < TRIGRAM_LENGTH) {
+			for (Integer locationId : current.byName.subMap(term, term + Character.MAX_VALUE).values()) {
+				ret.add(locationId);
+				if (ret.size() >= limit) {
+					break;
+				}
+			}
+			return ret;
+		}
+
+		// Candidates are the locations with the least common trigram of the query
+		Set<Integer> candidates = null;
+		for (String trigram : trigrams(term)) {
+			Set<Integer> locationIds = current.byTrigram.get(trigram);
+			if (locationIds == null) {
+				return ret;
+			}
+			if (candidates == null || locationIds.size() < candidates.size()) {
+				candidates = locationIds;
+			}
+		}
+
+		List<Entry> matches = new ArrayList<Entry>();
+		for (Integer locationId : candidates) {
+			Entry entry = current.entries.get(locationId);
+			if (entry != null && entry.lowerName.contains(term)) {
+				matches.add(entry);
+			}
+		}
+		Collections.sort(matches, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry entry1, Entry entry2) {
+				boolean prefix1 = entry1.lowerName.startsWith(term), prefix2 = entry2.lowerName.startsWith(term);
+				if (prefix1 != prefix2) {
+					return prefix1 ? -1 : 1;
+				}
+				return entry1.sortKey.compareTo(entry2.sortKey);
+			}
+		});
+
+		for (Entry entry : matches.subList(0, Math.min(limit, matches.size()))) {
+			ret.add(entry.locationId);
+		}
+		return ret;
+	}
+
+	/**
+	 * Updates the index after a location has been saved, retired or unretired
+	 * @param location the location
+	 */
+	public void onLocationChanged(Location location) {
+		Index current = index;
+		if (current == null || location == null || location.getLocationId() == null) {
+			return;
+		}
+		current.put(new Entry(location.getLocationId(), location.getName(), new Facility(location).getMflCode(), location.isRetired()));
+	}
+
+	/**
+	 * Updates the index after a location has been purged
+	 * @param location the location
+	 */
+	public void onLocationPurged(Location location) {
+		Index current = index;
+		if (current != null && location != null && location.getLocationId() != null) {
+			current.remove(location.getLocationId());
+		}
+	}
+
+	/**
+	 * Rebuilds the index from the database, e.g. on startup
+	 */
+	public synchronized void rebuild() {
+		index = build();
+		builtAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Discards the index so that it is rebuilt when next used, e.g. after the facility list has been synchronized
+	 */
+	public void invalidate() {
+		index = null;
+	}
+
+	private Index getIndex() {
+		Index current = index;
+		if (current == null || System.currentTimeMillis() - builtAt > REBUILD_INTERVAL) {
+			synchronized (this) {
+				current = index;
+				if (current == null || System.currentTimeMillis() - builtAt > REBUILD_INTERVAL) {
+					rebuild();
+					current = index;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Loads the name and MFL code of all locations
+	 * @return the index
+	 */
+	private Index build() {
+		String sql = "select l.location_id, l.name, l.retired, a.value_reference from location l" +
+				" left join location_attribute a on a.location_id = l.location_id and a.voided = 0" +
+				" and a.attribute_type_id = (select t.location_attribute_type_id from location_attribute_type t" +
+				" where t.uuid = '" + FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE + "')";
+
+		Index built = new Index();
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				Integer locationId = ((Number) row.get(0)).intValue();
+				built.put(new Entry(locationId, (String) row.get(1), (String) row.get(3), isTrue(row.get(2))));
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		log.debug("Indexed " + built.entries.size() + " locations");
+		return built;
+	}
+
+	private static boolean isTrue(Object value) {
+		return value instanceof Boolean ? (Boolean) value : value instanceof Number && ((Number) value).intValue() != 0;
+	}
+
+	/**
+	 * Gets the distinct trigrams of a lower case name
+	 */
+	private static Set<String> trigrams(String name) {
+		Set<String> trigrams = new HashSet<String>();
+		for (int i = 0; i + TRIGRAM_LENGTH <= name.length(); i++) {
+			trigrams.add(name.substring(i, i + TRIGRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+	/**
+	 * The indexed locations. Lookups don't lock, and updates are serialized so that an entry is never left partially
+	 * indexed under its old and new values.
+	 */
+	private static class Index {
+
+		final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<Integer, Entry>();
+
+		final ConcurrentMap<String, Integer> byCode = new ConcurrentHashMap<String, Integer>();
+
+		final ConcurrentNavigableMap<String, Integer> byName = new ConcurrentSkipListMap<String, Integer>();
+
+		final ConcurrentMap<String, Set<Integer>> byTrigram = new ConcurrentHashMap<String, Set<Integer>>();
+
+		synchronized void put(Entry entry) {
+			remove(entry.locationId);
+			entries.put(entry.locationId, entry);
+			// Retired locations are found by name, but not by code
+			if (entry.mflCode != null && !entry.retired) {
+				byCode.putIfAbsent(entry.mflCode, entry.locationId);
+			}
+			if (entry.lowerName != null) {
+				byName.put(entry.sortKey, entry.locationId);
+				for (String trigram : trigrams(entry.lowerName)) {
+					Set<Integer> locationIds = byTrigram.get(trigram);
+					if (locationIds == null) {
+						locationIds = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+						byTrigram.put(trigram, locationIds);
+					}
+					locationIds.add(entry.locationId);
+				}
+			}
+		}
+
+		synchronized void remove(Integer locationId) {
+			Entry existing = entries.remove(locationId);
+			if (existing == null) {
+				return;
+			}
+			if (existing.mflCode != null) {
+				byCode.remove(existing.mflCode, locationId);
+			}
+			if (existing.lowerName != null) {
+				byName.remove(existing.sortKey);
+				for (String trigram : trigrams(existing.lowerName)) {
+					Set<Integer> locationIds = byTrigram.get(trigram);
+					if (locationIds != null) {
+						locationIds.remove(locationId);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The name and MFL code of a location
+	 */
+	private static class Entry {
+
+		final Integer locationId;
+
+		final String lowerName;
+
+		final String mflCode;
+
+		final boolean retired;
+
+		/**
+		 * Names aren't unique, so entries are sorted by name and then by id
+		 */
+		final String sortKey;
+
+		Entry(Integer locationId, String name, String mflCode, boolean retired) {
+			this.locationId = locationId;
+			this.lowerName = name != null ? name.toLowerCase() : null;
+			this.mflCode = StringUtils.isNotBlank(mflCode) ? mflCode.trim() : null;
+			this.retired = retired;
+			this.sortKey = lowerName + '\u0000' + locationId;
+		}
+	}
+}
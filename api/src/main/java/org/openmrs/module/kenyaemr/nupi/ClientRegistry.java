@@ -0,0 +1,76 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.io.IOException;
+
+/**
+ * The calls made to the national client registry when getting NUPI numbers
+ */
+public interface ClientRegistry {
+
+	String NATIONAL_ID = "national-id";
+
+	String PASSPORT = "passport";
+
+	String BIRTH_CERTIFICATE = "birth-certificate";
+
+	/**
+	 * Looks up a client by an identification document
+	 * @param countryCode the country code of the document, e.g. KE
+	 * @param identifierType the type of document, e.g. {@link #NATIONAL_ID}
+	 * @param identifier the document number
+	 * @return the response, with a body of the form {"clientExists":true,"client":{"clientNumber":"..."}} when OK
+	 * @throws IOException if the registry can't be reached
+	 */
+	Response findClient(String countryCode, String identifierType, String identifier) throws IOException;
+
+	/**
+	 * Registers a client
+	 * @param payload the client details as JSON
+	 * @return the response, with a body of the form {"clientNumber":"..."} when OK
+	 * @throws IOException if the registry can't be reached
+	 */
+	Response registerClient(String payload) throws IOException;
+
+	/**
+	 * The status code and body of a registry response
+	 */
+	class Response {
+
+		private final int code;
+
+		private final String body;
+
+		public Response(int code, String body) {
+			this.code = code;
+			this.body = body;
+		}
+
+		public int getCode() {
+			return code;
+		}
+
+		public String getBody() {
+			return body;
+		}
+
+		public boolean isOk() {
+			return code == 200;
+		}
+
+		/**
+		 * Whether the request may succeed if made again, i.e. the registry is throttling requests or had a server error
+		 */
+		public boolean isRetryable() {
+			return code == 429 || code >= 500;
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the OAuth2 token used by all calls to the client registry, so that the token is only requested when it is
+ * about to expire rather than checked for every call. The token is refreshed by one caller at a time while others
+ * keep using the current token, or wait for the refresh if the current token has expired. The token is also saved
+ * as a global property when it changes, so that it survives restarts.
+ */
+@Component
+public class ClientRegistryTokenHolder {
+
+	protected static final Log log = LogFactory.getLog(ClientRegistryTokenHolder.class);
+
+	/**
+	 * How long before a token expires that it is refreshed
+	 */
+	private static final long REFRESH_AHEAD = 60 * 1000L;
+
+	/**
+	 * How long to wait after a failed request for a token before requesting one again
+	 */
+	private static final long RETRY_INTERVAL = 30 * 1000L;
+
+	/**
+	 * How long a token is assumed to be valid for when neither the response nor the token itself gives an expiry
+	 */
+	static final long DEFAULT_LIFETIME = 5 * 60 * 1000L;
+
+	private static final int CONNECT_TIMEOUT = 10000;
+
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	private volatile Token current;
+
+	private volatile boolean loaded;
+
+	private volatile long retryAt;
+
+	/**
+	 * Gets a valid token, requesting a new one if the current token is about to expire
+	 * @return the token, or null if no valid token could be obtained
+	 */
+	public String getToken() {
+		Token token = getCurrent();
+		long now = System.currentTimeMillis();
+		if (token != null && now < token.expiresAt - REFRESH_AHEAD) {
+			return token.value;
+		}
+
+		boolean valid = token != null && now < token.expiresAt;
+		if (valid) {
+			// Refresh ahead of expiry, unless another caller is already doing so
+			if (refreshLock.tryLock()) {
+				try {
+					token = refresh(token);
+				}
+				finally {
+					refreshLock.unlock();
+				}
+			}
+			return token.value;
+		}
+
+		refreshLock.lock();
+		try {
+			// Another caller may have refreshed the token while this one waited
+			Token latest = current;
+			if (latest != null && System.currentTimeMillis() < latest.expiresAt) {
+				return latest.value;
+			}
+			latest = refresh(latest);
+			return latest != null && System.currentTimeMillis() < latest.expiresAt ? latest.value : null;
+		}
+		finally {
+			refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * Discards a token which the registry has rejected, unless it has already been replaced
+	 * @param token the rejected token
+	 */
+	public void invalidate(String token) {
+		refreshLock.lock();
+		try {
+			Token latest = current;
+			if (latest != null && latest.value.equals(token)) {
+				current = null;
+				retryAt = 0;
+			}
+		}
+		finally {
+			refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * Requests a new token, unless a request has recently failed. Must be called holding the refresh lock.
+	 * @param previous the current token
+	 * @return the new token, or the current token if a new one couldn't be obtained
+	 */
+	private Token refresh(Token previous) {
+		if (System.currentTimeMillis() < retryAt) {
+			return previous;
+		}
+
+		Token token = null;
+		try {
+			token = requestToken();
+		}
+		catch (Exception ex) {
+			log.error("Unable to get client registry token", ex);
+		}
+
+		if (token == null) {
+			retryAt = System.currentTimeMillis() + RETRY_INTERVAL;
+			return previous;
+		}
+
+		current = token;
+		if (previous == null || !token.value.equals(previous.value)) {
+			AdministrationService administrationService = Context.getAdministrationService();
+			if (!token.value.equals(administrationService.getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN))) {
+				administrationService.setGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN, token.value);
+			}
+		}
+		return token;
+	}
+
+	/**
+	 * Gets the current token, loading the one saved by a previous run the first time
+	 */
+	private Token getCurrent() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					String saved = Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN);
+					Long expiresAt = getJwtExpiry(saved);
+					if (expiresAt != null && current == null) {
+						current = new Token(saved, expiresAt);
+					}
+					loaded = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Requests a new token from the token URL using the configured client credentials
+	 * @return the token, or null if the response didn't contain one
+	 */
+	protected Token requestToken() throws IOException {
+		AdministrationService administrationService = Context.getAdministrationService();
+		String tokenUrl = administrationService.getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_TOKEN_URL);
+		String scope = administrationService.getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_SCOPE);
+		String clientId = administrationService.getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_CLIENT_ID);
+		String clientSecret = administrationService.getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_CLIENT_SECRET);
+		if (tokenUrl == null || scope == null || clientId == null || clientSecret == null) {
+			log.error("Please set the client registry OAuth2 credentials");
+			return null;
+		}
+
+		String authentication = Base64.getEncoder().encodeToString((clientId + ":" + clientSecret).getBytes("UTF-8"));
+		String parameters = "grant_type=" + URLEncoder.encode("client_credentials", "UTF-8") + "&scope=" + URLEncoder.encode(scope, "UTF-8");
+
+		long requestedAt = System.currentTimeMillis();
+		HttpsURLConnection connection = (HttpsURLConnection) new URL(tokenUrl).openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Authorization", "Basic " + authentication);
+			connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+			connection.setRequestProperty("Accept", "application/json");
+			connection.setConnectTimeout(CONNECT_TIMEOUT);
+			OutputStream os = connection.getOutputStream();
+			try {
+				os.write(parameters.getBytes("UTF-8"));
+			}
+			finally {
+				os.close();
+			}
+
+			StringBuilder response = new StringBuilder();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					response.append(line);
+				}
+			}
+			finally {
+				reader.close();
+			}
+			return parseToken(response.toString(), requestedAt);
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Parses a token response. The expiry is taken from expires_in, or from the token itself if that is missing, or
+	 * else a default lifetime is assumed so that the token isn't requested again for every call.
+	 * @param response the token response
+	 * @param requestedAt the time the token was requested
+	 * @return the token, or null if the response doesn't contain one
+	 */
+	static Token parseToken(String response, long requestedAt) throws IOException {
+		JsonNode node = new ObjectMapper().readTree(response);
+		String value = node != null ? node.path("access_token").getTextValue() : null;
+		if (StringUtils.isBlank(value)) {
+			log.error("Client registry token response didn't contain a token");
+			return null;
+		}
+
+		Long expiresAt = node.has("expires_in") ? requestedAt + node.get("expires_in").asLong() * 1000 : getJwtExpiry(value);
+		return new Token(value, expiresAt != null ? expiresAt : requestedAt + DEFAULT_LIFETIME);
+	}
+
+	/**
+	 * Gets the expiry time of a JWT token
+	 * @param token the token
+	 * @return the expiry time in milliseconds, or null if it isn't a JWT token with an expiry
+	 */
+	static Long getJwtExpiry(String token) {
+		if (StringUtils.isBlank(token)) {
+			return null;
+		}
+		try {
+			String[] chunks = token.split("\\.");
+			if (chunks.length < 2) {
+				return null;
+			}
+			JsonNode payload = new ObjectMapper().readTree(new String(Base64.getUrlDecoder().decode(chunks[1]), "UTF-8"));
+			return payload != null && payload.has("exp") ? payload.get("exp").asLong() * 1000 : null;
+		}
+		catch (Exception ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * A token and the time it expires
+	 */
+	static class Token {
+
+		final String value;
+
+		final long expiresAt;
+
+		Token(String value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+
+/**
+ * Makes calls to the client registry over HTTPS, using the end points configured by global properties
+ */
+public class HttpClientRegistry implements ClientRegistry {
+
+	private static final int CONNECT_TIMEOUT = 10000;
+
+	private static final int READ_TIMEOUT = 30000;
+
+	private final ClientRegistryTokenHolder tokenHolder;
+
+	public HttpClientRegistry(ClientRegistryTokenHolder tokenHolder) {
+		this.tokenHolder = tokenHolder;
+	}
+
+	/**
+	 * @see ClientRegistry#findClient(String, String, String)
+	 */
+	@Override
+	public Response findClient(String countryCode, String identifierType, String identifier) throws IOException {
+		String getUrl = Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_GET_END_POINT);
+		return send("GET", getUrl + '/' + countryCode + '/' + identifierType + '/' + identifier, null);
+	}
+
+	/**
+	 * @see ClientRegistry#registerClient(String)
+	 */
+	@Override
+	public Response registerClient(String payload) throws IOException {
+		String postUrl = Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_POST_END_POINT);
+		return send("POST", postUrl, payload);
+	}
+
+	private Response send(String method, String url, String payload) throws IOException {
+		String token = tokenHolder.getToken();
+		Response response = send(method, url, payload, token);
+		if (response.getCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+			// The token may have been revoked before it expired, so get a new one and try again
+			tokenHolder.invalidate(token);
+			response = send(method, url, payload, tokenHolder.getToken());
+		}
+		return response;
+	}
+
+	private Response send(String method, String url, String payload, String token) throws IOException {
+		HttpsURLConnection con = (HttpsURLConnection) new URL(url).openConnection();
+		try {
+			con.setRequestMethod(method);
+			con.setRequestProperty("Authorization", "Bearer " + token);
+			con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+			con.setRequestProperty("Accept", "application/json");
+			con.setConnectTimeout(CONNECT_TIMEOUT);
+			con.setReadTimeout(READ_TIMEOUT);
+
+			if (payload != null) {
+				con.setDoOutput(true);
+				OutputStream os = con.getOutputStream();
+				try {
+					os.write(payload.getBytes("UTF-8"));
+				}
+				finally {
+					os.close();
+				}
+			}
+
+			int responseCode = con.getResponseCode();
+			InputStream body = responseCode < 400 ? con.getInputStream() : con.getErrorStream();
+			return new Response(responseCode, read(body));
+		}
+		finally {
+			con.disconnect();
+		}
+	}
+
+	private static String read(InputStream stream) throws IOException {
+		if (stream == null) {
+			return "";
+		}
+		BufferedReader in = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+		try {
+			StringBuilder response = new StringBuilder();
+			String inputLine;
+			while ((inputLine = in.readLine()) != null) {
+				response.append(inputLine);
+			}
+			return response.toString();
+		}
+		finally {
+			in.close();
+		}
+	}
+}
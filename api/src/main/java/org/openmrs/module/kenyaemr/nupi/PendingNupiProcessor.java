@@ -0,0 +1,215 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.Program;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.MetadataCache;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * Gets NUPI numbers for the HIV patients whose verification with the client registry is pending. Patients are selected
+ * in batches by a single query, and each batch is processed by a bounded pool of threads which share a rate limited
+ * registry client. The last patient of each completed batch is saved as a checkpoint, so an interrupted run resumes
+ * where it stopped, and the checkpoint is cleared once all pending patients have been processed.
+ */
+public class PendingNupiProcessor {
+
+	protected static final Log log = LogFactory.getLog(PendingNupiProcessor.class);
+
+	private static final int DEFAULT_THREADS = 4;
+
+	private static final double DEFAULT_REQUESTS_PER_SECOND = 2;
+
+	private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final long INITIAL_BACKOFF = 2000L;
+
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * The test double used in place of the real registry, kept between runs so registered clients are found again
+	 */
+	private static final StubClientRegistry stubRegistry = new StubClientRegistry(100);
+
+	private final ClientRegistry registry;
+
+	private final int threads;
+
+	private final int batchSize;
+
+	/**
+	 * @param registry the client registry
+	 * @param threads the number of patients processed at once
+	 * @param batchSize the number of patients selected per query, and between checkpoints
+	 */
+	public PendingNupiProcessor(ClientRegistry registry, int threads, int batchSize) {
+		this.registry = registry;
+		this.threads = Math.max(1, threads);
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Creates a processor configured by global properties
+	 * @return the processor
+	 */
+	public static PendingNupiProcessor newConfiguredProcessor() {
+		boolean useStub = "true".equalsIgnoreCase(getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_USE_STUB, "false").trim());
+		ClientRegistry registry = useStub ? stubRegistry : new HttpClientRegistry(Context.getRegisteredComponents(ClientRegistryTokenHolder.class).get(0));
+
+		double requestsPerSecond = NumberUtils.toDouble(getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_REQUESTS_PER_SECOND, null), DEFAULT_REQUESTS_PER_SECOND);
+		int maxAttempts = NumberUtils.toInt(getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_MAX_ATTEMPTS, null), DEFAULT_MAX_ATTEMPTS);
+		int threads = NumberUtils.toInt(getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_NUPI_THREADS, null), DEFAULT_THREADS);
+
+		ClientRegistry throttled = new ThrottledClientRegistry(registry, requestsPerSecond > 0 ? requestsPerSecond : DEFAULT_REQUESTS_PER_SECOND, maxAttempts, INITIAL_BACKOFF);
+		return new PendingNupiProcessor(throttled, threads, BATCH_SIZE);
+	}
+
+	/**
+	 * Processes all pending patients after the checkpoint
+	 * @return the number of patients processed
+	 */
+	public int run() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "kenyaemr-nupi-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		int processed = 0;
+		try {
+			int checkpoint = NumberUtils.toInt(getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_NUPI_CHECKPOINT, null), 0);
+			if (checkpoint > 0) {
+				log.info("Resuming NUPI requests after patient #" + checkpoint);
+			}
+
+			List<Integer> batch;
+			do {
+				batch = getPendingPatientIds(checkpoint, batchSize);
+
+				List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+				for (Integer patientId : batch) {
+					futures.add(executor.submit(newRequest(patientId)));
+				}
+				for (Future<Boolean> future : futures) {
+					try {
+						future.get();
+					}
+					catch (ExecutionException ex) {
+						log.error("Unable to get NUPI for patient", ex.getCause());
+					}
+				}
+
+				processed += batch.size();
+				if (!batch.isEmpty()) {
+					checkpoint = batch.get(batch.size() - 1);
+					setCheckpoint(checkpoint);
+				}
+				log.info("Processed " + processed + " patients pending NUPI verification");
+			}
+			while (batch.size() == batchSize);
+
+			setCheckpoint(0);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return processed;
+	}
+
+	/**
+	 * Gets the HIV patients who don't have a NUPI, but do have an identification document, and whose verification
+	 * with the client registry is pending
+	 * @param afterPatientId only patients with greater ids are returned
+	 * @param limit the maximum number of patients
+	 * @return the patient ids, in order
+	 */
+	public List<Integer> getPendingPatientIds(int afterPatientId, int limit) {
+		Program hivProgram = MetadataCache.program(HivMetadata._Program.HIV);
+		PatientIdentifierType nupi = MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.NATIONAL_UNIQUE_PATIENT_IDENTIFIER);
+		PatientIdentifierType nationalId = MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.NATIONAL_ID);
+		PatientIdentifierType passport = MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.PASSPORT_NUMBER);
+		PatientIdentifierType birthCertificate = MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.BIRTH_CERTIFICATE_NUMBER);
+		PersonAttributeType verificationStatus = MetadataCache.possible(PersonAttributeType.class, CommonMetadata._PersonAttributeType.VERIFICATION_STATUS_WITH_NATIONAL_REGISTRY);
+
+		List<Integer> ret = new ArrayList<Integer>();
+		if (verificationStatus == null) {
+			return ret;
+		}
+
+		String sql = "select p.patient_id from patient p" +
+				" inner join person pe on pe.person_id = p.patient_id and pe.voided = 0 and pe.dead = 0" +
+				" where p.voided = 0 and p.patient_id > " + afterPatientId +
+				" and exists (select 1 from patient_program pp where pp.patient_id = p.patient_id and pp.program_id = " + hivProgram.getProgramId() + ")" +
+				" and exists (select 1 from person_attribute pa where pa.person_id = p.patient_id and pa.voided = 0" +
+				" and pa.person_attribute_type_id = " + verificationStatus.getPersonAttributeTypeId() + " and lower(trim(pa.value)) = 'pending')" +
+				" and exists (select 1 from patient_identifier pi where pi.patient_id = p.patient_id and pi.voided = 0" +
+				" and pi.identifier_type in (" + nationalId.getPatientIdentifierTypeId() + ", " + passport.getPatientIdentifierTypeId() + ", " + birthCertificate.getPatientIdentifierTypeId() + "))" +
+				" and not exists (select 1 from patient_identifier pi where pi.patient_id = p.patient_id and pi.voided = 0" +
+				" and pi.identifier_type = " + nupi.getPatientIdentifierTypeId() + ")" +
+				" order by p.patient_id limit " + limit;
+
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				ret.add(((Number) row.get(0)).intValue());
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		return ret;
+	}
+
+	/**
+	 * Creates the request for a patient's NUPI, which runs in its own session
+	 */
+	private Callable<Boolean> newRequest(final Integer patientId) {
+		return EvaluationExecutor.inSession(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				Patient patient = Context.getPatientService().getPatient(patientId);
+				return patient != null && new UpiUtilsDataExchange().getNUPIforPatient(patient, registry);
+			}
+		});
+	}
+
+	private static void setCheckpoint(int patientId) {
+		Context.getAdministrationService().setGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_NUPI_CHECKPOINT, String.valueOf(patientId));
+	}
+
+	private static String getGlobalProperty(String property, String defaultValue) {
+		return Context.getAdministrationService().getGlobalProperty(property, defaultValue);
+	}
+}
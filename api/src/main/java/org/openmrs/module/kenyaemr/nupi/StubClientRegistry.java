@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * An in-memory stand-in for the client registry, for running the NUPI tasks locally and in tests without calling the
+ * real registry. Registered clients are found by their identification documents, and each call can be delayed to
+ * simulate the latency of the registry.
+ */
+public class StubClientRegistry implements ClientRegistry {
+
+	private final ConcurrentMap<String, String> clientNumbers = new ConcurrentHashMap<String, String>();
+
+	private final AtomicInteger lastClientNumber = new AtomicInteger();
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final long latency;
+
+	public StubClientRegistry() {
+		this(0);
+	}
+
+	/**
+	 * @param latency the time in milliseconds that each call takes
+	 */
+	public StubClientRegistry(long latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * Adds a client which already exists on the registry
+	 * @param countryCode the country code of the document
+	 * @param identifierType the type of document
+	 * @param identifier the document number
+	 * @param clientNumber the client's NUPI
+	 */
+	public void addClient(String countryCode, String identifierType, String identifier, String clientNumber) {
+		clientNumbers.put(key(countryCode, identifierType, identifier), clientNumber);
+	}
+
+	/**
+	 * Gets the number of calls which have been made
+	 * @return the number of calls
+	 */
+	public int getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * @see ClientRegistry#findClient(String, String, String)
+	 */
+	@Override
+	public Response findClient(String countryCode, String identifierType, String identifier) throws IOException {
+		delay();
+		String clientNumber = clientNumbers.get(key(countryCode, identifierType, identifier));
+		if (clientNumber == null) {
+			return new Response(200, "{\"clientExists\":false,\"client\":{}}");
+		}
+		return new Response(200, "{\"clientExists\":true,\"client\":{\"clientNumber\":\"" + clientNumber + "\"}}");
+	}
+
+	/**
+	 * @see ClientRegistry#registerClient(String)
+	 */
+	@Override
+	public Response registerClient(String payload) throws IOException {
+		delay();
+		JsonNode identifications = new ObjectMapper().readTree(payload).get("identifications");
+		if (identifications == null || identifications.size() == 0) {
+			return new Response(400, "{\"message\":\"Missing identifications\"}");
+		}
+
+		String clientNumber = String.format("MOH%08d", lastClientNumber.incrementAndGet());
+		for (JsonNode identification : identifications) {
+			addClient(identification.path("CountryCode").getTextValue(), identification.path("identificationType").getTextValue(),
+					identification.path("identificationNumber").getTextValue(), clientNumber);
+		}
+		return new Response(200, "{\"clientNumber\":\"" + clientNumber + "\"}");
+	}
+
+	private void delay() throws IOException {
+		requests.incrementAndGet();
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", ex);
+			}
+		}
+	}
+
+	private static String key(String countryCode, String identifierType, String identifier) {
+		return countryCode + "/" + identifierType + "/" + identifier;
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Limits the rate of calls made to a client registry, which may be shared by several threads, and retries calls which
+ * fail because the registry is unavailable or throttling requests, backing off exponentially between attempts
+ */
+public class ThrottledClientRegistry implements ClientRegistry {
+
+	protected static final Log log = LogFactory.getLog(ThrottledClientRegistry.class);
+
+	private final ClientRegistry registry;
+
+	private final long interval;
+
+	private final int maxAttempts;
+
+	private final long initialBackoff;
+
+	private long nextPermitAt;
+
+	/**
+	 * @param registry the registry to call
+	 * @param requestsPerSecond the maximum number of calls started per second
+	 * @param maxAttempts the maximum number of attempts at each call
+	 * @param initialBackoff the time in milliseconds waited before the first retry, which doubles with each retry
+	 */
+	public ThrottledClientRegistry(ClientRegistry registry, double requestsPerSecond, int maxAttempts, long initialBackoff) {
+		if (requestsPerSecond <= 0) {
+			throw new IllegalArgumentException("Request rate must be positive");
+		}
+		this.registry = registry;
+		this.interval = (long) (1000 / requestsPerSecond);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.initialBackoff = initialBackoff;
+	}
+
+	/**
+	 * @see ClientRegistry#findClient(String, String, String)
+	 */
+	@Override
+	public Response findClient(final String countryCode, final String identifierType, final String identifier) throws IOException {
+		return call(new Call() {
+			@Override
+			public Response make() throws IOException {
+				return registry.findClient(countryCode, identifierType, identifier);
+			}
+		});
+	}
+
+	/**
+	 * @see ClientRegistry#registerClient(String)
+	 */
+	@Override
+	public Response registerClient(final String payload) throws IOException {
+		return call(new Call() {
+			@Override
+			public Response make() throws IOException {
+				return registry.registerClient(payload);
+			}
+		});
+	}
+
+	private Response call(Call call) throws IOException {
+		long backoff = initialBackoff;
+		for (int attempt = 1; ; attempt++) {
+			acquire();
+			try {
+				Response response = call.make();
+				if (!response.isRetryable() || attempt >= maxAttempts) {
+					return response;
+				}
+				log.warn("Client registry returned " + response.getCode() + ", retrying in " + backoff + "ms");
+			}
+			catch (IOException ex) {
+				if (attempt >= maxAttempts) {
+					throw ex;
+				}
+				log.warn("Unable to reach client registry (" + ex.getMessage() + "), retrying in " + backoff + "ms");
+			}
+			sleep(backoff);
+			backoff *= 2;
+		}
+	}
+
+	/**
+	 * Waits until a call may be started without exceeding the request rate
+	 */
+	private void acquire() throws IOException {
+		long permitAt;
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			permitAt = Math.max(now, nextPermitAt);
+			nextPermitAt = permitAt + interval;
+		}
+		sleep(permitAt - System.currentTimeMillis());
+	}
+
+	private static void sleep(long millis) throws IOException {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting to call the client registry", ex);
+		}
+	}
+
+	private interface Call {
+
+		Response make() throws IOException;
+	}
+}
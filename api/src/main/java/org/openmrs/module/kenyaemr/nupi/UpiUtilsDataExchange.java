@@ -15,11 +15,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.PrintStream;
-import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
@@ -27,12 +24,9 @@ import java.security.cert.X509Certificate;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -45,7 +39,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ObjectNode;
 import org.openmrs.Concept;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
@@ -61,6 +54,7 @@ import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.MetadataCache;
 import org.openmrs.module.kenyaemr.wrapper.PatientWrapper;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.ui.framework.SimpleObject;
@@ -72,17 +66,6 @@ public class UpiUtilsDataExchange {
 
 	private List<PatientIdentifierType> allPatientIdentifierTypes;
 
-	//OAuth variables
-	private static final Pattern pat = Pattern.compile(".*\"access_token\"\\s*:\\s*\"([^\"]+)\".*");
-	
-	private String strClientId = ""; // clientId
-	
-	private String strClientSecret = ""; // client secret
-	
-	private String strScope = ""; // scope
-	
-	private String strTokenUrl = ""; // Token URL
-
 	private CountryCodeList countryCodeList = new CountryCodeList();
 
 	private CountyCodeList countyCodeList = new CountyCodeList();
@@ -160,154 +143,13 @@ public class UpiUtilsDataExchange {
 	}
 
 	/**
-	 * Initialize the OAuth variables
+	 * Gets the OAUTH2 token, which is shared by all calls to the client registry and only requested when it is about
+	 * to expire
 	 * 
-	 * @return true on success or false on failure
-	 */
-	public boolean initAuthVars() {
-		
-		GlobalProperty globalTokenUrl = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_TOKEN_URL);
-		strTokenUrl = globalTokenUrl.getPropertyValue();
-		
-		GlobalProperty globalScope = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_SCOPE);
-		strScope = globalScope.getPropertyValue();
-		
-		GlobalProperty globalClientSecret = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_CLIENT_SECRET);
-		strClientSecret = globalClientSecret.getPropertyValue();
-		
-		GlobalProperty globalClientId = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_OAUTH2_CLIENT_ID);
-		strClientId = globalClientId.getPropertyValue();
-		
-		if (strTokenUrl == null || strScope == null || strClientSecret == null || strClientId == null) {
-			System.err.println("Get oauth data: Please set OAuth2 credentials");
-			return (false);
-		}
-		return (true);
-	}
-
-	/**
-	 * Get the Token
-	 * 
-	 * @return the token as a string and null on failure
-	 */
-	private String getClientCredentials() {
-		
-		String auth = strClientId + ":" + strClientSecret;
-		String authentication = Base64.getEncoder().encodeToString(auth.getBytes());
-		BufferedReader reader = null;
-		HttpsURLConnection connection = null;
-		String returnValue = "";
-		try {
-			StringBuilder parameters = new StringBuilder();
-			parameters.append("grant_type=" + URLEncoder.encode("client_credentials", "UTF-8"));
-			parameters.append("&");
-			parameters.append("scope=" + URLEncoder.encode(strScope, "UTF-8"));
-			URL url = new URL(strTokenUrl);
-			connection = (HttpsURLConnection) url.openConnection();
-			connection.setRequestMethod("POST");
-			connection.setDoOutput(true);
-			connection.setRequestProperty("Authorization", "Basic " + authentication);
-			connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-			connection.setRequestProperty("Accept", "application/json");
-			connection.setConnectTimeout(10000); // set timeout to 10 seconds
-			PrintStream os = new PrintStream(connection.getOutputStream());
-			os.print(parameters);
-			os.close();
-			reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			String line = null;
-			StringWriter out = new StringWriter(connection.getContentLength() > 0 ? connection.getContentLength() : 2048);
-			while ((line = reader.readLine()) != null) {
-				out.append(line);
-			}
-			String response = out.toString();
-			Matcher matcher = pat.matcher(response);
-			if (matcher.matches() && matcher.groupCount() > 0) {
-				returnValue = matcher.group(1);
-			} else {
-				System.err.println("OAUTH2 Error : Token pattern mismatch");
-			}
-			
-		}
-		catch (Exception e) {
-			System.err.println("OAUTH2 - Error : " + e.getMessage());
-		}
-		finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				}
-				catch (IOException e) {}
-			}
-			connection.disconnect();
-		}
-		return returnValue;
-	}
-
-	/**
-	 * Checks if the current token is valid and not expired
-	 * 
-	 * @return true if valid and false if invalid
-	 */
-	private boolean isValidToken() {
-		String currentToken = Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN);
-		ObjectMapper mapper = new ObjectMapper();
-		try {
-			ObjectNode jsonNode = (ObjectNode) mapper.readTree(currentToken);
-			if (jsonNode != null) {
-				long expiresSeconds = jsonNode.get("expires_in").getLongValue();
-				String token = jsonNode.get("access_token").getTextValue();
-				if(token != null && token.length() > 0)
-				{
-					String[] chunks = token.split("\\.");
-					Base64.Decoder decoder = Base64.getUrlDecoder();
-
-					String header = new String(decoder.decode(chunks[0]));
-					String payload = new String(decoder.decode(chunks[1]));
-
-					ObjectNode payloadNode = (ObjectNode) mapper.readTree(payload);
-					long expiryTime = payloadNode.get("exp").getLongValue();
-
-					long currentTime = System.currentTimeMillis()/1000;
-
-					// check if expired
-					if (currentTime < expiryTime) {
-						return(true);
-					} else {
-						return(false);
-					}
-				}
-				return(false);
-			} else {
-				return(false);
-			}
-		} catch(Exception e) {
-			return(false);
-		}
-	}
-
-	/**
-	 * Gets the OAUTH2 token
-	 * 
-	 * @return String the token or empty on failure
+	 * @return String the token or null on failure
 	 */
 	public String getToken() {
-		//check if current token is valid
-		if(isValidToken()) {
-			return(Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN));
-		} else {
-			// Init the auth vars
-			boolean varsOk = initAuthVars();
-			if (varsOk) {
-				//Get the OAuth Token
-				String credentials = getClientCredentials();
-				//Save on global and return token
-				if (credentials != null) {
-					Context.getAdministrationService().setGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN, credentials);
-					return(credentials);
-				}
-			}
-		}
-		return(null);
+		return Context.getRegisteredComponents(ClientRegistryTokenHolder.class).get(0).getToken();
 	}
 
 	/**
@@ -451,384 +293,104 @@ public class UpiUtilsDataExchange {
 	}
 
 	/**
-	 * Get NUPI for all patients
+	 * Gets the NUPI of a patient from the client registry. The patient is looked up by each of their identification
+	 * documents, and registered if they aren't found.
 	 * 
-	 * @return Integer number of records updated
-	 */
-	public Integer getNUPIforAll(HashSet<Patient> patientsGroup) {
-		Integer ret = 0;
-		PatientIdentifierType nationalID = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.NATIONAL_ID);
-		PatientIdentifierType passportNumber = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.PASSPORT_NUMBER);
-		PatientIdentifierType birthCertificateNumber = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.BIRTH_CERTIFICATE_NUMBER);
-
-		for (Patient patient : patientsGroup) {
-			System.err.println("NUPI for All; Got the patient as: " + patient.getPatientId() + " : " + ret  + "/" + patientsGroup.size());
-			String natID = "";
-			Boolean hasNatID = false;
-			String passportNum = "";
-			Boolean hasPassNum = false;
-			String birthCert = "";
-			Boolean hasBirthCert = false;
-			try {
-				PatientWrapper wrapper = new PatientWrapper(patient);
-				//national id
-				PatientIdentifier piNatId = patient.getPatientIdentifier(nationalID);
-				if(piNatId != null) {
-					natID = piNatId.getIdentifier();
-					hasNatID = true;
-					System.err.println("Got the national id as: " + natID);
-				}
-				//passport number
-				PatientIdentifier piPassNum = patient.getPatientIdentifier(passportNumber);
-				if(piPassNum != null) {
-					passportNum = piPassNum.getIdentifier();
-					hasPassNum = true;
-					System.err.println("Got the passport number as: " + passportNum);
-				}
-				//birth certificate
-				PatientIdentifier piBirthCert = patient.getPatientIdentifier(birthCertificateNumber);
-				if(piBirthCert != null) {
-					birthCert = piBirthCert.getIdentifier();
-					hasBirthCert = true;
-					System.err.println("Got the birth certificate as: " + birthCert);
-				}
-				//country
-				Obs obsCountry = getLatestObs(patient, Dictionary.COUNTRY);
-				String countryCode = "KE";
-				if (obsCountry != null) {
-					Concept conCountry = obsCountry.getValueCoded();
-					countryCode = getCountryCode(conCountry);
-				}
-				// Check if patient is already on CR and update patient NUPI if found existing
-				if(!checkOnCRIfPatientExistsAndUpdate(patient, hasNatID, natID, hasPassNum, passportNum, hasBirthCert, birthCert, countryCode)) {
-					try {
-						String authToken = getToken();
-						GlobalProperty globalPostUrl = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_POST_END_POINT);
-						String strPostUrl = globalPostUrl.getPropertyValue();
-						Location location = Context.getService(KenyaEmrService.class).getDefaultLocation();
-
-						System.out.println("Using NUPI POST URL: " + strPostUrl);
-						URL url = new URL(strPostUrl);
-
-						HttpsURLConnection con =(HttpsURLConnection) url.openConnection();
-						con.setRequestMethod("POST");
-
-						con.setRequestProperty("Authorization", "Bearer " + authToken);
-						con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-						con.setRequestProperty("Accept", "application/json");
-						con.setConnectTimeout(10000); // set timeout to 10 seconds
-
-						String payload = generateNUPIpostPayload(patient, hasNatID, natID, hasPassNum, passportNum, hasBirthCert, birthCert, countryCode);
-
-						con.setDoOutput(true);
-						OutputStream os = con.getOutputStream();
-						os.write(payload.getBytes());
-						os.flush();
-						os.close();
-
-						int responseCode = con.getResponseCode();
-
-						if (responseCode == HttpURLConnection.HTTP_OK) { //success
-							BufferedReader in = null;
-							in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-							String inputLine;
-							StringBuffer response = new StringBuffer();
-				
-							while ((inputLine = in.readLine()) != null) {
-								response.append(inputLine);
-							}
-							in.close();
-				
-							String stringResponse = response.toString();
-							System.out.println("Got the Response as: " + stringResponse);
-				
-							SimpleObject responseObj = processNUPIpostResponse(stringResponse);
-							String NUPI = (String) responseObj.get("clientNumber");
-							System.out.println("Got the NUPI as: " + NUPI);
-							// update the patient NUPI
-							wrapper.setNationalUniquePatientNumber(NUPI, location);
-							wrapper.setCRVerificationStatus(getAttributeSubstring("Verified"));
-							wrapper.setCRVerificationMessage("");
-							Context.getPatientService().savePatient(patient);
-							System.out.println("Successfully updated patient NUPI: " + patient.getPatientId());
-				
-						} else {
-							String stringResponse = "";
-							if(con != null && con.getErrorStream() != null) {
-								BufferedReader in = null;
-								// BufferedReader in = new BufferedReader(new InputStreamReader(
-								// 		con.getErrorStream()));
-								in = new BufferedReader(new InputStreamReader(con.getErrorStream()));
-								String inputLine;
-								StringBuffer response = new StringBuffer();
-					
-								while ((inputLine = in.readLine()) != null) {
-									response.append(inputLine);
-								}
-								in.close();
-					
-								stringResponse = response.toString();
-							} else {
-								System.out.println("Could not get error stream");
-							}
-
-							// update the patient with verification error
-							wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-							if(responseCode == HttpURLConnection.HTTP_BAD_REQUEST) {
-								wrapper.setCRVerificationMessage(getAttributeSubstring("Missing Mandatory Fields: " + responseCode));
-							} else {
-								wrapper.setCRVerificationMessage(getAttributeSubstring("NETWORK Error: " + responseCode));
-							}
-							Context.getPatientService().savePatient(patient);
-
-							System.out.println("Error getting NUPI for client: " + responseCode + " : " + stringResponse);
-						}
-					} catch(Exception ex) {
-						try {
-							wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-							if(ex.getMessage() == null) {
-								wrapper.setCRVerificationMessage(getAttributeSubstring("Missing Mandatory Fields"));
-							} else {
-								wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
-							}
-							Context.getPatientService().savePatient(patient);
-						} catch(Exception e) {}
-						System.err.println("Error getting NUPI for client: " + ex.getMessage());
-						ex.printStackTrace();
-					}
-				}
-			} catch(Exception ex) {
-				System.err.println("General Error getting NUPI for client: " + ex.getMessage());
-				ex.printStackTrace();
-			}	
-
-			try {
-				//Delay for 5 seconds
-				Thread.sleep(5000);
-			}
-			catch (Exception ie) {
-				Thread.currentThread().interrupt();
-			}
-			ret++;
-		}
-		
-		return(ret);
-	}
-
-	/**
-	 * Generates the payload used to post a patients details to CR
-	 * @param patient
-	 * @return
+	 * @param patient the patient
+	 * @param registry the client registry
+	 * @return true if the patient's NUPI was updated
 	 */
-	private Boolean checkOnCRIfPatientExistsAndUpdate(Patient patient, Boolean hasNatID, String natID, Boolean hasPassNum, String passportNum, Boolean hasBirthCert, String birthCert, String countryCode) {
-		String authToken = getToken();
-		GlobalProperty globalGetUrl = Context.getAdministrationService().getGlobalPropertyObject(CommonMetadata.GP_CLIENT_VERIFICATION_GET_END_POINT);
-		String strGetUrl = globalGetUrl.getPropertyValue();
-		Location location = Context.getService(KenyaEmrService.class).getDefaultLocation();
+	public boolean getNUPIforPatient(Patient patient, ClientRegistry registry) {
 		PatientWrapper wrapper = new PatientWrapper(patient);
-		// If patient has a national ID
-		if(hasNatID == true) {
-			try {
-				String getUrl = strGetUrl + '/' + countryCode + "/national-id/" + natID;
-				System.out.println("Using NUPI GET URL: " + getUrl);
-				URL url = new URL(getUrl);
-
-				HttpsURLConnection con =(HttpsURLConnection) url.openConnection();
-				con.setRequestMethod("GET");
-
-				con.setRequestProperty("Authorization", "Bearer " + authToken);
-				con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-				con.setRequestProperty("Accept", "application/json");
-				con.setConnectTimeout(10000); // set timeout to 10 seconds
-
-				int responseCode = con.getResponseCode();
+		String natID = getIdentifier(patient, CommonMetadata._PatientIdentifierType.NATIONAL_ID);
+		String passportNum = getIdentifier(patient, CommonMetadata._PatientIdentifierType.PASSPORT_NUMBER);
+		String birthCert = getIdentifier(patient, CommonMetadata._PatientIdentifierType.BIRTH_CERTIFICATE_NUMBER);
+
+		//country
+		Obs obsCountry = getLatestObs(patient, Dictionary.COUNTRY);
+		String countryCode = "KE";
+		if (obsCountry != null) {
+			Concept conCountry = obsCountry.getValueCoded();
+			countryCode = getCountryCode(conCountry);
+		}
 
-				if (responseCode == HttpURLConnection.HTTP_OK) { //success
-					BufferedReader in = null;
-					in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-					String inputLine;
-					StringBuffer response = new StringBuffer();
-		
-					while ((inputLine = in.readLine()) != null) {
-						response.append(inputLine);
-					}
-					in.close();
-		
-					String stringResponse = response.toString();
-					System.out.println("Got the Response as: " + stringResponse);
-		
-					SimpleObject responseObj = processNUPIgetResponse(stringResponse);
-					Boolean clientExists = (Boolean) responseObj.get("clientExists");
-					if(clientExists == true) {
-						String NUPI = (String) responseObj.get("clientNumber");
-						System.out.println("Got the NUPI as: " + NUPI);
-						// update the patient NUPI
-						wrapper.setNationalUniquePatientNumber(NUPI, location);
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Verified"));
-						wrapper.setCRVerificationMessage("");
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Successfully updated patient NUPI: " + patient.getPatientId());
-						// return true to end processing for this client
-						return(true);
-					} else {
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-						wrapper.setCRVerificationMessage(getAttributeSubstring("Client does not exist on CR"));
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Client does not exist on CR");
-					}
-		
-				} else {
-					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error getting NUPI for client: " + responseCode));
-					Context.getPatientService().savePatient(patient);
-					System.out.println("Error getting NUPI for client: " + responseCode);
-				}
-			} catch(Exception ex) {
-				try {
-					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
-					Context.getPatientService().savePatient(patient);
-				} catch(Exception e) {}
-				System.err.println("Error getting NUPI for client: " + ex.getMessage());
-				ex.printStackTrace();
+		// Check if patient is already on CR and update patient NUPI if found existing
+		String[][] documents = {
+				{ ClientRegistry.NATIONAL_ID, natID },
+				{ ClientRegistry.PASSPORT, passportNum },
+				{ ClientRegistry.BIRTH_CERTIFICATE, birthCert }
+		};
+		for (String[] document : documents) {
+			if (document[1] == null) {
+				continue;
 			}
-		}
-		// If patient has a passport number
-		if(hasPassNum == true) {
 			try {
-				String getUrl = strGetUrl + '/' + countryCode + "/passport/" + passportNum;
-				System.out.println("Using NUPI GET URL: " + getUrl);
-				URL url = new URL(getUrl);
-
-				HttpsURLConnection con =(HttpsURLConnection) url.openConnection();
-				con.setRequestMethod("GET");
-
-				con.setRequestProperty("Authorization", "Bearer " + authToken);
-				con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-				con.setRequestProperty("Accept", "application/json");
-				con.setConnectTimeout(10000); // set timeout to 10 seconds
-
-				int responseCode = con.getResponseCode();
-
-				if (responseCode == HttpURLConnection.HTTP_OK) { //success
-					BufferedReader in = null;
-					in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-					String inputLine;
-					StringBuffer response = new StringBuffer();
-		
-					while ((inputLine = in.readLine()) != null) {
-						response.append(inputLine);
-					}
-					in.close();
-		
-					String stringResponse = response.toString();
-					System.out.println("Got the Response as: " + stringResponse);
-		
-					SimpleObject responseObj = processNUPIgetResponse(stringResponse);
-					Boolean clientExists = (Boolean) responseObj.get("clientExists");
-					if(clientExists == true) {
-						String NUPI = (String) responseObj.get("clientNumber");
-						System.out.println("Got the NUPI as: " + NUPI);
-						// update the patient NUPI
-						wrapper.setNationalUniquePatientNumber(NUPI, location);
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Verified"));
-						wrapper.setCRVerificationMessage("");
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Successfully updated patient NUPI: " + patient.getPatientId());
-						// return true to end processing for this client
-						return(true);
-					} else {
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-						wrapper.setCRVerificationMessage(getAttributeSubstring("Client does not exist on CR"));
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Client does not exist on CR");
+				ClientRegistry.Response response = registry.findClient(countryCode, document[0], document[1]);
+				if (response.isOk()) {
+					SimpleObject responseObj = processNUPIgetResponse(response.getBody());
+					if (Boolean.TRUE.equals(responseObj.get("clientExists"))) {
+						return setNUPI(patient, wrapper, (String) responseObj.get("clientNumber"));
 					}
-		
+					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
+					wrapper.setCRVerificationMessage(getAttributeSubstring("Client does not exist on CR"));
 				} else {
 					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error getting NUPI for client: " + responseCode));
-					Context.getPatientService().savePatient(patient);
-					System.out.println("Error getting NUPI for client: " + responseCode);
+					wrapper.setCRVerificationMessage(getAttributeSubstring("Error getting NUPI for client: " + response.getCode()));
+					log.warn("Error getting NUPI for patient " + patient.getPatientId() + ": " + response.getCode());
 				}
 			} catch(Exception ex) {
-				try {
-					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
-					Context.getPatientService().savePatient(patient);
-				} catch(Exception e) {}
-				System.err.println("Error getting NUPI for client: " + ex.getMessage());
-				ex.printStackTrace();
+				wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
+				wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
+				log.error("Error getting NUPI for patient " + patient.getPatientId(), ex);
 			}
 		}
-		// If patient has a birth certificate number
-		if(hasBirthCert == true) {
-			try {
-				String getUrl = strGetUrl + '/' + countryCode + "/birth-certificate/" + birthCert;
-				System.out.println("Using NUPI GET URL: " + getUrl);
-				URL url = new URL(getUrl);
-
-				HttpsURLConnection con =(HttpsURLConnection) url.openConnection();
-				con.setRequestMethod("GET");
 
-				con.setRequestProperty("Authorization", "Bearer " + authToken);
-				con.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-				con.setRequestProperty("Accept", "application/json");
-				con.setConnectTimeout(10000); // set timeout to 10 seconds
-
-				int responseCode = con.getResponseCode();
+		// Otherwise register the patient on CR
+		try {
+			String payload = generateNUPIpostPayload(patient, natID != null, natID, passportNum != null, passportNum, birthCert != null, birthCert, countryCode);
+			ClientRegistry.Response response = registry.registerClient(payload);
+			if (response.isOk()) {
+				SimpleObject responseObj = processNUPIpostResponse(response.getBody());
+				return setNUPI(patient, wrapper, (String) responseObj.get("clientNumber"));
+			}
 
-				if (responseCode == HttpURLConnection.HTTP_OK) { //success
-					BufferedReader in = null;
-					in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-					String inputLine;
-					StringBuffer response = new StringBuffer();
-		
-					while ((inputLine = in.readLine()) != null) {
-						response.append(inputLine);
-					}
-					in.close();
-		
-					String stringResponse = response.toString();
-					System.out.println("Got the Response as: " + stringResponse);
-		
-					SimpleObject responseObj = processNUPIgetResponse(stringResponse);
-					Boolean clientExists = (Boolean) responseObj.get("clientExists");
-					if(clientExists == true) {
-						String NUPI = (String) responseObj.get("clientNumber");
-						System.out.println("Got the NUPI as: " + NUPI);
-						// update the patient NUPI
-						wrapper.setNationalUniquePatientNumber(NUPI, location);
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Verified"));
-						wrapper.setCRVerificationMessage("");
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Successfully updated patient NUPI: " + patient.getPatientId());
-						// return true to end processing for this client
-						return(true);
-					} else {
-						wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-						wrapper.setCRVerificationMessage(getAttributeSubstring("Client does not exist on CR"));
-						Context.getPatientService().savePatient(patient);
-						System.out.println("Client does not exist on CR");
-					}
-		
-				} else {
-					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error getting NUPI for client: " + responseCode));
-					Context.getPatientService().savePatient(patient);
-					System.out.println("Error getting NUPI for client: " + responseCode);
-				}
-			} catch(Exception ex) {
-				try {
-					wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
-					wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
-					Context.getPatientService().savePatient(patient);
-				} catch(Exception e) {}
-				System.err.println("Error getting NUPI for client: " + ex.getMessage());
-				ex.printStackTrace();
+			// update the patient with verification error
+			wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
+			if(response.getCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+				wrapper.setCRVerificationMessage(getAttributeSubstring("Missing Mandatory Fields: " + response.getCode()));
+			} else {
+				wrapper.setCRVerificationMessage(getAttributeSubstring("NETWORK Error: " + response.getCode()));
+			}
+			log.warn("Error getting NUPI for patient " + patient.getPatientId() + ": " + response.getCode() + " : " + response.getBody());
+		} catch(Exception ex) {
+			wrapper.setCRVerificationStatus(getAttributeSubstring("Pending"));
+			if(ex.getMessage() == null) {
+				wrapper.setCRVerificationMessage(getAttributeSubstring("Missing Mandatory Fields"));
+			} else {
+				wrapper.setCRVerificationMessage(getAttributeSubstring("Error : " + ex.getMessage()));
 			}
+			log.error("Error getting NUPI for patient " + patient.getPatientId(), ex);
 		}
+		Context.getPatientService().savePatient(patient);
+		return false;
+	}
+
+	/**
+	 * Updates the NUPI of a patient found on or registered with CR
+	 */
+	private boolean setNUPI(Patient patient, PatientWrapper wrapper, String nupi) {
+		Location location = Context.getService(KenyaEmrService.class).getDefaultLocation();
+		wrapper.setNationalUniquePatientNumber(nupi, location);
+		wrapper.setCRVerificationStatus(getAttributeSubstring("Verified"));
+		wrapper.setCRVerificationMessage("");
+		Context.getPatientService().savePatient(patient);
+		log.info("Successfully updated NUPI for patient " + patient.getPatientId());
+		return true;
+	}
 
-		return(false);
+	private static String getIdentifier(Patient patient, String identifierTypeUuid) {
+		PatientIdentifier identifier = patient.getPatientIdentifier(MetadataCache.patientIdentifierType(identifierTypeUuid));
+		return identifier != null ? identifier.getIdentifier() : null;
 	}
 
 	/**
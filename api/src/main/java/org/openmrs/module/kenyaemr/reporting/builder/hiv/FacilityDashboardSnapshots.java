@@ -0,0 +1,692 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.builder.hiv;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Computes the counts shown on the facility dashboards. The dashboard cohorts are evaluated concurrently on the
+ * {@link EvaluationExecutor} and only their sizes are kept, as a snapshot per day and facility. A snapshot is served as
+ * is while it is fresh, and once it gets older it is still served while a new one is computed in the background, as
+ * counts such as patients seen today change during the day.
+ */
+@Component
+public class FacilityDashboardSnapshots {
+
+    protected static final Log log = LogFactory.getLog(FacilityDashboardSnapshots.class);
+
+    /**
+     * How long a snapshot is served before it is refreshed in the background
+     */
+    private static final long REFRESH_INTERVAL = 15 * 60 * 1000L;
+
+    /**
+     * Indicators shown on both dashboards, evaluated for the previous month
+     */
+    private static final int MINI = 0;
+
+    /**
+     * Indicators shown on the full dashboard only, evaluated for the previous month
+     */
+    private static final int FULL = 1;
+
+    /**
+     * Indicators shown on the full dashboard only, evaluated up to now
+     */
+    private static final int CURRENT = 2;
+
+    @Autowired
+    private EvaluationExecutor executor;
+
+    private final DashBoardCohorts covidCohorts = new DashBoardCohorts();
+
+    private final List<Indicator> indicators = Arrays.asList(
+            new Indicator("allPatients", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.allPatients(context);
+                }
+            },
+            new Indicator("onArt", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.onART(context);
+                }
+            },
+            new Indicator("inCare", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.inCare(context);
+                }
+            },
+            new Indicator("newOnArt", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.newOnART(context);
+                }
+            },
+            new Indicator("vlResults", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.viralLoadResultsIn12Months(context);
+                }
+            },
+            new Indicator("suppressedVl", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.viralLoadSuppressionIn12Months(context);
+                }
+            },
+            new Indicator("patientsScheduled", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.patientsScheduledToday(context);
+                }
+            },
+            new Indicator("patientsSeen", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.patientsSeen(context);
+                }
+            },
+            new Indicator("checkedIn", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.checkedInAppointments(context);
+                }
+            },
+            new Indicator("unscheduled", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.unscheduledAppointments(context);
+                }
+            },
+            new Indicator("cumulativeEnrolledInHiv", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.enrolledInHiv(context);
+                }
+            },
+            new Indicator("newlyEnrolledInHiv", MINI) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.newlyEnrolledInHiv(context);
+                }
+            },
+            new Indicator("htsTested", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalTested(context);
+                }
+            },
+            new Indicator("htsPositive", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalPositive(context);
+                }
+            },
+            new Indicator("htsLinked", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalLinked(context);
+                }
+            },
+            new Indicator("htsTestedFamily", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalTestedFamily(context);
+                }
+            },
+            new Indicator("htsPositiveFamily", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalPositiveFamily(context);
+                }
+            },
+            new Indicator("htsUnknownStatusFamily", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsUnknownStatusFamily(context);
+                }
+            },
+            new Indicator("htsLinkedFamily", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalLinkedFamily(context);
+                }
+            },
+            new Indicator("htsTestedPartners", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalTestedPartner(context);
+                }
+            },
+            new Indicator("htsPositivePartner", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalPositivePartner(context);
+                }
+            },
+            new Indicator("htsUnknownStatusPartner", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsUnknownStatusPartner(context);
+                }
+            },
+            new Indicator("htsLinkedPartner", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalLinkedPartners(context);
+                }
+            },
+            new Indicator("htsTestedIDU", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalTestedIDU(context);
+                }
+            },
+            new Indicator("htsPositiveIDU", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalPositiveIDU(context);
+                }
+            },
+            new Indicator("htsUnknownStatusIDU", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsUnknownStatusIDU(context);
+                }
+            },
+            new Indicator("htsLinkedIDU", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.htsTotalLinkedIDU(context);
+                }
+            },
+            new Indicator("stableOver4mtca", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableOver4Monthstca(context);
+                }
+            },
+            new Indicator("stableUnder4mtca", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableUnder4Monthstca(context);
+                }
+            },
+            new Indicator("unstableUnder15", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.unstablePatientsUnder15(context);
+                }
+            },
+            new Indicator("unstableFemales15Plus", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.unstableFemalePatients15Plus(context);
+                }
+            },
+            new Indicator("unstableMales15Plus", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.unstableMalePatients15Plus(context);
+                }
+            },
+            new Indicator("currInCareOnART", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.currentInCareOnART(context);
+                }
+            },
+            new Indicator("stableOver4mtcaBelow15", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableOver4MonthstcaUnder15(context);
+                }
+            },
+            new Indicator("stableOver4mtcaOver15M", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableOver4MonthstcaOver15Male(context);
+                }
+            },
+            new Indicator("stableOver4mtcaOver15F", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableOver4MonthstcaOver15Female(context);
+                }
+            },
+            new Indicator("stableUnder4mtcaBelow15", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableUnder4MonthstcaUnder15(context);
+                }
+            },
+            new Indicator("stableUnder4mtcaOver15M", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableUnder4MonthstcaOver15Male(context);
+                }
+            },
+            new Indicator("stableUnder4mtcaOver15F", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.stableUnder4MonthstcaOver15Female(context);
+                }
+            },
+            new Indicator("currInCareOnARTUnder15", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.currentInCareOnARTUnder15(context);
+                }
+            },
+            new Indicator("currInCareOnARTOver15M", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.currentInCareOnARTOver15Male(context);
+                }
+            },
+            new Indicator("currInCareOnARTOver15F", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.currentInCareOnARTOver15Female(context);
+                }
+            },
+            new Indicator("undocumentedStability", FULL) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return DashBoardCohorts.undocumentedPatientStability(context);
+                }
+            },
+            new Indicator("fullyVaccinatedCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.fullyVaccinated(context);
+                }
+            },
+            new Indicator("partiallyVaccinatedCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.partiallyVaccinated(context);
+                }
+            },
+            new Indicator("notVaccinatedCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.notVaccinated(context);
+                }
+            },
+            new Indicator("everPositiveForCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.everTestedCovid19(context);
+                }
+            },
+            new Indicator("everHospitalizedOfCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.everHospitalizedOfCovid19(context);
+                }
+            },
+            new Indicator("diedOfCovid19", CURRENT) {
+                @Override
+                EvaluatedCohort evaluate(EvaluationContext context) {
+                    return covidCohorts.diedOfCovid19(context);
+                }
+            }
+    );
+
+    private final ConcurrentMap<String, Future<Snapshot>> snapshots = new ConcurrentHashMap<String, Future<Snapshot>>();
+
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Gets the counts for the full facility dashboard
+     * @return the snapshot
+     */
+    public Snapshot getFullSnapshot() {
+        return getSnapshot(true);
+    }
+
+    /**
+     * Gets the counts for the mini facility dashboard, which are taken from the full dashboard snapshot if there is a
+     * fresh one
+     * @return the snapshot
+     */
+    public Snapshot getMiniSnapshot() {
+        Snapshot full = getCompleted(snapshots.get(getKey(true)));
+        if (full != null && full.getDate().equals(today()) && !isStale(full)) {
+            return full;
+        }
+        return getSnapshot(false);
+    }
+
+    /**
+     * Gets the snapshot of today for the default location, computing it if there isn't one yet
+     * @param full whether all indicators are required
+     * @return the snapshot
+     */
+    protected Snapshot getSnapshot(final boolean full) {
+        final String key = getKey(full);
+
+        while (true) {
+            Future<Snapshot> current = snapshots.get(key);
+            if (current != null && !current.isDone()) {
+                // Wait for the computation already in progress
+                Snapshot snapshot = get(key, current);
+                if (snapshot.getDate().equals(today())) {
+                    return snapshot;
+                }
+                continue;
+            }
+
+            Snapshot snapshot = getCompleted(current);
+            if (snapshot != null && snapshot.getDate().equals(today())) {
+                if (isStale(snapshot)) {
+                    refreshInBackground(key, full);
+                }
+                return snapshot;
+            }
+
+            // No snapshot for today, so compute it in this thread
+            FutureTask<Snapshot> task = new FutureTask<Snapshot>(new Callable<Snapshot>() {
+                @Override
+                public Snapshot call() {
+                    return compute(full);
+                }
+            });
+            boolean installed = current == null ? snapshots.putIfAbsent(key, task) == null : snapshots.replace(key, current, task);
+            if (installed) {
+                task.run();
+                return get(key, task);
+            }
+        }
+    }
+
+    /**
+     * Computes a new snapshot on a pooled thread, unless one is already being computed. The indicators of a refresh
+     * are evaluated one after the other by that thread, so a refresh never takes more than one pooled thread from
+     * interactive requests.
+     * @param key the snapshot key
+     * @param full whether all indicators are required
+     */
+    protected void refreshInBackground(final String key, final boolean full) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    FutureTask<Snapshot> task = new FutureTask<Snapshot>(new Callable<Snapshot>() {
+                        @Override
+                        public Snapshot call() {
+                            return compute(full);
+                        }
+                    });
+                    task.run();
+                    // Only replace the served snapshot once the new one is complete
+                    if (getCompleted(task) != null) {
+                        snapshots.put(key, task);
+                    }
+                }
+                finally {
+                    refreshing.remove(key);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Evaluates the indicators concurrently, each with its own copy of the evaluation context
+     * @param full whether all indicators are required
+     * @return the snapshot
+     */
+    protected Snapshot compute(boolean full) {
+        Date now = now();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(now);
+        Map<String, Date> dateMap = getReportDates(now, calendar.get(Calendar.MONTH) - 1);
+        Date endDate = dateMap.get("endDate");
+
+        EvaluationContext periodContext = new EvaluationContext();
+        periodContext.addParameterValue("startDate", dateMap.get("startDate"));
+        periodContext.addParameterValue("endDate", endDate);
+        periodContext.addParameterValue("enrolledOnOrBefore", endDate);
+        periodContext.setCache(Collections.synchronizedMap(new HashMap<String, Object>()));
+
+        EvaluationContext currentContext = new EvaluationContext();
+        currentContext.addParameterValue("startDate", dateMap.get("startDate"));
+        currentContext.addParameterValue("endDate", now);
+        currentContext.addParameterValue("enrolledOnOrBefore", endDate);
+        currentContext.setCache(Collections.synchronizedMap(new HashMap<String, Object>()));
+
+        Map<String, Future<Integer>> futures = new LinkedHashMap<String, Future<Integer>>();
+        for (final Indicator indicator : indicators) {
+            if (!full && indicator.scope != MINI) {
+                continue;
+            }
+            // Copies share the cache of their period, so that cohorts cached by one indicator can be reused by others
+            EvaluationContext parent = indicator.scope == CURRENT ? currentContext : periodContext;
+            final EvaluationContext context = parent.shallowCopy();
+            context.setCache(parent.getCache());
+
+            futures.put(indicator.name, executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    Set<Integer> memberIds = indicator.evaluate(context).getMemberIds();
+                    return memberIds != null ? memberIds.size() : 0;
+                }
+            }));
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        try {
+            for (Map.Entry<String, Future<Integer>> future : futures.entrySet()) {
+                counts.put(future.getKey(), future.getValue().get());
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating dashboard indicators", ex);
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("Error evaluating dashboard indicators", ex.getCause());
+        }
+        finally {
+            for (Future<Integer> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+
+        return new Snapshot(now, new SimpleDateFormat("MMM-yyyy").format(endDate), counts);
+    }
+
+    /**
+     * Waits for a snapshot. Failed computations are discarded so that they are retried on the next request.
+     */
+    private Snapshot get(String key, Future<Snapshot> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for dashboard snapshot", ex);
+        }
+        catch (ExecutionException ex) {
+            snapshots.remove(key, future);
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Error computing dashboard snapshot", ex.getCause());
+        }
+    }
+
+    /**
+     * Gets the snapshot of a completed computation
+     * @return the snapshot, or null if the computation is still in progress or has failed
+     */
+    private static Snapshot getCompleted(Future<Snapshot> future) {
+        if (future == null || !future.isDone()) {
+            return null;
+        }
+        try {
+            return future.get();
+        }
+        catch (Exception ex) {
+            log.warn("Unable to compute dashboard snapshot", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Snapshots are kept per facility, as the default location can be changed
+     */
+    private static String getKey(boolean full) {
+        Location location = Context.getService(KenyaEmrService.class).getDefaultLocation();
+        return (full ? "full:" : "mini:") + (location != null ? location.getLocationId() : "");
+    }
+
+    /**
+     * Checks whether a snapshot is old enough to be refreshed
+     */
+    private boolean isStale(Snapshot snapshot) {
+        return now().getTime() - snapshot.getComputed().getTime() > REFRESH_INTERVAL;
+    }
+
+    private Date today() {
+        return DateUtils.truncate(now(), Calendar.DATE);
+    }
+
+    /**
+     * Gets the current time
+     * @return the time
+     */
+    protected Date now() {
+        return new Date();
+    }
+
+    private static Map<String, Date> getReportDates(Date now, int month){
+        Map<String, Date> reportDates = new HashMap<String, Date>();
+        Calendar gc = new GregorianCalendar();
+        gc.setTime(now);
+        gc.set(Calendar.MONTH, month);
+        gc.set(Calendar.DAY_OF_MONTH, 1);
+        gc.clear(Calendar.HOUR);
+        gc.clear(Calendar.HOUR_OF_DAY);
+        gc.clear(Calendar.MINUTE);
+        gc.clear(Calendar.SECOND);
+        gc.clear(Calendar.MILLISECOND);
+        Date monthStart = gc.getTime();
+        reportDates.put("startDate", monthStart);
+        gc.add(Calendar.MONTH, 1);
+        gc.add(Calendar.DAY_OF_MONTH, -1);
+        Date monthEnd = gc.getTime();
+        reportDates.put("endDate", monthEnd);
+        return reportDates;
+    }
+
+    /**
+     * A dashboard count and the cohort it is the size of
+     */
+    private abstract static class Indicator {
+
+        final String name;
+
+        final int scope;
+
+        Indicator(String name, int scope) {
+            this.name = name;
+            this.scope = scope;
+        }
+
+        abstract EvaluatedCohort evaluate(EvaluationContext context);
+    }
+
+    /**
+     * The dashboard counts computed on a day
+     */
+    public static class Snapshot {
+
+        private final Date date;
+
+        private final String reportPeriod;
+
+        private final Map<String, Integer> counts;
+
+        private final Date computed;
+
+        Snapshot(Date computed, String reportPeriod, Map<String, Integer> counts) {
+            this.date = DateUtils.truncate(computed, Calendar.DATE);
+            this.reportPeriod = reportPeriod;
+            this.counts = Collections.unmodifiableMap(counts);
+            this.computed = computed;
+        }
+
+        /**
+         * @return the day on which the counts were computed
+         */
+        public Date getDate() {
+            return date;
+        }
+
+        /**
+         * @return the month which the period indicators are for, e.g. Jan-2022
+         */
+        public String getReportPeriod() {
+            return reportPeriod;
+        }
+
+        /**
+         * @return the counts by indicator name
+         */
+        public Map<String, Integer> getCounts() {
+            return counts;
+        }
+
+        /**
+         * @return the time at which the counts were computed
+         */
+        public Date getComputed() {
+            return computed;
+        }
+    }
+}
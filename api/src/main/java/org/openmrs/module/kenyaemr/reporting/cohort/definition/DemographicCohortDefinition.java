@@ -0,0 +1,99 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition;
+
+import org.openmrs.module.reporting.cohort.definition.BaseCohortDefinition;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reporting.common.Localized;
+import org.openmrs.module.reporting.definition.configuration.ConfigurationProperty;
+import org.openmrs.module.reporting.definition.configuration.ConfigurationPropertyCachingStrategy;
+import org.openmrs.module.reporting.evaluation.caching.Caching;
+
+import java.util.Date;
+
+/**
+ * Patients in an age band and/or of a gender. Age bands have the same bounds as an AgeCohortDefinition, but all the
+ * demographic cohorts of an evaluation (e.g. the options of age and gender dimensions) are bucketed from a single
+ * load of patient demographics rather than each running its own query.
+ */
+@Caching(strategy = ConfigurationPropertyCachingStrategy.class)
+@Localized("reporting.DemographicCohortDefinition")
+public class DemographicCohortDefinition extends BaseCohortDefinition {
+
+	@ConfigurationProperty
+	private Integer minAge;
+
+	@ConfigurationProperty
+	private DurationUnit minAgeUnit = DurationUnit.YEARS;
+
+	@ConfigurationProperty
+	private Integer maxAge;
+
+	@ConfigurationProperty
+	private DurationUnit maxAgeUnit = DurationUnit.YEARS;
+
+	@ConfigurationProperty
+	private String gender;
+
+	@ConfigurationProperty
+	private Date effectiveDate;
+
+	public Integer getMinAge() {
+		return minAge;
+	}
+
+	public void setMinAge(Integer minAge) {
+		this.minAge = minAge;
+	}
+
+	public DurationUnit getMinAgeUnit() {
+		return minAgeUnit;
+	}
+
+	public void setMinAgeUnit(DurationUnit minAgeUnit) {
+		this.minAgeUnit = minAgeUnit;
+	}
+
+	public Integer getMaxAge() {
+		return maxAge;
+	}
+
+	public void setMaxAge(Integer maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	public DurationUnit getMaxAgeUnit() {
+		return maxAgeUnit;
+	}
+
+	public void setMaxAgeUnit(DurationUnit maxAgeUnit) {
+		this.maxAgeUnit = maxAgeUnit;
+	}
+
+	/**
+	 * Gets the gender
+	 * @return M, F or null for any gender
+	 */
+	public String getGender() {
+		return gender;
+	}
+
+	public void setGender(String gender) {
+		this.gender = gender;
+	}
+
+	public Date getEffectiveDate() {
+		return effectiveDate;
+	}
+
+	public void setEffectiveDate(Date effectiveDate) {
+		this.effectiveDate = effectiveDate;
+	}
+}
@@ -24,8 +24,7 @@ import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Evaluator for ActivePatientsMissingNUPICohortDefinition
@@ -48,43 +47,18 @@ public class ActivePatientsMissingNUPICohortDefinitionEvaluator implements Cohor
         if (definition == null)
             return null;
 
-		Cohort newCohort = new Cohort();
-
-		String qry="select t.patient_id\n" +
-				"from(\n" +
-				"    select fup.visit_date,fup.patient_id, max(e.visit_date) as enroll_date,\n" +
-				"           greatest(max(fup.visit_date), ifnull(max(d.visit_date),'0000-00-00')) as latest_vis_date,\n" +
-				"           greatest(mid(max(concat(fup.visit_date,fup.next_appointment_date)),11), ifnull(max(d.visit_date),'0000-00-00')) as latest_tca,\n" +
-				"           d.patient_id as disc_patient,\n" +
-				"           d.effective_disc_date as effective_disc_date,\n" +
-				"           max(d.visit_date) as date_discontinued,\n" +
-				"           de.patient_id as started_on_drugs\n" +
-				"    from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-				"           join kenyaemr_etl.etl_patient_demographics p on p.patient_id=fup.patient_id\n" +
-				"           join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-				"           left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program='HIV' and date(date_started) <= date(:endDate)\n" +
-				"           left outer JOIN\n" +
-				"             (select patient_id, coalesce(date(effective_discontinuation_date),visit_date) visit_date,max(date(effective_discontinuation_date)) as effective_disc_date from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-				"              where date(visit_date) <= date(:endDate) and program_name='HIV'\n" +
-				"              group by patient_id\n" +
-				"             ) d on d.patient_id = fup.patient_id\n" +
-				"    where fup.visit_date <= date(:endDate) and p.national_unique_patient_identifier is not null\n" +
-				"    group by patient_id\n" +
-				"    having (started_on_drugs is not null and started_on_drugs <> '') and (\n" +
-				"        (\n" +
-				"            (timestampdiff(DAY,date(latest_tca),date(:endDate)) <= 30 and ((date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date)) or d.effective_disc_date is null))\n" +
-				"              and (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or disc_patient is null)\n" +
-				"            )\n" +
-				"        )\n" +
-				"    ) t;";
+		Date endDate = new Date();
 
+		// Patients with a NUPI among TX_CURR as of today, which is shared with the other reports
+		String qry = "select patient_id from kenyaemr_etl.etl_patient_demographics where national_unique_patient_identifier is not null;";
 		SqlQueryBuilder builder = new SqlQueryBuilder();
 		builder.append(qry);
-		Date endDate = new Date();
-		builder.addParameter("endDate", endDate);
 
-		List<Integer> ptIds = evaluationService.evaluateToList(builder, Integer.class, context);
-		newCohort.setMemberIds(new HashSet<Integer>(ptIds));
+		Set<Integer> memberIds = TxCurrCohortDefinitionEvaluator.getTxCurr(endDate, context);
+		memberIds.retainAll(evaluationService.evaluateToList(builder, Integer.class, context));
+
+		Cohort newCohort = new Cohort();
+		newCohort.setMemberIds(memberIds);
 		return new EvaluatedCohort(newCohort, definition, context);
     }
 }
@@ -0,0 +1,148 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.openmrs.Cohort;
+import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.DemographicCohortDefinition;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.evaluator.CohortDefinitionEvaluator;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluator for demographic cohorts. The gender and birthdate of all patients are loaded once per evaluation context
+ * and every age band or gender cohort evaluated in that context is then computed from them in memory, so a dimension
+ * with 30 age bands costs one query instead of 30.
+ */
+@Handler(supports = {DemographicCohortDefinition.class})
+public class DemographicCohortDefinitionEvaluator implements CohortDefinitionEvaluator {
+
+	private static final String DEMOGRAPHICS_CACHE_KEY = DemographicCohortDefinitionEvaluator.class.getName() + ".demographics";
+
+	@Autowired
+	EvaluationService evaluationService;
+
+	@Override
+	public EvaluatedCohort evaluate(CohortDefinition cohortDefinition, EvaluationContext context) throws EvaluationException {
+		DemographicCohortDefinition definition = (DemographicCohortDefinition) cohortDefinition;
+
+		Date effectiveDate = DateUtils.truncate(definition.getEffectiveDate() != null ? definition.getEffectiveDate() : new Date(), Calendar.DATE);
+
+		// Birthdates must be after the minimum and on or before the maximum, as for an AgeCohortDefinition
+		Long minBirthdate = null, maxBirthdate = null;
+		if (definition.getMaxAge() != null) {
+			minBirthdate = subtract(effectiveDate, definition.getMaxAge() + 1, definition.getMaxAgeUnit());
+		}
+		if (definition.getMinAge() != null) {
+			maxBirthdate = subtract(effectiveDate, definition.getMinAge(), definition.getMinAgeUnit());
+		}
+		boolean ageRequired = minBirthdate != null || maxBirthdate != null;
+
+		Demographics demographics = getDemographics(context);
+		Cohort baseCohort = context.getBaseCohort();
+
+		Set<Integer> memberIds = new HashSet<Integer>();
+		for (int i = 0; i < demographics.patientIds.length; i++) {
+			if (definition.getGender() != null && !definition.getGender().equals(demographics.genders[i])) {
+				continue;
+			}
+			if (ageRequired) {
+				long birthdate = demographics.birthdates[i];
+				if (birthdate == Demographics.UNKNOWN
+						|| (minBirthdate != null && birthdate <= minBirthdate)
+						|| (maxBirthdate != null && birthdate > maxBirthdate)) {
+					continue;
+				}
+			}
+			if (baseCohort != null && !baseCohort.contains(demographics.patientIds[i])) {
+				continue;
+			}
+			memberIds.add(demographics.patientIds[i]);
+		}
+
+		Cohort cohort = new Cohort();
+		cohort.setMemberIds(memberIds);
+		return new EvaluatedCohort(cohort, definition, context);
+	}
+
+	/**
+	 * Gets the demographics of all patients, loading them on first use in the evaluation context
+	 * @param context the evaluation context
+	 * @return the demographics
+	 * @throws EvaluationException if the query fails
+	 */
+	protected Demographics getDemographics(EvaluationContext context) throws EvaluationException {
+		Demographics demographics = (Demographics) context.getCache().get(DEMOGRAPHICS_CACHE_KEY);
+		if (demographics == null) {
+			SqlQueryBuilder builder = new SqlQueryBuilder();
+			builder.append("select p.person_id, p.gender, p.birthdate from person p");
+			builder.append(" inner join patient pa on pa.patient_id = p.person_id and pa.voided = 0");
+			builder.append(" where p.voided = 0");
+			List<Object[]> rows = evaluationService.evaluateToList(builder, context);
+
+			demographics = new Demographics(rows.size());
+			for (int i = 0; i < rows.size(); i++) {
+				Object[] row = rows.get(i);
+				demographics.patientIds[i] = ((Number) row[0]).intValue();
+				demographics.genders[i] = row[1] != null ? ((String) row[1]).toUpperCase() : null;
+				demographics.birthdates[i] = row[2] != null ? DateUtils.truncate((Date) row[2], Calendar.DATE).getTime() : Demographics.UNKNOWN;
+			}
+			context.getCache().put(DEMOGRAPHICS_CACHE_KEY, demographics);
+		}
+		return demographics;
+	}
+
+	/**
+	 * Subtracts a duration from a date
+	 * @param date the date
+	 * @param amount the number of units
+	 * @param unit the unit
+	 * @return the resulting time in milliseconds
+	 */
+	private static long subtract(Date date, int amount, DurationUnit unit) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(date);
+		calendar.add(unit.getCalendarField(), -amount * unit.getFieldQuantity());
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * The gender and truncated birthdate of each patient, held in parallel arrays
+	 */
+	protected static class Demographics {
+
+		static final long UNKNOWN = Long.MIN_VALUE;
+
+		final int[] patientIds;
+
+		final String[] genders;
+
+		final long[] birthdates;
+
+		Demographics(int size) {
+			patientIds = new int[size];
+			genders = new String[size];
+			birthdates = new long[size];
+		}
+	}
+}
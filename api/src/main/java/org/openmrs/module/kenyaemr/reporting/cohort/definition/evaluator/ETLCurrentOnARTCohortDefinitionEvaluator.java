@@ -19,13 +19,8 @@ import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.evaluator.CohortDefinitionEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
 
 /**
  * Evaluator for Current on ART
@@ -34,8 +29,6 @@ import java.util.List;
 public class ETLCurrentOnARTCohortDefinitionEvaluator implements CohortDefinitionEvaluator {
 
     private final Log log = LogFactory.getLog(this.getClass());
-	@Autowired
-	EvaluationService evaluationService;
 
     @Override
     public EvaluatedCohort evaluate(CohortDefinition cohortDefinition, EvaluationContext context) throws EvaluationException {
@@ -45,48 +38,12 @@ public class ETLCurrentOnARTCohortDefinitionEvaluator implements CohortDefinitio
         if (definition == null)
             return null;
 
-		Cohort newCohort = new Cohort();
-
-		String qry="select t.patient_id\n" +
-				"from(\n" +
-				"    select fup.visit_date,fup.patient_id, max(e.visit_date) as enroll_date,\n" +
-				"           greatest(max(fup.visit_date), ifnull(max(d.visit_date),'0000-00-00')) as latest_vis_date,\n" +
-				"           greatest(mid(max(concat(fup.visit_date,fup.next_appointment_date)),11), ifnull(max(d.visit_date),'0000-00-00')) as latest_tca,\n" +
-				"           d.patient_id as disc_patient,\n" +
-				"           d.effective_disc_date as effective_disc_date,\n" +
-				"           max(d.visit_date) as date_discontinued,\n" +
-				"           de.patient_id as started_on_drugs\n" +
-				"    from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-				"           join kenyaemr_etl.etl_patient_demographics p on p.patient_id=fup.patient_id\n" +
-				"           join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-				"           left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program='HIV' and date(date_started) <= date(:endDate)\n" +
-				"           left outer JOIN\n" +
-				"             (select patient_id, coalesce(date(effective_discontinuation_date),visit_date) visit_date,max(date(effective_discontinuation_date)) as effective_disc_date from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-				"              where date(visit_date) <= date(:endDate) and program_name='HIV'\n" +
-				"              group by patient_id\n" +
-				"             ) d on d.patient_id = fup.patient_id\n" +
-				"    where fup.visit_date <= date(:endDate)\n" +
-				"    group by patient_id\n" +
-				"    having (started_on_drugs is not null and started_on_drugs <> '') and (\n" +
-				"        (\n" +
-				"            (timestampdiff(DAY, date(latest_tca), date(:endDate)) <= 30 and ((date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date)) or d.effective_disc_date is null))\n" +
-				"              and (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or disc_patient is null)\n" +
-				"            )\n" +
-				"        )\n" +
-				"    ) t;";
-
-		SqlQueryBuilder builder = new SqlQueryBuilder();
-		builder.append(qry);
-		Date startDate = (Date)context.getParameterValue("startDate");
 		Date endDate = (Date)context.getParameterValue("endDate");
-		builder.addParameter("endDate", endDate);
-		builder.addParameter("startDate", startDate);
-		List<Integer> ptIds = evaluationService.evaluateToList(builder, Integer.class, context);
 
-		newCohort.setMemberIds(new HashSet<Integer>(ptIds));
-
-
-        return new EvaluatedCohort(newCohort, definition, context);
+		// The query was a copy of TX_CURR, so the shared materialized cohort is used instead
+		Cohort newCohort = new Cohort();
+		newCohort.setMemberIds(TxCurrCohortDefinitionEvaluator.getTxCurr(endDate, context));
+		return new EvaluatedCohort(newCohort, definition, context);
     }
 
 }
@@ -0,0 +1,252 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Cohort;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.TxCurrCohortDefinition;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.evaluator.CohortDefinitionEvaluator;
+import org.openmrs.module.reporting.cohort.definition.service.CohortDefinitionService;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Evaluator for TX_CURR. The cohort for an end date is materialized once and kept in memory so that the many
+ * indicators and reports (DATIM, MOH 731...) which start from TX_CURR for the same month don't re-run the query. A
+ * materialized cohort is discarded when the ETL tables are refreshed, and in any case after {@link #MAX_AGE_MILLIS}, as
+ * the refresh time can't always be determined.
+ *
+ * Each cohort is computed by the first report which needs it, while other reports needing the same cohort wait for it.
+ * Reports needing other cohorts compute theirs at the same time.
+ */
+@Handler(supports = {TxCurrCohortDefinition.class})
+public class TxCurrCohortDefinitionEvaluator implements CohortDefinitionEvaluator {
+
+	private static final Log log = LogFactory.getLog(TxCurrCohortDefinitionEvaluator.class);
+
+	private static final int MAX_COHORTS = 24;
+
+	private static final long MAX_AGE_MILLIS = 30 * 60 * 1000L;
+
+	private static final String TX_CURR_QUERY = "select t.patient_id\n" +
+			"from (select fup.visit_date,\n" +
+			"             fup.patient_id,\n" +
+			"             max(e.visit_date)                                                                as enroll_date,\n" +
+			"             greatest(max(fup.visit_date), ifnull(max(d.visit_date), '0000-00-00'))           as latest_vis_date,\n" +
+			"             greatest(mid(max(concat(fup.visit_date, fup.next_appointment_date)), 11),\n" +
+			"                      ifnull(max(d.visit_date), '0000-00-00'))                                as latest_tca,\n" +
+			"             d.patient_id                                                                     as disc_patient,\n" +
+			"             d.effective_disc_date                                                            as effective_disc_date,\n" +
+			"             max(d.visit_date)                                                                as date_discontinued,\n" +
+			"             de.patient_id                                                   as started_on_drugs\n" +
+			"      from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
+			"               join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
+			"               join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
+			"                           left join kenyaemr_etl.etl_drug_event de\n" +
+			"                          on e.patient_id = de.patient_id and de.program = 'HIV' and date(de.date_started) <= date(:endDate)\n" +
+			"               left outer JOIN\n" +
+			"           (select patient_id,\n" +
+			"                   coalesce(date(effective_discontinuation_date), visit_date) visit_date,\n" +
+			"                   max(date(effective_discontinuation_date)) as               effective_disc_date\n" +
+			"            from kenyaemr_etl.etl_patient_program_discontinuation\n" +
+			"            where date(visit_date) <= date(:endDate)\n" +
+			"              and program_name = 'HIV'\n" +
+			"            group by patient_id) d on d.patient_id = fup.patient_id\n" +
+			"      where fup.visit_date <= date(:endDate)\n" +
+			"      group by patient_id\n" +
+			"      having (started_on_drugs is not null and started_on_drugs <> '')\n" +
+			"         and (\n" +
+			"          (\n" +
+			"                  (timestampdiff(DAY, date(latest_tca), date(:endDate)) <= 30 and\n" +
+			"                   ((date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date)) or\n" +
+			"                    d.effective_disc_date is null))\n" +
+			"                  and\n" +
+			"                  (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or\n" +
+			"                   disc_patient is null)\n" +
+			"              )\n" +
+			"          )) t;";
+
+	private static final String ETL_REFRESHED_QUERY = "select max(stop_time) from kenyaemr_etl.etl_script_status";
+
+	/**
+	 * Materialized cohorts by end date, location and ETL refresh time, least recently used first. Guarded by itself.
+	 */
+	private static final Map<String, MaterializedCohort> cohorts = new LinkedHashMap<String, MaterializedCohort>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MaterializedCohort> eldest) {
+			return size() > MAX_COHORTS;
+		}
+	};
+
+	@Autowired
+	EvaluationService evaluationService;
+
+	@Override
+	public EvaluatedCohort evaluate(CohortDefinition cohortDefinition, EvaluationContext context) throws EvaluationException {
+
+		TxCurrCohortDefinition definition = (TxCurrCohortDefinition) cohortDefinition;
+
+		if (definition == null)
+			return null;
+
+		final Date endDate = definition.getEndDate() != null ? definition.getEndDate() : (Date) context.getParameterValue("endDate");
+		final EvaluationContext queryContext = context;
+		String key = getCacheKey(endDate, context);
+
+		MaterializedCohort materialized;
+		boolean compute = false;
+		synchronized (cohorts) {
+			materialized = getMaterialized(key);
+			if (materialized == null) {
+				materialized = new MaterializedCohort(new FutureTask<Set<Integer>>(new Callable<Set<Integer>>() {
+					@Override
+					public Set<Integer> call() throws EvaluationException {
+						SqlQueryBuilder builder = new SqlQueryBuilder();
+						builder.append(TX_CURR_QUERY);
+						builder.addParameter("endDate", endDate);
+						List<Integer> ptIds = evaluationService.evaluateToList(builder, Integer.class, queryContext);
+						return Collections.unmodifiableSet(new HashSet<Integer>(ptIds));
+					}
+				}));
+				cohorts.put(key, materialized);
+				compute = true;
+			}
+		}
+
+		// The cohort is computed outside of the lock, so that only reports needing the same cohort wait for it
+		if (compute) {
+			materialized.memberIds.run();
+		}
+
+		Set<Integer> memberIds;
+		try {
+			memberIds = materialized.memberIds.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EvaluationException("TX_CURR", ex);
+		}
+		catch (ExecutionException ex) {
+			// A failed computation isn't kept, so that the next report can retry it
+			synchronized (cohorts) {
+				if (cohorts.get(key) == materialized) {
+					cohorts.remove(key);
+				}
+			}
+			if (ex.getCause() instanceof EvaluationException) {
+				throw (EvaluationException) ex.getCause();
+			}
+			throw new EvaluationException("TX_CURR", ex.getCause());
+		}
+
+		Cohort newCohort = new Cohort();
+		newCohort.setMemberIds(new HashSet<Integer>(memberIds));
+		return new EvaluatedCohort(newCohort, definition, context);
+	}
+
+	/**
+	 * Gets the members of TX_CURR as of an end date, for evaluators of cohorts which narrow TX_CURR down. The cohort
+	 * is evaluated through the cohort definition service, so it is shared with the reports using TX_CURR directly.
+	 * @param endDate the end date
+	 * @param context the evaluation context
+	 * @return the patient ids
+	 * @throws EvaluationException if the cohort can't be evaluated
+	 */
+	public static Set<Integer> getTxCurr(Date endDate, EvaluationContext context) throws EvaluationException {
+		TxCurrCohortDefinition definition = new TxCurrCohortDefinition();
+		definition.setEndDate(endDate);
+		return new HashSet<Integer>(Context.getService(CohortDefinitionService.class).evaluate(definition, context).getMemberIds());
+	}
+
+	/**
+	 * Discards all materialized cohorts, e.g. after the ETL tables have been recreated
+	 */
+	public static void clearMaterializedCohorts() {
+		synchronized (cohorts) {
+			cohorts.clear();
+		}
+	}
+
+	/**
+	 * Gets a materialized cohort, which may still be being computed, discarding it if it is too old. Must be called
+	 * while synchronized on the cohorts.
+	 * @param key the key
+	 * @return the materialized cohort or null
+	 */
+	private static MaterializedCohort getMaterialized(String key) {
+		MaterializedCohort cohort = cohorts.get(key);
+		if (cohort != null && System.currentTimeMillis() - cohort.created > MAX_AGE_MILLIS) {
+			cohorts.remove(key);
+			return null;
+		}
+		return cohort;
+	}
+
+	/**
+	 * Gets the key of the materialized cohort for an end date
+	 * @param endDate the end date
+	 * @param context the evaluation context
+	 * @return the key
+	 */
+	private String getCacheKey(Date endDate, EvaluationContext context) {
+		String day = endDate != null ? new SimpleDateFormat("yyyy-MM-dd").format(endDate) : "";
+		String location = Context.getAdministrationService().getGlobalProperty("kenyaemr.defaultLocation");
+		return day + "|" + location + "|" + getEtlRefreshed(context);
+	}
+
+	/**
+	 * Gets when the ETL tables were last refreshed
+	 * @param context the evaluation context
+	 * @return the refresh time or null if it can't be determined
+	 */
+	private Object getEtlRefreshed(EvaluationContext context) {
+		try {
+			SqlQueryBuilder builder = new SqlQueryBuilder();
+			builder.append(ETL_REFRESHED_QUERY);
+			List<Object> result = evaluationService.evaluateToList(builder, Object.class, context);
+			return result.isEmpty() ? null : result.get(0);
+		}
+		catch (Exception e) {
+			log.debug("Unable to determine ETL refresh time", e);
+			return null;
+		}
+	}
+
+	private static class MaterializedCohort {
+
+		private final FutureTask<Set<Integer>> memberIds;
+
+		private final long created = System.currentTimeMillis();
+
+		private MaterializedCohort(FutureTask<Set<Integer>> memberIds) {
+			this.memberIds = memberIds;
+		}
+	}
+}
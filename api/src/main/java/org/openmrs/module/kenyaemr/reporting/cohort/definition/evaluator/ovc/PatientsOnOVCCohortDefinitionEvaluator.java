@@ -13,6 +13,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openmrs.Cohort;
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator.TxCurrCohortDefinitionEvaluator;
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.ovc.PatientsOnOVCCohortDefinition;
 import org.openmrs.module.reporting.cohort.EvaluatedCohort;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
@@ -24,8 +25,7 @@ import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Evaluator for PatientsOnOVCCohortDefinition
@@ -47,79 +47,34 @@ public class PatientsOnOVCCohortDefinitionEvaluator implements CohortDefinitionE
         if (definition == null)
             return null;
 
-		Cohort newCohort = new Cohort();
-
+		// Clients active in OVC among TX_CURR, which is shared with the other reports
 		String qry="select a.patient_id\n" +
-				"from ( -- OVC Clients\n" +
-				"         select e.patient_id,\n" +
-				"                d.patient_id        as disc_patient,\n" +
-				"                d.date_discontinued as date_discontinued,\n" +
-				"                max(e.visit_date)   as enrollment_date\n" +
-				"         from kenyaemr_etl.etl_ovc_enrolment e\n" +
-				"                  join kenyaemr_etl.etl_patient_demographics p\n" +
-				"                       on p.patient_id = e.patient_id and p.voided = 0 and p.dead = 0\n" +
-				"                  left outer JOIN\n" +
-				"              (select patient_id, max(visit_date) as date_discontinued\n" +
-				"               from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-				"               where program_name = 'OVC'\n" +
-				"               group by patient_id\n" +
-				"              ) d on d.patient_id = e.patient_id\n" +
-				"         group by e.patient_id\n" +
-				"         having (disc_patient is null or date(enrollment_date) >= date(date_discontinued))\n" +
-				"     ) a\n" +
-				"         inner join\n" +
-				"     -- TX_CURR Clients\n" +
-				"     (\n" +
-				"         select fup.visit_date,\n" +
-				"                fup.patient_id,\n" +
-				"                max(e.visit_date)                                                      as enroll_date,\n" +
-				"                greatest(max(fup.visit_date), ifnull(max(d.visit_date), '0000-00-00')) as latest_vis_date,\n" +
-				"                greatest(mid(max(concat(fup.visit_date, fup.next_appointment_date)), 11),\n" +
-				"                         ifnull(max(d.visit_date), '0000-00-00'))                      as latest_tca,\n" +
-				"                d.patient_id                                                           as disc_patient,\n" +
-				"                d.effective_disc_date                                                  as effective_disc_date,\n" +
-				"                max(d.visit_date)                                                      as date_discontinued,\n" +
-				"                de.patient_id                                                          as started_on_drugs\n" +
-				"         from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-				"                  join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
-				"                  join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id = e.patient_id\n" +
-				"                  left join kenyaemr_etl.etl_drug_event de\n" +
-				"                                  on e.patient_id = de.patient_id and de.program = 'HIV' and\n" +
-				"                                     date(date_started) <= date(:endDate)\n" +
-				"                  left outer JOIN\n" +
-				"              (select patient_id,\n" +
-				"                      coalesce(date(effective_discontinuation_date), visit_date) visit_date,\n" +
-				"                      max(date(effective_discontinuation_date)) as               effective_disc_date\n" +
-				"               from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-				"               where date(visit_date) <= date(:endDate)\n" +
-				"                 and program_name = 'HIV'\n" +
-				"               group by patient_id\n" +
-				"              ) d on d.patient_id = fup.patient_id\n" +
-				"         where fup.visit_date <= date(:endDate)\n" +
-				"         group by patient_id\n" +
-				"         having (started_on_drugs is not null and started_on_drugs <> '')\n" +
-				"            and (\n" +
-				"             (\n" +
-				"                     (timestampdiff(DAY, date(latest_tca), date(:endDate)) <= 30 and\n" +
-				"                      ((date(d.effective_disc_date) > date(:endDate) or\n" +
-				"                        date(enroll_date) > date(d.effective_disc_date)) or d.effective_disc_date is null))\n" +
-				"                     and\n" +
-				"                     (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or\n" +
-				"                      disc_patient is null)\n" +
-				"                 )\n" +
-				"             )\n" +
-				"     ) t\n" +
-				"     on a.patient_id = t.patient_id;";
+				"from (select e.patient_id,\n" +
+				"             d.patient_id        as disc_patient,\n" +
+				"             d.date_discontinued as date_discontinued,\n" +
+				"             max(e.visit_date)   as enrollment_date\n" +
+				"      from kenyaemr_etl.etl_ovc_enrolment e\n" +
+				"               join kenyaemr_etl.etl_patient_demographics p\n" +
+				"                    on p.patient_id = e.patient_id and p.voided = 0 and p.dead = 0\n" +
+				"               left outer JOIN\n" +
+				"           (select patient_id, max(visit_date) as date_discontinued\n" +
+				"            from kenyaemr_etl.etl_patient_program_discontinuation\n" +
+				"            where program_name = 'OVC'\n" +
+				"            group by patient_id\n" +
+				"           ) d on d.patient_id = e.patient_id\n" +
+				"      group by e.patient_id\n" +
+				"      having (disc_patient is null or date(enrollment_date) >= date(date_discontinued))\n" +
+				"     ) a;";
 
 		SqlQueryBuilder builder = new SqlQueryBuilder();
 		builder.append(qry);
-		Date startDate = (Date)context.getParameterValue("startDate");
 		Date endDate = (Date)context.getParameterValue("endDate");
-		builder.addParameter("startDate", startDate);
-		builder.addParameter("endDate", endDate);
 
-		List<Integer> ptIds = evaluationService.evaluateToList(builder, Integer.class, context);
-		newCohort.setMemberIds(new HashSet<Integer>(ptIds));
+		Set<Integer> memberIds = TxCurrCohortDefinitionEvaluator.getTxCurr(endDate, context);
+		memberIds.retainAll(evaluationService.evaluateToList(builder, Integer.class, context));
+
+		Cohort newCohort = new Cohort();
+		newCohort.setMemberIds(memberIds);
 		return new EvaluatedCohort(newCohort, definition, context);
     }
 }
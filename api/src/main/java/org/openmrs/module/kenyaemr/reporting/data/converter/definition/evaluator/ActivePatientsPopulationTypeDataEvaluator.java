@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ActivePatientsPopulationTypeDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +23,7 @@ import java.util.Map;
  * Evaluates a ActivePatientsPopulationTypeDataDefinition to produce a Person pop type Data
  */
 @Handler(supports=ActivePatientsPopulationTypeDataDefinition.class, order=50)
-public class ActivePatientsPopulationTypeDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ActivePatientsPopulationTypeDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -54,12 +48,11 @@ public class ActivePatientsPopulationTypeDataEvaluator implements PersonDataEval
                 "                                    when 162277 then 'Prisoner'\n" +
                 "                                    when 1175 then 'Not applicable'\n" +
                 "                                    when 165192 then 'Military and other uniformed services' else '' end), '' )),11) as priority_population_type\n" +
-                "        FROM kenyaemr_etl.etl_patient_hiv_followup GROUP BY patient_id) fup\n" +
+                "        FROM kenyaemr_etl.etl_patient_hiv_followup WHERE patient_id in (:patientIds) GROUP BY patient_id) fup\n" +
                 "GROUP BY fup.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
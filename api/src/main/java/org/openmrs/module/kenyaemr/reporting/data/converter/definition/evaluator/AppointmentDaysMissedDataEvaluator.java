@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.AppointmentDaysMissedDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +24,7 @@ import java.util.Map;
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports = AppointmentDaysMissedDataDefinition.class, order = 50)
-public class AppointmentDaysMissedDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class AppointmentDaysMissedDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -41,7 +35,7 @@ public class AppointmentDaysMissedDataEvaluator implements PersonDataEvaluator {
                 "from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
                 "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
                 "        join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id = e.patient_id\n" +
-                "where fup.visit_date < date(:endDate)\n" +
+                "where fup.visit_date < date(:endDate) and fup.patient_id in (:patientIds)\n" +
                 "group by patient_id\n" +
                 "having fup_visit_date <= date(:endDate) and latest_fup_tca < date(:endDate))a;";
 
@@ -50,8 +44,7 @@ public class AppointmentDaysMissedDataEvaluator implements PersonDataEvaluator {
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
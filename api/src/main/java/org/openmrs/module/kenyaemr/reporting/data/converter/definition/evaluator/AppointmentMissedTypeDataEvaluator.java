@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.MissedAppointmentTypeDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +24,7 @@ import java.util.Map;
  * Evaluates a AppointmentMissedTypeDataDefinition
  */
 @Handler(supports = MissedAppointmentTypeDataDefinition.class, order = 50)
-public class AppointmentMissedTypeDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class AppointmentMissedTypeDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -60,6 +54,7 @@ public class AppointmentMissedTypeDataEvaluator implements PersonDataEvaluator {
                 "      from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
                 "               left join (select k.patient_id, max(k.visit_date) as latest_fast_track_visit_date\n" +
                 "                          from kenyaemr_etl.etl_art_fast_track k\n" +
+                "                          where k.patient_id in (:patientIds)\n" +
                 "                          group by k.patient_id) k on fup.patient_id = k.patient_id\n" +
                 "               join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
                 "               join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id = e.patient_id\n" +
@@ -72,9 +67,9 @@ public class AppointmentMissedTypeDataEvaluator implements PersonDataEvaluator {
                 "                   discontinuation_reason\n" +
                 "            from kenyaemr_etl.etl_patient_program_discontinuation\n" +
                 "            where date(visit_date) <= date(curdate())\n" +
-                "              and program_name = 'HIV'\n" +
+                "              and program_name = 'HIV' and patient_id in (:patientIds)\n" +
                 "            group by patient_id) d on d.patient_id = fup.patient_id\n" +
-                "      where fup.visit_date <= date(curdate())\n" +
+                "      where fup.visit_date <= date(curdate()) and fup.patient_id in (:patientIds)\n" +
                 "      group by patient_id\n" +
                 "      having (\n" +
                 "                     ((timestampdiff(DAY, date(refill_tca), date(curdate())) between 1 and 30 and\n" +
@@ -95,8 +90,7 @@ public class AppointmentMissedTypeDataEvaluator implements PersonDataEvaluator {
         Date endDate = (Date) context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -0,0 +1,195 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.Cohort;
+import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.openmrs.module.reporting.query.person.PersonIdSet;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Base class for person data evaluators which query the ETL tables. Queries reference the base cohort of the
+ * evaluation context through the {@link #PATIENT_IDS} placeholder, e.g. <code>where e.patient_id in (:patientIds)</code>,
+ * so that a line list only reads the rows of the patients it will actually display.
+ *
+ * Small cohorts are bound as an inline list of ids, larger cohorts through the reporting id set table.
+ */
+public abstract class BaseEtlPersonDataEvaluator implements PersonDataEvaluator {
+
+	/**
+	 * Placeholder for the ids of the base cohort
+	 */
+	public static final String PATIENT_IDS = ":patientIds";
+
+	/**
+	 * Cohorts larger than this are joined through the reporting id set table instead of an IN list
+	 */
+	protected static final int MAX_INLINE_COHORT_SIZE = 1000;
+
+	@Autowired
+	protected EvaluationService evaluationService;
+
+	/**
+	 * Evaluates the given query for the base cohort of the context
+	 * @param qry the query which selects patient id and value columns
+	 * @param queryBuilder the query builder holding any other parameters of the query
+	 * @param context the evaluation context
+	 * @return the map of patient ids to values
+	 * @throws EvaluationException if the query fails
+	 */
+	protected Map<Integer, Object> evaluateToMap(String qry, SqlQueryBuilder queryBuilder, EvaluationContext context) throws EvaluationException {
+		Cohort baseCohort = context.getBaseCohort();
+
+		if (baseCohort != null && baseCohort.isEmpty()) {
+			return new HashMap<Integer, Object>();
+		}
+
+		PersonIdSet idSet = createIdSet(qry, baseCohort);
+		try {
+			queryBuilder.append(bindBaseCohort(qry, baseCohort, idSet));
+			return evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+		}
+		finally {
+			if (idSet != null) {
+				evaluationService.stopUsing(idSet);
+			}
+		}
+	}
+
+	/**
+	 * Gets the rows of the given ETL table for the base cohort of the context. Rows are loaded once per evaluation
+	 * and shared through the context cache by all the columns of a data set which read the same table. When several
+	 * columns are evaluated concurrently, the first loads the rows and the others wait for them.
+	 * @param table the ETL table
+	 * @param context the evaluation context
+	 * @return the table data
+	 * @throws EvaluationException if the query fails
+	 */
+	protected EtlTableData getTableData(final EtlTable table, final EvaluationContext context) throws EvaluationException {
+		final Cohort baseCohort = context.getBaseCohort();
+		Object cohortKey = EtlTable.getCohortKey(baseCohort);
+
+		// Contexts evaluated concurrently share their cache, so the entry is created under its lock
+		ConcurrentMap<Object, FutureTask<EtlTableData>> cached;
+		synchronized (context.getCache()) {
+			@SuppressWarnings("unchecked")
+			ConcurrentMap<Object, FutureTask<EtlTableData>> existing = (ConcurrentMap<Object, FutureTask<EtlTableData>>) context.getFromCache(table.getCacheKey());
+			cached = existing;
+			if (cached == null) {
+				cached = new ConcurrentHashMap<Object, FutureTask<EtlTableData>>();
+				context.addToCache(table.getCacheKey(), cached);
+			}
+		}
+
+		FutureTask<EtlTableData> load = new FutureTask<EtlTableData>(new Callable<EtlTableData>() {
+			@Override
+			public EtlTableData call() throws EvaluationException {
+				return loadTableData(table, baseCohort, context);
+			}
+		});
+		FutureTask<EtlTableData> existing = cached.putIfAbsent(cohortKey, load);
+		if (existing == null) {
+			existing = load;
+			load.run();
+		}
+
+		try {
+			return existing.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EvaluationException(table.getName(), ex);
+		}
+		catch (ExecutionException ex) {
+			// A failed load isn't kept, so that a later evaluation can retry it
+			cached.remove(cohortKey, existing);
+			if (ex.getCause() instanceof EvaluationException) {
+				throw (EvaluationException) ex.getCause();
+			}
+			throw new EvaluationException(table.getName(), ex.getCause());
+		}
+	}
+
+	/**
+	 * Loads the rows of the given ETL table for a cohort
+	 * @param table the ETL table
+	 * @param baseCohort the base cohort (may be null)
+	 * @param context the evaluation context
+	 * @return the table data
+	 * @throws EvaluationException if the query fails
+	 */
+	private EtlTableData loadTableData(EtlTable table, Cohort baseCohort, EvaluationContext context) throws EvaluationException {
+		EtlTableData data = new EtlTableData(table);
+		if (baseCohort != null && baseCohort.isEmpty()) {
+			return data;
+		}
+
+		String qry = table.getQuery();
+		PersonIdSet idSet = createIdSet(qry, baseCohort);
+		try {
+			SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
+			queryBuilder.append(bindBaseCohort(qry, baseCohort, idSet));
+			List<Object[]> rows = evaluationService.evaluateToList(queryBuilder, context);
+			data.addRows(rows);
+		}
+		finally {
+			if (idSet != null) {
+				evaluationService.stopUsing(idSet);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Creates the id set through which a large cohort is joined
+	 * @param qry the query
+	 * @param baseCohort the base cohort (may be null)
+	 * @return the id set or null if the cohort will be inlined
+	 */
+	private PersonIdSet createIdSet(String qry, Cohort baseCohort) {
+		if (baseCohort == null || baseCohort.size() <= MAX_INLINE_COHORT_SIZE || !qry.contains(PATIENT_IDS)) {
+			return null;
+		}
+		return new PersonIdSet(baseCohort.getMemberIds());
+	}
+
+	/**
+	 * Replaces the cohort placeholder of the query
+	 * @param qry the query
+	 * @param baseCohort the base cohort (may be null)
+	 * @param idSet the id set of a large cohort which is persisted to the reporting id set table (may be null)
+	 * @return the query
+	 */
+	private String bindBaseCohort(String qry, Cohort baseCohort, PersonIdSet idSet) {
+		if (baseCohort == null) {
+			return qry.replace(PATIENT_IDS, "select person_id from person");
+		}
+		if (idSet != null) {
+			String idSetKey = evaluationService.startUsing(idSet);
+			return qry.replace(PATIENT_IDS, "select member_id from reporting_idset where idset_key = '" + idSetKey + "'");
+		}
+		// Ids are integers so they are safe to inline and this spares the database a join
+		return qry.replace(PATIENT_IDS, StringUtils.join(baseCohort.getMemberIds(), ","));
+	}
+}
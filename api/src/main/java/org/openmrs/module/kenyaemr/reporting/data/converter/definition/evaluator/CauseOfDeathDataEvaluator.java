@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.CauseOfDeathDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +23,7 @@ import java.util.Map;
  * Evaluates Cause of Death Data Definition
  */
 @Handler(supports= CauseOfDeathDataDefinition.class, order=50)
-public class CauseOfDeathDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class CauseOfDeathDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -40,10 +34,9 @@ public class CauseOfDeathDataEvaluator implements PersonDataEvaluator {
                 "                                     when 133478 then 'Other natural causes not directly related to HIV'\n" +
                 "                                     when 123812 then 'Non-natural causes'\n" +
                 "                                     when 142917 then 'Unknown cause' else null end\n" +
-                "from kenyaemr_etl.etl_patient_program_discontinuation;";
+                "from kenyaemr_etl.etl_patient_program_discontinuation where patient_id in (:patientIds);";
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
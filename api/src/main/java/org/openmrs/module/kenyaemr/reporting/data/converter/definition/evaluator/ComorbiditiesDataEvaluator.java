@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ComorbiditiesDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +24,7 @@ import java.util.Map;
  * Evaluates co-morbidities Data Definition
  */
 @Handler(supports= ComorbiditiesDataDefinition.class, order=50)
-public class ComorbiditiesDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ComorbiditiesDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -59,12 +53,11 @@ public class ComorbiditiesDataEvaluator implements PersonDataEvaluator {
                 "                                          when 114662 then 'Osteoporosis'\n" +
                 "                                          when 117703 then 'Sickle Cell Anaemia'\n" +
                 "                                          when 118976 then 'Thyroid disease'\n" +
-                "    end) from kenyaemr_etl.etl_allergy_chronic_illness a group by a.patient_id;";
+                "    end) from kenyaemr_etl.etl_allergy_chronic_illness a where a.patient_id in (:patientIds) group by a.patient_id;";
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
        // Date startDate = (Date)context.getParameterValue("startDate");
         //queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
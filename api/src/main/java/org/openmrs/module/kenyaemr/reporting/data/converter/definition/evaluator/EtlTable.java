@@ -0,0 +1,163 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.Cohort;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes the columns of an ETL table which are shared between evaluators through {@link EtlTableData}
+ */
+public class EtlTable {
+
+	public static final EtlTable PATIENT_DEMOGRAPHICS = new EtlTable("etl_patient_demographics", null,
+			"DOB", "marital_status", "phone_number", "next_of_kin", "next_of_kin_phone", "unique_patient_no");
+
+	public static final EtlTable HIV_FOLLOWUP = new EtlTable("etl_patient_hiv_followup", "visit_date",
+			"next_appointment_date", "refill_date", "differentiated_care", "stability", "person_present", "pwp_pead_disclosure",
+			"who_stage", "voided");
+
+	public static final EtlTable LABORATORY_EXTRACT = new EtlTable("etl_laboratory_extract", "visit_date",
+			"lab_test", "test_result", "date_test_requested", "date_test_result_received");
+
+	private String name;
+
+	private String dateColumn;
+
+	private Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+
+	private String query;
+
+	/**
+	 * Creates a new ETL table description
+	 * @param name the table name
+	 * @param dateColumn the column by which the rows of a patient are ordered (may be null for one row per patient)
+	 * @param columns the value columns
+	 */
+	public EtlTable(String name, String dateColumn, String... columns) {
+		this.name = name;
+		this.dateColumn = dateColumn;
+
+		StringBuilder select = new StringBuilder("select patient_id");
+		int index = 1;
+		if (dateColumn != null) {
+			select.append(", ").append(dateColumn);
+			columnIndexes.put(dateColumn, index++);
+		}
+		for (String column : columns) {
+			select.append(", ").append(column);
+			columnIndexes.put(column, index++);
+		}
+		select.append(" from kenyaemr_etl.").append(name).append(" where patient_id in (").append(BaseEtlPersonDataEvaluator.PATIENT_IDS).append(")");
+		if (dateColumn != null) {
+			select.append(" order by patient_id, ").append(dateColumn);
+		}
+		this.query = select.toString();
+	}
+
+	/**
+	 * Gets the table name
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the column by which the rows of a patient are ordered
+	 * @return the date column or null
+	 */
+	public String getDateColumn() {
+		return dateColumn;
+	}
+
+	/**
+	 * Gets the position of the given column in a loaded row
+	 * @param column the column
+	 * @return the index
+	 * @throws IllegalArgumentException if the column is not loaded for this table
+	 */
+	public int getColumnIndex(String column) {
+		Integer index = columnIndexes.get(column);
+		if (index == null) {
+			throw new IllegalArgumentException("Column " + column + " is not loaded for " + name);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the query which loads the rows of this table for the base cohort
+	 * @return the query
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Gets the key of the evaluation cache entry which holds the loaded data of this table by cohort. Date parameters
+	 * are applied to the cached rows in memory so they are not part of the key.
+	 * @return the key
+	 */
+	public String getCacheKey() {
+		return StringUtils.join(new String[] { "kenyaemr.etl", name }, ".");
+	}
+
+	/**
+	 * Gets the key of the data loaded for the given cohort within the evaluation cache entry
+	 * @param baseCohort the base cohort (may be null for all patients)
+	 * @return the key
+	 */
+	public static Object getCohortKey(Cohort baseCohort) {
+		return new CohortKey(baseCohort != null ? baseCohort.getMemberIds() : null);
+	}
+
+	/**
+	 * Key of the data loaded for a cohort. Keys hold the member set of the cohort rather than a copy of it, and compare
+	 * sizes and hash codes before members, as different cohorts of the same size can have the same hash code.
+	 */
+	static final class CohortKey {
+
+		private final Set<Integer> memberIds;
+
+		private final int size;
+
+		private final int hashCode;
+
+		CohortKey(Set<Integer> memberIds) {
+			this.memberIds = memberIds;
+			this.size = memberIds != null ? memberIds.size() : -1;
+			this.hashCode = memberIds != null ? memberIds.hashCode() : 0;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof CohortKey)) {
+				return false;
+			}
+			CohortKey other = (CohortKey) o;
+			if (size != other.size || hashCode != other.hashCode) {
+				return false;
+			}
+			return memberIds == other.memberIds || (memberIds != null && memberIds.equals(other.memberIds));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * size + hashCode;
+		}
+	}
+}
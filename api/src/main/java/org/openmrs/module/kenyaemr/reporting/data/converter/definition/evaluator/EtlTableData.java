@@ -0,0 +1,229 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.apache.commons.lang3.time.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of an ETL table for a cohort, grouped by patient and ordered by the date column of the table
+ */
+public class EtlTableData {
+
+	/**
+	 * Selects the rows of a patient which are considered, i.e. the in memory equivalent of a where clause
+	 */
+	public interface RowFilter {
+
+		/**
+		 * Checks whether a row should be considered
+		 * @param row the row
+		 * @return true if the row should be considered
+		 */
+		boolean accept(Object[] row);
+	}
+
+	private EtlTable table;
+
+	private Map<Integer, List<Object[]>> patientRows = new HashMap<Integer, List<Object[]>>();
+
+	/**
+	 * Creates empty data for the given table
+	 * @param table the table
+	 */
+	public EtlTableData(EtlTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Adds loaded rows, which must be ordered by patient and date
+	 * @param rows the rows
+	 */
+	public void addRows(List<Object[]> rows) {
+		for (Object[] row : rows) {
+			Integer patientId = ((Number) row[0]).intValue();
+			List<Object[]> existing = patientRows.get(patientId);
+			if (existing == null) {
+				existing = new ArrayList<Object[]>();
+				patientRows.put(patientId, existing);
+			}
+			existing.add(row);
+		}
+	}
+
+	/**
+	 * Gets the table
+	 * @return the table
+	 */
+	public EtlTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Gets the rows of a patient
+	 * @param patientId the patient id
+	 * @return the rows, oldest first
+	 */
+	public List<Object[]> getRows(Integer patientId) {
+		List<Object[]> rows = patientRows.get(patientId);
+		return rows != null ? rows : Collections.<Object[]>emptyList();
+	}
+
+	/**
+	 * Gets a column value from a row of this table
+	 * @param row the row
+	 * @param column the column
+	 * @return the value
+	 */
+	public Object getValue(Object[] row, String column) {
+		return row[table.getColumnIndex(column)];
+	}
+
+	/**
+	 * Gets the value of a column from the first row of each patient. Intended for tables with one row per patient.
+	 * @param column the column
+	 * @return the map of patient ids to values
+	 */
+	public Map<Integer, Object> getValues(String column) {
+		int index = table.getColumnIndex(column);
+		Map<Integer, Object> ret = new HashMap<Integer, Object>();
+		for (Map.Entry<Integer, List<Object[]>> entry : patientRows.entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().get(0)[index]);
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the last non-null value of a column for each patient, i.e. the in memory equivalent of
+	 * <code>mid(max(concat(visit_date, column)), 11)</code>
+	 * @param column the column
+	 * @param onOrBefore only consider rows dated on or before this day (may be null)
+	 * @return the map of patient ids to values
+	 */
+	public Map<Integer, Object> getLatestValues(String column, Date onOrBefore) {
+		return getLatestValues(column, onOrBefore, null);
+	}
+
+	/**
+	 * Gets the last non-null value of a column for each patient, only considering the rows accepted by a filter
+	 * @param column the column
+	 * @param onOrBefore only consider rows dated on or before this day (may be null)
+	 * @param filter the row filter (may be null)
+	 * @return the map of patient ids to values
+	 */
+	public Map<Integer, Object> getLatestValues(String column, Date onOrBefore, RowFilter filter) {
+		int index = table.getColumnIndex(column);
+		int dateIndex = table.getColumnIndex(table.getDateColumn());
+		Map<Integer, Object> ret = new HashMap<Integer, Object>();
+		for (Map.Entry<Integer, List<Object[]>> entry : patientRows.entrySet()) {
+			Object latest = null;
+			for (Object[] row : entry.getValue()) {
+				if (row[index] != null && isOnOrBefore((Date) row[dateIndex], onOrBefore) && (filter == null || filter.accept(row))) {
+					latest = row[index];
+				}
+			}
+			if (latest != null) {
+				ret.put(entry.getKey(), latest);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the latest row of each patient which is accepted by a filter, e.g. to derive a value from several columns
+	 * @param onOrBefore only consider rows dated on or before this day (may be null)
+	 * @param filter the row filter (may be null)
+	 * @return the map of patient ids to rows
+	 */
+	public Map<Integer, Object[]> getLatestRows(Date onOrBefore, RowFilter filter) {
+		int dateIndex = table.getColumnIndex(table.getDateColumn());
+		Map<Integer, Object[]> ret = new HashMap<Integer, Object[]>();
+		for (Map.Entry<Integer, List<Object[]>> entry : patientRows.entrySet()) {
+			Object[] latest = null;
+			for (Object[] row : entry.getValue()) {
+				if (isOnOrBefore((Date) row[dateIndex], onOrBefore) && (filter == null || filter.accept(row))) {
+					latest = row;
+				}
+			}
+			if (latest != null) {
+				ret.put(entry.getKey(), latest);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the latest date of each patient's rows
+	 * @param onOrBefore only consider rows dated on or before this day (may be null)
+	 * @return the map of patient ids to dates
+	 */
+	public Map<Integer, Object> getLatestDates(Date onOrBefore) {
+		return getLatestValues(table.getDateColumn(), onOrBefore);
+	}
+
+	/**
+	 * Gets the latest date of each patient's rows, only considering the rows accepted by a filter
+	 * @param onOrBefore only consider rows dated on or before this day (may be null)
+	 * @param filter the row filter (may be null)
+	 * @return the map of patient ids to dates
+	 */
+	public Map<Integer, Object> getLatestDates(Date onOrBefore, RowFilter filter) {
+		return getLatestValues(table.getDateColumn(), onOrBefore, filter);
+	}
+
+	/**
+	 * Checks whether a row has been voided
+	 * @param row the row
+	 * @return true if the row is voided
+	 */
+	public boolean isVoided(Object[] row) {
+		Object voided = getValue(row, "voided");
+		return voided instanceof Boolean ? (Boolean) voided : voided instanceof Number && ((Number) voided).intValue() != 0;
+	}
+
+	/**
+	 * Checks whether a value is one of the given codes, e.g. concept ids
+	 * @param value the value
+	 * @param codes the codes
+	 * @return true if the value is one of the codes
+	 */
+	public static boolean isCode(Object value, int... codes) {
+		if (value == null) {
+			return false;
+		}
+		String text = String.valueOf(value);
+		for (int code : codes) {
+			if (String.valueOf(code).equals(text)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a row date falls on or before the given day
+	 * @param date the row date
+	 * @param onOrBefore the day (may be null)
+	 * @return true if the row should be considered
+	 */
+	public static boolean isOnOrBefore(Date date, Date onOrBefore) {
+		if (onOrBefore == null) {
+			return true;
+		}
+		return date != null && DateUtils.truncatedCompareTo(date, onOrBefore, Calendar.DATE) <= 0;
+	}
+}
@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HTSDaysSinceConfirmedPositiveDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,21 +23,17 @@ import java.util.Map;
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports=HTSDaysSinceConfirmedPositiveDataDefinition.class, order=50)
-public class HTSDaysSinceConfirmedPositiveDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class HTSDaysSinceConfirmedPositiveDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
         String qry = "SELECT t.patient_id, datediff(curdate(), t.visit_date) as numDays \n" +
                 "from kenyaemr_etl.etl_hts_test t\n" +
-                "where t.final_test_result = 'Positive' and t.voided = 0 and t.test_type=2 group by patient_id";
+                "where t.patient_id in (:patientIds) and (t.final_test_result = 'Positive' and t.voided = 0 and t.test_type=2) group by patient_id";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -14,12 +14,9 @@ import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HonouredA
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HonouredDrugRefillAppointmentDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +25,7 @@ import java.util.Map;
  * Evaluates whether a patient honoured drug refill appointment
  */
 @Handler(supports=HonouredAppointmentDataDefinition.class, order=50)
-public class HonouredAppointmentDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class HonouredAppointmentDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -40,15 +34,14 @@ public class HonouredAppointmentDataEvaluator implements PersonDataEvaluator {
                 "from encounter e\n" +
                 "inner join encounter_type et on et.encounter_type_id=e.encounter_type and et.uuid in ('e87aa2ad-6886-422e-9dfd-064e3bfe3aad','a0034eee-1940-4e35-847f-97537a35d05e'," +
                                                                                                        "'465a92f2-baf8-42e9-9612-53064be868e8')\n" +
-                "where e.voided=0 and date(e.encounter_datetime) between date(:startDate) and date(:endDate)";
+                "where e.voided=0 and e.patient_id in (:patientIds) and date(e.encounter_datetime) between date(:startDate) and date(:endDate)";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("startDate", startDate);
         queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.InfantProphylaxisDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +23,7 @@ import java.util.Map;
  * Evaluates HEI infant prophylaxis
  */
 @Handler(supports= InfantProphylaxisDataDefinition.class, order=50)
-public class InfantProphylaxisDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class InfantProphylaxisDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -37,11 +31,10 @@ public class InfantProphylaxisDataEvaluator implements PersonDataEvaluator {
         String qry = "select hv.patient_id,coalesce(case hv.nvp_given when 86663 then 'Yes' else NULL end,\n" +
                 "                 case hv.ctx_given when 80586 then 'Yes' else null end,\n" +
                 "                 case hv.azt_given when 1109 then 'Yes' else null end) as infant_prophylaxis\n" +
-                "      from kenyaemr_etl.etl_hei_follow_up_visit hv;";
+                "      from kenyaemr_etl.etl_hei_follow_up_visit hv where hv.patient_id in (:patientIds);";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -14,12 +14,9 @@ import org.openmrs.module.kenyaemr.reporting.data.converter.definition.KenyaEMRM
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.LastCD4OrderDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -27,22 +24,18 @@ import java.util.Map;
  * Evaluates a VisitIdDataDefinition to produce a VisitData
  */
 @Handler(supports=LastCD4OrderDataDefinition.class, order=50)
-public class LastCD4OrderDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class LastCD4OrderDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
         String qry = "select o.patient_id, max(concat(date(o.date_activated),o.order_reason)) lastDateAndReason from orders o \n" +
                 "  inner join (select order_type_id from order_type where uuid = '52a447d3-a64a-11e3-9aeb-50e549534c5e') ot on ot.order_type_id = o.order_type_id\n" +
-                "  where o.concept_id in (5497, 730) and o.voided=0 and o.order_action='NEW'\n" +
+                "  where o.concept_id in (5497, 730) and o.voided=0 and o.patient_id in (:patientIds) and o.order_action='NEW'\n" +
                 "  group by o.patient_id";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
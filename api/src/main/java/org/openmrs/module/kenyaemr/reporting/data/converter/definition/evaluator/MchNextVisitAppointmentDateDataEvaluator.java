@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.MchNextVisitAppointmentDateDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +24,7 @@ import java.util.Map;
  * Evaluates a MchNextVisitAppointmentDateDataDefinition
  */
 @Handler(supports = MchNextVisitAppointmentDateDataDefinition.class, order = 50)
-public class MchNextVisitAppointmentDateDataEvaluator implements PersonDataEvaluator {
-	
-	@Autowired
-	private EvaluationService evaluationService;
+public class MchNextVisitAppointmentDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 	
 	public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context)
 	        throws EvaluationException {
@@ -56,15 +50,14 @@ public class MchNextVisitAppointmentDateDataEvaluator implements PersonDataEvalu
 		        + "                   from kenyaemr_etl.etl_mch_postnatal_visit p\n"
 		        + "                   where date(p.visit_date) <= date(:endDate)\n"
 		        + "                   group by p.patient_id) p on e.patient_id = p.patient_id\n"
-		        + "where date(e.visit_date) between date(:startDate) and date(:endDate)\n" + "group by e.patient_id;";
+		        + "where e.patient_id in (:patientIds) and (date(e.visit_date) between date(:startDate) and date(:endDate))\n" + "group by e.patient_id;";
 		
 		SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
 		Date startDate = (Date) context.getParameterValue("startDate");
 		Date endDate = (Date) context.getParameterValue("endDate");
 		queryBuilder.addParameter("endDate", endDate);
 		queryBuilder.addParameter("startDate", startDate);
-		queryBuilder.append(qry);
-		Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+		Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
 		c.setData(data);
 		return c;
 	}
@@ -13,12 +13,9 @@ import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.PCREIDAt8MonthsDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +23,7 @@ import java.util.Map;
  * Evaluates a patient's PCR/EID at 8 months
  */
 @Handler(supports = PCREIDAt8MonthsDataDefinition.class, order = 50)
-public class PCREIDAt8MonthsDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class PCREIDAt8MonthsDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -38,12 +32,11 @@ public class PCREIDAt8MonthsDataEvaluator implements PersonDataEvaluator {
                 "               left join (select x.patient_id,x.lab_test as lab_test,x.date_test_requested as date_test_requested from kenyaemr_etl.etl_laboratory_extract x\n" +
                 "                         ) x on d.patient_id = x.patient_id\n" +
                 "               left join (select hv.patient_id,hv.dna_pcr_sample_date as dna_pcr_sample_date from kenyaemr_etl.etl_hei_follow_up_visit hv)hv on d.patient_id = hv.patient_id\n" +
-                "where (timestampdiff(WEEK,d.DOB,x.date_test_requested) <=8) or\n" +
-                "       (timestampdiff(WEEK,d.DOB,hv.dna_pcr_sample_date) <=8) group by d.patient_id;";
+                "where d.patient_id in (:patientIds) and ((timestampdiff(WEEK,d.DOB,x.date_test_requested) <=8) or\n" +
+                "       (timestampdiff(WEEK,d.DOB,hv.dna_pcr_sample_date) <=8)) group by d.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
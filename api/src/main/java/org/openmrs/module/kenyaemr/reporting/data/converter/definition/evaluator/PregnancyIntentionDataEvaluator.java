@@ -14,12 +14,9 @@ import org.openmrs.module.kenyaemr.reporting.data.converter.definition.Pregnancy
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.TBScreeningAtLastVisitDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -27,10 +24,7 @@ import java.util.Map;
  * Evaluates a patient's pregnancy intention
  */
 @Handler(supports= PregnancyIntentionDataDefinition.class, order=50)
-public class PregnancyIntentionDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class PregnancyIntentionDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -39,11 +33,10 @@ public class PregnancyIntentionDataEvaluator implements PersonDataEvaluator {
                 "case f.pregnancy_status when 1065 then 'Already Pregnant' when 1066 then 'Not Pregnant' else NULL end), 'Missing'),'NA') )), 11)\n" +
                 "        as pregnancy_intention\n" +
                 "from kenyaemr_etl.etl_patient_hiv_followup f\n" +
-                "join kenyaemr_etl.etl_patient_demographics d on d.patient_id = f.patient_id group by f.patient_id;";
+                "join kenyaemr_etl.etl_patient_demographics d on d.patient_id = f.patient_id where f.patient_id in (:patientIds) group by f.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
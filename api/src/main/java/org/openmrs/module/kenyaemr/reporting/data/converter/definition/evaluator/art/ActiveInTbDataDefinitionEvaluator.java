@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ActiveInOvcDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ActiveInTbDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates Active in Tb Data Definition
  */
 @Handler(supports= ActiveInTbDataDefinition.class, order=50)
-public class ActiveInTbDataDefinitionEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ActiveInTbDataDefinitionEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -43,16 +38,15 @@ public class ActiveInTbDataDefinitionEvaluator implements PersonDataEvaluator {
                 "  left join (select v.patient_id as hiv_client,max(date(v.visit_date)),mid(max(concat(date(v.visit_date),v.on_anti_tb_drugs)),11) as on_tb_drugs\n" +
                 "  from kenyaemr_etl.etl_patient_hiv_followup v\n" +
                 "  where date(v.visit_date) between date(:startDate) and date(:endDate)\n" +
-                "  group by v.patient_id having max(date(visit_date)) <= date(:endDate) and on_tb_drugs = 1065)  c on d.patient_id = c.hiv_client;";
+                "  group by v.patient_id having max(date(visit_date)) <= date(:endDate) and on_tb_drugs = 1065)  c on d.patient_id = c.hiv_client where d.patient_id in (:patientIds);";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
 
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.BaselineCD4DoneDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +24,7 @@ import java.util.Map;
  * Evaluates Baseline CD4 Done Data Definition
  */
 @Handler(supports = BaselineCD4DoneDataDefinition.class, order = 50)
-public class BaselineCD4DoneDataEvaluator implements PersonDataEvaluator {
-	
-	@Autowired
-	private EvaluationService evaluationService;
+public class BaselineCD4DoneDataEvaluator extends BaseEtlPersonDataEvaluator {
 	
 	public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context)
 	        throws EvaluationException {
@@ -44,11 +39,10 @@ public class BaselineCD4DoneDataEvaluator implements PersonDataEvaluator {
 		        + "                        if(lab_test = 5497, test_result, if(lab_test = 167718 and test_result = 1254, '>200', if(lab_test = 167718 and test_result = 167717,'<=200',if(lab_test = 730,concat(test_result,'%'),'')))), '')),\n"
 		        + "             10)  as baseline_cd4_date\n"
 		        + "from kenyaemr_etl.etl_laboratory_extract\n"
-		        + "where lab_test in (167718,5497,730)\n" + "GROUP BY patient_id)l on e.patient_id = l.patient_id;";
+		        + "where lab_test in (167718,5497,730)\n" + "GROUP BY patient_id)l on e.patient_id = l.patient_id where e.patient_id in (:patientIds);";
 		
 		SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-		queryBuilder.append(qry);
-		Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+		Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
 		c.setData(data);
 		return c;
 	}
@@ -12,54 +12,48 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLDifferentiatedCareModelDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLStabilityDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTable;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTableData;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Evaluates Differentiated care model Data Definition
  */
 @Handler(supports= ETLDifferentiatedCareModelDataDefinition.class, order=50)
-public class ETLDifferentiatedCareModelDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLDifferentiatedCareModelDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
-        String qry="select fup.patient_id,\n" +
-                "     (case fup.differentiated_care\n" +
-                "      when 164942 then \"Standard Care\"\n" +
-                "        when 164943 then \"Fast Track\"\n" +
-                "        when 164944 then \"Community ART Distribution - HCW Led\"\n" +
-                "        when 164945 then \"Community ART Distribution - Peer Led\"\n" +
-                "        when 164946 then \"Facility ART Distribution Group\" else \"\" end) as differentiated_care_model\n" +
-                "        from\n" +
-                "         (select f.patient_id,\n" +
-                "          mid(max(concat(f.visit_date,f.differentiated_care)),11) as differentiated_care,\n" +
-                "          f.stability stability,\n" +
-                "          f.person_present person_present,\n" +
-                "          f.visit_date visit_date\n" +
-                "        from kenyaemr_etl.etl_patient_hiv_followup f\n" +
-                "        where stability is not null and person_present = 978 and date(visit_date) <= date(:endDate) and f.voided = 0 group by f.patient_id) fup;";
-
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Date endDate = (Date) context.getParameterValue("endDate");
+        final EtlTableData followups = getTableData(EtlTable.HIV_FOLLOWUP, context);
+        EtlTableData.RowFilter presentVisits = new EtlTableData.RowFilter() {
+            @Override
+            public boolean accept(Object[] row) {
+                return EtlTableData.isCode(followups.getValue(row, "person_present"), 978) && !followups.isVoided(row) && followups.getValue(row, "stability") != null;
+            }
+        };
+        Map<Integer, Object> values = followups.getLatestValues("differentiated_care", endDate, presentVisits);
+
+        // Patients with visits but no recorded value get an empty value
+        Map<Integer, Object> data = new HashMap<Integer, Object>();
+        for (Integer patientId : followups.getLatestDates(endDate, presentVisits).keySet()) {
+            Object value = values.get(patientId);
+            data.put(patientId, EtlTableData.isCode(value, 164942) ? "Standard Care"
+                    : EtlTableData.isCode(value, 164943) ? "Fast Track"
+                    : EtlTableData.isCode(value, 164944) ? "Community ART Distribution - HCW Led"
+                    : EtlTableData.isCode(value, 164945) ? "Community ART Distribution - Peer Led"
+                    : EtlTableData.isCode(value, 164946) ? "Facility ART Distribution Group"
+                    : "");
+        }
         c.setData(data);
         return c;
     }
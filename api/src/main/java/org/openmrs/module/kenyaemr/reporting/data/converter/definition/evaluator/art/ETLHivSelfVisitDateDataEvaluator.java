@@ -12,14 +12,13 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLFirstRegimenDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLHivSelfVisitDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTable;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTableData;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 import java.util.Date;
@@ -29,26 +28,19 @@ import java.util.Date;
  * Evaluates Self Visit Date Data Definition
  */
 @Handler(supports=ETLHivSelfVisitDateDataDefinition.class, order=50)
-public class ETLHivSelfVisitDateDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLHivSelfVisitDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
-        String qry="select patient_id, max(visit_date) as last_visit_date from kenyaemr_etl.etl_patient_hiv_followup\n" +
-                "where person_present=978 and date(visit_date) <= date(:endDate)\n" +
-                "group by patient_id;";
-
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Date endDate = (Date) context.getParameterValue("endDate");
+        final EtlTableData followups = getTableData(EtlTable.HIV_FOLLOWUP, context);
+        Map<Integer, Object> data = followups.getLatestDates(endDate, new EtlTableData.RowFilter() {
+            @Override
+            public boolean accept(Object[] row) {
+                return EtlTableData.isCode(followups.getValue(row, "person_present"), 978);
+            }
+        });
         c.setData(data);
         return c;
     }
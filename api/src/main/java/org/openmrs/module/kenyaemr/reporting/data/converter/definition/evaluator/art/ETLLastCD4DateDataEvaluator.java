@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLLastCD4DateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -26,9 +24,7 @@ import java.util.Map;
  * Evaluates date of latest CD4 Data Definition
  */
 @Handler(supports= ETLLastCD4DateDataDefinition.class, order=50)
-public class ETLLastCD4DateDataEvaluator implements PersonDataEvaluator {
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLLastCD4DateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context)
             throws EvaluationException {
@@ -37,15 +33,14 @@ public class ETLLastCD4DateDataEvaluator implements PersonDataEvaluator {
         String qry = " select patient_id,\n" +
                 "coalesce(max(date(date_test_requested)),max(date(visit_date)))\n" +
                 "as cd4_count_date from kenyaemr_etl.etl_laboratory_extract\n" +
-                "where date(visit_date) <= date(:endDate) and lab_test in (167718,5497,730) GROUP BY patient_id;";
+                "where patient_id in (:patientIds) and (date(visit_date) <= date(:endDate) and lab_test in (167718,5497,730)) GROUP BY patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
         Date startDate = (Date) context.getParameterValue("startDate");
         Date endDate = (Date) context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
 
@@ -11,14 +11,13 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLLastVLDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTable;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTableData;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,26 +26,21 @@ import java.util.Map;
  * Evaluates Last VL Date Data Definition
  */
 @Handler(supports= ETLLastVLDateDataDefinition.class, order=50)
-public class ETLLastVLDateDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLLastVLDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
-        String qry = "select patient_id, date(max(visit_date)) as last_vl_date\n" +
-                "from kenyaemr_etl.etl_laboratory_extract where lab_test in (1305,856) and coalesce(date(date_test_requested),date(visit_date)) <= date(:endDate)\n" +
-                "GROUP BY patient_id;";
-
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        final Date endDate = (Date) context.getParameterValue("endDate");
+        final EtlTableData labs = getTableData(EtlTable.LABORATORY_EXTRACT, context);
+        Map<Integer, Object> data = labs.getLatestDates(null, new EtlTableData.RowFilter() {
+            @Override
+            public boolean accept(Object[] row) {
+                Date requested = (Date) labs.getValue(row, "date_test_requested");
+                Date tested = requested != null ? requested : (Date) labs.getValue(row, "visit_date");
+                return EtlTableData.isCode(labs.getValue(row, "lab_test"), 1305, 856) && EtlTableData.isOnOrBefore(tested, endDate);
+            }
+        });
         c.setData(data);
         return c;
     }
@@ -11,46 +11,49 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLLastVLResultDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTable;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTableData;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Evaluates Last VL result Data Definition
  */
 @Handler(supports= ETLLastVLResultDataDefinition.class, order=50)
-public class ETLLastVLResultDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLLastVLResultDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
-        String qry = "select patient_id,\n" +
-                "                     mid(max(concat(date(visit_date),\n" +
-                "                                    if(lab_test = 856, test_result, if(lab_test = 1305 and test_result = 1302, 'LDL', '')), '')),\n" +
-                "                         11) as vl_result\n" +
-                "             from kenyaemr_etl.etl_laboratory_extract\n" +
-                "             where date(visit_date) <= date(:endDate) and lab_test in (1305, 856)\n" +
-                "             GROUP BY patient_id;";
-
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Date endDate = (Date) context.getParameterValue("endDate");
+        final EtlTableData labs = getTableData(EtlTable.LABORATORY_EXTRACT, context);
+        Map<Integer, Object[]> latestTests = labs.getLatestRows(endDate, new EtlTableData.RowFilter() {
+            @Override
+            public boolean accept(Object[] row) {
+                Object labTest = labs.getValue(row, "lab_test");
+                return EtlTableData.isCode(labTest, 1305) || (EtlTableData.isCode(labTest, 856) && labs.getValue(row, "test_result") != null);
+            }
+        });
+
+        // Quantitative results are shown as is, and qualitative results only when they are LDL
+        Map<Integer, Object> data = new HashMap<Integer, Object>();
+        for (Map.Entry<Integer, Object[]> entry : latestTests.entrySet()) {
+            Object labTest = labs.getValue(entry.getValue(), "lab_test");
+            Object result = labs.getValue(entry.getValue(), "test_result");
+            if (EtlTableData.isCode(labTest, 856)) {
+                data.put(entry.getKey(), String.valueOf(result));
+            }
+            else {
+                data.put(entry.getKey(), EtlTableData.isCode(result, 1302) ? "LDL" : "");
+            }
+        }
         c.setData(data);
         return c;
     }
@@ -11,14 +11,13 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLNextAppointmentBetweenDatesDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTable;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.EtlTableData;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,29 +26,21 @@ import java.util.Map;
  * Evaluates Next Appointment Data Definition
  */
 @Handler(supports= ETLNextAppointmentBetweenDatesDataDefinition.class, order=50)
-public class ETLNextAppointmentBetweenDatesDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLNextAppointmentBetweenDatesDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
-        String qry = "select patient_id,\n" +
-                "       date(mid(max(concat(visit_date, next_appointment_date, '')), 11)) as next_appointment_date\n" +
-                "from kenyaemr_etl.etl_patient_hiv_followup\n" +
-                "where date(visit_date) <= date(:endDate)\n" +
-                "  and next_appointment_date between date(:startDate) and date(:endDate)\n" +
-                "GROUP BY patient_id;";
-
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        final Date startDate = (Date) context.getParameterValue("startDate");
+        final Date endDate = (Date) context.getParameterValue("endDate");
+        final EtlTableData followups = getTableData(EtlTable.HIV_FOLLOWUP, context);
+        Map<Integer, Object> data = followups.getLatestValues("next_appointment_date", endDate, new EtlTableData.RowFilter() {
+            @Override
+            public boolean accept(Object[] row) {
+                Date nextAppointmentDate = (Date) followups.getValue(row, "next_appointment_date");
+                return EtlTableData.isOnOrBefore(startDate, nextAppointmentDate) && EtlTableData.isOnOrBefore(nextAppointmentDate, endDate);
+            }
+        });
         c.setData(data);
         return c;
     }
@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLSuppressionStatusDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates Suppression Status Data Definition
  */
 @Handler(supports= ETLSuppressionStatusDataDefinition.class, order=50)
-public class ETLSuppressionStatusDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ETLSuppressionStatusDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -39,17 +34,16 @@ public class ETLSuppressionStatusDataEvaluator implements PersonDataEvaluator {
                 "  mid(max(concat(visit_date, if(lab_test = 856 and test_result >= 1000, 'Unsuppressed',\n" +
                 "  if(lab_test = 856 and test_result between 50 and 999, 'Low Level viremia',\n" +
                 "  if((lab_test= 856 and test_result <50) or (lab_test=1305 and test_result = 1302), 'Suppressed ',''))), '' )),11) as suppression_status\n" +
-                "from kenyaemr_etl.etl_laboratory_extract where coalesce(date(date_test_requested),date(visit_date)) <= date(:endDate)\n" +
+                "from kenyaemr_etl.etl_laboratory_extract where patient_id in (:patientIds) and (coalesce(date(date_test_requested),date(visit_date)) <= date(:endDate))\n" +
                 "GROUP BY patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
 
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.NCDDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,9 +25,7 @@ import java.util.Map;
  * Evaluates NCDs onset date DataDefinition
  */
 @Handler(supports = NCDDateDataDefinition.class, order = 50)
-public class NCDDateDataEvaluator implements PersonDataEvaluator {
-    @Autowired
-    private EvaluationService evaluationService;
+public class NCDDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -37,15 +33,14 @@ public class NCDDateDataEvaluator implements PersonDataEvaluator {
         String qry = "select ci.patient_id,\n" +
                 "       group_concat(ci.chronic_illness_onset_date) as ChronicIllness_onset\n" +
                 "from kenyaemr_etl.etl_allergy_chronic_illness ci\n" +
-                "where ci.visit_date <= date(:endDate)\n" +
+                "where ci.patient_id in (:patientIds) and (ci.visit_date <= date(:endDate))\n" +
                 "group by ci.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date endDate = (Date) context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
 
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
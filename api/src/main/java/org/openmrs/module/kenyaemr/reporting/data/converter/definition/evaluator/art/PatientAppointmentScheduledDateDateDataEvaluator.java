@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLNextAppointmentDateDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.PatientAppointmentScheduledDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates Scheduled date for Patient appointment Data Definition
  */
 @Handler(supports= PatientAppointmentScheduledDateDataDefinition.class, order=50)
-public class PatientAppointmentScheduledDateDateDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class PatientAppointmentScheduledDateDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -42,18 +37,17 @@ public class PatientAppointmentScheduledDateDateDataEvaluator implements PersonD
 			"from patient_appointment pp\n" +
 			"         inner join person d on d.person_id=pp.patient_id and d.voided=0\n" +
 			"             inner join encounter e on e.patient_id = pp.patient_id\n" +
-			"where pp.appointment_service_id = 1 and date(e.encounter_datetime) = date(pp.date_appointment_scheduled)\n" +
+			"where pp.patient_id in (:patientIds) and pp.appointment_service_id = 1 and date(e.encounter_datetime) = date(pp.date_appointment_scheduled)\n" +
 			"  and date(pp.date_created) <= date(:endDate)\n" +
 			"group by pp.patient_id,pp.date_appointment_scheduled;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
 
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
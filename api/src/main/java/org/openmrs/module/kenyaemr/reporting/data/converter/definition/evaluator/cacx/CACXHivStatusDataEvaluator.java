@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.cacx.CACXHivStatusDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates CacxScreeningDataDefinition to produce hiv status
  */
 @Handler(supports= CACXHivStatusDataDefinition.class, order=50)
-public class CACXHivStatusDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class CACXHivStatusDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -39,12 +34,11 @@ public class CACXHivStatusDataEvaluator implements PersonDataEvaluator {
                 "select patient_id, " +
                 "max((case when test_type = 1 then final_test_result else null end)) as `initial_test`," +
                 "max((case when test_type = 2 then final_test_result else null end)) as `retest`" +
-                "from (select t.final_test_result, t.test_type, t.visit_date, t.patient_id from kenyaemr_etl.etl_hts_test t) as `hts` GROUP BY patient_id) as test " +
+                "from (select t.final_test_result, t.test_type, t.visit_date, t.patient_id from kenyaemr_etl.etl_hts_test t where t.patient_id in (:patientIds)) as `hts` GROUP BY patient_id) as test " +
                 "left join kenyaemr_etl.etl_hiv_enrollment e on e.patient_id = test.patient_id; ";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarEnrolledInCareDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarStartingArtDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates DarStartingArtDataDefinition to produce a VisitData
  */
 @Handler(supports= DarEnrolledInCareDataDefinition.class, order=50)
-public class DarEnrolledInCareDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class DarEnrolledInCareDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -44,12 +39,12 @@ public class DarEnrolledInCareDataEvaluator implements PersonDataEvaluator {
             qry = "SELECT e.patient_id, 'X' enrolled\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex' \n" +
-                    "where e.entry_point <> 160563 and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and e.transfer_in_date is null and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
+                    "where e.entry_point <> 160563 and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and e.transfer_in_date is null and date(e.visit_date) = date(:startDate) and e.voided = 0 and e.patient_id in (:patientIds) ";
         } else {
             qry = "SELECT e.patient_id, 'X' enrolled\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
-                    "where e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
+                    "where e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 and e.patient_id in (:patientIds) ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -73,10 +68,9 @@ public class DarEnrolledInCareDataEvaluator implements PersonDataEvaluator {
             qry = qry.replace(":sex", sex);
         }
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
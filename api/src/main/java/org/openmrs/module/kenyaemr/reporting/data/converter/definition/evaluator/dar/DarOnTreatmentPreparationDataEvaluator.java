@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarEnrolledInCareDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarOnTreatmentPreparationDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates DarOnTreatmentPreparationDataDefinition to produce a VisitData
  */
 @Handler(supports= DarOnTreatmentPreparationDataDefinition.class, order=50)
-public class DarOnTreatmentPreparationDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class DarOnTreatmentPreparationDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -45,13 +40,13 @@ public class DarOnTreatmentPreparationDataEvaluator implements PersonDataEvaluat
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex' \n" +
                     "         inner join kenyaemr_etl.etl_ART_preparation tp on tp.patient_id = e.patient_id and  date(tp.visit_date) = date(:startDate) \n" +
-                    "where e.voided = 0 ";
+                    "where e.voided = 0 and e.patient_id in (:patientIds) ";
         } else {
             qry = "SELECT e.patient_id, 'X' treatmentPrep\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_ART_preparation tp on tp.patient_id = e.patient_id and  date(tp.visit_date) = date(:startDate) \n" +
-                    "where e.voided = 0 ";
+                    "where e.voided = 0 and e.patient_id in (:patientIds) ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -75,10 +70,9 @@ public class DarOnTreatmentPreparationDataEvaluator implements PersonDataEvaluat
             qry = qry.replace(":sex", sex);
         }
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarStartedIptDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarTbScreeningDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates DarTbScreeningDataDefinition to produce a VisitData
  */
 @Handler(supports= DarStartedIptDataDefinition.class, order=50)
-public class DarStartedIptDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class DarStartedIptDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -45,13 +40,13 @@ public class DarStartedIptDataEvaluator implements PersonDataEvaluator {
                     "FROM kenyaemr_etl.etl_patient_hiv_followup f\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 and p.Gender = ':sex'\n" +
                     "         inner join kenyaemr_etl.etl_ipt_initiation i on f.patient_id = i.patient_id  and date(i.visit_date) = date(:startDate) and i.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 ";
+                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.patient_id in (:patientIds) ";
         } else {
             qry = "SELECT f.patient_id, 'X' iptStarted \n" +
                     "FROM kenyaemr_etl.etl_patient_hiv_followup f\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_ipt_initiation i on f.patient_id = i.patient_id  and date(i.visit_date) = date(:startDate) and i.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 ";
+                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.patient_id in (:patientIds) ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -75,10 +70,9 @@ public class DarStartedIptDataEvaluator implements PersonDataEvaluator {
             qry = qry.replace(":sex", sex);
         }
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
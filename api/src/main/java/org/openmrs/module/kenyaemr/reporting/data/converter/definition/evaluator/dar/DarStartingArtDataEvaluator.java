@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarStartingArtDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates DarStartingArtDataDefinition to produce a VisitData
  */
 @Handler(supports= DarStartingArtDataDefinition.class, order=50)
-public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class DarStartingArtDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -50,7 +45,7 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
                     "      (select e.patient_id, min(e.date_started) as date_started\n" +
                     "        from kenyaemr_etl.etl_drug_event e\n" +
                     "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                    "        where e.program = 'HIV'\n" +
+                    "        where e.program = 'HIV' and e.patient_id in (:patientIds)\n" +
                     "        group by e.patient_id) e\n" +
                     " inner join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                     " inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex'\n" +
@@ -69,7 +64,7 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
                     "      (select e.patient_id, min(e.date_started) as date_started\n" +
                     "        from kenyaemr_etl.etl_drug_event e\n" +
                     "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                    "        where e.program = 'HIV'\n" +
+                    "        where e.program = 'HIV' and e.patient_id in (:patientIds)\n" +
                     "        group by e.patient_id) e\n" +
                     " inner join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                     " inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
@@ -100,10 +95,9 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
             qry = qry.replace(":sex", sex);
         }
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -11,14 +11,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dmi.ComplaintsOnsetDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates a ComplaintAttendantProviderDataDefinition
  */
 @Handler(supports= ComplaintsOnsetDateDataDefinition.class, order=50)
-public class ComplaintsOnsetDateDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ComplaintsOnsetDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -41,7 +36,7 @@ public class ComplaintsOnsetDateDataEvaluator implements PersonDataEvaluator {
                 "                           c.visit_date,\n" +
                 "                           c.complaint_duration\n" +
                 "                    from kenyaemr_etl.etl_allergy_chronic_illness c\n" +
-                "                    where c.complaint = 143264\n" +
+                "                    where c.patient_id in (:patientIds) and c.complaint = 143264\n" +
                 "                      and c.complaint_duration < 10\n" +
                 "                      and date(c.visit_date) between date(:startDate) and date(:endDate)\n" +
                 "                    group by patient_id) a\n" +
@@ -51,12 +46,11 @@ public class ComplaintsOnsetDateDataEvaluator implements PersonDataEvaluator {
                 "                            on a.patient_id = t.patient_id and date(t.visit_date) = date(v.visit_date) and t.temperature >= 38;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -12,14 +12,12 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.enrollmentTracker.HtsDateConfirmedPositiveDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.enrollmentTracker.HtsSameDayEnrollmentDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates if linkage for a client was done on the same day and testing
  */
 @Handler(supports=HtsSameDayEnrollmentDataDefinition.class, order=50)
-public class HtsSameDayEnrollmentDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class HtsSameDayEnrollmentDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -41,13 +36,12 @@ public class HtsSameDayEnrollmentDataEvaluator implements PersonDataEvaluator {
                 "from kenyaemr_etl.etl_hts_test t\n" +
                 "left outer join kenyaemr_etl.etl_hts_referral_and_linkage l on l.patient_id = t.patient_id and date(t.visit_date)=date(l.visit_date) and l.tracing_status=\"Contacted and linked\"\n" +
                 "left outer join kenyaemr_etl.etl_hiv_enrollment e on e.patient_id = t.patient_id and date(t.visit_date)=date(e.visit_date)\n" +
-                "where t.voided=0\n" +
+                "where t.voided=0 and t.patient_id in (:patientIds)\n" +
                 "group by t.patient_id\n" +
                 ") l ;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
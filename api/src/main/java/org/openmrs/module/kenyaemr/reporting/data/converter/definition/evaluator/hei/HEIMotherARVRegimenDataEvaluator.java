@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.hei;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.HEIMotherARVRegimenDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +24,7 @@ import java.util.Map;
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= HEIMotherARVRegimenDataDefinition.class, order=50)
-public class HEIMotherARVRegimenDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class HEIMotherARVRegimenDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -41,12 +36,11 @@ public class HEIMotherARVRegimenDataEvaluator implements PersonDataEvaluator {
                 "   when 162199 then \"ABC/NVP/3TC\" when 162200 then \"3TC/ABC/LPV/r\" when 162565 then \"3TC/NVP/TDF\" when 1652 then \"3TC/NVP/AZT\"\n" +
                 "   when 162561 then \"3TC/AZT/LPV/r\" when 164511 then \"AZT-3TC-ATV/r\" when 164512 then \"TDF-3TC-ATV/r\" when 162560 then \"3TC/D4T/LPV/r\"\n" +
                 "   when 162563 then \"3TC/ABC/EFV\" when 162562 then \"ABC/LPV/R/TDF\" when 162559 then \"ABC/DDI/LPV/r\"  else \"\" end) as mother_drug_regimen\n" +
-                "from kenyaemr_etl.etl_hei_enrollment\n" +
+                "from kenyaemr_etl.etl_hei_enrollment where patient_id in (:patientIds)\n" +
                 "GROUP BY patient_id";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
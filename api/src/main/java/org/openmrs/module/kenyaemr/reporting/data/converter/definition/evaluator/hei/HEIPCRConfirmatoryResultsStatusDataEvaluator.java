@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.hei;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.HEIPCRConfirmatoryResultsStatusDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +24,7 @@ import java.util.Map;
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= HEIPCRConfirmatoryResultsStatusDataDefinition.class, order=50)
-public class HEIPCRConfirmatoryResultsStatusDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class HEIPCRConfirmatoryResultsStatusDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -42,13 +37,13 @@ public class HEIPCRConfirmatoryResultsStatusDataEvaluator implements PersonDataE
                 "          (\n" +
                 "            (select patient_id, visit_date, test_result dna_pcr_result\n" +
                 "             from kenyaemr_etl.etl_laboratory_extract\n" +
-                "             where lab_test = 1030\n" +
+                "             where lab_test = 1030 and patient_id in (:patientIds)\n" +
                 "            )\n" +
                 "            union\n" +
                 "            (\n" +
                 "              select patient_id, visit_date, dna_pcr_result\n" +
                 "              from kenyaemr_etl.etl_hei_follow_up_visit\n" +
-                "              where dna_pcr_result is not null\n" +
+                "              where dna_pcr_result is not null and patient_id in (:patientIds)\n" +
                 "            )\n" +
                 "          ) t\n" +
                 "        group by t.patient_id\n" +
@@ -58,8 +53,7 @@ public class HEIPCRConfirmatoryResultsStatusDataEvaluator implements PersonDataE
                 "GROUP BY f.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ipt;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ipt.DapsoneCotrimoxazoleDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates IPTDoseDataDefinition
  */
 @Handler(supports= DapsoneCotrimoxazoleDataDefinition.class, order=50)
-public class DapsoneCotrimoxazoleDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class DapsoneCotrimoxazoleDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -39,15 +34,14 @@ public class DapsoneCotrimoxazoleDataEvaluator implements PersonDataEvaluator {
                 "    left outer join kenyaemr_etl.etl_patient_hiv_followup fup on init.patient_id = fup.patient_id\n" +
                 "                      left outer join (select o.patient_id,o.date_stopped from orders o inner join drug_order do on o.order_id = do.order_id\n" +
                 "                      where o.concept_id in (105281,74250) and o.date_stopped is not null group by o.patient_id) x on init.patient_id = x.patient_id\n" +
-                "                      where init.voided = 0 and (date(fup.visit_date) <= date(init.visit_date) or date(x.date_stopped) <= date(init.visit_date)) group by init.patient_id;";
+                "                      where init.patient_id in (:patientIds) and (init.voided = 0 and (date(fup.visit_date) <= date(init.visit_date) or date(x.date_stopped) <= date(init.visit_date))) group by init.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ipt;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ipt.PostIPTTBStatusDateDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates Month1DrugCollectionDateDataDefinition
  */
 @Handler(supports = PostIPTTBStatusDateDataDefinition.class, order = 50)
-public class PostIPTTBStatusDateDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class PostIPTTBStatusDateDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -43,7 +38,7 @@ public class PostIPTTBStatusDateDataEvaluator implements PersonDataEvaluator {
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_patient_program_discontinuation d on init.patient_id = d.patient_id\n" +
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_tb_screening tbs on init.patient_id = tbs.patient_id\n" +
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_patient_hiv_followup fup on init.patient_id = fup.patient_id\n" +
-            "where d.program_name = \"IPT\" and d.discontinuation_reason = 1267 and timestampdiff(DAY ,date(d.visit_date),COALESCE(date(fup.visit_date),date(tbs.visit_date)))  between :minDays and :maxDays\n" +
+            "where init.patient_id in (:patientIds) and (d.program_name = \"IPT\" and d.discontinuation_reason = 1267 and timestampdiff(DAY ,date(d.visit_date),COALESCE(date(fup.visit_date),date(tbs.visit_date)))  between :minDays and :maxDays)\n" +
             "group by init.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
@@ -53,8 +48,7 @@ public class PostIPTTBStatusDateDataEvaluator implements PersonDataEvaluator {
         queryBuilder.addParameter("startDate", startDate);
         queryBuilder.addParameter("minDays", minDays);
         queryBuilder.addParameter("maxDays", maxDays);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
 
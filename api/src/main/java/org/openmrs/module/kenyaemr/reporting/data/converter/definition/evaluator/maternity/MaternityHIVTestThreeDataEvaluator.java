@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.maternity;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.maternity.MaternityHIVTestThreeDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,30 +25,27 @@ import java.util.Map;
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= MaternityHIVTestThreeDataDefinition.class, order=50)
-public class MaternityHIVTestThreeDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class MaternityHIVTestThreeDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
         String qry = "select v.patient_id,\n" +
                 "  CONCAT_WS ('\\r\\n',v.test_3_kit_name,v.test_3_kit_lot_no,v.test_3_kit_expiry,v.test_3_result) as Test_three_results\n" +
-                "from kenyaemr_etl.etl_mchs_delivery v where date(v.visit_date) between date(:startDate) and date(:endDate)\n" +
+                "from kenyaemr_etl.etl_mchs_delivery v where v.patient_id in (:patientIds) and date(v.visit_date) between date(:startDate) and date(:endDate)\n" +
                 "union\n" +
                 "select ht.patient_id,\n" +
                 "  CONCAT_WS ('\\r\\n',ht.test_3_kit_name,ht.test_3_kit_lot_no,ht.test_3_kit_expiry,ht.test_3_result) as Test_three_results\n" +
                 "from kenyaemr_etl.etl_hts_test ht\n" +
-                "  join kenyaemr_etl.etl_mchs_delivery mat on mat.patient_id = ht.patient_id and mat.visit_date = ht.visit_date;";
+                "  join kenyaemr_etl.etl_mchs_delivery mat on mat.patient_id = ht.patient_id and mat.visit_date = ht.visit_date\n" +
+                "where ht.patient_id in (:patientIds);";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
         Date startDate = (Date)context.getParameterValue("startDate");
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,16 +10,14 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.ARTStartDateRegimenDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.VLTestWithin12MonthsDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates a OnARTDataDefinition
  */
 @Handler(supports= ARTStartDateRegimenDataDefinition.class, order=50)
-public class ArtStartDateRegimenDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class ArtStartDateRegimenDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -53,7 +48,7 @@ public class ArtStartDateRegimenDataEvaluator implements PersonDataEvaluator {
                 "                                  left outer join kenyaemr_etl.etl_patient_hiv_followup fup on fup.patient_id=e.patient_id\n" +
                 "                           group by e.patient_id\n" +
                 "                           having TOut = 0\n" +
-                "                           )net on otzenr.patient_id = net.patient_id\n" +
+                "                           )net on otzenr.patient_id = net.patient_id where otzenr.patient_id in (:patientIds)\n" +
                 "group by otzenr.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
@@ -61,8 +56,7 @@ public class ArtStartDateRegimenDataEvaluator implements PersonDataEvaluator {
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
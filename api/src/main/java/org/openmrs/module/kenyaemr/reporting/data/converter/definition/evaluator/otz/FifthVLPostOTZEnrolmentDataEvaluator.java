@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.FifthVLPostOTZEnrolmentDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates a OnARTDataDefinition
  */
 @Handler(supports= FifthVLPostOTZEnrolmentDataDefinition.class, order=50)
-public class FifthVLPostOTZEnrolmentDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class FifthVLPostOTZEnrolmentDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -43,6 +38,7 @@ public class FifthVLPostOTZEnrolmentDataEvaluator implements PersonDataEvaluator
                 "                 ) as rn\n" +
                 "      from (select t.patient_id,t.visit_date,t.lab_test,t.test_result,concat_ws('\\r\\n',if(mid(min(concat(t.visit_date, t.lab_test)), 11) = 856,mid(min(concat(t.visit_date, t.test_result)), 11), if(mid(min(concat(t.visit_date,t.lab_test)),11) = 1305 and mid(min(concat(t.visit_date, t.test_result)), 11) = 1302,'LDL', '')),t.visit_date)as Vl_post_enr,max(e.visit_date) as latest_otz_enr from kenyaemr_etl.etl_otz_enrollment e\n" +
                 "                                                                                                                   left join kenyaemr_etl.etl_laboratory_extract t on e.patient_id = t.patient_id\n" +
+                "            where e.patient_id in (:patientIds)\n" +
                 "            group by t.visit_date,e.patient_id\n" +
                 "            having t.visit_date >= latest_otz_enr) t cross join\n" +
                 "               (select @v := -1, @rn := 0) params\n" +
@@ -55,8 +51,7 @@ public class FifthVLPostOTZEnrolmentDataEvaluator implements PersonDataEvaluator
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
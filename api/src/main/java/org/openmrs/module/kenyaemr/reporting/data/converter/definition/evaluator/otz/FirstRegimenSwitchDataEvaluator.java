@@ -10,16 +10,14 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.FirstRegimenSwitchDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.SecondRegimenSwitchDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates a OnARTDataDefinition
  */
 @Handler(supports= FirstRegimenSwitchDataDefinition.class, order=50)
-public class FirstRegimenSwitchDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class FirstRegimenSwitchDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -43,7 +38,7 @@ public class FirstRegimenSwitchDataEvaluator implements PersonDataEvaluator {
                 "                              )\n" +
                 "                              ) as rn\n" +
                 "                   from (select t.patient_id,t.date_started,t.regimen,t.regimen_line,max(e.visit_date) as latest_otz_enr from kenyaemr_etl.etl_otz_enrollment e\n" +
-                "                                                                                                                                left join kenyaemr_etl.etl_drug_event t on e.patient_id = t.patient_id where t.program = 'HIV'\n" +
+                "                                                                                                                                left join kenyaemr_etl.etl_drug_event t on e.patient_id = t.patient_id where t.program = 'HIV' and e.patient_id in (:patientIds)\n" +
                 "                      group by t.date_started,e.patient_id\n" +
                 "                         having t.date_started >= latest_otz_enr) t cross join\n" +
                 "                            (select @v := -1, @rn := 0) params\n" +
@@ -56,8 +51,7 @@ public class FirstRegimenSwitchDataEvaluator implements PersonDataEvaluator {
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
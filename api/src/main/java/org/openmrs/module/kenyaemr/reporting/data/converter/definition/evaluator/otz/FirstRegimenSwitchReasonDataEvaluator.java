@@ -10,16 +10,14 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.FirstRegimenSwitchReasonDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.SecondRegimenSwitchDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.Map;
@@ -28,10 +26,7 @@ import java.util.Map;
  * Evaluates a OnARTDataDefinition
  */
 @Handler(supports= FirstRegimenSwitchReasonDataDefinition.class, order=50)
-public class FirstRegimenSwitchReasonDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class FirstRegimenSwitchReasonDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -62,7 +57,7 @@ public class FirstRegimenSwitchReasonDataEvaluator implements PersonDataEvaluato
                 "                               else '' end), t.reason_discontinued_other) as reason\n" +
                 "            from kenyaemr_etl.etl_otz_enrollment e\n" +
                 "                   left join kenyaemr_etl.etl_drug_event t on e.patient_id = t.patient_id\n" +
-                "            where t.program = 'HIV'\n" +
+                "            where t.program = 'HIV' and e.patient_id in (:patientIds)\n" +
                 "            group by t.date_started, e.patient_id\n" +
                 "            having t.date_started >= latest_otz_enr) t\n" +
                 "             cross join (select @v := -1, @rn := 0) params\n" +
@@ -74,8 +69,7 @@ public class FirstRegimenSwitchReasonDataEvaluator implements PersonDataEvaluato
         Date endDate = (Date)context.getParameterValue("endDate");
         queryBuilder.addParameter("endDate", endDate);
         queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,16 +10,14 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pama;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pama.PamaBaselineVLDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pama.PamaCareGiverBaselineVLDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates Care Giver Baseline VL Data Definition
  */
 @Handler(supports = PamaCareGiverBaselineVLDataDefinition.class, order = 50)
-public class PamaCareGiverBaselineVLDataDefinitionEvaluator implements PersonDataEvaluator {
-	
-	@Autowired
-	private EvaluationService evaluationService;
+public class PamaCareGiverBaselineVLDataDefinitionEvaluator extends BaseEtlPersonDataEvaluator {
 	
 	public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context)
 	        throws EvaluationException {
@@ -40,14 +35,13 @@ public class PamaCareGiverBaselineVLDataDefinitionEvaluator implements PersonDat
 				"    mid(max(concat(le.visit_date, if(le.lab_test = 856, le.test_result, if(le.lab_test=1305 and le.test_result = 1302, 'LDL','')), '' )),11) as vl_result\n" +
 				"   from kenyaemr_etl.etl_patient_demographics d\n" +
 				"     inner join kenyaemr_etl.etl_laboratory_extract le on le.patient_id = d.patient_id and le.lab_test in (1305,856)\n" +
-				"     inner join openmrs.relationship r on d.patient_id = r.person_b\n" +
+				"     inner join openmrs.relationship r on d.patient_id = r.person_b and r.person_a in (:patientIds)\n" +
 				"     inner join openmrs.relationship_type t on r.relationship = t.relationship_type_id and t.uuid = '3667e52f-8653-40e1-b227-a7278d474020'\n" +
 				"                                               and (le.visit_date <= date(r.start_date))\n" +
 				" group by r.person_a;";
 		
 		SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-		queryBuilder.append(qry);
-		Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+		Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
 		c.setData(data);
 		return c;
 	}
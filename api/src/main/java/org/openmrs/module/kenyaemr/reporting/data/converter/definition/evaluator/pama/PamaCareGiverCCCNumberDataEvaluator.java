@@ -10,16 +10,14 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pama;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pama.PamaCareGiverCCCNumberDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pama.PamaCareGiverNameDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -27,10 +25,7 @@ import java.util.Map;
  * Evaluates a PamaCareGiverCCCNumberDataDefinition
  */
 @Handler(supports= PamaCareGiverCCCNumberDataDefinition.class, order=50)
-public class PamaCareGiverCCCNumberDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class PamaCareGiverCCCNumberDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -38,12 +33,11 @@ public class PamaCareGiverCCCNumberDataEvaluator implements PersonDataEvaluator
         String qry = "select distinct r.person_a,\n" +
                 "     d.unique_patient_no as careGiverCCCNumber\n" +
                 "    from kenyaemr_etl.etl_patient_demographics d\n" +
-                "      inner join relationship r on d.patient_id = r.person_b\n" +
+                "      inner join relationship r on d.patient_id = r.person_b and r.person_a in (:patientIds)\n" +
                 "      inner join relationship_type t on r.relationship = t.relationship_type_id\n" +
                 "                                                and t.uuid = '3667e52f-8653-40e1-b227-a7278d474020';\n";
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.vmmc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.vmmc.VMMCDaysSinceSurgeryDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,20 +24,16 @@ import java.util.Map;
  * Evaluates VmmcDaysSinceSurgeryDataDefinition to produce DaysSinceSurgery
  */
 @Handler(supports=VMMCDaysSinceSurgeryDataDefinition.class, order=50)
-public class VMMCDaysSinceSurgeryDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class VMMCDaysSinceSurgeryDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
         String qry = "SELECT t.patient_id,TIMESTAMPDIFF(DAY, date(t.visit_date), date(v.visit_date)) FROM kenyaemr_etl.etl_vmmc_circumcision_procedure t" +
-                " INNER JOIN kenyaemr_etl.etl_vmmc_client_followup v on t.patient_id = v.patient_id GROUP BY v.patient_id;";
+                " INNER JOIN kenyaemr_etl.etl_vmmc_client_followup v on t.patient_id = v.patient_id where t.patient_id in (:patientIds) GROUP BY v.patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
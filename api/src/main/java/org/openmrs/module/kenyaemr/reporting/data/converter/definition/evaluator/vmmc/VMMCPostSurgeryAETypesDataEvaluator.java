@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.vmmc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.vmmc.VMMCPostSurgeryAETypesDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,10 +24,7 @@ import java.util.Map;
  * Evaluates PostSurgeryAETypes to produce PostSurgeryAETypes
  */
 @Handler(supports=VMMCPostSurgeryAETypesDataDefinition.class, order=50)
-public class VMMCPostSurgeryAETypesDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class VMMCPostSurgeryAETypesDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
@@ -38,11 +33,10 @@ public class VMMCPostSurgeryAETypesDataEvaluator implements PersonDataEvaluator
                 "when 114403 then 'Pain' when 147241 then 'Bleeding' when 152045 then 'Problems with appearance'" +
                 "when 156567 then 'Hematoma/Swelling' when 13951 then 'Infection/Swelling' when 118771 then 'Difficulty or pain when urinating' " +
                 "else '' END SEPARATOR ', ') AS adverse_event from kenyaemr_etl.etl_adverse_events " +
-                "where form = 'vmmc-followup' GROUP BY patient_id;";
+                "where patient_id in (:patientIds) and (form = 'vmmc-followup') GROUP BY patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
@@ -10,15 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.vmmc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.BaseEtlPersonDataEvaluator;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.vmmc.VMMCPostSurgerySeverityDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Map;
 
@@ -26,20 +24,16 @@ import java.util.Map;
  * Evaluates VMMCPostSurgerySeverityDataDefinition to produce PostSurgerySeverity
  */
 @Handler(supports=VMMCPostSurgerySeverityDataDefinition.class, order=50)
-public class VMMCPostSurgerySeverityDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
+public class VMMCPostSurgerySeverityDataEvaluator extends BaseEtlPersonDataEvaluator {
 
     public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
 
         String qry = "SELECT patient_id, GROUP_CONCAT(DISTINCT CASE severity WHEN 1500 then 'Severe' WHEN 1499 then 'Moderate' " +
-                "WHEN 1498 then 'Mild' ELSE '' END SEPARATOR ', ') FROM kenyaemr_etl.etl_adverse_events WHERE form = 'vmmc-followup' GROUP BY patient_id;";
+                "WHEN 1498 then 'Mild' ELSE '' END SEPARATOR ', ') FROM kenyaemr_etl.etl_adverse_events WHERE patient_id in (:patientIds) and (form = 'vmmc-followup') GROUP BY patient_id;";
 
         SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = evaluateToMap(qry, queryBuilder, context);
         c.setData(data);
         return c;
     }
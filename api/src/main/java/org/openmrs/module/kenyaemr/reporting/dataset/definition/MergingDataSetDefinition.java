@@ -36,6 +36,9 @@ public class MergingDataSetDefinition extends BaseDataSetDefinition {
 	@ConfigurationProperty
 	private MergeOrder mergeOrder;
 
+	@ConfigurationProperty
+	private Boolean parallel;
+
 	/**
 	 * Gets the contained data set definitions
 	 * @return the data set definitions
@@ -78,4 +81,21 @@ public class MergingDataSetDefinition extends BaseDataSetDefinition {
 	public void setMergeOrder(MergeOrder mergeOrder) {
 		this.mergeOrder = mergeOrder;
 	}
+
+	/**
+	 * Gets whether the contained data sets are evaluated concurrently
+	 * @return true if the contained data sets are evaluated concurrently
+	 */
+	public Boolean getParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Sets whether the contained data sets are evaluated concurrently. Only enable this for data sets which are
+	 * independent of each other.
+	 * @param parallel true to evaluate the contained data sets concurrently
+	 */
+	public void setParallel(Boolean parallel) {
+		this.parallel = parallel;
+	}
 }
\ No newline at end of file
@@ -9,9 +9,11 @@
  */
 package org.openmrs.module.kenyaemr.reporting.dataset.definition.evaluator;
 
+import org.openmrs.Location;
 import org.openmrs.annotation.Handler;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyaemr.reporting.dataset.definition.MergingDataSetDefinition;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
 import org.openmrs.module.reporting.dataset.DataSet;
 import org.openmrs.module.reporting.dataset.DataSetColumn;
 import org.openmrs.module.reporting.dataset.MapDataSet;
@@ -23,12 +25,21 @@ import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.openmrs.util.OpenmrsUtil;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * Evaluator for merged data sets
+ * Evaluator for merged data sets. Contained data sets are evaluated one after the other, or concurrently on the
+ * {@link EvaluationExecutor} if the definition is marked as parallel.
  */
 @Handler(supports = MergingDataSetDefinition.class)
 public class MergingDataSetEvaluator implements DataSetEvaluator {
@@ -40,13 +51,20 @@ public class MergingDataSetEvaluator implements DataSetEvaluator {
 	public MapDataSet evaluate(DataSetDefinition dataSetDefinition, EvaluationContext context) throws EvaluationException {
 		MergingDataSetDefinition dsd = (MergingDataSetDefinition) dataSetDefinition;
 
-		List<MapDataSet> dataSets = new ArrayList<MapDataSet>();
-
-		DataSetDefinitionService dss = Context.getService(DataSetDefinitionService.class);
-
-		for (DataSetDefinition childDsd : dsd.getDataSetDefinitions()) {
-			DataSet dataSet = dss.evaluate(childDsd, context);
+		List<DataSet> evaluated;
+		if (Boolean.TRUE.equals(dsd.getParallel()) && dsd.getDataSetDefinitions().size() > 1) {
+			evaluated = evaluateConcurrently(dsd.getDataSetDefinitions(), context);
+		}
+		else {
+			evaluated = new ArrayList<DataSet>();
+			DataSetDefinitionService dss = Context.getService(DataSetDefinitionService.class);
+			for (DataSetDefinition childDsd : dsd.getDataSetDefinitions()) {
+				evaluated.add(dss.evaluate(childDsd, context));
+			}
+		}
 
+		List<MapDataSet> dataSets = new ArrayList<MapDataSet>();
+		for (DataSet dataSet : evaluated) {
 			if (dataSet instanceof MapDataSet) {
 				dataSets.add((MapDataSet) dataSet);
 			}
@@ -58,6 +76,91 @@ public class MergingDataSetEvaluator implements DataSetEvaluator {
 		return mergeDataSets(dataSets, dsd, context);
 	}
 
+	/**
+	 * Evaluates the contained data sets concurrently, each in its own session and with its own copy of the context.
+	 * The copies share a synchronized cache so that cohorts cached by one data set can be reused by the others, which
+	 * means values put in that cache must themselves be safe to use from several threads. Locations among the
+	 * parameter values are reloaded in each session, as the parent's instances mustn't be used in another session.
+	 * @param childDsds the contained data set definitions
+	 * @param context the evaluation context
+	 * @return the data sets in the same order as the definitions
+	 * @throws EvaluationException if any data set fails to evaluate
+	 */
+	protected List<DataSet> evaluateConcurrently(List<DataSetDefinition> childDsds, EvaluationContext context) throws EvaluationException {
+		EvaluationExecutor executor = EvaluationExecutor.getInstance();
+		Map<String, Object> sharedCache = Collections.synchronizedMap(new HashMap<String, Object>(context.getCache()));
+
+		List<Future<DataSet>> futures = new ArrayList<Future<DataSet>>();
+		final Map<String, Object> parameterValues = new HashMap<String, Object>(context.getParameterValues());
+		for (final DataSetDefinition childDsd : childDsds) {
+			final EvaluationContext childContext = context.shallowCopy();
+			childContext.setCache(sharedCache);
+
+			futures.add(executor.submit(new Callable<DataSet>() {
+				@Override
+				public DataSet call() throws Exception {
+					Map<String, Object> childValues = new HashMap<String, Object>();
+					for (Map.Entry<String, Object> entry : parameterValues.entrySet()) {
+						childValues.put(entry.getKey(), reloadInSession(entry.getValue()));
+					}
+					childContext.setParameterValues(childValues);
+					return Context.getService(DataSetDefinitionService.class).evaluate(childDsd, childContext);
+				}
+			}));
+		}
+
+		List<DataSet> ret = new ArrayList<DataSet>();
+		try {
+			for (Future<DataSet> future : futures) {
+				ret.add(future.get());
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EvaluationException("merged data sets", ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EvaluationException) {
+				throw (EvaluationException) ex.getCause();
+			}
+			throw new EvaluationException("merged data sets", ex.getCause());
+		}
+		finally {
+			for (Future<DataSet> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		context.getCache().putAll(sharedCache);
+		return ret;
+	}
+
+	/**
+	 * Reloads a parameter value in the current session if it is a location or a collection of locations
+	 * @param value the parameter value
+	 * @return the reloaded value, or the value itself if it doesn't need reloading
+	 */
+	protected static Object reloadInSession(Object value) {
+		if (value instanceof Location) {
+			Location location = (Location) value;
+			return location.getLocationId() != null ? Context.getLocationService().getLocation(location.getLocationId()) : location;
+		}
+		if (value instanceof Collection) {
+			List<Object> ret = new ArrayList<Object>();
+			boolean reloaded = false;
+			for (Object item : (Collection<?>) value) {
+				Object reloadedItem = reloadInSession(item);
+				reloaded |= reloadedItem != item;
+				ret.add(reloadedItem);
+			}
+			if (!reloaded) {
+				return value;
+			}
+			return value instanceof Set ? new LinkedHashSet<Object>(ret) : ret;
+		}
+		return value;
+	}
+
 	/**
 	 * Merges a collection of map data sets
 	 * @param dataSets the data sets
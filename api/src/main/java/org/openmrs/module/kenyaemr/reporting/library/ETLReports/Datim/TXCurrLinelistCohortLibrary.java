@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.library.ETLReports.Datim;
 
 import org.openmrs.module.kenyacore.report.ReportUtils;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.TxCurrCohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.library.ETLReports.RevisedDatim.DatimCohortLibrary;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.CompositionCohortDefinition;
@@ -344,38 +345,9 @@ public class TXCurrLinelistCohortLibrary {
      * Patients included in the current report- quarter
      * @return
      */
-    public  CohortDefinition txCurLinelistCurrentPeriod() {
-        String sqlQuery="select t.patient_id\n" +
-                "              from(\n" +
-                "                  select fup.visit_date,fup.patient_id, max(e.visit_date) as enroll_date,\n" +
-                "                         greatest(max(fup.visit_date), ifnull(max(d.visit_date),'0000-00-00')) as latest_vis_date,\n" +
-                "                         greatest(mid(max(concat(fup.visit_date,fup.next_appointment_date)),11), ifnull(max(d.visit_date),'0000-00-00')) as latest_tca,\n" +
-                "                         d.patient_id as disc_patient,\n" +
-                "                         d.effective_disc_date as effective_disc_date,\n" +
-                "                         max(d.visit_date) as date_discontinued,\n" +
-                "                         de.patient_id                                                   as started_on_drugs\n" +
-                "                  from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-                "                         join kenyaemr_etl.etl_patient_demographics p on p.patient_id=fup.patient_id\n" +
-                "                         join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-                "                         left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program='HIV' and date(date_started) <= date(:endDate)\n" +
-                "                         left outer JOIN\n" +
-                "                           (select patient_id, coalesce(date(effective_discontinuation_date),visit_date) visit_date,max(date(effective_discontinuation_date)) as effective_disc_date from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-                "                            where date(visit_date) <= date(:endDate) and program_name='HIV'\n" +
-                "                            group by patient_id\n" +
-                "                           ) d on d.patient_id = fup.patient_id\n" +
-                "                  where fup.visit_date <= date(:endDate)\n" +
-                "                  group by patient_id\n" +
-                "                  having (started_on_drugs is not null and started_on_drugs <> '') and (\n" +
-                "                      (\n" +
-                "                          ((timestampdiff(DAY,date(latest_tca),date(:endDate)) <= 30) and ((date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date)) or d.effective_disc_date is null))\n" +
-                "                            and (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or disc_patient is null)\n" +
-                "                          )\n" +
-                "                      )\n" +
-                "                  ) t;";
-        SqlCohortDefinition cd = new SqlCohortDefinition();
+    public CohortDefinition txCurLinelistCurrentPeriod() {
+        TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
         cd.setName("TX_Curr_current_report");
-        cd.setQuery(sqlQuery);
-        cd.addParameter(new Parameter("endDate", "End Date", Date.class));
         cd.setDescription("TX Curr current quarter");
         return cd;
     }
@@ -383,38 +355,12 @@ public class TXCurrLinelistCohortLibrary {
      * Patients included in the previous reporting period - quarter
      * @return
      */
-    public  CohortDefinition txCurInPreviousQuarter() {
-        String sqlQuery="select t.patient_id\n" +
-                "from(\n" +
-                "        select fup.visit_date,fup.patient_id, max(e.visit_date) as enroll_date,\n" +
-                "               greatest(max(fup.visit_date), ifnull(max(d.visit_date),'0000-00-00')) as latest_vis_date,\n" +
-                "               greatest(mid(max(concat(fup.visit_date,fup.next_appointment_date)),11), ifnull(max(d.visit_date),'0000-00-00')) as latest_tca,\n" +
-                "               d.patient_id as disc_patient,\n" +
-                "               d.effective_disc_date as effective_disc_date,\n" +
-                "               max(d.visit_date) as date_discontinued,\n" +
-                "               de.patient_id                                                   as started_on_drugs\n" +
-                "        from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-                "                 join kenyaemr_etl.etl_patient_demographics p on p.patient_id=fup.patient_id\n" +
-                "                 join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-                "                 left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program='HIV' and date(date_started) <= date_sub(DATE(:endDate), interval 3 MONTH)\n" +
-                "                 left outer JOIN\n" +
-                "             (select patient_id, coalesce(date(effective_discontinuation_date),visit_date) visit_date,max(date(effective_discontinuation_date)) as effective_disc_date from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-                "              where date(visit_date) <= date_sub(DATE(:endDate), interval 3 MONTH) and program_name='HIV'\n" +
-                "              group by patient_id\n" +
-                "             ) d on d.patient_id = fup.patient_id\n" +
-                "        where fup.visit_date <= date_sub(DATE(:endDate), interval 3 MONTH)\n" +
-                "        group by patient_id\n" +
-                "        having (started_on_drugs is not null and started_on_drugs <> '') and (\n" +
-                "            (\n" +
-                "                    ((timestampdiff(DAY,date(latest_tca),date_sub(DATE(:endDate), interval 3 MONTH)) <= 30) and ((date(d.effective_disc_date) > date_sub(DATE(:endDate), interval 3 MONTH) or date(enroll_date) > date(d.effective_disc_date)) or d.effective_disc_date is null))\n" +
-                "                    and (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or disc_patient is null)\n" +
-                "                )\n" +
-                "            )\n" +
-                "    ) t;";
-        SqlCohortDefinition cd = new SqlCohortDefinition();
+    public CohortDefinition txCurInPreviousQuarter() {
+        CompositionCohortDefinition cd = new CompositionCohortDefinition();
         cd.setName("TX_Curr_previous_report");
-        cd.setQuery(sqlQuery);
         cd.addParameter(new Parameter("endDate", "End Date", Date.class));
+        cd.addSearch("txCurr", ReportUtils.map(new TxCurrCohortDefinition(), "endDate=${endDate-3m}"));
+        cd.setCompositionString("txCurr");
         cd.setDescription("TX Curr previous quarter");
         return cd;
     }
@@ -741,40 +687,9 @@ public CohortDefinition patientsDied() {
      * Patients included in the current reporting period - monthly indicator
      * @return
      */
-    public  CohortDefinition txCurLinelistCurrentMonthly() {
-        String sqlQuery="select t.patient_id\n" +
-                "from(\n" +
-                "        select fup.visit_date,fup.patient_id, max(e.visit_date) as enroll_date,\n" +
-                "               greatest(max(fup.visit_date), ifnull(max(d.visit_date),'0000-00-00')) as latest_vis_date,\n" +
-                "               greatest(mid(max(concat(fup.visit_date,fup.next_appointment_date)),11), ifnull(max(d.visit_date),'0000-00-00')) as latest_tca,\n" +
-                "               d.patient_id as disc_patient,\n" +
-                "               d.effective_disc_date as effective_disc_date,\n" +
-                "               max(d.visit_date) as date_discontinued,\n" +
-                "               de.patient_id                                                   as started_on_drugs\n" +
-                "        from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-                "                 join kenyaemr_etl.etl_patient_demographics p on p.patient_id=fup.patient_id\n" +
-                "                 join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-                "                 left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program='HIV' and date(date_started) <= date(:endDate)\n" +
-                "                 left outer JOIN\n" +
-                "             (select patient_id, coalesce(date(effective_discontinuation_date),visit_date) visit_date,max(date(effective_discontinuation_date)) as effective_disc_date from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-                "              where date(visit_date) <= date(:endDate) and program_name='HIV' and patient_id\n" +
-                "              group by patient_id\n" +
-                "             ) d on d.patient_id = fup.patient_id\n" +
-                "        where fup.visit_date <= date(:endDate)\n" +
-                "        group by patient_id\n" +
-                "        having (started_on_drugs is not null and started_on_drugs <> '')\n" +
-                "           and\n" +
-                "            (\n" +
-                "                    ((timestampdiff(DAY,date(latest_tca),date(:endDate)) <= 30) and\n" +
-                "                     (date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date) or d.effective_disc_date is null))\n" +
-                "                    and\n" +
-                "                    (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or disc_patient is null)\n" +
-                "                )\n" +
-                "    )t;";
-        SqlCohortDefinition cd = new SqlCohortDefinition();
+    public CohortDefinition txCurLinelistCurrentMonthly() {
+        TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
         cd.setName("txCurLinelistCurrentReportMonthly");
-        cd.setQuery(sqlQuery);
-        cd.addParameter(new Parameter("endDate", "End Date", Date.class));
         cd.setDescription("Present in current report");
         return cd;
     }
@@ -782,48 +697,12 @@ public CohortDefinition patientsDied() {
      * Patients included in the previous reporting period - monthly indicator
      * @return
      */
-    public  CohortDefinition txCurPrevReportMonthly() {
-        String sqlQuery="select t.patient_id\n" +
-                "from (select fup.visit_date,\n" +
-                "             fup.patient_id,\n" +
-                "             max(e.visit_date)                                                       as enroll_date,\n" +
-                "             greatest(max(fup.visit_date), ifnull(max(d.visit_date), '0000-00-00'))  as latest_vis_date,\n" +
-                "             greatest(mid(max(concat(fup.visit_date, fup.next_appointment_date)), 11),\n" +
-                "                      ifnull(max(d.visit_date), '0000-00-00'))                       as latest_tca,\n" +
-                "             d.patient_id                                                            as disc_patient,\n" +
-                "             d.effective_disc_date                                                   as effective_disc_date,\n" +
-                "             max(d.visit_date)                                                       as date_discontinued,\n" +
-                "             de.patient_id                                                           as started_on_drugs\n" +
-                "      from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-                "               join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
-                "               join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id = e.patient_id\n" +
-                "               left join kenyaemr_etl.etl_drug_event de on e.patient_id = de.patient_id and de.program = 'HIV' and\n" +
-                "                                                            date(date_started) <=\n" +
-                "                                                            date_sub(DATE(:endDate), interval 1 MONTH)\n" +
-                "               left outer JOIN\n" +
-                "           (select patient_id,\n" +
-                "                   coalesce(date(effective_discontinuation_date), visit_date) visit_date,\n" +
-                "                   max(date(effective_discontinuation_date)) as               effective_disc_date\n" +
-                "            from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-                "            where date(visit_date) <= date_sub(DATE(:endDate), interval 1 MONTH)\n" +
-                "              and program_name = 'HIV'\n" +
-                "              and patient_id\n" +
-                "            group by patient_id) d on d.patient_id = fup.patient_id\n" +
-                "      where fup.visit_date <= date_sub(DATE(:endDate), interval 1 MONTH)\n" +
-                "      group by patient_id\n" +
-                "      having (started_on_drugs is not null and started_on_drugs <> '')\n" +
-                "         and (\n" +
-                "              ((timestampdiff(DAY, date(latest_tca), date_sub(DATE(:endDate), interval 1 MONTH)) <= 30) and\n" +
-                "               (date(d.effective_disc_date) > date_sub(DATE(:endDate), interval 1 MONTH) or\n" +
-                "                date(enroll_date) > date(d.effective_disc_date) or d.effective_disc_date is null))\n" +
-                "              and\n" +
-                "              (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or\n" +
-                "               disc_patient is null)\n" +
-                "          )) t;";
-        SqlCohortDefinition cd = new SqlCohortDefinition();
+    public CohortDefinition txCurPrevReportMonthly() {
+        CompositionCohortDefinition cd = new CompositionCohortDefinition();
         cd.setName("TX_Curr_Missing_in_previous");
-        cd.setQuery(sqlQuery);
         cd.addParameter(new Parameter("endDate", "End Date", Date.class));
+        cd.addSearch("txCurr", ReportUtils.map(new TxCurrCohortDefinition(), "endDate=${endDate-1m}"));
+        cd.setCompositionString("txCurr");
         cd.setDescription("Present in previous report");
         return cd;
     }
@@ -12,6 +12,7 @@ package org.openmrs.module.kenyaemr.reporting.library.ETLReports.MOH731Greencard
 import org.openmrs.Encounter;
 import org.openmrs.module.kenyacore.report.ReportUtils;
 import org.openmrs.module.kenyaemr.reporting.library.ETLReports.RevisedDatim.DatimCohortLibrary;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.TxCurrCohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.CompositionCohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.SqlCohortDefinition;
@@ -189,49 +190,8 @@ public class ETLMoh731GreenCardCohortLibrary extends BaseQuery<Encounter> implem
     }
 
     public CohortDefinition currentlyOnArt() {
-        SqlCohortDefinition cd = new SqlCohortDefinition();
-        String sqlQuery="select t.patient_id\n" +
-                "from (select fup.visit_date,\n" +
-                "             fup.patient_id,\n" +
-                "             max(e.visit_date)                                                                as enroll_date,\n" +
-                "             greatest(max(fup.visit_date), ifnull(max(d.visit_date), '0000-00-00'))           as latest_vis_date,\n" +
-                "             greatest(mid(max(concat(fup.visit_date, fup.next_appointment_date)), 11),\n" +
-                "                      ifnull(max(d.visit_date), '0000-00-00'))                                as latest_tca,\n" +
-                "             d.patient_id                                                                     as disc_patient,\n" +
-                "             d.effective_disc_date                                                            as effective_disc_date,\n" +
-                "             max(d.visit_date)                                                                as date_discontinued,\n" +
-                "             de.patient_id                                                                    as started_on_drugs\n" +
-                "      from kenyaemr_etl.etl_patient_hiv_followup fup\n" +
-                "               join kenyaemr_etl.etl_patient_demographics p on p.patient_id = fup.patient_id\n" +
-                "               join kenyaemr_etl.etl_hiv_enrollment e on fup.patient_id=e.patient_id\n" +
-                "                           left join kenyaemr_etl.etl_drug_event de\n" +
-                "                          on e.patient_id = de.patient_id and de.program = 'HIV' and date(de.date_started) <= date(:endDate)\n" +
-                "               left outer JOIN\n" +
-                "           (select patient_id,\n" +
-                "                   coalesce(date(effective_discontinuation_date), visit_date) visit_date,\n" +
-                "                   max(date(effective_discontinuation_date)) as               effective_disc_date\n" +
-                "            from kenyaemr_etl.etl_patient_program_discontinuation\n" +
-                "            where date(visit_date) <= date(:endDate)\n" +
-                "              and program_name = 'HIV'\n" +
-                "            group by patient_id) d on d.patient_id = fup.patient_id\n" +
-                "      where fup.visit_date <= date(:endDate)\n" +
-                "      group by patient_id\n" +
-                "      having (started_on_drugs is not null and started_on_drugs <> '')\n" +
-                "         and (\n" +
-                "          (\n" +
-                "                  (timestampdiff(DAY, date(latest_tca), date(:endDate)) <= 30 and\n" +
-                "                   ((date(d.effective_disc_date) > date(:endDate) or date(enroll_date) > date(d.effective_disc_date)) or\n" +
-                "                    d.effective_disc_date is null))\n" +
-                "                  and\n" +
-                "                  (date(latest_vis_date) >= date(date_discontinued) or date(latest_tca) >= date(date_discontinued) or\n" +
-                "                   disc_patient is null)\n" +
-                "              )\n" +
-                "          )) t;";
-
+        TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
         cd.setName("currentlyOnArt");
-        cd.setQuery(sqlQuery);
-        cd.addParameter(new Parameter("startDate", "Start Date", Date.class));
-        cd.addParameter(new Parameter("endDate", "End Date", Date.class));
         cd.setDescription("currently on ART");
         return cd;
     }
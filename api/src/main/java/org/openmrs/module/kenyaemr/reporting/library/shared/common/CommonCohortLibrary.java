@@ -23,6 +23,7 @@ import org.openmrs.module.kenyaemr.calculation.library.InProgramCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.IsPregnantCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.RecordedDeceasedCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.DemographicCohortDefinition;
 import org.openmrs.module.kenyaemrorderentry.reporting.cohort.definition.CadreCohortDefinition;
 import org.openmrs.module.kenyaemrorderentry.reporting.cohort.definition.ContactAgeCohortDefinition;
 import org.openmrs.module.kenyaemrorderentry.reporting.cohort.definition.ContactGenderCohortDefinition;
@@ -163,6 +164,38 @@ public class CommonCohortLibrary {
 		return cd;
 	}
 
+	/**
+	 * Patients who are at least minAge and at most maxAge old on ${effectiveDate}. Unlike an age cohort, all age bands
+	 * of an evaluation are bucketed from a single load of patient demographics, so use this for dimensions with many options.
+	 * @param minAge the minimum age (may be null)
+	 * @param minAgeUnit the unit of the minimum age
+	 * @param maxAge the maximum age (may be null)
+	 * @param maxAgeUnit the unit of the maximum age
+	 * @return the cohort definition
+	 */
+	public CohortDefinition ageBand(Integer minAge, DurationUnit minAgeUnit, Integer maxAge, DurationUnit maxAgeUnit) {
+		DemographicCohortDefinition cd = new DemographicCohortDefinition();
+		cd.setName("aged between " + minAge + " " + minAgeUnit + " and " + maxAge + " " + maxAgeUnit);
+		cd.addParameter(new Parameter("effectiveDate", "Effective Date", Date.class));
+		cd.setMinAge(minAge);
+		cd.setMinAgeUnit(minAgeUnit);
+		cd.setMaxAge(maxAge);
+		cd.setMaxAgeUnit(maxAgeUnit);
+		return cd;
+	}
+
+	/**
+	 * Patients of the given gender, bucketed from the same load of patient demographics as {@link #ageBand(Integer, DurationUnit, Integer, DurationUnit)}
+	 * @param gender M or F
+	 * @return the cohort definition
+	 */
+	public CohortDefinition ofGender(String gender) {
+		DemographicCohortDefinition cd = new DemographicCohortDefinition();
+		cd.setName("gender " + gender);
+		cd.setGender(gender);
+		return cd;
+	}
+
 	/**
 	 * Patients who are female and at least 18 years old on ${effectiveDate}
 	 * @return the cohort definition
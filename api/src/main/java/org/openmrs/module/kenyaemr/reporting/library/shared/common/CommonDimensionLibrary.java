@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.library.shared.common;
 
 import org.openmrs.module.kenyaemr.reporting.MohReportUtils.ReportingUtils;
+import org.openmrs.module.reporting.common.DurationUnit;
 import org.openmrs.module.reporting.evaluation.parameter.Parameter;
 import org.openmrs.module.reporting.indicator.dimension.CohortDefinitionDimension;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,8 +40,8 @@ public class CommonDimensionLibrary {
     public CohortDefinitionDimension gender() {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("gender");
-        dim.addCohortDefinition("M", map(commonCohortLibrary.males()));
-        dim.addCohortDefinition("F", map(commonCohortLibrary.females()));
+        dim.addCohortDefinition("M", map(commonCohortLibrary.ofGender("M")));
+        dim.addCohortDefinition("F", map(commonCohortLibrary.ofGender("F")));
         return dim;
     }
 
@@ -85,45 +86,45 @@ public class CommonDimensionLibrary {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("fine age between(<1, btw 1 and 9, btw 10 and 14, btw 15 and 19, btw 20 and 24, btw 25 and 49, 50+");
         dim.addParameter(new Parameter("onDate", "Date", Date.class));
-        dim.addCohortDefinition("<1", map(commonCohortLibrary.agedAtMost(0), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("<10", map(commonCohortLibrary.agedAtMost(9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-4", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 4), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("5-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(5, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-14", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(15, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("20-24", map(commonCohortLibrary.agedAtLeastAgedAtMost(20, 24), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 49), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<1", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 0, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<10", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-4", map(commonCohortLibrary.ageBand(1, DurationUnit.YEARS, 4, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("5-9", map(commonCohortLibrary.ageBand(5, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-9", map(commonCohortLibrary.ageBand(1, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-14", map(commonCohortLibrary.ageBand(10, DurationUnit.YEARS, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-19", map(commonCohortLibrary.ageBand(10, DurationUnit.YEARS, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15-19", map(commonCohortLibrary.ageBand(15, DurationUnit.YEARS, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("20-24", map(commonCohortLibrary.ageBand(20, DurationUnit.YEARS, 24, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-49", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         // new age disaggregations
-        dim.addCohortDefinition("25-29", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 29), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("30-34", map(commonCohortLibrary.agedAtLeastAgedAtMost(30, 34), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("35-39", map(commonCohortLibrary.agedAtLeastAgedAtMost(35, 39), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("40-44", map(commonCohortLibrary.agedAtLeastAgedAtMost(40, 44), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("45-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(45, 49), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("40-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(40, 49), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-29", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, 29, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("30-34", map(commonCohortLibrary.ageBand(30, DurationUnit.YEARS, 34, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("35-39", map(commonCohortLibrary.ageBand(35, DurationUnit.YEARS, 39, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("40-44", map(commonCohortLibrary.ageBand(40, DurationUnit.YEARS, 44, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("45-49", map(commonCohortLibrary.ageBand(45, DurationUnit.YEARS, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("40-49", map(commonCohortLibrary.ageBand(40, DurationUnit.YEARS, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         // previous one
-        dim.addCohortDefinition("50+", map(commonCohortLibrary.agedAtLeast(50), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25+", map(commonCohortLibrary.agedAtLeast(25), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("50+", map(commonCohortLibrary.ageBand(50, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25+", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         //mer2.6
-        dim.addCohortDefinition("50-54", map(commonCohortLibrary.agedAtLeastAgedAtMost(50, 54), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("55-59", map(commonCohortLibrary.agedAtLeastAgedAtMost(55, 59), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("60-64", map(commonCohortLibrary.agedAtLeastAgedAtMost(60, 64), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("65+", map(commonCohortLibrary.agedAtLeast(65), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("50-54", map(commonCohortLibrary.ageBand(50, DurationUnit.YEARS, 54, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("55-59", map(commonCohortLibrary.ageBand(55, DurationUnit.YEARS, 59, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("60-64", map(commonCohortLibrary.ageBand(60, DurationUnit.YEARS, 64, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("65+", map(commonCohortLibrary.ageBand(65, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         //Age group in months
-        dim.addCohortDefinition("0-2", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(0, 2), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("2-12", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(2, 12), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-2", map(commonCohortLibrary.ageBand(0, DurationUnit.MONTHS, 2, DurationUnit.MONTHS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("2-12", map(commonCohortLibrary.ageBand(2, DurationUnit.MONTHS, 12, DurationUnit.MONTHS), "effectiveDate=${onDate}"));
 
-        dim.addCohortDefinition("<15", map(commonCohortLibrary.agedAtMost(14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15+", map(commonCohortLibrary.agedAtLeast(15), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<15", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15+", map(commonCohortLibrary.ageBand(15, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         //Age group in days
-        dim.addCohortDefinition("0-60", map(commonCohortLibrary.agedAtLeastAgedAtMostDays(0, 60),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-60", map(commonCohortLibrary.ageBand(0, DurationUnit.DAYS, 60, DurationUnit.DAYS),"effectiveDate=${onDate}"));
         //fmaps
-        dim.addCohortDefinition("0-12", map(commonCohortLibrary.agedAtLeastAgedAtMostDays(1, 12),"effectiveDate=${onDate}"));
-        dim.addCohortDefinition("12-24", map(commonCohortLibrary.agedAtLeastAgedAtMostWeeks(12, 24),"effectiveDate=${onDate}"));
-        dim.addCohortDefinition("7-9", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(7, 9),"effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-12", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(10, 12),"effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1+", map(commonCohortLibrary.agedAtLeast(1),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-12", map(commonCohortLibrary.ageBand(1, DurationUnit.DAYS, 12, DurationUnit.DAYS),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("12-24", map(commonCohortLibrary.ageBand(12, DurationUnit.WEEKS, 24, DurationUnit.WEEKS),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("7-9", map(commonCohortLibrary.ageBand(7, DurationUnit.MONTHS, 9, DurationUnit.MONTHS),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-12", map(commonCohortLibrary.ageBand(10, DurationUnit.MONTHS, 12, DurationUnit.MONTHS),"effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1+", map(commonCohortLibrary.ageBand(1, DurationUnit.YEARS, null, DurationUnit.YEARS),"effectiveDate=${onDate}"));
 
         return dim;
     }
@@ -136,30 +137,30 @@ public class CommonDimensionLibrary {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("fine age between(<1, btw 1 and 9, btw 10 and 14, btw 15 and 19, btw 20 and 24, 25+");
         dim.addParameter(new Parameter("onDate", "Date", Date.class));
-        dim.addCohortDefinition("<1", map(commonCohortLibrary.agedAtMost(0), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-60", map(commonCohortLibrary.agedAtLeastAgedAtMostDays(0,60), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("61-9", map(commonCohortLibrary.agedAtLeastDaysAgedAtMostYears(61,9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-4", map(commonCohortLibrary.agedAtLeastAgedAtMost(0, 4), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-4", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 4), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(0, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("2-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(2, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("5-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(5, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-14", map(commonCohortLibrary.agedAtMost(14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("<15", map(commonCohortLibrary.agedAtMost(14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15+", map(commonCohortLibrary.agedAtLeast(15), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-14", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(15, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("20-24", map(commonCohortLibrary.agedAtLeastAgedAtMost(20, 24), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25-29", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 29), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("20+", map(commonCohortLibrary.agedAtLeast(20), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25+", map(commonCohortLibrary.agedAtLeast(25), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("30+", map(commonCohortLibrary.agedAtLeast(30), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("18+", map(commonCohortLibrary.agedAtLeast(18), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<1", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 0, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-60", map(commonCohortLibrary.ageBand(0, DurationUnit.DAYS, 60, DurationUnit.DAYS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("61-9", map(commonCohortLibrary.ageBand(61, DurationUnit.DAYS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-4", map(commonCohortLibrary.ageBand(0, DurationUnit.YEARS, 4, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-4", map(commonCohortLibrary.ageBand(1, DurationUnit.YEARS, 4, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-9", map(commonCohortLibrary.ageBand(1, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-9", map(commonCohortLibrary.ageBand(0, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("2-9", map(commonCohortLibrary.ageBand(2, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("5-9", map(commonCohortLibrary.ageBand(5, DurationUnit.YEARS, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-14", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<15", map(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15+", map(commonCohortLibrary.ageBand(15, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-14", map(commonCohortLibrary.ageBand(10, DurationUnit.YEARS, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15-19", map(commonCohortLibrary.ageBand(15, DurationUnit.YEARS, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-19", map(commonCohortLibrary.ageBand(10, DurationUnit.YEARS, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("20-24", map(commonCohortLibrary.ageBand(20, DurationUnit.YEARS, 24, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-29", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, 29, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("20+", map(commonCohortLibrary.ageBand(20, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25+", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("30+", map(commonCohortLibrary.ageBand(30, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("18+", map(commonCohortLibrary.ageBand(18, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         //25-49 and 50+ added for KDoD
-        dim.addCohortDefinition("25-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 49), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("50+", map(commonCohortLibrary.agedAtLeast(50), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-49", map(commonCohortLibrary.ageBand(25, DurationUnit.YEARS, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("50+", map(commonCohortLibrary.ageBand(50, DurationUnit.YEARS, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
 
         return dim;
     }
@@ -26,8 +26,6 @@ import org.openmrs.module.reporting.report.renderer.ReportRenderer;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -63,7 +61,6 @@ public class AdxReportRenderer extends ReportDesignRenderer {
      */
     public void render(ReportData reportData, String argument, OutputStream out) throws IOException, RenderingException {
 
-        DateFormat isoDateTimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZ");
         DateFormat isoDateFormat = new SimpleDateFormat("yyyy-MM-dd");
         Date reportDate = (Date) reportData.getContext().getParameterValue("startDate");
         administrationService = Context.getAdministrationService();
@@ -76,28 +73,20 @@ public class AdxReportRenderer extends ReportDesignRenderer {
             mfl = new Facility(location).getMflCode();
         }
 
-        Writer w = new OutputStreamWriter(out, "UTF-8");
-        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        w.write("<adx xmlns=\"urn:ihe:qrph:adx:2015\"\n" +
-                "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
-                "xsi:schemaLocation=\"urn:ihe:qrph:adx:2015 ../schema/adx_loose.xsd\"\n" +
-                "exported=\"" + isoDateTimeFormat.format(new Date()) + "\">\n");
+        AdxWriter adx = new AdxWriter(out);
+        adx.startAdx(new Date());
 
         for (String dsKey : reportData.getDataSets().keySet()) {
-            w.write("<group orgUnit=\"" + mfl + "\" period=\"" + isoDateFormat.format(reportDate)
-                    + "/P1M\" dataSet=\"" + reportData.getDefinition().getName().replace(" ", "_") + "-" + dsKey + "\">\n");
+            adx.startGroup(mfl, isoDateFormat.format(reportDate) + "/P1M", "dataSet", reportData.getDefinition().getName().replace(" ", "_") + "-" + dsKey);
             DataSet dataset = reportData.getDataSets().get(dsKey);
             List<DataSetColumn> columns = dataset.getMetaData().getColumns();
             for (DataSetRow row : dataset) {
                 for (DataSetColumn column : columns) {
-                    String name = column.getName();
-                    Object value = row.getColumnValue(column);
-                    w.write("<dataValue dataElement=\"" + name + "\" value=\"" + value.toString() + "\"/>\n");
+                    adx.dataValue(column.getName(), row.getColumnValue(column));
                 }
             }
-            w.write("</group>\n");
+            adx.endGroup();
         }
-        w.write("</adx>\n");
-        w.flush();
+        adx.endAdx();
     }
 }
@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Streams an ADX message to an output stream as it is generated, so that large messages are never held in memory.
+ * Attribute values are escaped by the underlying XML stream writer. Usage:
+ * <pre>
+ * AdxWriter adx = new AdxWriter(out);
+ * adx.startAdx(new Date());
+ * adx.startGroup(mflCode, period, "dataSet", dataSetName);
+ * adx.dataValue(dataElement, value);
+ * adx.endGroup();
+ * adx.endAdx();
+ * </pre>
+ */
+public class AdxWriter {
+
+	public static final String ADX_NAMESPACE = "urn:ihe:qrph:adx:2015";
+
+	public static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
+	private final XMLStreamWriter writer;
+
+	private final DateFormat isoDateTimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZ");
+
+	/**
+	 * Creates a writer which writes UTF-8 encoded XML to the given stream
+	 * @param out the output stream, which is flushed but not closed by {@link #endAdx()}
+	 * @throws IOException if the writer can't be created
+	 */
+	public AdxWriter(OutputStream out) throws IOException {
+		try {
+			this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException("Unable to create ADX writer", ex);
+		}
+	}
+
+	/**
+	 * Writes the XML declaration and opens the adx element
+	 * @param exported the export date
+	 * @throws IOException if writing fails
+	 */
+	public void startAdx(Date exported) throws IOException {
+		try {
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement("adx");
+			writer.writeDefaultNamespace(ADX_NAMESPACE);
+			writer.writeNamespace("xsi", XSI_NAMESPACE);
+			writer.writeAttribute("xsi", XSI_NAMESPACE, "schemaLocation", ADX_NAMESPACE + " ../schema/adx_loose.xsd");
+			writer.writeAttribute("exported", isoDateTimeFormat.format(exported));
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Opens a group element
+	 * @param orgUnit the organisation unit, i.e. the facility MFL code
+	 * @param period the ADX period, e.g. 2024-01-01/P1M
+	 * @param dataSetAttribute the name of the data set attribute, dataSet or dataSetId
+	 * @param dataSet the data set name
+	 * @throws IOException if writing fails
+	 */
+	public void startGroup(String orgUnit, String period, String dataSetAttribute, String dataSet) throws IOException {
+		try {
+			writer.writeCharacters("\n\t");
+			writer.writeStartElement("group");
+			writer.writeAttribute("orgUnit", orgUnit);
+			writer.writeAttribute("period", period);
+			writer.writeAttribute(dataSetAttribute, dataSet);
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Writes a data value of the current group
+	 * @param dataElement the data element
+	 * @param value the value
+	 * @throws IOException if writing fails
+	 */
+	public void dataValue(String dataElement, Object value) throws IOException {
+		dataValue(dataElement, null, value);
+	}
+
+	/**
+	 * Writes a data value of the current group
+	 * @param dataElement the data element
+	 * @param categoryOptionCombo the category option combo (may be null)
+	 * @param value the value
+	 * @throws IOException if writing fails
+	 */
+	public void dataValue(String dataElement, String categoryOptionCombo, Object value) throws IOException {
+		try {
+			writer.writeCharacters("\n\t\t");
+			writer.writeEmptyElement("dataValue");
+			writer.writeAttribute("dataElement", dataElement);
+			if (categoryOptionCombo != null) {
+				writer.writeAttribute("categoryOptionCombo", categoryOptionCombo);
+			}
+			writer.writeAttribute("value", String.valueOf(value));
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Closes the current group element
+	 * @throws IOException if writing fails
+	 */
+	public void endGroup() throws IOException {
+		try {
+			writer.writeCharacters("\n\t");
+			writer.writeEndElement();
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Closes the adx element and flushes the output
+	 * @throws IOException if writing fails
+	 */
+	public void endAdx() throws IOException {
+		try {
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		}
+		catch (XMLStreamException ex) {
+			throw new IOException(ex);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapping of KPIF monthly report indicator disaggregations to 3PM data element and category option combo ids. The
+ * mapping is loaded once from a versioned classpath resource with one <code>indicator,dataElement,categoryOptionCombo</code>
+ * line per indicator.
+ */
+public class ThreePmIndicatorMapping {
+
+	/**
+	 * The mapping resource, renamed with a new version whenever the 3PM ids change
+	 */
+	public static final String RESOURCE = "adx/3pm_indicator_mapping-1.csv";
+
+	private final Map<String, Entry> entries;
+
+	private ThreePmIndicatorMapping(Map<String, Entry> entries) {
+		this.entries = Collections.unmodifiableMap(entries);
+	}
+
+	/**
+	 * Gets the shared mapping, loading it on first use
+	 * @return the mapping
+	 */
+	public static ThreePmIndicatorMapping getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Gets the 3PM ids of an indicator disaggregation
+	 * @param indicator the indicator name, e.g. ENROL_HTS_TST_PWID-07
+	 * @return the entry or null if the indicator is not mapped
+	 */
+	public Entry get(String indicator) {
+		return entries.get(indicator);
+	}
+
+	/**
+	 * Gets the number of mapped indicators
+	 * @return the number of indicators
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Loads a mapping. Blank lines, lines starting with # and the header line are ignored.
+	 * @param stream the mapping input stream
+	 * @return the mapping
+	 * @throws IOException if the stream can't be read
+	 * @throws IllegalArgumentException if a line is malformed or an indicator is mapped more than once
+	 */
+	public static ThreePmIndicatorMapping load(InputStream stream) throws IOException {
+		Map<String, Entry> entries = new HashMap<String, Entry>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#") || line.startsWith("indicator,")) {
+					continue;
+				}
+
+				String[] fields = StringUtils.splitPreserveAllTokens(line, ',');
+				if (fields.length != 3 || StringUtils.isBlank(fields[0]) || StringUtils.isBlank(fields[1]) || StringUtils.isBlank(fields[2])) {
+					throw new IllegalArgumentException("Malformed indicator mapping on line " + lineNumber + ": " + line);
+				}
+
+				String indicator = fields[0].trim();
+				if (entries.containsKey(indicator)) {
+					throw new IllegalArgumentException("Duplicate indicator mapping on line " + lineNumber + ": " + indicator);
+				}
+				entries.put(indicator, new Entry(fields[1].trim(), fields[2].trim()));
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return new ThreePmIndicatorMapping(entries);
+	}
+
+	/**
+	 * The 3PM ids of an indicator disaggregation
+	 */
+	public static class Entry {
+
+		private final String dataElement;
+
+		private final String categoryOptionCombo;
+
+		public Entry(String dataElement, String categoryOptionCombo) {
+			this.dataElement = dataElement;
+			this.categoryOptionCombo = categoryOptionCombo;
+		}
+
+		/**
+		 * @return the data element id (DUID)
+		 */
+		public String getDataElement() {
+			return dataElement;
+		}
+
+		/**
+		 * @return the category option combo id (CUID)
+		 */
+		public String getCategoryOptionCombo() {
+			return categoryOptionCombo;
+		}
+	}
+
+	/**
+	 * Loads the shared mapping on first access
+	 */
+	private static class Holder {
+
+		private static final ThreePmIndicatorMapping INSTANCE = loadResource();
+
+		private static ThreePmIndicatorMapping loadResource() {
+			InputStream stream = ThreePmIndicatorMapping.class.getClassLoader().getResourceAsStream(RESOURCE);
+			if (stream == null) {
+				throw new IllegalStateException("Unable to find indicator mapping " + RESOURCE);
+			}
+			try {
+				return load(stream);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Unable to load indicator mapping " + RESOURCE, ex);
+			}
+		}
+	}
+}
@@ -12,6 +12,7 @@ package org.openmrs.module.kenyaemr.task;
 import org.openmrs.Patient;
 import org.openmrs.Visit;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.visit.ActiveVisitIndex;
 import org.openmrs.scheduler.tasks.AbstractTask;
 import org.openmrs.util.OpenmrsUtil;
 import org.slf4j.Logger;
@@ -44,10 +45,12 @@ public class AutoCloseActiveVisitsTask extends AbstractTask {
 			// Fetch all visits haven't ended or been closed and close them
 			List<Visit> visits = Context.getVisitService().getVisits(null, allPatients, null, null, null, new Date(), null, null, null, true, false);
 			if (visits.size() > 0) {
+				ActiveVisitIndex activeVisitIndex = Context.getRegisteredComponents(ActiveVisitIndex.class).get(0);
 				for (Visit visit : visits) {
 					try {
 
 					visit.setStopDatetime(OpenmrsUtil.getLastMomentOfDay(visit.getStartDatetime()));
+					activeVisitIndex.onVisitChanged(visit);
 
 					} catch (Exception e) {
 						log.error("Error while auto closing visits:", e);
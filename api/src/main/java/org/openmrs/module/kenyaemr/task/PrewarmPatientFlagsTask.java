@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.task;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.openmrs.Patient;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.ModuleFactory;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.scheduler.tasks.AbstractTask;
+import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.util.PrivilegeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A scheduled task that evaluates the flags of all patients with an appointment that day, so that the flag cache
+ * is populated before the clinic opens. Flag calculations are evaluated over batches of patients rather than one
+ * patient at a time as charts are opened. The task is scheduled in the early hours, and evaluates serially so that
+ * it never holds up interactive requests.
+ */
+public class PrewarmPatientFlagsTask extends AbstractTask {
+
+	private static final Logger log = LoggerFactory.getLogger(PrewarmPatientFlagsTask.class);
+
+	private static final String APPOINTMENTS_MODULE_ID = "appointments";
+
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * @see AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			if (log.isDebugEnabled()) {
+				log.debug("Starting Prewarm Patient Flags Task...");
+			}
+
+			startExecuting();
+			try {
+				final Date now = now();
+				final List<Integer> patientIds = getScheduledPatientIds(OpenmrsUtil.firstSecondOfDay(now));
+				EvaluationExecutor.getInstance().callSerially(new Callable<Void>() {
+					@Override
+					public Void call() {
+						prewarm(patientIds, now);
+						return null;
+					}
+				});
+
+				log.info("Evaluated flags of " + patientIds.size() + " patients with appointments on " + now);
+			}
+			catch (Exception e) {
+				log.error("Error while prewarming patient flags:", e);
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+
+	/**
+	 * Evaluates and caches the flags of the given patients in batches
+	 * @param patientIds the patient ids
+	 * @param onDate the date as of which flags are evaluated
+	 */
+	protected void prewarm(List<Integer> patientIds, Date onDate) {
+		PatientFlagEvaluator flagEvaluator = getFlagEvaluator();
+		PatientService patientService = Context.getPatientService();
+
+		for (int from = 0; from < patientIds.size(); from += BATCH_SIZE) {
+			List<Patient> batch = new ArrayList<Patient>();
+			for (Integer patientId : patientIds.subList(from, Math.min(from + BATCH_SIZE, patientIds.size()))) {
+				Patient patient = patientService.getPatient(patientId);
+				if (patient != null) {
+					batch.add(patient);
+				}
+			}
+			flagEvaluator.getFlags(batch, onDate);
+			Context.flushSession();
+			Context.clearSession();
+		}
+	}
+
+	/**
+	 * Gets the living patients with an appointment on the given day
+	 * @param day the start of the day
+	 * @return the patient ids, or an empty list if the appointments module isn't running
+	 */
+	protected List<Integer> getScheduledPatientIds(Date day) {
+		// Appointments are only available once the appointments module has created its tables
+		if (!ModuleFactory.isModuleStarted(APPOINTMENTS_MODULE_ID)) {
+			return Collections.emptyList();
+		}
+
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		String sql = "select distinct a.patient_id from patient_appointment a" +
+				" inner join person p on p.person_id = a.patient_id and p.voided = 0 and p.dead = 0" +
+				" where a.voided = 0 and a.status <> 'Cancelled'" +
+				" and a.start_date_time >= '" + format.format(day) + "'" +
+				" and a.start_date_time < '" + format.format(DateUtils.addDays(day, 1)) + "'";
+
+		List<Integer> patientIds = new ArrayList<Integer>();
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				patientIds.add(((Number) row.get(0)).intValue());
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		return patientIds;
+	}
+
+	protected PatientFlagEvaluator getFlagEvaluator() {
+		return Context.getRegisteredComponents(PatientFlagEvaluator.class).get(0);
+	}
+
+	/**
+	 * Gets the current time, overridable for testing
+	 * @return the current time
+	 */
+	protected Date now() {
+		return new Date();
+	}
+}
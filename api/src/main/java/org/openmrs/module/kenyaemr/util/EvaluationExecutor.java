@@ -0,0 +1,235 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.User;
+import org.openmrs.api.context.Authenticated;
+import org.openmrs.api.context.AuthenticationScheme;
+import org.openmrs.api.context.BasicAuthenticated;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Credentials;
+import org.openmrs.api.context.UserContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The bounded pool on which calculations, cohorts and data sets are evaluated concurrently. Each pooled task runs in
+ * its own session with its own user context, as the user who submitted it.
+ *
+ * Tasks submitted by a pooled task are run immediately by that task's thread rather than queued, so that nested
+ * evaluations never wait for a pooled thread held by their parent. The same applies to work submitted while calling
+ * a task serially, which is how background jobs keep the pool free for interactive requests.
+ */
+@Component
+public class EvaluationExecutor implements DisposableBean {
+
+	protected static final Log log = LogFactory.getLog(EvaluationExecutor.class);
+
+	private static final int MAX_THREADS = 4;
+
+	/**
+	 * Identifies the session of the pooled task running on the current thread
+	 */
+	private static final ThreadLocal<Object> SESSION = new ThreadLocal<Object>();
+
+	private static final ThreadLocal<Boolean> SERIAL = new ThreadLocal<Boolean>();
+
+	private static final String WORKER_SCHEME = "kenyaemr-evaluation";
+
+	private final int threads;
+
+	private final ExecutorService executor;
+
+	public EvaluationExecutor() {
+		this(Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors())));
+	}
+
+	/**
+	 * @param threads the number of pooled threads
+	 */
+	EvaluationExecutor(int threads) {
+		this.threads = threads;
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "kenyaemr-evaluation-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Gets the executor, for classes which aren't components
+	 * @return the executor
+	 */
+	public static EvaluationExecutor getInstance() {
+		return Context.getRegisteredComponents(EvaluationExecutor.class).get(0);
+	}
+
+	/**
+	 * Submits a task to run in its own session as the current user, or runs it immediately in the current thread if
+	 * that is a pooled thread or is calling serially
+	 * @param task the task
+	 * @return the future result
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		if (isSerial()) {
+			return runInline(task);
+		}
+		try {
+			return executor.submit(inSession(task));
+		}
+		catch (RejectedExecutionException ex) {
+			// The pool is shut down while the module is refreshed, which mustn't fail the requests still running
+			log.debug("Evaluation pool is shut down, so running task in the current thread");
+			return runInline(task);
+		}
+	}
+
+	/**
+	 * Calls a task with any work it submits run in the current thread, e.g. for background jobs which mustn't hold up
+	 * interactive requests
+	 * @param task the task
+	 * @return the result
+	 * @throws Exception if the task fails
+	 */
+	public <T> T callSerially(Callable<T> task) throws Exception {
+		Boolean previous = SERIAL.get();
+		SERIAL.set(Boolean.TRUE);
+		try {
+			return task.call();
+		}
+		finally {
+			if (previous != null) {
+				SERIAL.set(previous);
+			}
+			else {
+				SERIAL.remove();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether work submitted from the current thread is run in the current thread
+	 * @return true if the current thread is a pooled thread or is calling serially
+	 */
+	public static boolean isSerial() {
+		return SESSION.get() != null || Boolean.TRUE.equals(SERIAL.get());
+	}
+
+	/**
+	 * Gets a token identifying the session of the current thread, i.e. the session of the pooled task it is running,
+	 * or else the thread itself. Objects loaded under one token mustn't be used under another.
+	 * @return the token
+	 */
+	public static Object getSessionToken() {
+		Object session = SESSION.get();
+		return session != null ? session : Thread.currentThread();
+	}
+
+	/**
+	 * Gets the number of pooled threads, e.g. to split work into as many tasks
+	 * @return the number of threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Wraps a task so that it runs in its own session, authenticated as the current user. The task gets a user context
+	 * of its own, so that proxy privileges added by one thread are never seen by another.
+	 * @param task the task
+	 * @return the wrapped task
+	 */
+	public static <T> Callable<T> inSession(final Callable<T> task) {
+		UserContext current = Context.getUserContext();
+		final User user = current.getAuthenticatedUser();
+		final Locale locale = current.getLocale();
+		final Integer locationId = current.getLocationId();
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				Context.openSession();
+				SESSION.set(new Object());
+				try {
+					Context.setUserContext(newUserContext(user, locale, locationId));
+					return task.call();
+				}
+				finally {
+					SESSION.remove();
+					Context.closeSession();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Creates a user context for a pooled task, authenticated as the given user without their password
+	 * @param user the user (may be null)
+	 * @param locale the locale
+	 * @param locationId the location id (may be null)
+	 * @return the user context
+	 */
+	private static UserContext newUserContext(final User user, Locale locale, Integer locationId) {
+		UserContext userContext = new UserContext(new AuthenticationScheme() {
+			@Override
+			public Authenticated authenticate(Credentials credentials) {
+				return new BasicAuthenticated(user, WORKER_SCHEME);
+			}
+		});
+		// Authenticating may look up the user's default location, so the context has to be set first
+		Context.setUserContext(userContext);
+		if (user != null) {
+			userContext.authenticate(new Credentials() {
+				@Override
+				public String getAuthenticationScheme() {
+					return WORKER_SCHEME;
+				}
+
+				@Override
+				public String getClientName() {
+					return user.getUsername();
+				}
+			});
+		}
+		userContext.setLocale(locale);
+		userContext.setLocationId(locationId);
+		return userContext;
+	}
+
+	private static <T> Future<T> runInline(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<T>(task);
+		future.run();
+		return future;
+	}
+
+	/**
+	 * @see org.springframework.beans.factory.DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+}
@@ -9,15 +9,14 @@
  */
 package org.openmrs.module.kenyaemr.util;
 
+import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ObjectNode;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class ZScoreUtil {
 
@@ -28,6 +27,30 @@ public class ZScoreUtil {
     public static Integer ZSCORE_NOT_FOUND_DEFAULT_VALUE = -10; // arbitrarily picked number. can be refined to something meaningful
     public static Integer ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE = -20; // arbitrarily picked number. can be refined to something meaningful
 
+    private static final int STANDARD_MIN_HEIGHT = 45; // in cm
+    private static final int STANDARD_MAX_HEIGHT = 110; // in cm
+
+    /**
+     * The SD columns of the weight for length tables, from the highest weight to the lowest
+     */
+    private static final String[] SD_KEYS = {"SD4", "SD3", "SD2", "SD1", "SD0", "SD1neg", "SD2neg", "SD3neg", "SD4neg"};
+
+    /**
+     * The z-score of a weight at or above each SD column. SD3 and SD4 have never been scored, so weights above them
+     * score as SD2 does.
+     */
+    private static final int[] SD_SCORES = {4, 4, 4, 1, 0, -1, -2, -3, -4};
+
+    /**
+     * Loads the weight for length tables if they haven't been loaded yet, so that the first z-score calculation
+     * doesn't have to
+     */
+    public static void loadTables() {
+        if (Tables.BOYS.length == 0 || Tables.GIRLS.length == 0) {
+            throw new IllegalStateException("Weight for length tables are empty");
+        }
+    }
+
     /**
      * Reads a json file with weight for length values
      * The file is a json object with length (to 1 decimal point) as the object keys. This is to facilitate O(1) searching
@@ -49,7 +72,8 @@ public class ZScoreUtil {
     /**
      * Calculates weight for lenght z-score based on a client's weight, height, and sex
      * NOTE: This only works for children under 5 yrs
-     * Based on a client's height in cm, the precomputed weights and standard deviations are obtained.
+     * Based on a client's height in cm, the precomputed weights and standard deviations are obtained, interpolating
+     * between the nearest 0.1 cm rows for heights in between.
      * The client's weight is then mapped to classify the patient. The result is the weight in the matrix which is the immediate <= the client weight
      * @param height
      * @param weight
@@ -57,84 +81,117 @@ public class ZScoreUtil {
      * @return
      */
     public static Integer calculateZScore(Double height, Double weight, String sex) {
-        String sD4negKey =  "SD4neg";
-        String sD3negKey =  "SD3neg";
-        String sD2negKey =  "SD2neg";
-        String sD1negKey =  "SD1neg";
-        String sD0Key =  "SD0";
-        String sD1Key =  "SD1";
-        String sD2Key =  "SD2";
-        String sD3Key =  "SD3";
-        String sD4Key =  "SD4";
-
-        Map<Double,String> sdValues = new TreeMap<Double,String>(Collections.reverseOrder());
-
-        // map sdKeys to values. We can check if this is a better approach than if statements
-        Map<String, Integer> zScoreValues = new HashMap<String, Integer>();
-        zScoreValues.put(sD4negKey, -4);
-        zScoreValues.put(sD3negKey, -3);
-        zScoreValues.put(sD2negKey, -2);
-        zScoreValues.put(sD1negKey, -1);
-        zScoreValues.put(sD0Key, 0);
-        zScoreValues.put(sD1Key, 1);
-        zScoreValues.put(sD2Key, 2);
-        zScoreValues.put(sD2Key, 3);
-        zScoreValues.put(sD2Key, 4);
-
-        if (height == null || height == 0 || sex == null || sex == "") {
+        if (height == null || height == 0 || weight == null || sex == null || sex.isEmpty()) {
             return ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE;
         }
-        int standardMinHeight = 45; // in cm
-        int standardMaxHeight = 110; // in cm
+        return calculateZScore(height.doubleValue(), weight.doubleValue(), sex);
+    }
 
-        if (height < standardMinHeight || height > standardMaxHeight) { // check the extremes. TODO: we should validate this
+    /**
+     * Calculates weight for length z-scores for a whole cohort. The arrays are parallel, i.e. the i-th height, weight
+     * and sex are those of the i-th patient.
+     * @param heights the heights in cm
+     * @param weights the weights in kg
+     * @param sexes the sexes, M or F
+     * @return the z-scores
+     */
+    public static int[] calculateZScores(double[] heights, double[] weights, String[] sexes) {
+        if (heights.length != weights.length || heights.length != sexes.length) {
+            throw new IllegalArgumentException("Heights, weights and sexes must be of the same length");
+        }
+        int[] scores = new int[heights.length];
+        for (int i = 0; i < heights.length; i++) {
+            if (heights[i] == 0 || sexes[i] == null || sexes[i].isEmpty()) {
+                scores[i] = ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE;
+            } else {
+                scores[i] = calculateZScore(heights[i], weights[i], sexes[i]);
+            }
+        }
+        return scores;
+    }
+
+    private static int calculateZScore(double height, double weight, String sex) {
+        if (height < STANDARD_MIN_HEIGHT || height > STANDARD_MAX_HEIGHT) { // check the extremes. TODO: we should validate this
             return -4;
         }
 
-        ObjectNode sdList = null;
-        ObjectNode sdForHeight = null;
-        // explicitly load SDs based on sex
+        double[] table;
         if (sex.equals("M")) {
-            sdList = loadWeightForLengthZScoreFile(WEIGHT_FOR_LENGTH_BOYS_FILE_OPTIMIZED);
+            table = Tables.BOYS;
         } else if (sex.equals("F")) {
-            sdList = loadWeightForLengthZScoreFile(WEIGHT_FOR_LENGTH_GIRLS_FILE_OPTIMIZED);
-        }
-
-        if (sdList == null) {
+            table = Tables.GIRLS;
+        } else {
             return ZSCORE_NOT_FOUND_DEFAULT_VALUE;// return meaningful error code and description
         }
 
-        String lengthKey = String.valueOf(height);
-        sdForHeight = (ObjectNode) sdList.get(lengthKey);
-
-        if (sdForHeight != null) {
-            sdValues.put(sdForHeight.get(sD4negKey).asDouble(),sD4negKey);
-            sdValues.put(sdForHeight.get(sD3negKey).asDouble(),sD3negKey);
-            sdValues.put(sdForHeight.get(sD2negKey).asDouble(),sD2negKey);
-            sdValues.put(sdForHeight.get(sD1negKey).asDouble(),sD1negKey);
-            sdValues.put(sdForHeight.get(sD0Key).asDouble(),sD0Key);
-            sdValues.put(sdForHeight.get(sD1Key).asDouble(),sD1Key);
-            sdValues.put(sdForHeight.get(sD2Key).asDouble(),sD2Key);
-            sdValues.put(sdForHeight.get(sD3Key).asDouble(),sD3Key);
-            sdValues.put(sdForHeight.get(sD4Key).asDouble(),sD4Key);
+        // rows are 0.1 cm apart. Heights which aren't on a row are interpolated between the rows either side
+        double position = (height - STANDARD_MIN_HEIGHT) * 10;
+        int row = (int) Math.round(position);
+        double fraction = 0;
+        if (Math.abs(position - row) > 1e-6) {
+            row = (int) Math.floor(position);
+            fraction = position - row;
         }
 
-
-        double previousKey = 0;
-        for (Map.Entry<Double,String> entry : sdValues.entrySet()) {
-            previousKey = entry.getKey();
+        int offset = row * SD_KEYS.length;
+        for (int sd = 0; sd < SD_KEYS.length; sd++) {
+            double value = table[offset + sd];
+            if (fraction > 0) {
+                value += (table[offset + SD_KEYS.length + sd] - value) * fraction;
+            }
             // we want to compare with up to one decimal point.
             // We noted inconsistent results with more than one decimal point. This is also an alignment to the provided paper chart used at site
-            double weightToCompareWith = Math.floor(previousKey * 100) / 100;
-
+            double weightToCompareWith = Math.floor(value * 100) / 100;
             if (weightToCompareWith <= weight) {
-                if (zScoreValues.containsKey(sdValues.get(previousKey))) {
-                    return zScoreValues.get(sdValues.get(previousKey));
-                }
-            } else {
-                continue;
+                return SD_SCORES[sd];
             }
         }
         return ZSCORE_NOT_FOUND_DEFAULT_VALUE;
     }
+
+    /**
+     * Loads a weight for length file into a flat array with a row of SD values for every 0.1 cm of height
+     * @param fileName the file name
+     * @return the table
+     */
+    private static double[] loadTable(String fileName) {
+        ObjectNode sdList = loadWeightForLengthZScoreFile(fileName);
+        if (sdList == null) {
+            throw new IllegalStateException("Unable to load weight for length file " + fileName);
+        }
+
+        int rows = (STANDARD_MAX_HEIGHT - STANDARD_MIN_HEIGHT) * 10 + 1;
+        double[] table = new double[rows * SD_KEYS.length];
+        boolean[] loaded = new boolean[rows];
+
+        Iterator<Map.Entry<String, JsonNode>> fields = sdList.getFields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            int row = (int) Math.round((Double.parseDouble(field.getKey()) - STANDARD_MIN_HEIGHT) * 10);
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            for (int sd = 0; sd < SD_KEYS.length; sd++) {
+                table[row * SD_KEYS.length + sd] = field.getValue().get(SD_KEYS[sd]).asDouble();
+            }
+            loaded[row] = true;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            if (!loaded[row]) {
+                throw new IllegalStateException("Weight for length file " + fileName + " has no values for length " + (STANDARD_MIN_HEIGHT + row / 10.0));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Holds the weight for length tables, which are loaded once when first used
+     */
+    private static class Tables {
+
+        static final double[] BOYS = loadTable(WEIGHT_FOR_LENGTH_BOYS_FILE_OPTIMIZED);
+
+        static final double[] GIRLS = loadTable(WEIGHT_FOR_LENGTH_GIRLS_FILE_OPTIMIZED);
+    }
 }
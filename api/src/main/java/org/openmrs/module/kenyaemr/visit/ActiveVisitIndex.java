@@ -0,0 +1,228 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.visit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory index of the active visit of each patient, so that patient searches can tell which patients are checked
+ * in without loading every active visit. The index is kept current as visits are saved, ended, voided and purged, and
+ * is rebuilt periodically to pick up visits changed by other means, e.g. directly in the database.
+ */
+@Component
+public class ActiveVisitIndex {
+
+	protected static final Log log = LogFactory.getLog(ActiveVisitIndex.class);
+
+	/**
+	 * How long the index is used before it is rebuilt from the database
+	 */
+	private static final long REBUILD_INTERVAL = 10 * 60 * 1000L;
+
+	private volatile ConcurrentMap<Integer, Entry> entries;
+
+	private volatile long builtAt;
+
+	/**
+	 * Gets the active visit id of each patient who has an active visit
+	 * @return the map of patient ids to visit ids
+	 */
+	public Map<Integer, Integer> getActiveVisitIds() {
+		Map<Integer, Integer> ret = new HashMap<Integer, Integer>();
+		for (Map.Entry<Integer, Entry> entry : getEntries().entrySet()) {
+			ret.put(entry.getKey(), entry.getValue().visitId);
+		}
+		return Collections.unmodifiableMap(ret);
+	}
+
+	/**
+	 * Gets the active visit id of a patient
+	 * @param patientId the patient id
+	 * @return the visit id, or null if the patient doesn't have an active visit
+	 */
+	public Integer getActiveVisitId(Integer patientId) {
+		Entry entry = getEntries().get(patientId);
+		return entry != null ? entry.visitId : null;
+	}
+
+	/**
+	 * Gets the type of the active visit of a patient
+	 * @param patientId the patient id
+	 * @return the visit type id, or null if the patient doesn't have an active visit
+	 */
+	public Integer getActiveVisitTypeId(Integer patientId) {
+		Entry entry = getEntries().get(patientId);
+		return entry != null ? entry.visitTypeId : null;
+	}
+
+	/**
+	 * Gets the active visit of a patient, loading only that visit
+	 * @param patientId the patient id
+	 * @return the visit, or null if the patient doesn't have an active visit
+	 */
+	public Visit getActiveVisit(Integer patientId) {
+		Integer visitId = getActiveVisitId(patientId);
+		if (visitId == null) {
+			return null;
+		}
+		Visit visit = Context.getVisitService().getVisit(visitId);
+		if (visit == null || visit.isVoided() || visit.getStopDatetime() != null) {
+			// The visit was changed by other means since it was indexed
+			onVisitRemoved(visit, patientId, visitId);
+			return null;
+		}
+		return visit;
+	}
+
+	/**
+	 * Updates the index after a visit has been saved, ended, voided or unvoided
+	 * @param visit the visit
+	 */
+	public void onVisitChanged(Visit visit) {
+		if (visit == null || visit.getVisitId() == null || visit.getPatient() == null || entries == null) {
+			return;
+		}
+		Integer patientId = visit.getPatient().getPatientId();
+		if (visit.isVoided() || visit.getStopDatetime() != null) {
+			onVisitRemoved(visit, patientId, visit.getVisitId());
+			return;
+		}
+
+		Entry entry = new Entry(visit.getVisitId(), visit.getVisitType() != null ? visit.getVisitType().getVisitTypeId() : null, visit.getStartDatetime());
+		while (true) {
+			Entry existing = entries.putIfAbsent(patientId, entry);
+			// Patients with more than one active visit are indexed with the latest one
+			if (existing == null || (!existing.visitId.equals(entry.visitId) && existing.isLaterThan(entry))) {
+				return;
+			}
+			if (entries.replace(patientId, existing, entry)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Updates the index after a visit has been purged
+	 * @param visit the visit
+	 */
+	public void onVisitPurged(Visit visit) {
+		if (visit != null && visit.getPatient() != null && visit.getVisitId() != null) {
+			onVisitRemoved(visit, visit.getPatient().getPatientId(), visit.getVisitId());
+		}
+	}
+
+	/**
+	 * Discards the index so that it is rebuilt when next used, e.g. after visits have been ended in bulk
+	 */
+	public void invalidate() {
+		entries = null;
+	}
+
+	/**
+	 * Removes a visit from the index, indexing the patient's other active visit if they have one
+	 */
+	private void onVisitRemoved(Visit visit, Integer patientId, Integer visitId) {
+		ConcurrentMap<Integer, Entry> current = entries;
+		if (current == null) {
+			return;
+		}
+		Entry existing = current.get(patientId);
+		if (existing != null && existing.visitId.equals(visitId) && current.remove(patientId, existing)) {
+			List<Visit> others = visit != null && visit.getPatient() != null
+					? Context.getVisitService().getActiveVisitsByPatient(visit.getPatient()) : Collections.<Visit>emptyList();
+			for (Visit other : others) {
+				if (!other.getVisitId().equals(visitId)) {
+					onVisitChanged(other);
+				}
+			}
+		}
+	}
+
+	private ConcurrentMap<Integer, Entry> getEntries() {
+		ConcurrentMap<Integer, Entry> current = entries;
+		if (current == null || System.currentTimeMillis() - builtAt > REBUILD_INTERVAL) {
+			synchronized (this) {
+				current = entries;
+				if (current == null || System.currentTimeMillis() - builtAt > REBUILD_INTERVAL) {
+					current = build();
+					entries = current;
+					builtAt = System.currentTimeMillis();
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Loads the active visits of all patients
+	 * @return the index entries by patient id
+	 */
+	private ConcurrentMap<Integer, Entry> build() {
+		String sql = "select v.patient_id, v.visit_id, v.visit_type_id, v.date_started from visit v" +
+				" where v.voided = 0 and v.date_stopped is null";
+
+		ConcurrentMap<Integer, Entry> built = new ConcurrentHashMap<Integer, Entry>();
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				Integer patientId = ((Number) row.get(0)).intValue();
+				Entry entry = new Entry(((Number) row.get(1)).intValue(), row.get(2) != null ? ((Number) row.get(2)).intValue() : null, (Date) row.get(3));
+				Entry existing = built.get(patientId);
+				if (existing == null || entry.isLaterThan(existing)) {
+					built.put(patientId, entry);
+				}
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		log.debug("Indexed " + built.size() + " active visits");
+		return built;
+	}
+
+	/**
+	 * The active visit of a patient
+	 */
+	private static class Entry {
+
+		final Integer visitId;
+
+		final Integer visitTypeId;
+
+		final Date startDatetime;
+
+		Entry(Integer visitId, Integer visitTypeId, Date startDatetime) {
+			this.visitId = visitId;
+			this.visitTypeId = visitTypeId;
+			this.startDatetime = startDatetime;
+		}
+
+		boolean isLaterThan(Entry other) {
+			if (startDatetime == null || other.startDatetime == null) {
+				return startDatetime != null || (other.startDatetime == null && visitId > other.visitId);
+			}
+			long start = startDatetime.getTime(), otherStart = other.startDatetime.getTime();
+			return start > otherStart || (start == otherStart && visitId > other.visitId);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.visit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.MchMetadata;
+import org.openmrs.module.reporting.common.DateUtil;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts of the patients booked for a clinic on each day, as shown when picking the next appointment date in the
+ * consultation forms. Bookings are next appointment obs recorded in the clinic's encounters. Counts for all the days in
+ * a window are loaded by one query on a range of appointment dates, and are cached per day until an encounter or obs
+ * is changed.
+ */
+@Component
+public class AppointmentBookings {
+
+	protected static final Log log = LogFactory.getLog(AppointmentBookings.class);
+
+	/**
+	 * The clinics which bookings are counted for, and the encounter types in which their appointments are booked
+	 */
+	public enum Clinic {
+		HIV(HivMetadata._EncounterType.HIV_CONSULTATION, CommonMetadata._EncounterType.TRIAGE, CommonMetadata._EncounterType.CONSULTATION),
+		MCH(MchMetadata._EncounterType.MCHMS_CONSULTATION, MchMetadata._EncounterType.MCHCS_CONSULTATION);
+
+		private final List<String> encounterTypeUuids;
+
+		Clinic(String... encounterTypeUuids) {
+			this.encounterTypeUuids = Arrays.asList(encounterTypeUuids);
+		}
+	}
+
+	/**
+	 * The longest window which can be counted at once
+	 */
+	private static final int MAX_WINDOW_DAYS = 366;
+
+	/**
+	 * Cached counts by clinic and start of day. This is replaced rather than cleared when invalidated, so that counts
+	 * loaded before an invalidation are never cached after it.
+	 */
+	private volatile ConcurrentMap<Clinic, ConcurrentMap<Date, Long>> counts = new ConcurrentHashMap<Clinic, ConcurrentMap<Date, Long>>();
+
+	/**
+	 * Gets the number of patients booked for a clinic on a day
+	 * @param clinic the clinic
+	 * @param date the day
+	 * @return the number of patients
+	 */
+	public long getBookings(Clinic clinic, Date date) {
+		return getBookings(clinic, date, date).values().iterator().next();
+	}
+
+	/**
+	 * Gets the number of patients booked for a clinic on each day in a window
+	 * @param clinic the clinic
+	 * @param from the first day
+	 * @param to the last day
+	 * @return the map of the start of each day to its number of patients, in date order
+	 */
+	public Map<Date, Long> getBookings(Clinic clinic, Date from, Date to) {
+		Date fromDay = DateUtil.getStartOfDay(from);
+		Date toDay = DateUtil.getStartOfDay(to);
+		if (toDay.before(fromDay)) {
+			throw new IllegalArgumentException("Window must not end before it starts");
+		}
+
+		List<Date> days = new ArrayList<Date>();
+		for (Date day = fromDay; !day.after(toDay); day = DateUtil.getStartOfDay(DateUtil.adjustDate(day, 1, DurationUnit.DAYS))) {
+			days.add(day);
+			if (days.size() > MAX_WINDOW_DAYS) {
+				throw new IllegalArgumentException("Window must not be longer than " + MAX_WINDOW_DAYS + " days");
+			}
+		}
+
+		ConcurrentMap<Date, Long> clinicCounts = getClinicCounts(clinic);
+		if (!clinicCounts.keySet().containsAll(days)) {
+			Map<Date, Long> loaded = load(clinic, fromDay, DateUtil.getStartOfDay(DateUtil.adjustDate(toDay, 1, DurationUnit.DAYS)));
+			for (Date day : days) {
+				Long count = loaded.get(day);
+				clinicCounts.put(day, count != null ? count : 0L);
+			}
+		}
+
+		Map<Date, Long> ret = new LinkedHashMap<Date, Long>();
+		for (Date day : days) {
+			Long count = clinicCounts.get(day);
+			ret.put(day, count != null ? count : 0L);
+		}
+		return ret;
+	}
+
+	/**
+	 * Discards all cached counts, e.g. after an encounter or obs has been changed
+	 */
+	public void invalidate() {
+		counts = new ConcurrentHashMap<Clinic, ConcurrentMap<Date, Long>>();
+	}
+
+	private ConcurrentMap<Date, Long> getClinicCounts(Clinic clinic) {
+		ConcurrentMap<Clinic, ConcurrentMap<Date, Long>> current = counts;
+		ConcurrentMap<Date, Long> clinicCounts = current.get(clinic);
+		if (clinicCounts == null) {
+			current.putIfAbsent(clinic, new ConcurrentHashMap<Date, Long>());
+			clinicCounts = current.get(clinic);
+		}
+		return clinicCounts;
+	}
+
+	/**
+	 * Counts the patients booked on each day in a range of appointment dates. The range is on the appointment date
+	 * itself rather than on a function of it, so that the obs value index can be used.
+	 * @param clinic the clinic
+	 * @param from the start of the range (inclusive)
+	 * @param to the end of the range (exclusive)
+	 * @return the map of the start of each day to its number of patients, for the days with bookings
+	 */
+	private Map<Date, Long> load(Clinic clinic, Date from, Date to) {
+		SqlQueryBuilder builder = new SqlQueryBuilder();
+		builder.append("select cast(o.value_datetime as date), count(distinct e.patient_id) from obs o");
+		builder.append(" inner join encounter e on e.encounter_id = o.encounter_id and e.voided = 0");
+		builder.append(" inner join encounter_type et on et.encounter_type_id = e.encounter_type and et.uuid in (:encounterTypes)");
+		builder.append(" where o.concept_id = :concept and o.voided = 0");
+		builder.append(" and o.value_datetime >= :fromDate and o.value_datetime < :toDate");
+		builder.append(" group by cast(o.value_datetime as date)");
+		builder.addParameter("encounterTypes", clinic.encounterTypeUuids);
+		builder.addParameter("concept", Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE).getConceptId());
+		builder.addParameter("fromDate", from);
+		builder.addParameter("toDate", to);
+
+		Map<Date, Long> ret = new LinkedHashMap<Date, Long>();
+		for (Object[] row : Context.getService(EvaluationService.class).evaluateToList(builder, new EvaluationContext())) {
+			ret.put(DateUtil.getStartOfDay((Date) row[0]), ((Number) row[1]).longValue());
+		}
+		log.debug("Loaded " + clinic + " bookings for " + ret.size() + " days");
+		return ret;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.visit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.ModuleFactory;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.reporting.common.DateUtil;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reportingcompatibility.service.ReportingCompatibilityService;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.stereotype.Component;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The patients scheduled for and seen on a day, as shown on the clinician, intake and registration home pages.
+ * Scheduled patients are found by a query on the dates of appointments and next appointment obs, rather than by
+ * evaluating a calculation over all patients, and their visits are fetched in batches rather than per patient.
+ */
+@Component
+public class DailySchedule {
+
+	protected static final Log log = LogFactory.getLog(DailySchedule.class);
+
+	private static final String APPOINTMENTS_MODULE_ID = "appointments";
+
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Gets the patients with an appointment or a next appointment date on a day
+	 * @param date the day
+	 * @return the patients
+	 */
+	public List<Patient> getScheduledPatients(Date date) {
+		Set<Integer> patientIds = getScheduledPatientIds(date);
+		if (patientIds.isEmpty()) {
+			return new ArrayList<Patient>();
+		}
+		return Context.getService(ReportingCompatibilityService.class).getPatients(patientIds);
+	}
+
+	/**
+	 * Gets the ids of the patients with an appointment or a next appointment date on a day
+	 * @param date the day
+	 * @return the patient ids
+	 */
+	public Set<Integer> getScheduledPatientIds(Date date) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		String from = format.format(DateUtil.getStartOfDay(date));
+		String to = format.format(DateUtil.getStartOfDay(DateUtil.adjustDate(date, 1, DurationUnit.DAYS)));
+		Integer returnVisitDate = Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE).getConceptId();
+
+		String sql = "select o.person_id from obs o" +
+				" inner join patient pt on pt.patient_id = o.person_id and pt.voided = 0" +
+				" where o.concept_id = " + returnVisitDate + " and o.voided = 0" +
+				" and o.value_datetime >= '" + from + "' and o.value_datetime < '" + to + "'";
+
+		// Appointments are only available once the appointments module has created its tables
+		if (ModuleFactory.isModuleStarted(APPOINTMENTS_MODULE_ID)) {
+			sql += " union select a.patient_id from patient_appointment a" +
+					" inner join patient pt on pt.patient_id = a.patient_id and pt.voided = 0" +
+					" where a.voided = 0 and a.status <> 'Cancelled'" +
+					" and a.start_date_time >= '" + from + "' and a.start_date_time < '" + to + "'";
+		}
+
+		Set<Integer> patientIds = new LinkedHashSet<Integer>();
+		Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		try {
+			for (List<Object> row : Context.getAdministrationService().executeSQL(sql, true)) {
+				patientIds.add(((Number) row.get(0)).intValue());
+			}
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		}
+		return patientIds;
+	}
+
+	/**
+	 * Gets the visits of patients which were active at any time on a day, as {@link
+	 * org.openmrs.module.kenyaemr.calculation.library.VisitsOnDayCalculation} does
+	 * @param patients the patients
+	 * @param date the day
+	 * @return the map of patient ids to visits, with an empty list for patients without visits
+	 */
+	public Map<Integer, List<Visit>> getVisitsOnDay(Collection<Patient> patients, Date date) {
+		Date startOfDay = DateUtil.getStartOfDay(date);
+		Date endOfDay = DateUtil.getEndOfDay(date);
+
+		Map<Integer, List<Visit>> ret = new HashMap<Integer, List<Visit>>();
+		for (Patient patient : patients) {
+			ret.put(patient.getPatientId(), new ArrayList<Visit>());
+		}
+
+		// An empty list of patients would match the visits of all patients
+		List<Patient> all = new ArrayList<Patient>(patients);
+		for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+			List<Patient> batch = all.subList(from, Math.min(from + BATCH_SIZE, all.size()));
+			for (Visit visit : Context.getVisitService().getVisits(null, batch, null, null, null, endOfDay, startOfDay, null, null, true, false)) {
+				ret.get(visit.getPatient().getPatientId()).add(visit);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the patients seen on a day, i.e. those with visits which started on that day
+	 * @param date the day
+	 * @return the map of patients to their visits which started on that day, in the order the visits are returned
+	 */
+	public Map<Patient, List<Visit>> getSeenPatients(Date date) {
+		Date startOfDay = DateUtil.getStartOfDay(date);
+		Date endOfDay = DateUtil.getEndOfDay(date);
+
+		Map<Patient, List<Visit>> ret = new LinkedHashMap<Patient, List<Visit>>();
+		for (Visit visit : Context.getVisitService().getVisits(null, null, null, null, startOfDay, endOfDay, null, null, null, true, true)) {
+			if (visit.getPatient().isVoided()) {
+				continue;
+			}
+			List<Visit> visits = ret.get(visit.getPatient());
+			if (visits == null) {
+				visits = new ArrayList<Visit>();
+				ret.put(visit.getPatient(), visits);
+			}
+			visits.add(visit);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.PatientProgram;
+import org.openmrs.Person;
+import org.openmrs.Program;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.ObsService;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.PersonService;
+import org.openmrs.api.ProgramWorkflowService;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests for {@link PatientFlagCacheAdvice}
+ */
+public class PatientFlagCacheAdviceTest {
+
+	private PatientFlagEvaluator evaluator;
+
+	private PatientFlagCacheAdvice advice;
+
+	private Patient patient;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		evaluator = mock(PatientFlagEvaluator.class);
+		advice = new PatientFlagCacheAdvice() {
+			@Override
+			protected PatientFlagEvaluator getFlagEvaluator() {
+				return evaluator;
+			}
+		};
+		patient = new Patient();
+		patient.setUuid("patient-uuid");
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldInvalidateFlagsDependingOnEncounterTypeAndObsConcepts() throws Throwable {
+		Encounter encounter = new Encounter();
+		encounter.setPatient(patient);
+		encounter.setEncounterType(new EncounterType());
+		encounter.getEncounterType().setUuid("encounter-type-uuid");
+		encounter.addObs(newObs("concept-uuid"));
+
+		advice.afterReturning(encounter, EncounterService.class.getMethod("saveEncounter", Encounter.class), new Object[] { encounter }, null);
+
+		verify(evaluator).invalidate("patient-uuid", new HashSet<String>(Collections.singletonList("encounter-type-uuid")), new HashSet<String>(Collections.singletonList("concept-uuid")), null);
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldInvalidateFlagsDependingOnObsConcept() throws Throwable {
+		Obs obs = newObs("concept-uuid");
+
+		advice.afterReturning(null, ObsService.class.getMethod("voidObs", Obs.class, String.class), new Object[] { obs, "Test" }, null);
+
+		verify(evaluator).invalidate("patient-uuid", null, Collections.singletonList("concept-uuid"), null);
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldInvalidateFlagsDependingOnEnrolledProgram() throws Throwable {
+		PatientProgram enrollment = new PatientProgram();
+		enrollment.setPatient(patient);
+		enrollment.setProgram(new Program());
+		enrollment.getProgram().setUuid("program-uuid");
+
+		advice.afterReturning(enrollment, ProgramWorkflowService.class.getMethod("savePatientProgram", PatientProgram.class), new Object[] { enrollment }, null);
+
+		verify(evaluator).invalidate("patient-uuid", null, null, Collections.singletonList("program-uuid"));
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldInvalidateAllFlagsWhenPatientOrPersonChanges() throws Throwable {
+		advice.afterReturning(patient, PatientService.class.getMethod("savePatient", Patient.class), new Object[] { patient }, null);
+		verify(evaluator).invalidateAll("patient-uuid");
+
+		Person person = new Person();
+		person.setUuid("person-uuid");
+		advice.afterReturning(person, PersonService.class.getMethod("savePerson", Person.class), new Object[] { person }, null);
+		verify(evaluator).invalidateAll("person-uuid");
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldIgnoreMethodsWhichDontModifyData() throws Throwable {
+		advice.afterReturning(patient, PatientService.class.getMethod("getPatientByUuid", String.class), new Object[] { "patient-uuid" }, null);
+		advice.afterReturning(null, PatientService.class.getMethod("getAllPatients"), new Object[0], null);
+
+		verifyZeroInteractions(evaluator);
+	}
+
+	/**
+	 * @see PatientFlagCacheAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Test
+	public void afterReturning_shouldNotFailTheSaveIfInvalidationFails() throws Throwable {
+		doThrow(new IllegalStateException("Test failure")).when(evaluator).invalidateAll("patient-uuid");
+
+		advice.afterReturning(patient, PatientService.class.getMethod("savePatient", Patient.class), new Object[] { patient }, null);
+		verify(evaluator).invalidateAll("patient-uuid");
+	}
+
+	private Obs newObs(String conceptUuid) {
+		Obs obs = new Obs();
+		obs.setPerson(patient);
+		obs.setConcept(new Concept());
+		obs.getConcept().setUuid(conceptUuid);
+		return obs;
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculation;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.calculation.result.SimpleResult;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link CalculationMemo}
+ */
+public class CalculationMemoTest extends BaseModuleContextSensitiveTest {
+
+	/**
+	 * The number of times each test calculation has been evaluated, by label
+	 */
+	private static final ConcurrentMap<String, AtomicInteger> evaluations = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private CalculationMemo memo;
+
+	private PatientCalculationContext context;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		evaluations.clear();
+
+		memo = new CalculationMemo();
+		context = Context.getService(PatientCalculationService.class).createCalculationContext();
+		memo.attach(context);
+	}
+
+	/**
+	 * @see CalculationMemo#evaluate(org.openmrs.calculation.patient.PatientCalculation, java.util.Collection, org.openmrs.calculation.patient.PatientCalculationContext)
+	 */
+	@Test
+	public void evaluate_shouldEvaluateCalculationOnce() {
+		List<Integer> cohort = Arrays.asList(2, 6, 7);
+
+		CalculationResultMap first = memo.evaluate(new CountingCalculation("test"), cohort, context);
+		CalculationResultMap second = memo.evaluate(new CountingCalculation("test"), Arrays.asList(7, 6, 2), context);
+
+		Assert.assertThat(evaluations("test"), is(1));
+		Assert.assertThat(second, sameInstance(first));
+		Assert.assertThat(CalculationMemo.forContext(context), sameInstance(memo));
+	}
+
+	/**
+	 * @see CalculationMemo#evaluate(org.openmrs.calculation.patient.PatientCalculation, java.util.Collection, java.util.Map, org.openmrs.calculation.patient.PatientCalculationContext)
+	 */
+	@Test
+	public void evaluate_shouldNotShareResultsOfDifferentConfigurationsOrParameters() {
+		List<Integer> cohort = Arrays.asList(2, 6, 7);
+
+		memo.evaluate(new CountingCalculation("a"), cohort, context);
+		memo.evaluate(new CountingCalculation("b"), cohort, context);
+		Assert.assertThat(evaluations("a"), is(1));
+		Assert.assertThat(evaluations("b"), is(1));
+
+		memo.evaluate(new CountingCalculation("c"), cohort, Collections.<String, Object>singletonMap("months", 3), context);
+		memo.evaluate(new CountingCalculation("c"), cohort, Collections.<String, Object>singletonMap("months", 6), context);
+		memo.evaluate(new CountingCalculation("c"), cohort, Collections.<String, Object>singletonMap("months", 6), context);
+		Assert.assertThat(evaluations("c"), is(2));
+	}
+
+	/**
+	 * @see CalculationMemo#evaluate(org.openmrs.calculation.patient.PatientCalculation, java.util.Collection, org.openmrs.calculation.patient.PatientCalculationContext)
+	 */
+	@Test
+	public void evaluate_shouldOnlyShareResultsAcrossSessionsIfTheyArePlainValues() throws Exception {
+		final List<Integer> cohort = Arrays.asList(2, 6, 7);
+
+		memo.evaluate(new CountingCalculation("plain"), cohort, context);
+		memo.evaluate(new CountingCalculation("objects", false), cohort, context);
+		memo.evaluate(new CountingCalculation("objects", false), cohort, context);
+		Assert.assertThat(evaluations("plain"), is(1));
+		Assert.assertThat(evaluations("objects"), is(1));
+
+		// A pooled task has its own session, so can only use the plain values
+		EvaluationExecutor.getInstance().submit(new Callable<Void>() {
+			@Override
+			public Void call() {
+				memo.evaluate(new CountingCalculation("plain"), cohort, context);
+				memo.evaluate(new CountingCalculation("objects", false), cohort, context);
+				return null;
+			}
+		}).get();
+		Assert.assertThat(evaluations("plain"), is(1));
+		Assert.assertThat(evaluations("objects"), is(2));
+	}
+
+	/**
+	 * @see CalculationMemo#evaluateConcurrently(java.util.Collection, java.util.Collection, org.openmrs.calculation.patient.PatientCalculationContext)
+	 */
+	@Test
+	public void evaluateConcurrently_shouldSkipSmallCohorts() {
+		List<Integer> cohort = cohort(CalculationMemo.MIN_CONCURRENT_COHORT_SIZE - 1);
+
+		memo.evaluateConcurrently(Arrays.<PatientCalculation>asList(new CountingCalculation("small")), cohort, context);
+		Assert.assertThat(evaluations("small"), is(0));
+
+		// Left to be evaluated when requested
+		memo.evaluate(new CountingCalculation("small"), cohort, context);
+		Assert.assertThat(evaluations("small"), is(1));
+	}
+
+	/**
+	 * @see CalculationMemo#evaluateConcurrently(java.util.Collection, java.util.Collection, org.openmrs.calculation.patient.PatientCalculationContext)
+	 */
+	@Test(timeout = 60000)
+	public void evaluateConcurrently_shouldNotBlockWhenWorkersRequestCalculations() {
+		List<Integer> cohort = cohort(CalculationMemo.MIN_CONCURRENT_COHORT_SIZE);
+
+		// More calculations than pooled threads, which all depend on the same calculation
+		List<PatientCalculation> calculations = new ArrayList<PatientCalculation>();
+		for (int i = 0; i < 8; i++) {
+			calculations.add(new DependentCalculation("dependent" + i));
+		}
+		memo.evaluateConcurrently(calculations, cohort, context);
+
+		for (int i = 0; i < 8; i++) {
+			Assert.assertThat(evaluations("dependent" + i), is(1));
+			Assert.assertThat(evaluations("nested" + i), is(1));
+		}
+		Assert.assertThat(evaluations("shared"), is(1));
+
+		// Results are plain values so they are used by this thread too
+		memo.evaluate(new DependentCalculation("dependent0"), cohort, context);
+		Assert.assertThat(evaluations("dependent0"), is(1));
+	}
+
+	private static int evaluations(String label) {
+		AtomicInteger count = evaluations.get(label);
+		return count != null ? count.get() : 0;
+	}
+
+	private static List<Integer> cohort(int size) {
+		List<Integer> cohort = new ArrayList<Integer>();
+		for (int id = 1; id <= size; id++) {
+			cohort.add(id);
+		}
+		return cohort;
+	}
+
+	/**
+	 * Counts its evaluations, and returns plain values or objects for each patient
+	 */
+	public static class CountingCalculation extends BaseEmrCalculation {
+
+		private String label;
+
+		private boolean plainValues;
+
+		public CountingCalculation(String label) {
+			this(label, true);
+		}
+
+		public CountingCalculation(String label, boolean plainValues) {
+			this.label = label;
+			this.plainValues = plainValues;
+		}
+
+		@Override
+		public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
+			evaluations.putIfAbsent(label, new AtomicInteger());
+			evaluations.get(label).incrementAndGet();
+
+			CalculationResultMap ret = new CalculationResultMap();
+			for (Integer ptId : cohort) {
+				ret.put(ptId, new SimpleResult(plainValues ? Boolean.TRUE : new Object(), this, context));
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Depends on a calculation shared with other instances, and requests concurrent evaluation of another one as the
+	 * flag calculations do
+	 */
+	public static class DependentCalculation extends BaseEmrCalculation {
+
+		private String label;
+
+		public DependentCalculation(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
+			evaluations.putIfAbsent(label, new AtomicInteger());
+			evaluations.get(label).incrementAndGet();
+
+			String nested = label.replace("dependent", "nested");
+			calculateConcurrently(cohort, context, new CountingCalculation(nested));
+			calculate(new CountingCalculation(nested), cohort, context);
+			CalculationResultMap shared = calculate(new CountingCalculation("shared"), cohort, context);
+
+			CalculationResultMap ret = new CalculationResultMap();
+			for (Integer ptId : cohort) {
+				ret.put(ptId, new SimpleResult(shared.get(ptId) != null, this, context));
+			}
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Obs;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.openmrs.ui.framework.SimpleObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link CarePanelEvaluator}
+ */
+public class CarePanelEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	/**
+	 * @see CarePanelEvaluator#reloadObs(java.util.Map)
+	 */
+	@Test
+	public void reloadObs_shouldReplaceObsWithThoseOfTheCurrentSession() {
+		// An obs evicted from the session stands in for one loaded by a pooled session which is now closed
+		Obs detached = Context.getObsService().getObs(7);
+		Context.evictFromSession(detached);
+
+		SimpleObject tbPanel = new SimpleObject();
+		tbPanel.put("tbTreatmentNumber", detached);
+		Map<String, SimpleObject> panels = new HashMap<String, SimpleObject>();
+		panels.put("TB", tbPanel);
+
+		CarePanelEvaluator.reloadObs(panels);
+
+		Obs reloaded = (Obs) panels.get("TB").get("tbTreatmentNumber");
+		Assert.assertThat(reloaded, not(sameInstance(detached)));
+		Assert.assertThat(reloaded, sameInstance(Context.getObsService().getObs(7)));
+	}
+
+	/**
+	 * @see CarePanelEvaluator#reloadObs(java.util.Map)
+	 */
+	@Test
+	public void reloadObs_shouldLeaveOtherValuesAsTheyAre() {
+		SimpleObject tbPanel = new SimpleObject();
+		tbPanel.put("tbTreatmentNumber", "None");
+		tbPanel.put("lastTbEncounter", null);
+		Map<String, SimpleObject> panels = new HashMap<String, SimpleObject>();
+		panels.put("TB", tbPanel);
+
+		CarePanelEvaluator.reloadObs(panels);
+
+		Assert.assertThat(panels.get("TB").get("tbTreatmentNumber"), is((Object) "None"));
+		Assert.assertThat(panels.get("TB").containsKey("lastTbEncounter"), is(true));
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.module.kenyacore.test.TestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PatientFlagCacheEntry}
+ */
+public class PatientFlagCacheEntryTest {
+
+	/**
+	 * @see PatientFlagCacheEntry#isValid(String)
+	 */
+	@Test
+	public void isValid_shouldOnlyBeTrueForEvaluatedFlagsWhichAreNotInvalidated() {
+		PatientFlagCacheEntry entry = new PatientFlagCacheEntry(Collections.singletonMap("Flag1", "Message"), Arrays.asList("Flag1", "Flag2"), TestUtils.date(2022, 3, 15));
+
+		Assert.assertThat(entry.isValid("Flag1"), is(true));
+		Assert.assertThat(entry.isValid("Flag2"), is(true));
+		Assert.assertThat(entry.isValid("Flag3"), is(false));
+
+		entry.invalidate("Flag2", TestUtils.date(2022, 3, 16));
+		Assert.assertThat(entry.isValid("Flag1"), is(true));
+		Assert.assertThat(entry.isValid("Flag2"), is(false));
+	}
+
+	/**
+	 * @see PatientFlagCacheEntry#retainInvalidations(PatientFlagCacheEntry, java.util.Date)
+	 */
+	@Test
+	public void retainInvalidations_shouldOnlyCopyInvalidationsOnOrAfterDate() {
+		PatientFlagCacheEntry current = new PatientFlagCacheEntry(Collections.<String, String>emptyMap(), Arrays.asList("Flag1", "Flag2", "Flag3"), TestUtils.date(2022, 3, 15));
+		current.invalidate("Flag1", TestUtils.date(2022, 3, 15, 9, 0, 0));
+		current.invalidate("Flag2", TestUtils.date(2022, 3, 15, 10, 0, 0));
+		current.invalidate("Flag3", TestUtils.date(2022, 3, 15, 11, 0, 0));
+
+		PatientFlagCacheEntry entry = new PatientFlagCacheEntry(Collections.<String, String>emptyMap(), Arrays.asList("Flag1", "Flag2", "Flag3"), TestUtils.date(2022, 3, 15));
+		entry.retainInvalidations(current, TestUtils.date(2022, 3, 15, 10, 0, 0));
+
+		Assert.assertThat(entry.isValid("Flag1"), is(true));
+		Assert.assertThat(entry.isValid("Flag2"), is(false));
+		Assert.assertThat(entry.isValid("Flag3"), is(false));
+	}
+
+	/**
+	 * @see PatientFlagCacheEntry#PatientFlagCacheEntry(java.util.Map, java.util.Collection, java.util.Date)
+	 */
+	@Test
+	public void PatientFlagCacheEntry_shouldCopyFlags() {
+		Map<String, String> flags = new HashMap<String, String>();
+		flags.put("Flag1", "Message");
+		PatientFlagCacheEntry entry = new PatientFlagCacheEntry(flags, Collections.singletonList("Flag1"), TestUtils.date(2022, 3, 15));
+		flags.clear();
+
+		Assert.assertThat(entry.getFlags().get("Flag1"), is("Message"));
+		Assert.assertThat(entry.getLastUpdated(), is(TestUtils.date(2022, 3, 15)));
+	}
+}
@@ -0,0 +1,344 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyacore.calculation.AbstractPatientCalculation;
+import org.openmrs.module.kenyacore.calculation.BooleanResult;
+import org.openmrs.module.kenyacore.calculation.CalculationManager;
+import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PatientFlagEvaluator}
+ */
+public class PatientFlagEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private EvaluationExecutor executor;
+
+	private TestFlagEvaluator evaluator;
+
+	private List<Patient> patients;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		EvenPatientFlagCalculation.cohorts.clear();
+		EvenPatientFlagCalculation.onEvaluate = null;
+		NamedPatientFlagCalculation.cohorts.clear();
+		NamedPatientFlagCalculation.sessions.clear();
+
+		CalculationManager calculationManager = mock(CalculationManager.class);
+		when(calculationManager.getFlagCalculations()).thenReturn(Arrays.<PatientFlagCalculation>asList(
+				new EvenPatientFlagCalculation(), new NamedPatientFlagCalculation()
+		));
+
+		evaluator = new TestFlagEvaluator();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(evaluator);
+		ReflectionTestUtils.setField(evaluator, "calculationManager", calculationManager);
+
+		patients = Arrays.asList(TestUtils.getPatient(2), TestUtils.getPatient(6), TestUtils.getPatient(7), TestUtils.getPatient(8));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldEvaluateEachCalculationOnceOverAllPatients() throws Exception {
+		Map<Integer, Map<String, String>> flags = getFlags(patients);
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(1));
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts.get(0), is((Collection<Integer>) new HashSet<Integer>(Arrays.asList(2, 6, 7, 8))));
+
+		Assert.assertThat(flags.get(2), hasEntry("EvenPatientFlagCalculation", "Even"));
+		Assert.assertThat(flags.get(2), hasEntry("NamedPatientFlagCalculation", "Patient #2"));
+		Assert.assertThat(flags.get(7).size(), is(1));
+		Assert.assertThat(flags.get(7), hasEntry("NamedPatientFlagCalculation", "Patient #7"));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldEvaluateSinglePatientCalculationsOnePatientAtATime() throws Exception {
+		getFlags(patients);
+
+		Assert.assertThat(NamedPatientFlagCalculation.cohorts, hasSize(4));
+		for (Collection<Integer> cohort : NamedPatientFlagCalculation.cohorts) {
+			Assert.assertThat(cohort.size(), is(1));
+		}
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldBatchSinglePatientCalculationsPerPooledThread() {
+		EvaluationExecutor twoThreads = new EvaluationExecutor(2);
+		ReflectionTestUtils.setField(evaluator, "executor", twoThreads);
+		try {
+			Map<Integer, Map<String, String>> flags = evaluator.getFlags(patients);
+
+			// Two batches of two patients, rather than a pooled task per patient
+			Assert.assertThat(NamedPatientFlagCalculation.cohorts, hasSize(4));
+			Assert.assertThat(new HashSet<Object>(NamedPatientFlagCalculation.sessions), hasSize(2));
+			Assert.assertThat(flags.get(8), hasEntry("NamedPatientFlagCalculation", "Patient #8"));
+		}
+		finally {
+			twoThreads.destroy();
+		}
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldOnlyEvaluateFlagsOfPatientsWhichAreNotCached() throws Exception {
+		getFlags(patients.subList(0, 2));
+		Map<Integer, Map<String, String>> flags = getFlags(patients);
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(2));
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts.get(1), is((Collection<Integer>) new HashSet<Integer>(Arrays.asList(7, 8))));
+		Assert.assertThat(flags.get(6), hasEntry("EvenPatientFlagCalculation", "Even"));
+		Assert.assertThat(flags.get(8), hasEntry("EvenPatientFlagCalculation", "Even"));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldNotCacheFlagsOfPatientWhoseDataChangedDuringEvaluation() throws Exception {
+		final String uuid = TestUtils.getPatient(2).getUuid();
+		EvenPatientFlagCalculation.onEvaluate = new Runnable() {
+			@Override
+			public void run() {
+				evaluator.invalidate(uuid, null, Collections.singletonList("5089AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), null);
+			}
+		};
+		getFlags(patients);
+
+		Assert.assertThat(evaluator.cache.get(uuid), nullValue());
+		Assert.assertThat(evaluator.cache.get(TestUtils.getPatient(6).getUuid()), notNullValue());
+
+		// Once no evaluation is in progress, the change is forgotten and the next evaluation is cached
+		EvenPatientFlagCalculation.onEvaluate = null;
+		getFlags(patients);
+		Assert.assertThat(evaluator.cache.get(uuid), notNullValue());
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#getFlags(java.util.Collection)
+	 */
+	@Test
+	public void getFlags_shouldKeepInvalidationsMadeDuringEvaluation() throws Exception {
+		getFlags(patients);
+
+		final String uuid = TestUtils.getPatient(2).getUuid();
+		evaluator.invalidate(uuid, null, Collections.singletonList("5089AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), null);
+		EvenPatientFlagCalculation.onEvaluate = new Runnable() {
+			@Override
+			public void run() {
+				evaluator.invalidate(uuid, null, Collections.singletonList("5089AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), null);
+			}
+		};
+		getFlags(patients);
+
+		EvenPatientFlagCalculation.onEvaluate = null;
+		getFlags(patients);
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(3));
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts.get(2), is((Collection<Integer>) new HashSet<Integer>(Collections.singletonList(2))));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#invalidate(String, java.util.Collection, java.util.Collection, java.util.Collection)
+	 */
+	@Test
+	public void invalidate_shouldOnlyInvalidateFlagsWhichDependOnTheChangedData() throws Exception {
+		getFlags(patients);
+
+		evaluator.invalidate(TestUtils.getPatient(2).getUuid(), null, Collections.singletonList("5089AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), null);
+		evaluator.invalidate(TestUtils.getPatient(6).getUuid(), null, null, Collections.singletonList("dfdc6d40-2f2f-463d-ba90-cc97350441a8"));
+		Map<Integer, Map<String, String>> flags = getFlags(patients);
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(2));
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts.get(1), is((Collection<Integer>) new HashSet<Integer>(Collections.singletonList(2))));
+		Assert.assertThat(NamedPatientFlagCalculation.cohorts, hasSize(5));
+		Assert.assertThat(NamedPatientFlagCalculation.cohorts.get(4), is((Collection<Integer>) Collections.singletonList(6)));
+		Assert.assertThat(flags.get(2), hasEntry("EvenPatientFlagCalculation", "Even"));
+		Assert.assertThat(flags.get(2), hasEntry("NamedPatientFlagCalculation", "Patient #2"));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#invalidate(String, java.util.Collection, java.util.Collection, java.util.Collection)
+	 */
+	@Test
+	public void invalidate_shouldIgnoreChangesNoFlagDependsOn() throws Exception {
+		getFlags(patients);
+
+		evaluator.invalidate(TestUtils.getPatient(2).getUuid(), Collections.singletonList("unrelated-encounter-type"), null, null);
+		getFlags(patients);
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(1));
+		Assert.assertThat(NamedPatientFlagCalculation.cohorts, hasSize(4));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#invalidateAll(String)
+	 */
+	@Test
+	public void invalidateAll_shouldInvalidateAllFlagsOfPatient() throws Exception {
+		getFlags(patients);
+
+		evaluator.invalidateAll(TestUtils.getPatient(7).getUuid());
+		Assert.assertThat(evaluator.cache.get(TestUtils.getPatient(7).getUuid()), nullValue());
+		getFlags(patients);
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(2));
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts.get(1), is((Collection<Integer>) new HashSet<Integer>(Collections.singletonList(7))));
+		Assert.assertThat(NamedPatientFlagCalculation.cohorts, hasSize(5));
+	}
+
+	/**
+	 * @see PatientFlagEvaluator#evaluate(java.util.Collection, java.util.Collection)
+	 */
+	@Test
+	public void evaluate_shouldNotUseTheFlagCache() throws Exception {
+		getFlags(patients);
+
+		Map<Integer, Map<String, String>> flags = executor.callSerially(new Callable<Map<Integer, Map<String, String>>>() {
+			@Override
+			public Map<Integer, Map<String, String>> call() {
+				return evaluator.evaluate(Arrays.asList(6, 7), Collections.<PatientFlagCalculation>singletonList(new EvenPatientFlagCalculation()));
+			}
+		});
+
+		Assert.assertThat(EvenPatientFlagCalculation.cohorts, hasSize(2));
+		Assert.assertThat(flags.get(6), hasEntry("EvenPatientFlagCalculation", "Even"));
+		Assert.assertThat(flags.get(7).isEmpty(), is(true));
+	}
+
+	/**
+	 * Gets flags with all calculations evaluated in the test's own session
+	 */
+	protected Map<Integer, Map<String, String>> getFlags(final Collection<Patient> patients) throws Exception {
+		return executor.callSerially(new Callable<Map<Integer, Map<String, String>>>() {
+			@Override
+			public Map<Integer, Map<String, String>> call() {
+				return evaluator.getFlags(patients);
+			}
+		});
+	}
+
+	/**
+	 * Uses an in-memory flag cache
+	 */
+	static class TestFlagEvaluator extends PatientFlagEvaluator {
+
+		final Cache cache = new ConcurrentMapCache("test");
+
+		@Override
+		protected Cache getFlagCache() {
+			return cache;
+		}
+	}
+
+	/**
+	 * Flags patients with even ids
+	 */
+	@FlagDependencies(concepts = "5089AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA")
+	public static class EvenPatientFlagCalculation extends AbstractPatientCalculation implements PatientFlagCalculation {
+
+		static final List<Collection<Integer>> cohorts = Collections.synchronizedList(new ArrayList<Collection<Integer>>());
+
+		/**
+		 * Run during each evaluation, e.g. to change a patient's data while their flags are evaluated
+		 */
+		static volatile Runnable onEvaluate;
+
+		@Override
+		public String getFlagMessage() {
+			return "Even";
+		}
+
+		@Override
+		public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
+			cohorts.add(new HashSet<Integer>(cohort));
+			if (onEvaluate != null) {
+				onEvaluate.run();
+			}
+			CalculationResultMap ret = new CalculationResultMap();
+			for (Integer patientId : cohort) {
+				ret.put(patientId, new BooleanResult(patientId % 2 == 0, this));
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Flags every patient with a message naming them
+	 */
+	@FlagDependencies(programs = "dfdc6d40-2f2f-463d-ba90-cc97350441a8")
+	public static class NamedPatientFlagCalculation extends AbstractPatientCalculation implements SinglePatientFlagCalculation {
+
+		static final List<Collection<Integer>> cohorts = Collections.synchronizedList(new ArrayList<Collection<Integer>>());
+
+		static final List<Object> sessions = Collections.synchronizedList(new ArrayList<Object>());
+
+		private String message;
+
+		@Override
+		public String getFlagMessage() {
+			return message;
+		}
+
+		@Override
+		public CalculationResultMap evaluate(Collection<Integer> cohort, Map<String, Object> parameterValues, PatientCalculationContext context) {
+			cohorts.add(new ArrayList<Integer>(cohort));
+			sessions.add(EvaluationExecutor.getSessionToken());
+			CalculationResultMap ret = new CalculationResultMap();
+			for (Integer patientId : cohort) {
+				message = "Patient #" + patientId;
+				ret.put(patientId, new BooleanResult(true, this));
+			}
+			return ret;
+		}
+	}
+}
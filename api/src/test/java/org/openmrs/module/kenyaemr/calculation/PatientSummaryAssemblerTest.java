@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.calculation.library.DeceasedPatientsCalculation;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link PatientSummaryAssembler}
+ */
+public class PatientSummaryAssemblerTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Autowired
+	private HivMetadata hivMetadata;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		executeDataSet("dataset/test-concepts.xml");
+		commonMetadata.install();
+		hivMetadata.install();
+	}
+
+	/**
+	 * @see PatientSummaryAssembler#firstObs(String)
+	 * @see PatientSummaryAssembler#lastObs(String)
+	 * @see PatientSummaryAssembler#allObs(String)
+	 */
+	@Test
+	public void obs_shouldBeOrderedByDateAndExcludeVoidedAndFutureObs() {
+		Patient patient = TestUtils.getPatient(6);
+		Concept weight = Dictionary.getConcept(Dictionary.WEIGHT_KG);
+
+		Obs obs1 = TestUtils.saveObs(patient, weight, 60.0, TestUtils.date(2014, 3, 1));
+		Obs obs2 = TestUtils.saveObs(patient, weight, 70.0, TestUtils.date(2014, 1, 1));
+		Obs obs3 = TestUtils.saveObs(patient, weight, 65.0, TestUtils.date(2014, 2, 1));
+		Context.getObsService().voidObs(obs3, "Test");
+		TestUtils.saveObs(patient, weight, 80.0, TestUtils.date(2014, 5, 1));
+
+		PatientSummaryAssembler summary = new PatientSummaryAssembler(patient, TestUtils.date(2014, 4, 1));
+
+		Assert.assertThat(summary.firstObs(Dictionary.WEIGHT_KG), is(obs2));
+		Assert.assertThat(summary.lastObs(Dictionary.WEIGHT_KG), is(obs1));
+
+		List<Obs> all = summary.allObs(Dictionary.WEIGHT_KG);
+		Assert.assertThat(all.size(), is(2));
+		Assert.assertThat(all.get(0), is(obs2));
+		Assert.assertThat(all.get(1), is(obs1));
+
+		// Modifying the returned list doesn't affect the summary
+		all.clear();
+		Assert.assertThat(summary.allObs(Dictionary.WEIGHT_KG).size(), is(2));
+	}
+
+	/**
+	 * @see PatientSummaryAssembler#lastObs(String)
+	 */
+	@Test
+	public void lastObs_shouldLoadConceptsWhichAreNotPartOfTheSummary() {
+		Patient patient = TestUtils.getPatient(6);
+		Concept cd4Percent = Dictionary.getConcept(Dictionary.CD4_PERCENT);
+		Obs obs = TestUtils.saveObs(patient, cd4Percent, 20.0, TestUtils.date(2014, 1, 1));
+
+		PatientSummaryAssembler summary = new PatientSummaryAssembler(patient);
+
+		Assert.assertThat(summary.lastObs(Dictionary.CD4_PERCENT), is(obs));
+		Assert.assertThat(summary.lastObs(Dictionary.HEIGHT_CM), is(nullValue()));
+	}
+
+	/**
+	 * @see PatientSummaryAssembler#calculate(Class)
+	 */
+	@Test
+	public void calculate_shouldEvaluateEachCalculationOnce() {
+		PatientSummaryAssembler summary = new PatientSummaryAssembler(TestUtils.getPatient(6), new Date());
+
+		Assert.assertThat(summary.calculate(DeceasedPatientsCalculation.class), sameInstance(summary.calculate(DeceasedPatientsCalculation.class)));
+		Assert.assertThat((Boolean) summary.calculate(DeceasedPatientsCalculation.class).getValue(), is(false));
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation.library.surveillance;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link IdsrScreening}
+ */
+public class IdsrScreeningTest {
+
+	/**
+	 * @see IdsrScreening#getSuspectedConditions()
+	 */
+	@Test
+	public void getSuspectedConditions_shouldSuggestIliOrSariDependingOnAdmission() {
+		IdsrScreening.Findings findings = findings(true, IdsrCondition.FEVER, IdsrCondition.COUGH);
+		findings.addObs(IdsrScreening.DURATION, null, 3.0, true);
+
+		Assert.assertThat(new IdsrScreening(30, 38.2, false, Arrays.asList(findings)).getSuspectedConditions(), is(EnumSet.of(IdsrCondition.ILI)));
+		Assert.assertThat(new IdsrScreening(30, 38.2, true, Arrays.asList(findings)).getSuspectedConditions(), is(EnumSet.of(IdsrCondition.SARI)));
+		Assert.assertThat(new IdsrScreening(30, 37.0, false, Arrays.asList(findings)).getSuspectedConditions().isEmpty(), is(true));
+		Assert.assertThat(new IdsrScreening(30, null, false, Arrays.asList(findings)).getSuspectedConditions().isEmpty(), is(true));
+	}
+
+	/**
+	 * @see IdsrScreening#getSuspectedConditions()
+	 */
+	@Test
+	public void getSuspectedConditions_shouldOnlyConsiderEncountersRecordedToday() {
+		IdsrScreening.Findings today = findings(true, IdsrCondition.BLOOD_IN_STOOL, IdsrCondition.DIARRHEA);
+		IdsrScreening.Findings earlier = findings(false, IdsrCondition.FEVER, IdsrCondition.BLEEDING_TENDENCIES);
+
+		Assert.assertThat(new IdsrScreening(30, null, false, Arrays.asList(today, earlier)).getSuspectedConditions(), is(EnumSet.of(IdsrCondition.DYSENTERY)));
+	}
+
+	/**
+	 * @see IdsrScreening#getSuspectedConditions()
+	 */
+	@Test
+	public void getSuspectedConditions_shouldApplyAgeLimits() {
+		IdsrScreening.Findings cholera = findings(true, IdsrCondition.VOMITING, IdsrCondition.WATERY_DIARRHEA);
+		IdsrScreening.Findings polio = findings(true, IdsrCondition.LIMBS_WEAKNESS);
+		polio.addObs(IdsrScreening.ONSET_QUESTION, IdsrCondition.SUDDEN_ONSET, null, true);
+
+		Assert.assertThat(new IdsrScreening(10, null, false, Arrays.asList(cholera, polio)).getSuspectedConditions(),
+				is(EnumSet.of(IdsrCondition.CHOLERA, IdsrCondition.POLIOMYELITIS)));
+		Assert.assertThat(new IdsrScreening(2, null, false, Arrays.asList(cholera)).getSuspectedConditions().isEmpty(), is(true));
+		Assert.assertThat(new IdsrScreening(20, null, false, Arrays.asList(polio)).getSuspectedConditions().isEmpty(), is(true));
+		Assert.assertThat(new IdsrScreening(null, null, false, Arrays.asList(cholera, polio)).getSuspectedConditions().isEmpty(), is(true));
+	}
+
+	/**
+	 * @see IdsrScreening#getSuspectedConditions()
+	 */
+	@Test
+	public void getSuspectedConditions_shouldReadJaundiceFromTheExamination() {
+		IdsrScreening.Findings findings = findings(true, IdsrCondition.DIZZINESS, IdsrCondition.MALAISE, IdsrCondition.FEVER);
+		findings.addObs(IdsrScreening.DURATION, null, 4.0, true);
+		Assert.assertThat(new IdsrScreening(30, 38.0, false, Arrays.asList(findings)).getSuspectedConditions().isEmpty(), is(true));
+
+		findings.addObs(IdsrScreening.SCREENING_QUESTION_EXAMINATION, IdsrCondition.JAUNDICE, null, true);
+		Assert.assertThat(new IdsrScreening(30, 38.0, false, Arrays.asList(findings)).getSuspectedConditions(), is(EnumSet.of(IdsrCondition.RIFT_VALLEY_FEVER)));
+	}
+
+	private static IdsrScreening.Findings findings(boolean today, String... symptoms) {
+		IdsrScreening.Findings findings = new IdsrScreening.Findings();
+		for (String symptom : symptoms) {
+			findings.addObs(IdsrScreening.SCREENING_QUESTION, symptom, null, today);
+		}
+		return findings;
+	}
+}
@@ -103,4 +103,18 @@ public class EmrVelocityFunctionsTest extends BaseModuleContextSensitiveTest {
 		// Check no exception for non-existent
 		Assert.assertThat(functionsForSession1.getGlobalProperty("xxx.xxx"), is(nullValue()));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @see EmrVelocityFunctions#getGlobalProperty(String)
+	 */
+	@Test
+	public void getGlobalProperty_shouldLookUpEachPropertyOncePerSession() {
+		Assert.assertThat(functionsForSession1.getGlobalProperty("xxx.xxx"), is(nullValue()));
+
+		Context.getAdministrationService().saveGlobalProperty(new GlobalProperty("xxx.xxx", "test"));
+
+		// Session #1 has already looked up the property, session #2 hasn't
+		Assert.assertThat(functionsForSession1.getGlobalProperty("xxx.xxx"), is(nullValue()));
+		Assert.assertThat(functionsForSession2.getGlobalProperty("xxx.xxx"), is("test"));
+	}
+}
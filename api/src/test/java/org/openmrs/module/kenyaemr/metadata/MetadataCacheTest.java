@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.module.metadatadeploy.MissingMetadataException;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link MetadataCache}
+ */
+public class MetadataCacheTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		executeDataSet("dataset/test-concepts.xml");
+		commonMetadata.install();
+		MetadataCache.warm();
+	}
+
+	/**
+	 * @see MetadataCache#existing(Class, String)
+	 */
+	@Test
+	public void existing_shouldFetchExistingMetadata() {
+		PatientIdentifierType expected = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.OPENMRS_ID);
+		Assert.assertThat(MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.OPENMRS_ID), is(expected));
+		Assert.assertThat(MetadataCache.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.OPENMRS_ID), is(expected));
+	}
+
+	/**
+	 * @see MetadataCache#existing(Class, String)
+	 */
+	@Test(expected = MissingMetadataException.class)
+	public void existing_shouldThrowExceptionForMissingMetadata() {
+		MetadataCache.existing(PatientIdentifierType.class, "invalid-uuid");
+	}
+
+	/**
+	 * @see MetadataCache#possible(Class, String)
+	 */
+	@Test
+	public void possible_shouldNotReturnMetadataWhichNoLongerHasUuid() {
+		PatientIdentifierType type = MetadataCache.patientIdentifierType(CommonMetadata._PatientIdentifierType.OPENMRS_ID);
+		type.setUuid("changed-uuid");
+		Context.getPatientService().savePatientIdentifierType(type);
+
+		Assert.assertThat(MetadataCache.possible(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.OPENMRS_ID), nullValue());
+		Assert.assertThat(MetadataCache.patientIdentifierType("changed-uuid"), is(type));
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata.sync;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.Location;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.api.LocationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.kenyaemr.wrapper.Facility;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link LocationMflIncrementalSync}
+ */
+public class LocationMflIncrementalSyncTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Autowired
+	private FacilityMetadata facilityMetadata;
+
+	@Autowired
+	private LocationService locationService;
+
+	@Autowired
+	private LocationMflIncrementalSync mflSync;
+
+	@Before
+	public void setup() throws Exception {
+		commonMetadata.install();
+		facilityMetadata.install(false); // Don't do full facility sync
+	}
+
+	/**
+	 * @see LocationMflIncrementalSync#sync(String)
+	 */
+	@Test
+	public void sync_shouldOnlyUpdateChangedLocations() throws Exception {
+		// First sync should create 3 new locations
+		LocationMflIncrementalSync.Result result = mflSync.sync("test-locations.csv");
+		Assert.assertThat(result.isSkipped(), is(false));
+		Assert.assertThat(result.getCreated(), is(3));
+		Assert.assertThat(result.getUpdated(), is(0));
+		Assert.assertThat(result.getRetired(), is(0));
+
+		Location location = Context.getService(KenyaEmrService.class).getLocationByMflCode("10001");
+		Assert.assertThat(location.getName(), is("Abel Migwi Johana Laboratory"));
+		Assert.assertThat(location.getCountyDistrict(), is("Kirinyaga"));
+
+		Location location1 = locationService.getLocation("Abdisamad Dispensary");
+		Facility facility1 = new Facility(location1);
+		Assert.assertThat(location1.getDescription(), is("Dispensary"));
+		Assert.assertThat(facility1.getMflCode(), is("17009"));
+		Assert.assertThat(facility1.getProvince(), is("North Eastern"));
+		Assert.assertThat(facility1.getCounty(), is("Garissa"));
+		Assert.assertThat(facility1.getDivision(), is("Sankuri"));
+		Assert.assertThat(facility1.getTelephoneLandline(), is("0462103570"));
+		Assert.assertThat(facility1.getTelephoneMobile(), nullValue());
+		Assert.assertThat(facility1.getPostCode(), is("70100"));
+
+		// Second sync should be skipped as the file is unchanged
+		Assert.assertThat(mflSync.sync("test-locations.csv").isSkipped(), is(true));
+
+		// Modify a location's name and force a sync
+		Location modified = locationService.getLocation("Abdisamad Dispensary");
+		modified.setName("Modified");
+		locationService.saveLocation(modified);
+		clearChecksum();
+
+		// Third sync should only reset the name of that location
+		result = mflSync.sync("test-locations.csv");
+		Assert.assertThat(result.getCreated(), is(0));
+		Assert.assertThat(result.getUpdated(), is(1));
+		Assert.assertThat(result.getRetired(), is(0));
+		Assert.assertThat(new Facility(locationService.getLocation("Abdisamad Dispensary")).getMflCode(), is("17009"));
+
+		// Modify a location's code so that it's no longer in the list
+		Location invalid = locationService.getLocation("Abdisamad Dispensary");
+		LocationAttributeType codeAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
+		invalid.getActiveAttributes(codeAttrType).get(0).setValue("66666");
+		locationService.saveLocation(invalid);
+		clearChecksum();
+
+		// Fourth sync should retire that location and re-create the one in the list
+		result = mflSync.sync("test-locations.csv");
+		Assert.assertThat(result.getCreated(), is(1));
+		Assert.assertThat(result.getUpdated(), is(0));
+		Assert.assertThat(result.getRetired(), is(1));
+
+		Context.flushSession();
+
+		// Check locations have only one code attribute max
+		for (Location loc : locationService.getAllLocations()) {
+			Assert.assertThat(loc.getActiveAttributes(codeAttrType).size(), lessThanOrEqualTo(1));
+		}
+	}
+
+	private void clearChecksum() {
+		GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(EmrConstants.GP_FACILITY_LIST_CHECKSUM);
+		gp.setPropertyValue("");
+		Context.getAdministrationService().saveGlobalProperty(gp);
+	}
+}
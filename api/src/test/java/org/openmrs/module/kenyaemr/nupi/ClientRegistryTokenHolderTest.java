@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ClientRegistryTokenHolder}
+ */
+public class ClientRegistryTokenHolderTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Before
+	public void setup() throws Exception {
+		commonMetadata.install();
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#getToken()
+	 */
+	@Test
+	public void getToken_shouldReuseTokenUntilItIsAboutToExpire() {
+		TestTokenHolder holder = new TestTokenHolder(60 * 60 * 1000L);
+
+		Assert.assertThat(holder.getToken(), is("token-1"));
+		Assert.assertThat(holder.getToken(), is("token-1"));
+		Assert.assertThat(holder.requests.get(), is(1));
+		Assert.assertThat(Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN), is("token-1"));
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#getToken()
+	 */
+	@Test
+	public void getToken_shouldRefreshTokenAheadOfExpiry() {
+		TestTokenHolder holder = new TestTokenHolder(30 * 1000L);
+
+		Assert.assertThat(holder.getToken(), is("token-1"));
+		Assert.assertThat(holder.getToken(), is("token-2"));
+		Assert.assertThat(holder.requests.get(), is(2));
+		Assert.assertThat(Context.getAdministrationService().getGlobalProperty(CommonMetadata.GP_CLIENT_VERIFICATION_API_TOKEN), is("token-2"));
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#invalidate(String)
+	 */
+	@Test
+	public void invalidate_shouldOnlyDiscardTheRejectedToken() {
+		TestTokenHolder holder = new TestTokenHolder(60 * 60 * 1000L);
+		Assert.assertThat(holder.getToken(), is("token-1"));
+
+		holder.invalidate("token-0");
+		Assert.assertThat(holder.getToken(), is("token-1"));
+
+		holder.invalidate("token-1");
+		Assert.assertThat(holder.getToken(), is("token-2"));
+		Assert.assertThat(holder.requests.get(), is(2));
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#parseToken(String, long)
+	 */
+	@Test
+	public void parseToken_shouldCalculateExpiryFromExpiresIn() throws Exception {
+		ClientRegistryTokenHolder.Token token = ClientRegistryTokenHolder.parseToken("{\"access_token\":\"abc\",\"expires_in\":3600,\"token_type\":\"Bearer\"}", 1000L);
+		Assert.assertThat(token.value, is("abc"));
+		Assert.assertThat(token.expiresAt, is(3601000L));
+
+		Assert.assertThat(ClientRegistryTokenHolder.parseToken("{\"error\":\"invalid_client\"}", 1000L) == null, is(true));
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#parseToken(String, long)
+	 */
+	@Test
+	public void parseToken_shouldAssumeDefaultLifetimeIfResponseAndTokenHaveNoExpiry() throws Exception {
+		ClientRegistryTokenHolder.Token token = ClientRegistryTokenHolder.parseToken("{\"access_token\":\"abc\",\"token_type\":\"Bearer\"}", 1000L);
+		Assert.assertThat(token.value, is("abc"));
+		Assert.assertThat(token.expiresAt, is(1000L + ClientRegistryTokenHolder.DEFAULT_LIFETIME));
+	}
+
+	/**
+	 * @see ClientRegistryTokenHolder#getToken()
+	 */
+	@Test
+	public void getToken_shouldReuseTokenWithNoExpiry() {
+		TestTokenHolder holder = new TestTokenHolder(0L) {
+			@Override
+			protected Token requestToken() throws IOException {
+				requests.incrementAndGet();
+				return parseToken("{\"access_token\":\"opaque-token\",\"token_type\":\"Bearer\"}", System.currentTimeMillis());
+			}
+		};
+
+		Assert.assertThat(holder.getToken(), is("opaque-token"));
+		Assert.assertThat(holder.getToken(), is("opaque-token"));
+		Assert.assertThat(holder.requests.get(), is(1));
+	}
+
+	/**
+	 * Issues numbered tokens which are valid for a fixed time, without calling the token URL
+	 */
+	private static class TestTokenHolder extends ClientRegistryTokenHolder {
+
+		final AtomicInteger requests = new AtomicInteger();
+
+		final long validFor;
+
+		TestTokenHolder(long validFor) {
+			this.validFor = validFor;
+		}
+
+		@Override
+		protected Token requestToken() throws IOException {
+			return new Token("token-" + requests.incrementAndGet(), System.currentTimeMillis() + validFor);
+		}
+	}
+}
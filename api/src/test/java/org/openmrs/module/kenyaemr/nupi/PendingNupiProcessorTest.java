@@ -0,0 +1,90 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.PersonAttribute;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.Program;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PendingNupiProcessor}
+ */
+public class PendingNupiProcessorTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Autowired
+	private HivMetadata hivMetadata;
+
+	@Before
+	public void setup() throws Exception {
+		commonMetadata.install();
+		hivMetadata.install();
+	}
+
+	/**
+	 * @see PendingNupiProcessor#getPendingPatientIds(int, int)
+	 */
+	@Test
+	public void getPendingPatientIds_shouldOnlyReturnPendingHivPatientsWithIdentificationDocuments() {
+		Program hivProgram = MetadataUtils.existing(Program.class, HivMetadata._Program.HIV);
+		PatientIdentifierType nationalId = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.NATIONAL_ID);
+		PatientIdentifierType nupi = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.NATIONAL_UNIQUE_PATIENT_IDENTIFIER);
+
+		for (int patientId : new int[] { 2, 6, 7, 8 }) {
+			TestUtils.enrollInProgram(TestUtils.getPatient(patientId), hivProgram, TestUtils.date(2012, 1, 1));
+		}
+
+		// #2 is pending and has a national ID, but already has a NUPI
+		TestUtils.savePatientIdentifier(TestUtils.getPatient(2), nationalId, "10000002");
+		TestUtils.savePatientIdentifier(TestUtils.getPatient(2), nupi, "MOH00000002");
+		setVerificationStatus(TestUtils.getPatient(2), "Pending");
+
+		// #6 is pending and has a national ID
+		TestUtils.savePatientIdentifier(TestUtils.getPatient(6), nationalId, "10000006");
+		setVerificationStatus(TestUtils.getPatient(6), " pending ");
+
+		// #7 is pending but has no identification document
+		setVerificationStatus(TestUtils.getPatient(7), "Pending");
+
+		// #8 has a national ID but is already verified
+		TestUtils.savePatientIdentifier(TestUtils.getPatient(8), nationalId, "10000008");
+		setVerificationStatus(TestUtils.getPatient(8), "Verified");
+
+		Context.flushSession();
+
+		PendingNupiProcessor processor = new PendingNupiProcessor(new StubClientRegistry(), 1, 10);
+		Assert.assertThat(processor.getPendingPatientIds(0, 10), is(Arrays.asList(6)));
+		Assert.assertThat(processor.getPendingPatientIds(6, 10).size(), is(0));
+	}
+
+	private static void setVerificationStatus(Patient patient, String status) {
+		PersonAttributeType type = MetadataUtils.existing(PersonAttributeType.class, CommonMetadata._PersonAttributeType.VERIFICATION_STATUS_WITH_NATIONAL_REGISTRY);
+		patient.addAttribute(new PersonAttribute(type, status));
+		Context.getPersonService().savePerson(patient);
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.nupi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ThrottledClientRegistry}
+ */
+public class ThrottledClientRegistryTest {
+
+	/**
+	 * @see ThrottledClientRegistry#findClient(String, String, String)
+	 */
+	@Test
+	public void findClient_shouldRetryWhenRegistryIsUnavailable() throws Exception {
+		StubClientRegistry stub = new StubClientRegistry();
+		stub.addClient("KE", ClientRegistry.NATIONAL_ID, "12345678", "MOH00000001");
+		FailingClientRegistry failing = new FailingClientRegistry(stub, 2, 503);
+
+		ClientRegistry.Response response = new ThrottledClientRegistry(failing, 1000, 3, 1).findClient("KE", ClientRegistry.NATIONAL_ID, "12345678");
+		Assert.assertThat(response.isOk(), is(true));
+		Assert.assertThat(response.getBody().contains("MOH00000001"), is(true));
+		Assert.assertThat(failing.attempts.get(), is(3));
+	}
+
+	/**
+	 * @see ThrottledClientRegistry#findClient(String, String, String)
+	 */
+	@Test
+	public void findClient_shouldNotRetryClientErrors() throws Exception {
+		FailingClientRegistry failing = new FailingClientRegistry(new StubClientRegistry(), 5, 400);
+
+		ClientRegistry.Response response = new ThrottledClientRegistry(failing, 1000, 3, 1).findClient("KE", ClientRegistry.NATIONAL_ID, "12345678");
+		Assert.assertThat(response.getCode(), is(400));
+		Assert.assertThat(failing.attempts.get(), is(1));
+	}
+
+	/**
+	 * @see ThrottledClientRegistry#registerClient(String)
+	 */
+	@Test
+	public void registerClient_shouldGiveUpAfterMaxAttempts() throws Exception {
+		FailingClientRegistry failing = new FailingClientRegistry(new StubClientRegistry(), 5, 429);
+
+		ClientRegistry.Response response = new ThrottledClientRegistry(failing, 1000, 3, 1).registerClient("{}");
+		Assert.assertThat(response.getCode(), is(429));
+		Assert.assertThat(failing.attempts.get(), is(3));
+	}
+
+	/**
+	 * @see ThrottledClientRegistry#registerClient(String)
+	 */
+	@Test
+	public void registerClient_shouldLimitRequestRate() throws Exception {
+		StubClientRegistry stub = new StubClientRegistry();
+		ClientRegistry registry = new ThrottledClientRegistry(stub, 20, 1, 1);
+		String payload = "{\"identifications\":[{\"CountryCode\":\"KE\",\"identificationType\":\"passport\",\"identificationNumber\":\"A123\"}]}";
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			Assert.assertThat(registry.registerClient(payload).isOk(), is(true));
+		}
+		Assert.assertThat(System.currentTimeMillis() - start >= 200, is(true));
+
+		// Registered clients are found by their identification documents
+		Assert.assertThat(registry.findClient("KE", ClientRegistry.PASSPORT, "A123").getBody().contains("\"clientExists\":true"), is(true));
+		Assert.assertThat(stub.getRequestCount(), is(6));
+	}
+
+	/**
+	 * Returns an error for a number of calls before passing calls to another registry
+	 */
+	private static class FailingClientRegistry implements ClientRegistry {
+
+		final ClientRegistry registry;
+
+		final int failures;
+
+		final int code;
+
+		final AtomicInteger attempts = new AtomicInteger();
+
+		FailingClientRegistry(ClientRegistry registry, int failures, int code) {
+			this.registry = registry;
+			this.failures = failures;
+			this.code = code;
+		}
+
+		@Override
+		public Response findClient(String countryCode, String identifierType, String identifier) throws IOException {
+			return attempts.incrementAndGet() <= failures ? new Response(code, "") : registry.findClient(countryCode, identifierType, identifier);
+		}
+
+		@Override
+		public Response registerClient(String payload) throws IOException {
+			return attempts.incrementAndGet() <= failures ? new Response(code, "") : registry.registerClient(payload);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.builder.hiv;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link FacilityDashboardSnapshots}
+ */
+public class FacilityDashboardSnapshotsTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private EvaluationExecutor executor;
+
+	private TestSnapshots snapshots;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		snapshots = new TestSnapshots();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(snapshots);
+		snapshots.now = TestUtils.date(2022, 3, 15, 9, 0, 0);
+	}
+
+	/**
+	 * @see FacilityDashboardSnapshots#getFullSnapshot()
+	 */
+	@Test
+	public void getFullSnapshot_shouldServeFreshSnapshotWithoutRecomputing() {
+		FacilityDashboardSnapshots.Snapshot first = snapshots.getFullSnapshot();
+		Assert.assertThat(first.getDate(), is(TestUtils.date(2022, 3, 15)));
+
+		snapshots.now = DateUtils.addMinutes(snapshots.now, 10);
+		Assert.assertThat(snapshots.getFullSnapshot(), sameInstance(first));
+		Assert.assertThat(snapshots.computed, is(Collections.singletonList(true)));
+	}
+
+	/**
+	 * @see FacilityDashboardSnapshots#getFullSnapshot()
+	 */
+	@Test
+	public void getFullSnapshot_shouldServeStaleSnapshotWhileRefreshingIt() throws Exception {
+		final FacilityDashboardSnapshots.Snapshot first = snapshots.getFullSnapshot();
+		snapshots.now = DateUtils.addMinutes(snapshots.now, 20);
+
+		// Calling serially, the background refresh is complete by the time the stale snapshot is returned
+		FacilityDashboardSnapshots.Snapshot served = executor.callSerially(new Callable<FacilityDashboardSnapshots.Snapshot>() {
+			@Override
+			public FacilityDashboardSnapshots.Snapshot call() {
+				return snapshots.getFullSnapshot();
+			}
+		});
+		Assert.assertThat(served, sameInstance(first));
+		Assert.assertThat(snapshots.computed.size(), is(2));
+
+		FacilityDashboardSnapshots.Snapshot refreshed = snapshots.getFullSnapshot();
+		Assert.assertThat(refreshed, not(sameInstance(first)));
+		Assert.assertThat(refreshed.getComputed(), is(snapshots.now));
+		Assert.assertThat(snapshots.computed.size(), is(2));
+	}
+
+	/**
+	 * @see FacilityDashboardSnapshots#getFullSnapshot()
+	 */
+	@Test
+	public void getFullSnapshot_shouldComputeNewSnapshotOnNewDay() {
+		FacilityDashboardSnapshots.Snapshot first = snapshots.getFullSnapshot();
+
+		// Yesterday's counts are never served, even while today's are computed
+		snapshots.now = TestUtils.date(2022, 3, 16, 0, 5, 0);
+		FacilityDashboardSnapshots.Snapshot next = snapshots.getFullSnapshot();
+
+		Assert.assertThat(next, not(sameInstance(first)));
+		Assert.assertThat(next.getDate(), is(TestUtils.date(2022, 3, 16)));
+		Assert.assertThat(snapshots.computed.size(), is(2));
+	}
+
+	/**
+	 * @see FacilityDashboardSnapshots#getFullSnapshot()
+	 */
+	@Test
+	public void getFullSnapshot_shouldRetryFailedComputation() {
+		snapshots.fail = true;
+		try {
+			snapshots.getFullSnapshot();
+			Assert.fail("Expected the computation to fail");
+		}
+		catch (IllegalStateException ex) {
+			// Expected
+		}
+
+		snapshots.fail = false;
+		Assert.assertThat(snapshots.getFullSnapshot().getDate(), is(TestUtils.date(2022, 3, 15)));
+		Assert.assertThat(snapshots.computed.size(), is(2));
+	}
+
+	/**
+	 * @see FacilityDashboardSnapshots#getMiniSnapshot()
+	 */
+	@Test
+	public void getMiniSnapshot_shouldUseFreshFullSnapshot() {
+		FacilityDashboardSnapshots.Snapshot full = snapshots.getFullSnapshot();
+		Assert.assertThat(snapshots.getMiniSnapshot(), sameInstance(full));
+
+		// Once the full snapshot is stale, the mini dashboard computes its own
+		snapshots.now = DateUtils.addMinutes(snapshots.now, 20);
+		Assert.assertThat(snapshots.getMiniSnapshot(), not(sameInstance(full)));
+		Assert.assertThat(snapshots.computed.get(1), is(false));
+	}
+
+	/**
+	 * Computes empty snapshots at a set time, recording which were computed
+	 */
+	private static class TestSnapshots extends FacilityDashboardSnapshots {
+
+		final List<Boolean> computed = Collections.synchronizedList(new ArrayList<Boolean>());
+
+		volatile Date now;
+
+		volatile boolean fail;
+
+		@Override
+		protected Snapshot compute(boolean full) {
+			computed.add(full);
+			if (fail) {
+				throw new IllegalStateException("Test failure");
+			}
+			return new Snapshot(now, "Feb-2022", Collections.<String, Integer>emptyMap());
+		}
+
+		@Override
+		protected Date now() {
+			return now;
+		}
+	}
+}
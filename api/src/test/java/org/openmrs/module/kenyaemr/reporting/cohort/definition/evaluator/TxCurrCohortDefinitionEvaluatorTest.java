@@ -0,0 +1,197 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.TxCurrCohortDefinition;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.QueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link TxCurrCohortDefinitionEvaluator}
+ */
+public class TxCurrCohortDefinitionEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	private EvaluationService evaluationService;
+
+	private TxCurrCohortDefinitionEvaluator evaluator;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		TxCurrCohortDefinitionEvaluator.clearMaterializedCohorts();
+
+		evaluationService = mock(EvaluationService.class);
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class)))
+				.thenReturn(Arrays.asList(2, 6), Arrays.asList(7, 8));
+
+		evaluator = new TxCurrCohortDefinitionEvaluator();
+		evaluator.evaluationService = evaluationService;
+
+		Context.getAdministrationService().setGlobalProperty(EmrConstants.GP_DEFAULT_LOCATION, "1");
+	}
+
+	/**
+	 * Clean up after each test
+	 */
+	@After
+	public void cleanup() {
+		TxCurrCohortDefinitionEvaluator.clearMaterializedCohorts();
+	}
+
+	/**
+	 * @see TxCurrCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldReuseCohortForSameEndDateAndLocation() throws Exception {
+		TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
+		cd.setEndDate(TestUtils.date(2020, 6, 30));
+
+		Assert.assertThat(evaluator.evaluate(cd, new EvaluationContext()).getMemberIds(), containsInAnyOrder(2, 6));
+		Assert.assertThat(evaluator.evaluate(cd, new EvaluationContext()).getMemberIds(), containsInAnyOrder(2, 6));
+
+		verify(evaluationService, times(1)).evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class));
+	}
+
+	/**
+	 * @see TxCurrCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldNotReuseCohortForDifferentLocation() throws Exception {
+		TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
+		cd.setEndDate(TestUtils.date(2020, 6, 30));
+
+		Assert.assertThat(evaluator.evaluate(cd, new EvaluationContext()).getMemberIds(), containsInAnyOrder(2, 6));
+
+		Context.getAdministrationService().setGlobalProperty(EmrConstants.GP_DEFAULT_LOCATION, "2");
+
+		Assert.assertThat(evaluator.evaluate(cd, new EvaluationContext()).getMemberIds(), containsInAnyOrder(7, 8));
+
+		verify(evaluationService, times(2)).evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class));
+	}
+
+	/**
+	 * @see TxCurrCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldNotReuseCohortForDifferentEndDate() throws Exception {
+		TxCurrCohortDefinition june = new TxCurrCohortDefinition();
+		june.setEndDate(TestUtils.date(2020, 6, 30));
+		TxCurrCohortDefinition july = new TxCurrCohortDefinition();
+		july.setEndDate(TestUtils.date(2020, 7, 31));
+
+		Assert.assertThat(evaluator.evaluate(june, new EvaluationContext()).getMemberIds(), containsInAnyOrder(2, 6));
+		Assert.assertThat(evaluator.evaluate(july, new EvaluationContext()).getMemberIds(), containsInAnyOrder(7, 8));
+	}
+
+	/**
+	 * @see TxCurrCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test(timeout = 60000)
+	public void evaluate_shouldComputeCohortOnceWhenRequestedConcurrently() throws Exception {
+		final CountDownLatch computing = new CountDownLatch(1);
+		final CountDownLatch computed = new CountDownLatch(1);
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class))).thenAnswer(new Answer<List<Integer>>() {
+			@Override
+			public List<Integer> answer(InvocationOnMock invocation) throws Throwable {
+				computing.countDown();
+				computed.await();
+				return Arrays.asList(2, 6);
+			}
+		});
+
+		final TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
+		cd.setEndDate(TestUtils.date(2020, 6, 30));
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<EvaluatedCohort> first = threads.submit(new Callable<EvaluatedCohort>() {
+				@Override
+				public EvaluatedCohort call() throws Exception {
+					return evaluator.evaluate(cd, new EvaluationContext());
+				}
+			});
+			computing.await();
+
+			// The second report waits for the cohort being computed rather than running the query again
+			final AtomicReference<Thread> waiting = new AtomicReference<Thread>();
+			Future<EvaluatedCohort> second = threads.submit(new Callable<EvaluatedCohort>() {
+				@Override
+				public EvaluatedCohort call() throws Exception {
+					waiting.set(Thread.currentThread());
+					return evaluator.evaluate(cd, new EvaluationContext());
+				}
+			});
+			while (waiting.get() == null || waiting.get().getState() != Thread.State.WAITING) {
+				Thread.sleep(10);
+			}
+			computed.countDown();
+
+			Assert.assertThat(first.get().getMemberIds(), containsInAnyOrder(2, 6));
+			Assert.assertThat(second.get().getMemberIds(), containsInAnyOrder(2, 6));
+			verify(evaluationService, times(1)).evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class));
+		}
+		finally {
+			threads.shutdownNow();
+		}
+	}
+
+	/**
+	 * @see TxCurrCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldRetryFailedComputation() throws Exception {
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), eq(Integer.class), any(EvaluationContext.class)))
+				.thenThrow(new IllegalStateException("Test failure"))
+				.thenReturn(Arrays.asList(2, 6));
+
+		TxCurrCohortDefinition cd = new TxCurrCohortDefinition();
+		cd.setEndDate(TestUtils.date(2020, 6, 30));
+		try {
+			evaluator.evaluate(cd, new EvaluationContext());
+			Assert.fail("Expected the computation to fail");
+		}
+		catch (EvaluationException ex) {
+			// Expected
+		}
+
+		Assert.assertThat(evaluator.evaluate(cd, new EvaluationContext()).getMemberIds(), containsInAnyOrder(2, 6));
+	}
+}
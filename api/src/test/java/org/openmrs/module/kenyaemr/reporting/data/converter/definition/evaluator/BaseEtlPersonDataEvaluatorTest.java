@@ -0,0 +1,198 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.Cohort;
+import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
+import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.QueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BaseEtlPersonDataEvaluator}
+ */
+public class BaseEtlPersonDataEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	private EvaluationService evaluationService;
+
+	private BaseEtlPersonDataEvaluator evaluator;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		evaluationService = mock(EvaluationService.class);
+
+		evaluator = new BaseEtlPersonDataEvaluator() {
+			@Override
+			public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
+				return null;
+			}
+		};
+		evaluator.evaluationService = evaluationService;
+	}
+
+	/**
+	 * @see BaseEtlPersonDataEvaluator#getTableData(EtlTable, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void getTableData_shouldLoadTableOncePerCohort() throws Exception {
+		List<Object[]> rows14 = rows(new Object[] { 1, "Married" }, new Object[] { 4, "Single" });
+		List<Object[]> rows23 = rows(new Object[] { 2, "Divorced" }, new Object[] { 3, "Widowed" });
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class))).thenReturn(rows14, rows23);
+
+		// Both cohorts have two members with ids which add up to 5
+		EvaluationContext context = new EvaluationContext();
+		context.setBaseCohort(new Cohort(Arrays.asList(1, 4)));
+		EtlTableData data14 = evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+
+		context.setBaseCohort(new Cohort(Arrays.asList(2, 3)));
+		EtlTableData data23 = evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+
+		Assert.assertThat(data14.getRows(1).size(), is(1));
+		Assert.assertThat(data14.getRows(2).size(), is(0));
+		Assert.assertThat(data23.getRows(2).size(), is(1));
+		Assert.assertThat(data23.getRows(1).size(), is(0));
+
+		// The same cohort again is served from the cache
+		context.setBaseCohort(new Cohort(Arrays.asList(4, 1)));
+		Assert.assertThat(evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context) == data14, is(true));
+
+		verify(evaluationService, times(2)).evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class));
+	}
+
+	/**
+	 * @see BaseEtlPersonDataEvaluator#getTableData(EtlTable, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void getTableData_shouldNotQueryForEmptyCohort() throws Exception {
+		EvaluationContext context = new EvaluationContext();
+		context.setBaseCohort(new Cohort(Collections.<Integer>emptyList()));
+
+		EtlTableData data = evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+
+		Assert.assertThat(data.getValues("marital_status").isEmpty(), is(true));
+		verify(evaluationService, times(0)).evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class));
+	}
+
+	/**
+	 * @see BaseEtlPersonDataEvaluator#getTableData(EtlTable, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test(timeout = 60000)
+	public void getTableData_shouldLoadTableOnceWhenRequestedConcurrently() throws Exception {
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch loaded = new CountDownLatch(1);
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class))).thenAnswer(new Answer<List<Object[]>>() {
+			@Override
+			public List<Object[]> answer(InvocationOnMock invocation) throws Throwable {
+				loading.countDown();
+				loaded.await();
+				return rows(new Object[] { 1, "Married" });
+			}
+		});
+
+		final EvaluationContext context = new EvaluationContext();
+		context.setBaseCohort(new Cohort(Arrays.asList(1, 4)));
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<EtlTableData> first = threads.submit(new Callable<EtlTableData>() {
+				@Override
+				public EtlTableData call() throws Exception {
+					return evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+				}
+			});
+			loading.await();
+
+			// The second request waits for the first to load the rows rather than querying them again
+			final AtomicReference<Thread> waiting = new AtomicReference<Thread>();
+			Future<EtlTableData> second = threads.submit(new Callable<EtlTableData>() {
+				@Override
+				public EtlTableData call() throws Exception {
+					waiting.set(Thread.currentThread());
+					return evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+				}
+			});
+			while (waiting.get() == null || waiting.get().getState() != Thread.State.WAITING) {
+				Thread.sleep(10);
+			}
+			loaded.countDown();
+
+			Assert.assertThat(second.get(), sameInstance(first.get()));
+			verify(evaluationService, times(1)).evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class));
+		}
+		finally {
+			threads.shutdownNow();
+		}
+	}
+
+	/**
+	 * @see BaseEtlPersonDataEvaluator#getTableData(EtlTable, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void getTableData_shouldRetryFailedLoad() throws Exception {
+		when(evaluationService.evaluateToList(any(QueryBuilder.class), any(EvaluationContext.class)))
+				.thenThrow(new IllegalStateException("Test failure"))
+				.thenReturn(rows(new Object[] { 1, "Married" }));
+
+		EvaluationContext context = new EvaluationContext();
+		context.setBaseCohort(new Cohort(Arrays.asList(1, 4)));
+		try {
+			evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context);
+			Assert.fail("Expected the load to fail");
+		}
+		catch (EvaluationException ex) {
+			// Expected
+		}
+
+		Assert.assertThat(evaluator.getTableData(EtlTable.PATIENT_DEMOGRAPHICS, context).getRows(1).size(), is(1));
+	}
+
+	/**
+	 * @see EtlTable#getCohortKey(org.openmrs.Cohort)
+	 */
+	@Test
+	public void getCohortKey_shouldOnlyMatchCohortsWithTheSameMembers() {
+		Assert.assertThat(EtlTable.getCohortKey(new Cohort(Arrays.asList(1, 4))), is(EtlTable.getCohortKey(new Cohort(Arrays.asList(4, 1)))));
+		Assert.assertThat(EtlTable.getCohortKey(new Cohort(Arrays.asList(1, 4))).equals(EtlTable.getCohortKey(new Cohort(Arrays.asList(2, 3)))), is(false));
+		Assert.assertThat(EtlTable.getCohortKey(null), is(EtlTable.getCohortKey(null)));
+		Assert.assertThat(EtlTable.getCohortKey(null).equals(EtlTable.getCohortKey(new Cohort(Collections.<Integer>emptyList()))), is(false));
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return Arrays.asList(rows);
+	}
+}
@@ -13,10 +13,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Cohort;
+import org.openmrs.Location;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.report.ReportUtils;
 import org.openmrs.module.kenyacore.test.TestUtils;
 import org.openmrs.module.kenyaemr.reporting.dataset.definition.MergingDataSetDefinition;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
 import org.openmrs.module.reporting.cohort.definition.AgeCohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.GenderCohortDefinition;
 import org.openmrs.module.reporting.dataset.DataSetColumn;
@@ -29,16 +31,30 @@ import org.openmrs.module.reporting.evaluation.parameter.Parameter;
 import org.openmrs.module.reporting.indicator.CohortIndicator;
 import org.openmrs.module.reporting.indicator.IndicatorResult;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Tests for {@link MergingDataSetEvaluator}
  */
 public class MergingDataSetEvaluatorTest extends BaseModuleContextSensitiveTest {
 
+	@Autowired
+	private EvaluationExecutor executor;
+
 	private CohortIndicatorDataSetDefinition cohortDsd1, cohortDsd2;
 
 	private EvaluationContext evaluationContext;
@@ -110,6 +126,60 @@ public class MergingDataSetEvaluatorTest extends BaseModuleContextSensitiveTest
 		checkIndicatorDataSet(Arrays.asList("test-2", "test-1", "test-3"), Arrays.asList(2, 2, 1), dataSet);
 	}
 
+	/**
+	 * @see MergingDataSetEvaluator#evaluate(org.openmrs.module.reporting.dataset.definition.DataSetDefinition, org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldMergeParallelDataSetsInTheSameOrder() throws Exception {
+		final MergingDataSetDefinition mergedDsd = new MergingDataSetDefinition();
+		mergedDsd.addDataSetDefinition(cohortDsd1);
+		mergedDsd.addDataSetDefinition(cohortDsd2);
+		mergedDsd.setParallel(true);
+
+		// Calling serially, the data sets are evaluated one by one through the same path as on the pool
+		MapDataSet dataSet = executor.callSerially(new Callable<MapDataSet>() {
+			@Override
+			public MapDataSet call() throws Exception {
+				return evaluator.evaluate(mergedDsd, evaluationContext);
+			}
+		});
+		checkIndicatorDataSet(Arrays.asList("test-1", "test-3", "test-2"), Arrays.asList(2, 1, 2), dataSet);
+	}
+
+	/**
+	 * @see MergingDataSetEvaluator#reloadInSession(Object)
+	 */
+	@Test
+	public void reloadInSession_shouldReloadLocationsInTheCurrentSession() {
+		Location location = Context.getLocationService().getLocation(1);
+		Context.evictFromSession(location);
+
+		Location reloaded = (Location) MergingDataSetEvaluator.reloadInSession(location);
+		Assert.assertThat(reloaded, not(sameInstance(location)));
+		Assert.assertThat(reloaded.getLocationId(), is(1));
+
+		Object reloadedSet = MergingDataSetEvaluator.reloadInSession(Collections.singleton(location));
+		Assert.assertThat(reloadedSet, instanceOf(Set.class));
+		Assert.assertThat(((Collection<?>) reloadedSet).iterator().next(), sameInstance((Object) reloaded));
+
+		List<?> reloadedList = (List<?>) MergingDataSetEvaluator.reloadInSession(Arrays.asList(location, "Other"));
+		Assert.assertThat(reloadedList.get(0), sameInstance((Object) reloaded));
+		Assert.assertThat(reloadedList.get(1), is((Object) "Other"));
+	}
+
+	/**
+	 * @see MergingDataSetEvaluator#reloadInSession(Object)
+	 */
+	@Test
+	public void reloadInSession_shouldReturnOtherValuesAsTheyAre() {
+		Date date = TestUtils.date(2012, 1, 1);
+		List<Date> dates = Collections.singletonList(date);
+
+		Assert.assertThat(MergingDataSetEvaluator.reloadInSession(date), sameInstance((Object) date));
+		Assert.assertThat(MergingDataSetEvaluator.reloadInSession(dates), sameInstance((Object) dates));
+		Assert.assertThat(MergingDataSetEvaluator.reloadInSession(null), nullValue());
+	}
+
 	/**
 	 * Checks the column names and values of a indicator data set
 	 * @param expectedColumnNames the expected column names
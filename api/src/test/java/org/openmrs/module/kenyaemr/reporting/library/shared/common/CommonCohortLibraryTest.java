@@ -24,6 +24,7 @@ import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.cohort.EvaluatedCohort;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.cohort.definition.service.CohortDefinitionService;
+import org.openmrs.module.reporting.common.DurationUnit;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -111,6 +112,32 @@ public class CommonCohortLibraryTest extends BaseModuleContextSensitiveTest {
 		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 7), evaluated);
 	}
 
+	/**
+	 * @see CommonCohortLibrary#ageBand(Integer, DurationUnit, Integer, DurationUnit)
+	 */
+	@Test
+	public void ageBand_shouldReturnTheSamePatientsAsAgeCohorts() throws Exception {
+		context.addParameterValue("effectiveDate", context.getParameterValue("endDate"));
+		CohortDefinitionService service = Context.getService(CohortDefinitionService.class);
+
+		// #6 will be 5, #7 will be 35, #8 has no birthdate, #999 is voided
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(6, 7), service.evaluate(commonCohortLibrary.ageBand(null, DurationUnit.YEARS, 35, DurationUnit.YEARS), context));
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 7), service.evaluate(commonCohortLibrary.ageBand(35, DurationUnit.YEARS, null, DurationUnit.YEARS), context));
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(7), service.evaluate(commonCohortLibrary.ageBand(30, DurationUnit.YEARS, 35, DurationUnit.YEARS), context));
+	}
+
+	/**
+	 * @see CommonCohortLibrary#ofGender(String)
+	 */
+	@Test
+	public void ofGender_shouldReturnAllPatientsOfTheGender() throws Exception {
+		CohortDefinitionService service = Context.getService(CohortDefinitionService.class);
+
+		// #999 is voided
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), service.evaluate(commonCohortLibrary.ofGender("M"), context));
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(7, 8), service.evaluate(commonCohortLibrary.ofGender("F"), context));
+	}
+
 	/**
 	 * @see CommonCohortLibrary#agedAtLeast(int)
 	 */
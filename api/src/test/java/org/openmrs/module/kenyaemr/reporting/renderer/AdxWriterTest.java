@@ -0,0 +1,47 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * Tests for {@link AdxWriter}
+ */
+public class AdxWriterTest {
+
+	/**
+	 * @see AdxWriter#dataValue(String, String, Object)
+	 */
+	@Test
+	public void dataValue_shouldWriteEscapedDataValuesOfGroups() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AdxWriter adx = new AdxWriter(out);
+		adx.startAdx(new Date());
+		adx.startGroup("12345", "2024-01-01/P1M", "dataSet", "MOH_731<&");
+		adx.dataValue("HV01-01", 10);
+		adx.dataValue("xTpuBPLezo7", "lQrQJYcTquG", "\"5\"");
+		adx.endGroup();
+		adx.endAdx();
+
+		String xml = out.toString("UTF-8");
+		Assert.assertThat(xml, containsString("<adx xmlns=\"urn:ihe:qrph:adx:2015\""));
+		Assert.assertThat(xml, containsString("<group orgUnit=\"12345\" period=\"2024-01-01/P1M\" dataSet=\"MOH_731&lt;&amp;\">"));
+		Assert.assertThat(xml, containsString("<dataValue dataElement=\"HV01-01\" value=\"10\""));
+		Assert.assertThat(xml, containsString("<dataValue dataElement=\"xTpuBPLezo7\" categoryOptionCombo=\"lQrQJYcTquG\" value=\"&quot;5&quot;\""));
+		Assert.assertThat(xml, containsString("</group>"));
+		Assert.assertThat(xml, containsString("</adx>"));
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ThreePmIndicatorMapping}
+ */
+public class ThreePmIndicatorMappingTest {
+
+	/**
+	 * @see ThreePmIndicatorMapping#getInstance()
+	 */
+	@Test
+	public void getInstance_shouldLoadTheMappingResource() {
+		ThreePmIndicatorMapping mapping = ThreePmIndicatorMapping.getInstance();
+
+		ThreePmIndicatorMapping.Entry entry = mapping.get("ENROL_HTS_TST_PWID-07");
+		Assert.assertThat(entry.getDataElement(), is("xTpuBPLezo7"));
+		Assert.assertThat(entry.getCategoryOptionCombo(), is("lQrQJYcTquG"));
+		Assert.assertNull(mapping.get("PWUD_unknown"));
+	}
+
+	/**
+	 * @see ThreePmIndicatorMapping#load(java.io.InputStream)
+	 */
+	@Test
+	public void load_shouldIgnoreCommentsAndHeader() throws IOException {
+		ThreePmIndicatorMapping mapping = ThreePmIndicatorMapping.load(stream("# comment\nindicator,dataElement,categoryOptionCombo\n\nKP_CURR_FSW-01,abc,def\n"));
+
+		Assert.assertThat(mapping.size(), is(1));
+		Assert.assertThat(mapping.get("KP_CURR_FSW-01").getCategoryOptionCombo(), is("def"));
+	}
+
+	/**
+	 * @see ThreePmIndicatorMapping#load(java.io.InputStream)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void load_shouldFailForDuplicateIndicators() throws IOException {
+		ThreePmIndicatorMapping.load(stream("KP_CURR_unknown,abc,def\nKP_CURR_unknown,abc,ghi\n"));
+	}
+
+	/**
+	 * @see ThreePmIndicatorMapping#load(java.io.InputStream)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void load_shouldFailForMalformedLines() throws IOException {
+		ThreePmIndicatorMapping.load(stream("KP_CURR_unknown,abc\n"));
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
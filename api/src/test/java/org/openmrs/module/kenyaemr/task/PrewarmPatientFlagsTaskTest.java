@@ -0,0 +1,137 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.task;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
+import org.openmrs.module.kenyaemr.util.EvaluationExecutor;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PrewarmPatientFlagsTask}
+ */
+public class PrewarmPatientFlagsTaskTest extends BaseModuleContextSensitiveTest {
+
+	private RecordingFlagEvaluator evaluator;
+
+	private TestTask task;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		evaluator = new RecordingFlagEvaluator();
+		task = new TestTask();
+		task.now = TestUtils.date(2022, 3, 15, 2, 0, 0);
+	}
+
+	/**
+	 * @see PrewarmPatientFlagsTask#execute()
+	 */
+	@Test
+	public void execute_shouldEvaluateFlagsOfTodaysAppointmentsSerially() {
+		task.patientIds = Arrays.asList(2, 6, 7);
+		task.execute();
+
+		Assert.assertThat(task.day, is(TestUtils.date(2022, 3, 15)));
+		Assert.assertThat(evaluator.dates, contains(task.now));
+		Assert.assertThat(evaluator.cohorts, hasSize(1));
+		Assert.assertThat(evaluator.cohorts.get(0), contains(2, 6, 7));
+		Assert.assertThat(evaluator.serial, contains(true));
+	}
+
+	/**
+	 * @see PrewarmPatientFlagsTask#execute()
+	 */
+	@Test
+	public void execute_shouldSkipPatientsWhichDontExist() {
+		task.patientIds = Arrays.asList(2, 999);
+		task.execute();
+
+		Assert.assertThat(evaluator.cohorts.get(0), contains(2));
+	}
+
+	/**
+	 * @see PrewarmPatientFlagsTask#getScheduledPatientIds(java.util.Date)
+	 */
+	@Test
+	public void getScheduledPatientIds_shouldReturnNoPatientsWithoutAppointmentsModule() {
+		Assert.assertThat(new PrewarmPatientFlagsTask().getScheduledPatientIds(TestUtils.date(2022, 3, 15)).isEmpty(), is(true));
+	}
+
+	/**
+	 * Uses a set time, set appointments and a recording flag evaluator
+	 */
+	private class TestTask extends PrewarmPatientFlagsTask {
+
+		Date now;
+
+		Date day;
+
+		List<Integer> patientIds;
+
+		@Override
+		protected List<Integer> getScheduledPatientIds(Date day) {
+			this.day = day;
+			return patientIds;
+		}
+
+		@Override
+		protected PatientFlagEvaluator getFlagEvaluator() {
+			return evaluator;
+		}
+
+		@Override
+		protected Date now() {
+			return now;
+		}
+	}
+
+	/**
+	 * Records the patients and dates it is asked to evaluate flags for, and whether it was called serially
+	 */
+	private static class RecordingFlagEvaluator extends PatientFlagEvaluator {
+
+		final List<List<Integer>> cohorts = new ArrayList<List<Integer>>();
+
+		final List<Date> dates = new ArrayList<Date>();
+
+		final List<Boolean> serial = new ArrayList<Boolean>();
+
+		@Override
+		public Map<Integer, Map<String, String>> getFlags(Collection<Patient> patients, Date onDate) {
+			List<Integer> patientIds = new ArrayList<Integer>();
+			for (Patient patient : patients) {
+				patientIds.add(patient.getId());
+			}
+			cohorts.add(patientIds);
+			dates.add(onDate);
+			serial.add(EvaluationExecutor.isSerial());
+			return Collections.emptyMap();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link EvaluationExecutor}
+ */
+public class EvaluationExecutorTest extends BaseModuleContextSensitiveTest {
+
+	private EvaluationExecutor executor;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		executor = new EvaluationExecutor(1);
+	}
+
+	@After
+	public void teardown() {
+		executor.destroy();
+	}
+
+	/**
+	 * @see EvaluationExecutor#submit(java.util.concurrent.Callable)
+	 */
+	@Test
+	public void submit_shouldRunTaskInItsOwnSessionAsTheSubmittingUser() throws Exception {
+		final Object testSession = EvaluationExecutor.getSessionToken();
+
+		Object[] ret = executor.submit(new Callable<Object[]>() {
+			@Override
+			public Object[] call() {
+				return new Object[] { EvaluationExecutor.getSessionToken(), Thread.currentThread(), Context.getAuthenticatedUser() };
+			}
+		}).get();
+
+		Assert.assertThat(ret[0], not(sameInstance(testSession)));
+		Assert.assertThat(ret[1], not(sameInstance((Object) Thread.currentThread())));
+		Assert.assertThat(ret[2], is((Object) Context.getAuthenticatedUser()));
+	}
+
+	/**
+	 * @see EvaluationExecutor#submit(java.util.concurrent.Callable)
+	 */
+	@Test
+	public void submit_shouldGiveTaskAUserContextOfItsOwn() throws Exception {
+		final UserContext testContext = Context.getUserContext();
+
+		Object[] ret = executor.submit(new Callable<Object[]>() {
+			@Override
+			public Object[] call() {
+				Context.addProxyPrivilege("Test Privilege");
+				return new Object[] { Context.getUserContext(), Context.getAuthenticatedUser(), Context.getLocale() };
+			}
+		}).get();
+
+		Assert.assertThat(ret[0], not(sameInstance((Object) testContext)));
+		Assert.assertThat(ret[1], is((Object) testContext.getAuthenticatedUser()));
+		Assert.assertThat(ret[2], is((Object) testContext.getLocale()));
+		Assert.assertThat(Context.getUserContext(), sameInstance(testContext));
+	}
+
+	/**
+	 * @see EvaluationExecutor#submit(java.util.concurrent.Callable)
+	 */
+	@Test(timeout = 60000)
+	public void submit_shouldRunNestedTasksInTheSubmittingThread() throws Exception {
+		// With a single pooled thread, the nested task would never run if it were queued
+		Object[] ret = executor.submit(new Callable<Object[]>() {
+			@Override
+			public Object[] call() throws Exception {
+				Object[] nested = executor.submit(new Callable<Object[]>() {
+					@Override
+					public Object[] call() {
+						return new Object[] { EvaluationExecutor.getSessionToken(), Thread.currentThread() };
+					}
+				}).get();
+				return new Object[] { EvaluationExecutor.getSessionToken(), Thread.currentThread(), nested[0], nested[1] };
+			}
+		}).get();
+
+		Assert.assertThat(ret[2], sameInstance(ret[0]));
+		Assert.assertThat(ret[3], sameInstance(ret[1]));
+	}
+
+	/**
+	 * @see EvaluationExecutor#callSerially(java.util.concurrent.Callable)
+	 */
+	@Test
+	public void callSerially_shouldRunSubmittedTasksInTheCurrentThread() throws Exception {
+		Assert.assertThat(EvaluationExecutor.isSerial(), is(false));
+
+		Thread thread = executor.callSerially(new Callable<Thread>() {
+			@Override
+			public Thread call() throws Exception {
+				Assert.assertThat(EvaluationExecutor.isSerial(), is(true));
+				return executor.submit(new Callable<Thread>() {
+					@Override
+					public Thread call() {
+						return Thread.currentThread();
+					}
+				}).get();
+			}
+		});
+
+		Assert.assertThat(thread, sameInstance(Thread.currentThread()));
+		Assert.assertThat(EvaluationExecutor.isSerial(), is(false));
+	}
+
+	/**
+	 * @see EvaluationExecutor#destroy()
+	 */
+	@Test
+	public void destroy_shouldLeaveLaterTasksToRunInTheCurrentThread() throws Exception {
+		executor.destroy();
+
+		Thread thread = executor.submit(new Callable<Thread>() {
+			@Override
+			public Thread call() {
+				return Thread.currentThread();
+			}
+		}).get();
+
+		Assert.assertThat(thread, sameInstance(Thread.currentThread()));
+	}
+}
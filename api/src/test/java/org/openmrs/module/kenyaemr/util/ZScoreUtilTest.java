@@ -0,0 +1,68 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ZScoreUtil}
+ */
+public class ZScoreUtilTest {
+
+	/**
+	 * @see ZScoreUtil#calculateZScore(Double, Double, String)
+	 */
+	@Test
+	public void calculateZScore_shouldScoreWeightsAgainstTheTableOfTheSex() {
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 2.45, "M"), is(0));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 2.45, "F"), is(-1));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 2.0, "M"), is(-3));
+		Assert.assertThat(ZScoreUtil.calculateZScore(50.0, 2.5, "F"), is(-4));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 3.5, "M"), is(4));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 1.0, "M"), is(ZScoreUtil.ZSCORE_NOT_FOUND_DEFAULT_VALUE));
+	}
+
+	/**
+	 * @see ZScoreUtil#calculateZScore(Double, Double, String)
+	 */
+	@Test
+	public void calculateZScore_shouldInterpolateBetweenLengths() {
+		// SD1 is 2.68 at 45.0 cm and 2.698 at 45.1 cm
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.05, 2.685, "M"), is(1));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.09, 2.685, "M"), is(0));
+	}
+
+	/**
+	 * @see ZScoreUtil#calculateZScore(Double, Double, String)
+	 */
+	@Test
+	public void calculateZScore_shouldReturnErrorCodesForInsufficientOrInvalidInformation() {
+		Assert.assertThat(ZScoreUtil.calculateZScore(null, 2.45, "M"), is(ZScoreUtil.ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 2.45, ""), is(ZScoreUtil.ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE));
+		Assert.assertThat(ZScoreUtil.calculateZScore(45.0, 2.45, "U"), is(ZScoreUtil.ZSCORE_NOT_FOUND_DEFAULT_VALUE));
+		Assert.assertThat(ZScoreUtil.calculateZScore(120.0, 20.0, "M"), is(-4));
+	}
+
+	/**
+	 * @see ZScoreUtil#calculateZScores(double[], double[], String[])
+	 */
+	@Test
+	public void calculateZScores_shouldScoreEachPatient() {
+		int[] scores = ZScoreUtil.calculateZScores(new double[] { 45.0, 45.0, 0 }, new double[] { 2.45, 2.45, 3.0 }, new String[] { "M", "F", "M" });
+
+		Assert.assertThat(scores.length, is(3));
+		Assert.assertThat(scores[0], is(0));
+		Assert.assertThat(scores[1], is(-1));
+		Assert.assertThat(scores[2], is(ZScoreUtil.ZSCORE_INSUFFICIENT_INFORMATION_DEFAULT_VALUE));
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.visit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link AppointmentBookings}
+ */
+public class AppointmentBookingsTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Autowired
+	private HivMetadata hivMetadata;
+
+	@Autowired
+	private AppointmentBookings appointmentBookings;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		executeDataSet("dataset/test-concepts.xml");
+
+		commonMetadata.install();
+		hivMetadata.install();
+
+		appointmentBookings.invalidate();
+
+		// Patient #7 is booked twice on 1-Jan-2012, patient #8 once on 1-Jan-2012 and once on 3-Jan-2012
+		EncounterType consultation = MetadataUtils.existing(EncounterType.class, HivMetadata._EncounterType.HIV_CONSULTATION);
+		saveBooking(TestUtils.getPatient(7), consultation, TestUtils.date(2012, 1, 1, 9, 0, 0));
+		saveBooking(TestUtils.getPatient(7), consultation, TestUtils.date(2012, 1, 1, 14, 0, 0));
+		saveBooking(TestUtils.getPatient(8), consultation, TestUtils.date(2012, 1, 1));
+		saveBooking(TestUtils.getPatient(8), consultation, TestUtils.date(2012, 1, 3));
+	}
+
+	/**
+	 * @see AppointmentBookings#getBookings(AppointmentBookings.Clinic, java.util.Date)
+	 */
+	@Test
+	public void getBookings_shouldCountPatientsBookedOnDay() {
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 1)), is(2L));
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 2)), is(0L));
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.MCH, TestUtils.date(2012, 1, 1)), is(0L));
+	}
+
+	/**
+	 * @see AppointmentBookings#getBookings(AppointmentBookings.Clinic, java.util.Date, java.util.Date)
+	 */
+	@Test
+	public void getBookings_shouldCountPatientsBookedOnEachDayInWindow() {
+		Map<Date, Long> bookings = appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 1), TestUtils.date(2012, 1, 3));
+		Assert.assertThat(bookings.keySet(), contains(TestUtils.date(2012, 1, 1), TestUtils.date(2012, 1, 2), TestUtils.date(2012, 1, 3)));
+		Assert.assertThat(bookings.values(), contains(2L, 0L, 1L));
+	}
+
+	/**
+	 * @see AppointmentBookings#invalidate()
+	 */
+	@Test
+	public void invalidate_shouldReloadCountsWhenNextUsed() {
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 2)), is(0L));
+
+		EncounterType consultation = MetadataUtils.existing(EncounterType.class, HivMetadata._EncounterType.HIV_CONSULTATION);
+		saveBooking(TestUtils.getPatient(7), consultation, TestUtils.date(2012, 1, 2));
+
+		// Still cached until invalidated
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 2)), is(0L));
+
+		appointmentBookings.invalidate();
+		Assert.assertThat(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, TestUtils.date(2012, 1, 2)), is(1L));
+	}
+
+	/**
+	 * Saves an encounter with a next appointment date
+	 */
+	private void saveBooking(Patient patient, EncounterType encounterType, Date appointmentDate) {
+		Encounter encounter = new Encounter();
+		encounter.setPatient(patient);
+		encounter.setEncounterType(encounterType);
+		encounter.setEncounterDatetime(TestUtils.date(2011, 12, 1));
+		encounter.setLocation(Context.getLocationService().getLocation(1));
+
+		Obs obs = new Obs(patient, Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE), encounter.getEncounterDatetime(), encounter.getLocation());
+		obs.setValueDatetime(appointmentDate);
+		encounter.addObs(obs);
+
+		Context.getEncounterService().saveEncounter(encounter);
+	}
+}
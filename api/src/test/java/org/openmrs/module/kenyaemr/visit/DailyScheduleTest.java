@@ -0,0 +1,102 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.visit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link DailySchedule}
+ */
+public class DailyScheduleTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private CommonMetadata commonMetadata;
+
+	@Autowired
+	private DailySchedule dailySchedule;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		executeDataSet("dataset/test-concepts.xml");
+
+		commonMetadata.install();
+	}
+
+	/**
+	 * @see DailySchedule#getScheduledPatientIds(java.util.Date)
+	 */
+	@Test
+	public void getScheduledPatientIds_shouldFindPatientsWithReturnVisitDateOnDay() {
+		Concept returnVisitDate = Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE);
+
+		// Patient #7 is scheduled on 1-Jan-2012 in the afternoon, and patient #8 on 2-Jan-2012
+		TestUtils.saveObs(TestUtils.getPatient(7), returnVisitDate, TestUtils.date(2012, 1, 1, 14, 0, 0), TestUtils.date(2011, 12, 30));
+		TestUtils.saveObs(TestUtils.getPatient(8), returnVisitDate, TestUtils.date(2012, 1, 2), TestUtils.date(2011, 12, 30));
+
+		Assert.assertThat(dailySchedule.getScheduledPatientIds(TestUtils.date(2012, 1, 1)), contains(7));
+		Assert.assertThat(dailySchedule.getScheduledPatients(TestUtils.date(2012, 1, 3)).size(), is(0));
+	}
+
+	/**
+	 * @see DailySchedule#getVisitsOnDay(java.util.Collection, java.util.Date)
+	 */
+	@Test
+	public void getVisitsOnDay_shouldFetchVisitsOfPatientsOnDay() {
+		VisitType outpatient = MetadataUtils.existing(VisitType.class, CommonMetadata._VisitType.OUTPATIENT);
+		Patient patient7 = TestUtils.getPatient(7);
+		Patient patient8 = TestUtils.getPatient(8);
+
+		TestUtils.saveVisit(patient7, outpatient, TestUtils.date(2012, 1, 1, 9, 0, 0), TestUtils.date(2012, 1, 1, 10, 0, 0));
+		TestUtils.saveVisit(patient7, outpatient, TestUtils.date(2012, 1, 1, 11, 0, 0), TestUtils.date(2012, 1, 1, 12, 0, 0));
+		TestUtils.saveVisit(patient8, outpatient, TestUtils.date(2012, 1, 2, 9, 0, 0), TestUtils.date(2012, 1, 2, 10, 0, 0));
+
+		Map<Integer, List<Visit>> visits = dailySchedule.getVisitsOnDay(Arrays.asList(patient7, patient8), TestUtils.date(2012, 1, 1));
+		Assert.assertThat(visits.get(7).size(), is(2));
+		Assert.assertThat(visits.get(8).size(), is(0));
+	}
+
+	/**
+	 * @see DailySchedule#getSeenPatients(java.util.Date)
+	 */
+	@Test
+	public void getSeenPatients_shouldListEachPatientOnceWithTheirVisits() {
+		VisitType outpatient = MetadataUtils.existing(VisitType.class, CommonMetadata._VisitType.OUTPATIENT);
+		Patient patient7 = TestUtils.getPatient(7);
+
+		TestUtils.saveVisit(patient7, outpatient, TestUtils.date(2012, 1, 1, 9, 0, 0), TestUtils.date(2012, 1, 1, 10, 0, 0));
+		TestUtils.saveVisit(patient7, outpatient, TestUtils.date(2012, 1, 1, 11, 0, 0), TestUtils.date(2012, 1, 1, 12, 0, 0));
+
+		Map<Patient, List<Visit>> seen = dailySchedule.getSeenPatients(TestUtils.date(2012, 1, 1));
+		Assert.assertThat(seen.size(), is(1));
+		Assert.assertThat(seen.get(patient7).size(), is(2));
+	}
+}
@@ -55,6 +55,7 @@ import org.openmrs.module.kenyaemr.regimen.RegimenChangeHistory;
 import org.openmrs.module.kenyaemr.regimen.RegimenManager;
 import org.openmrs.module.kenyaemr.util.EmrUiUtils;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
+import org.openmrs.module.kenyaemr.visit.AppointmentBookings;
 import org.openmrs.module.kenyaemr.wrapper.PersonWrapper;
 import org.openmrs.module.kenyaui.KenyaUiUtils;
 import org.openmrs.module.kenyaui.annotation.AppAction;
@@ -69,11 +70,14 @@ import org.openmrs.util.PrivilegeConstants;
 import org.springframework.web.bind.annotation.RequestParam;
 
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Fragment actions generally useful for KenyaEMR
@@ -224,38 +228,23 @@ public class EmrUtilsFragmentController {
 	}
 
 	/**
-	 * Checks whether provided identifier(s) is already assigned
-	 * @return simple object with statuses for the different identifiers
+	 * Counts the patients booked for HIV consultation on a date
+	 * @return simple object with the number of patients booked
 	 * Uses Next appointments for HIV greencard Triage and HIV consultation
 	 */
-	public SimpleObject clientsBookedForHivConsultationOnDate(@RequestParam(value = "appointmentDate") String tca) {
-
-		String appointmentQuery = "select count(patient_id) as bookings\n" +
-				"from (\n" +
-				"select\n" +
-				"e.patient_id\n" +
-				"from encounter e\n" +
-				"inner join\n" +
-				"(\n" +
-				"\tselect encounter_type_id, uuid, name from encounter_type where uuid in('a0034eee-1940-4e35-847f-97537a35d05e','d1059fb9-a079-4feb-a749-eedd709ae542', '465a92f2-baf8-42e9-9612-53064be868e8')\n" +
-				") et on et.encounter_type_id=e.encounter_type\n" +
-				"inner join obs o on o.encounter_id=e.encounter_id and o.voided=0\n" +
-				"\tand o.concept_id in (5096) and date(o.value_datetime) = date('" + tca + "')\n" +
-				"where e.voided=0\n" +
-				"group by e.patient_id\n" +
-				")t;";
-
+	public SimpleObject clientsBookedForHivConsultationOnDate(@RequestParam(value = "appointmentDate") String tca, @SpringBean AppointmentBookings appointmentBookings) {
+		return SimpleObject.create(
+				"bookingsOnDate", appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, parseAppointmentDate(tca))
+		);
+	}
 
-		try {
-			Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
-			Long bookings = (Long) Context.getAdministrationService().executeSQL(appointmentQuery, true).get(0).get(0);
-			return SimpleObject.create(
-					"bookingsOnDate", bookings
-			);
-		}
-		finally {
-			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
-		}
+	/**
+	 * Counts the patients booked for HIV consultation on each date in a window, e.g. to show clinic capacity when
+	 * picking an appointment date
+	 * @return simple object with the number of patients booked on each date
+	 */
+	public SimpleObject clientsBookedForHivConsultationBetweenDates(@RequestParam(value = "fromDate") Date fromDate, @RequestParam(value = "toDate") Date toDate, @SpringBean AppointmentBookings appointmentBookings) {
+		return simplifyBookings(appointmentBookings.getBookings(AppointmentBookings.Clinic.HIV, fromDate, toDate));
 	}
 
 	/**
@@ -277,38 +266,48 @@ public class EmrUtilsFragmentController {
 	}
 
 	/**
-	 * Checks whether provided identifier(s) is already assigned
-	 * @return simple object with statuses for the different identifiers
+	 * Counts the patients booked for MCH consultation on a date
+	 * @return simple object with the number of patients booked
 	 * Uses Next appointments for MCH consultation and CWC consulation
 	 *
 	 */
-	public SimpleObject clientsBookedForMchConsultationOnDate(@RequestParam(value = "appointmentDate") String tca) {
-
-		String appointmentQuery = "select count(patient_id) as bookings\n" +
-				"from (\n" +
-				"select\n" +
-				"e.patient_id\n" +
-				"from encounter e\n" +
-				"inner join\n" +
-				"(\n" +
-				"\tselect encounter_type_id, uuid, name from encounter_type where uuid in('c6d09e05-1f25-4164-8860-9f32c5a02df0','bcc6da85-72f2-4291-b206-789b8186a021')\n" +
-				") et on et.encounter_type_id=e.encounter_type\n" +
-				"inner join obs o on o.encounter_id=e.encounter_id and o.voided=0\n" +
-				"\tand o.concept_id in (5096) and date(o.value_datetime) = date('" + tca + "')\n" +
-				"where e.voided=0\n" +
-				"group by e.patient_id\n" +
-				")t;";
+	public SimpleObject clientsBookedForMchConsultationOnDate(@RequestParam(value = "appointmentDate") String tca, @SpringBean AppointmentBookings appointmentBookings) {
+		return SimpleObject.create(
+				"bookingsOnDate", appointmentBookings.getBookings(AppointmentBookings.Clinic.MCH, parseAppointmentDate(tca))
+		);
+	}
+
+	/**
+	 * Counts the patients booked for MCH consultation on each date in a window, e.g. to show clinic capacity when
+	 * picking an appointment date
+	 * @return simple object with the number of patients booked on each date
+	 */
+	public SimpleObject clientsBookedForMchConsultationBetweenDates(@RequestParam(value = "fromDate") Date fromDate, @RequestParam(value = "toDate") Date toDate, @SpringBean AppointmentBookings appointmentBookings) {
+		return simplifyBookings(appointmentBookings.getBookings(AppointmentBookings.Clinic.MCH, fromDate, toDate));
+	}
 
+	/**
+	 * Parses an appointment date as submitted by the forms, ignoring any time
+	 */
+	private static Date parseAppointmentDate(String tca) {
 		try {
-			Context.addProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
-			Long bookings = (Long) Context.getAdministrationService().executeSQL(appointmentQuery, true).get(0).get(0);
-			return SimpleObject.create(
-					"bookingsOnDate", bookings
-			);
+			return new SimpleDateFormat("yyyy-MM-dd").parse(tca);
 		}
-		finally {
-			Context.removeProxyPrivilege(PrivilegeConstants.SQL_LEVEL_ACCESS);
+		catch (ParseException ex) {
+			throw new IllegalArgumentException("Invalid appointment date: " + tca, ex);
+		}
+	}
+
+	/**
+	 * Converts booking counts by day to a simple object keyed by date
+	 */
+	private static SimpleObject simplifyBookings(Map<Date, Long> bookings) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		SimpleObject ret = new SimpleObject();
+		for (Map.Entry<Date, Long> entry : bookings.entrySet()) {
+			ret.put(format.format(entry.getKey()), entry.getValue());
 		}
+		return SimpleObject.create("bookingsOnDates", ret);
 	}
 /**
  * Checks whether provided identifier(s) is already assigned
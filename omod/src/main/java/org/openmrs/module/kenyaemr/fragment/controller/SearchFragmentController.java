@@ -16,7 +16,6 @@ import org.openmrs.Concept;
 import org.openmrs.ConceptClass;
 import org.openmrs.ConceptSearchResult;
 import org.openmrs.Location;
-import org.openmrs.LocationAttribute;
 import org.openmrs.Patient;
 import org.openmrs.Person;
 import org.openmrs.Provider;
@@ -28,8 +27,11 @@ import org.openmrs.api.LocationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.CoreConstants;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.metadata.sync.MflFacilityIndex;
+import org.openmrs.module.kenyaemr.visit.ActiveVisitIndex;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.UiUtils;
+import org.openmrs.ui.framework.annotation.SpringBean;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.PersonByNameComparator;
 import org.openmrs.web.user.CurrentUsers;
@@ -79,7 +81,8 @@ public class SearchFragmentController {
 	 */
 	public List<SimpleObject> patients(@RequestParam(value = "q", required = false) String query,
 									   @RequestParam(value = "which", required = false, defaultValue = "all") String which,
-									   UiUtils ui) {
+									   UiUtils ui,
+									   @SpringBean ActiveVisitIndex activeVisitIndex) {
 
 		// Return empty list if we don't have enough input to search on
 		if (StringUtils.isBlank(query) && "all".equals(which)) {
@@ -89,15 +92,15 @@ public class SearchFragmentController {
 		// Run main patient search query based on id/name
 		List<Patient> matchedByNameOrID = Context.getPatientService().getPatients(query);
 
-		// Gather up active visits for all patients. These are attached to the returned patient representations.
-		Map<Patient, Visit> patientActiveVisits = getActiveVisitsByPatients();
+		// Look up which patients have active visits. Visits are only loaded for the patients returned.
+		Map<Integer, Integer> activeVisitIds = activeVisitIndex.getActiveVisitIds();
 
 		List<Patient> matched = new ArrayList<Patient>();
 
 		// If query wasn't long enough to be searched on, and they've requested checked-in patients, return the list
 		// of checked in patients
 		if (StringUtils.isBlank(query) && "checked-in".equals(which)) {
-			matched.addAll(patientActiveVisits.keySet());
+			matched.addAll(getPatients(activeVisitIds.keySet()));
 			Collections.sort(matched, new PersonByNameComparator()); // Sort by person name
 		}
 		else {
@@ -106,7 +109,7 @@ public class SearchFragmentController {
 			}
 			else if ("checked-in".equals(which)) {
 				for (Patient patient : matchedByNameOrID) {
-					if (patientActiveVisits.containsKey(patient)) {
+					if (activeVisitIds.containsKey(patient.getPatientId())) {
 						matched.add(patient);
 					}
 				}
@@ -129,7 +132,7 @@ public class SearchFragmentController {
 		for (Patient patient : matched) {
 			SimpleObject simplePatient = ui.simplifyObject(patient);
 
-			Visit activeVisit = patientActiveVisits.get(patient);
+			Visit activeVisit = activeVisitIds.containsKey(patient.getPatientId()) ? activeVisitIndex.getActiveVisit(patient.getPatientId()) : null;
 			simplePatient.put("activeVisit", activeVisit != null ? ui.simplifyObject(activeVisit) : null);
 
 			simplePatients.add(simplePatient);
@@ -152,46 +155,47 @@ public class SearchFragmentController {
 	 * Searches for locations by name or MFL code
 	 * @param query the search query
 	 * @param ui the UI utils
+	 * @param mflFacilityIndex the MFL facility index
 	 * @return the simplified locations
 	 */
-	public SimpleObject[] locations(@RequestParam("q") String query, UiUtils ui) {
-		LocationService svc = Context.getLocationService();
+	public SimpleObject[] locations(@RequestParam("q") String query, UiUtils ui, @SpringBean MflFacilityIndex mflFacilityIndex) {
+		// Convert to simple objects
+		return ui.simplifyCollection(searchLocations(query, mflFacilityIndex));
+	}
 
-		// Results will be sorted by name
-		Set<Location> results = new TreeSet<Location>(new Comparator<Location>() {
-			@Override
-			public int compare(Location location1, Location location2) {
-				return location1.getName().compareTo(location2.getName());
-			}
-		});
+	/**
+	 * Searches for locations by name or MFL code
+	 * @param query the search query
+	 * @param mflFacilityIndex the MFL facility index
+	 * @return the simplified locations
+	 */
+	public List<SimpleObject> simpleLocations(@RequestParam("q") String query, @SpringBean MflFacilityIndex mflFacilityIndex) {
+		List<SimpleObject> finalResult = new ArrayList<SimpleObject>();
 
-		// If term looks like an MFL code, add location with that code
-		if (StringUtils.isNumeric(query) && query.length() >= 5) {
-			Location locationByMflCode = Context.getService(KenyaEmrService.class).getLocationByMflCode(query);
-			if (locationByMflCode != null) {
-				results.add(locationByMflCode);
+		for (Location loc: searchLocations(query, mflFacilityIndex)){
+			String mflCode = mflFacilityIndex.getMflCode(loc.getLocationId());
+			if (mflCode != null) {
+				SimpleObject object = new SimpleObject();
+				String facilityName = loc.getName();
+				object.put("name", facilityName);
+				object.put("mflCode", mflCode + "-" + facilityName);
+				finalResult.add(object);
 			}
 		}
 
-		// Add first 20 results of search by name
-		if (StringUtils.isNotBlank(query)) {
-			results.addAll(svc.getLocations(query, null, null, true, 0, 20));
-		}
-
-		// Convert to simple objects
-		return ui.simplifyCollection(results);
+		return finalResult;
 	}
 
 	/**
-	 * Searches for locations by name or MFL code
+	 * Searches for locations by name or MFL code, loading only the matched locations
 	 * @param query the search query
-	 * @return the simplified locations
+	 * @param mflFacilityIndex the MFL facility index
+	 * @return the locations sorted by name
 	 */
-	public List<SimpleObject> simpleLocations(@RequestParam("q") String query) {
-		List<SimpleObject> finalResult = new ArrayList<SimpleObject>();
+	private Set<Location> searchLocations(String query, MflFacilityIndex mflFacilityIndex) {
 		LocationService svc = Context.getLocationService();
 
-		// Sorts results by name
+		// Results will be sorted by name
 		Set<Location> results = new TreeSet<Location>(new Comparator<Location>() {
 			@Override
 			public int compare(Location location1, Location location2) {
@@ -209,24 +213,20 @@ public class SearchFragmentController {
 
 		// Add first 20 results of search by name
 		if (StringUtils.isNotBlank(query)) {
-			results.addAll(svc.getLocations(query, null, null, true, 0, 20));
-		}
-
-		for (Location loc: results){
-			SimpleObject object = new SimpleObject();
-			String facilityName = loc.getName();
-			for (LocationAttribute attribute: loc.getActiveAttributes()) {
-				if (attribute.getAttributeType().getUuid().equals("8a845a89-6aa5-4111-81d3-0af31c45c002")) {
-					if (attribute.getValue() != null) {
-						object.put("name", facilityName);
-						object.put("mflCode", attribute.getValue() + "-" + facilityName);
-						finalResult.add(object);
-					}
+			String term = query.trim().toLowerCase();
+			for (Integer locationId : mflFacilityIndex.search(query, 20)) {
+				Location location = svc.getLocation(locationId);
+				// Skip locations which were changed by other means since they were indexed
+				if (location != null && location.getName() != null && location.getName().toLowerCase().contains(term)) {
+					results.add(location);
+				}
+				else {
+					mflFacilityIndex.onLocationChanged(location);
 				}
 			}
 		}
 
-		return finalResult;
+		return results;
 	}
 
 	/**
@@ -379,16 +379,19 @@ public class SearchFragmentController {
 	}
 
 	/**
-	 * Helper method to get all active visits organised by patient
-	 * @return the map of patients to active visits
+	 * Helper method to load the non-voided patients with the given ids
+	 * @param patientIds the patient ids
+	 * @return the patients
 	 */
-	protected Map<Patient, Visit> getActiveVisitsByPatients() {
-		List<Visit> activeVisits = Context.getVisitService().getVisits(null, null, null, null, null, null, null, null, null, false, false);
-		Map<Patient, Visit> patientToVisits = new HashMap<Patient, Visit>();
-		for (Visit visit : activeVisits) {
-			patientToVisits.put(visit.getPatient(), visit);
+	protected List<Patient> getPatients(Collection<Integer> patientIds) {
+		List<Patient> patients = new ArrayList<Patient>();
+		for (Integer patientId : patientIds) {
+			Patient patient = Context.getPatientService().getPatient(patientId);
+			if (patient != null && !patient.isVoided()) {
+				patients.add(patient);
+			}
 		}
-		return patientToVisits;
+		return patients;
 	}
 
 	/**
@@ -448,7 +451,8 @@ public class SearchFragmentController {
 	 */
 	public List<SimpleObject> peerEducators(@RequestParam(value = "q", required = false) String query,
 											@RequestParam(value = "which", required = false, defaultValue = "all") String which,
-											UiUtils ui) {
+											UiUtils ui,
+											@SpringBean ActiveVisitIndex activeVisitIndex) {
 
 		// Return empty list if we don't have enough input to search on
 		if (StringUtils.isBlank(query) && "all".equals(which)) {
@@ -458,8 +462,8 @@ public class SearchFragmentController {
 		// Run main patient search query based on id/name
 		List<Patient> matchedByNameOrID = Context.getPatientService().getPatients(query);
 
-		// Gather up active visits for all patients. These are attached to the returned patient representations.
-		Map<Patient, Visit> patientActiveVisits = getActiveVisitsByPatients();
+		// Look up which patients have active visits. Visits are only loaded for the patients returned.
+		Map<Integer, Integer> activeVisitIds = activeVisitIndex.getActiveVisitIds();
 
 		List<Patient> matched = new ArrayList<Patient>();
 		List<Patient> peerEducators = new ArrayList<Patient>();
@@ -467,7 +471,7 @@ public class SearchFragmentController {
 		// If query wasn't long enough to be searched on, and they've requested checked-in patients, return the list
 		// of checked in patients
 		if (StringUtils.isBlank(query) && "checked-in".equals(which)) {
-			matched.addAll(patientActiveVisits.keySet());
+			matched.addAll(getPatients(activeVisitIds.keySet()));
 			Collections.sort(matched, new PersonByNameComparator()); // Sort by person name
 		}
 		else {
@@ -476,7 +480,7 @@ public class SearchFragmentController {
 			}
 			else if ("checked-in".equals(which)) {
 				for (Patient patient : matchedByNameOrID) {
-					if (patientActiveVisits.containsKey(patient)) {
+					if (activeVisitIds.containsKey(patient.getPatientId())) {
 						matched.add(patient);
 					}
 				}
@@ -506,7 +510,7 @@ public class SearchFragmentController {
 		for (Patient patient : peerEducators) {
 			SimpleObject simplePatient = ui.simplifyObject(patient);
 
-			Visit activeVisit = patientActiveVisits.get(patient);
+			Visit activeVisit = activeVisitIds.containsKey(patient.getPatientId()) ? activeVisitIndex.getActiveVisit(patient.getPatientId()) : null;
 			simplePatient.put("activeVisit", activeVisit != null ? ui.simplifyObject(activeVisit) : null);
 
 			simplePatients.add(simplePatient);
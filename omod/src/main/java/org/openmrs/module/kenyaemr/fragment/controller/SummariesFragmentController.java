@@ -26,16 +26,13 @@ import org.openmrs.*;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
-import org.openmrs.calculation.patient.PatientCalculationContext;
-import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.calculation.result.ListResult;
-import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.Calculations;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.PatientSummaryAssembler;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.AllCd4CountCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.AllVlCountCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.LastReturnVisitDateCalculation;
@@ -109,12 +106,11 @@ public class SummariesFragmentController {
             patientSummary.setUpn(upn.get(0).getIdentifier());
         }
 
-        PatientCalculationContext context = Context.getService(PatientCalculationService.class).createCalculationContext();
-        context.setNow(new Date());
+        PatientSummaryAssembler summary = new PatientSummaryAssembler(patient);
 
         //get civil status
-        CalculationResultMap civilStatus = Calculations.lastObs(Dictionary.getConcept(Dictionary.CIVIL_STATUS), Arrays.asList(patient.getId()), context);
-        Concept status = EmrCalculationUtils.codedObsResultForPatient(civilStatus, patient.getPatientId());
+        Obs civilStatus = summary.lastObs(Dictionary.CIVIL_STATUS);
+        Concept status = civilStatus != null ? civilStatus.getValueCoded() : null;
         if(status != null){
             patientSummary.setMaritalStatus(status.getName().getName());
         }
@@ -125,8 +121,8 @@ public class SummariesFragmentController {
         //date completed tb
 
         //date confirmed hiv positive
-        CalculationResultMap hivConfirmation = Calculations.lastObs(Dictionary.getConcept(Dictionary.DATE_OF_HIV_DIAGNOSIS), Arrays.asList(patient.getId()), context);
-        Date dateConfirmed = EmrCalculationUtils.datetimeObsResultForPatient(hivConfirmation, patient.getPatientId());
+        Obs hivConfirmation = summary.lastObs(Dictionary.DATE_OF_HIV_DIAGNOSIS);
+        Date dateConfirmed = hivConfirmation != null ? hivConfirmation.getValueDatetime() : null;
         if(dateConfirmed != null){
             patientSummary.setHivConfrimedDate(formatDate(dateConfirmed));
         }
@@ -134,8 +130,7 @@ public class SummariesFragmentController {
             patientSummary.setHivConfrimedDate("");
         }
         // height
-        CalculationResultMap latestHeight = Calculations.lastObs(Dictionary.getConcept(Dictionary.HEIGHT_CM), Arrays.asList(patient.getId()), context);
-        Obs heightValue = EmrCalculationUtils.obsResultForPatient(latestHeight, patient.getPatientId());
+        Obs heightValue = summary.lastObs(Dictionary.HEIGHT_CM);
         if(heightValue != null){
             patientSummary.setHeightAtArtStart(heightValue.getValueNumeric().toString());
         }
@@ -143,8 +138,7 @@ public class SummariesFragmentController {
             patientSummary.setHeightAtArtStart("");
         }
         // weight
-        CalculationResultMap latestWeight = Calculations.lastObs(Dictionary.getConcept(Dictionary.WEIGHT_KG), Arrays.asList(patient.getId()), context);
-        Obs weightValue = EmrCalculationUtils.obsResultForPatient(latestWeight, patient.getPatientId());
+        Obs weightValue = summary.lastObs(Dictionary.WEIGHT_KG);
         if(weightValue != null){
             patientSummary.setWeightAtArtStart(weightValue.getValueNumeric().toString());
         }
@@ -199,8 +193,7 @@ public class SummariesFragmentController {
         //Oxygen Saturation/
 
         // weight
-        CalculationResultMap latestOxygen = Calculations.lastObs(Dictionary.getConcept(Dictionary.OXYGEN_SATURATION), Arrays.asList(patient.getId()), context);
-        Obs latestOxygenValue = EmrCalculationUtils.obsResultForPatient(latestOxygen, patient.getPatientId());
+        Obs latestOxygenValue = summary.lastObs(Dictionary.OXYGEN_SATURATION);
         if(latestOxygenValue != null){
             patientSummary.setOxygenSaturation(latestOxygenValue.getValueNumeric().toString());
         }
@@ -209,8 +202,7 @@ public class SummariesFragmentController {
         }
 
         //pulse rate
-        CalculationResultMap latestPulseRate = Calculations.lastObs(Dictionary.getConcept(Dictionary.PULSE_RATE), Arrays.asList(patient.getId()), context);
-        Obs latestPulseRates = EmrCalculationUtils.obsResultForPatient(latestPulseRate, patient.getPatientId());
+        Obs latestPulseRates = summary.lastObs(Dictionary.PULSE_RATE);
         if(latestPulseRates != null){
             patientSummary.setPulseRate(latestPulseRates.getValueNumeric().toString());
         }
@@ -218,8 +210,7 @@ public class SummariesFragmentController {
             patientSummary.setPulseRate("");
         }
         //Blood Pressure
-        CalculationResultMap bloodPressure = Calculations.lastObs(Dictionary.getConcept(Dictionary.BLOOD_PRESSURE), Arrays.asList(patient.getId()), context);
-        Obs latestBloodPressure = EmrCalculationUtils.obsResultForPatient(bloodPressure, patient.getPatientId());
+        Obs latestBloodPressure = summary.lastObs(Dictionary.BLOOD_PRESSURE);
         if(latestBloodPressure != null){
             patientSummary.setBloodPressure(latestBloodPressure.getValueNumeric().toString());
         }
@@ -227,8 +218,7 @@ public class SummariesFragmentController {
             patientSummary.setBloodPressure("");
         }
         //BP_DIASTOLIC
-        CalculationResultMap bpDiastolic = Calculations.lastObs(Dictionary.getConcept(Dictionary.BLOOD_PRESSURE_DIASTOLIC), Arrays.asList(patient.getId()), context);
-        Obs latestBpDiastolic = EmrCalculationUtils.obsResultForPatient(bpDiastolic, patient.getPatientId());
+        Obs latestBpDiastolic = summary.lastObs(Dictionary.BLOOD_PRESSURE_DIASTOLIC);
         if(latestBpDiastolic != null){
             patientSummary.setBpDiastolic(latestBpDiastolic.getValueNumeric().toString());
         }
@@ -237,8 +227,7 @@ public class SummariesFragmentController {
         }
 
         //LMP
-        CalculationResultMap latestLmp = Calculations.lastObs(Dictionary.getConcept(Dictionary.LMP), Arrays.asList(patient.getId()), context);
-        Obs latestLmpResults = EmrCalculationUtils.obsResultForPatient(latestLmp, patient.getPatientId());
+        Obs latestLmpResults = summary.lastObs(Dictionary.LMP);
         if(latestLmpResults != null){
             patientSummary.setLmp(formatDate(latestLmpResults.getObsDatetime()));
 
@@ -248,8 +237,7 @@ public class SummariesFragmentController {
         }
 
         //respitatory Rate/
-        CalculationResultMap respiratoryRate = Calculations.lastObs(Dictionary.getConcept(Dictionary.RESPIRATORY_RATE), Arrays.asList(patient.getId()), context);
-        Obs latestRespiratoryRate = EmrCalculationUtils.obsResultForPatient(respiratoryRate, patient.getPatientId());
+        Obs latestRespiratoryRate = summary.lastObs(Dictionary.RESPIRATORY_RATE);
         if(latestRespiratoryRate != null){
             patientSummary.setRespiratoryRate(latestRespiratoryRate.getValueNumeric().toString());
         }
@@ -257,8 +245,7 @@ public class SummariesFragmentController {
             patientSummary.setRespiratoryRate("");
         }
         ///TB Screening
-        CalculationResultMap tbMap = Calculations.lastObs(Dictionary.getConcept(Dictionary.TB_SCREENING), Arrays.asList(patient.getPatientId()), context);
-        Obs tbObs = EmrCalculationUtils.obsResultForPatient(tbMap, patient.getPatientId());
+        Obs tbObs = summary.lastObs(Dictionary.TB_SCREENING);
         if(tbObs != null) {
             patientSummary.setTbScreeningOutcome(tbScreeningOutcome(tbObs.getValueCoded()));
         }
@@ -267,8 +254,7 @@ public class SummariesFragmentController {
 
         }
         //TB start
-        CalculationResultMap tbStartDate = Calculations.firstObs(Dictionary.getConcept(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE), Arrays.asList(patient.getId()), context);
-        Obs tbStartDateValue = EmrCalculationUtils.obsResultForPatient(tbStartDate, patient.getPatientId());
+        Obs tbStartDateValue = summary.firstObs(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE);
         if(tbStartDateValue != null){
             patientSummary.setDateEnrolledInTb(formatDate(tbStartDateValue.getObsDatetime()));
 
@@ -278,8 +264,7 @@ public class SummariesFragmentController {
         }
 
         //TB completion
-        CalculationResultMap tbEndDate = Calculations.firstObs(Dictionary.getConcept(Dictionary.TB_END_DATE), Arrays.asList(patient.getId()), context);
-        Obs tbEndDateValue = EmrCalculationUtils.obsResultForPatient(tbEndDate, patient.getPatientId());
+        Obs tbEndDateValue = summary.firstObs(Dictionary.TB_END_DATE);
         if(tbEndDateValue != null){
             patientSummary.setDateCompletedInTb(formatDate(tbEndDateValue.getObsDatetime()));
 
@@ -289,8 +274,7 @@ public class SummariesFragmentController {
         }
 
         //first cd4 count
-        CalculationResultMap firstCd4CountMap = Calculations.firstObs(Dictionary.getConcept(Dictionary.CD4_COUNT), Arrays.asList(patient.getId()), context);
-        Obs cd4Value = EmrCalculationUtils.obsResultForPatient(firstCd4CountMap, patient.getPatientId());
+        Obs cd4Value = summary.firstObs(Dictionary.CD4_COUNT);
         if(cd4Value != null){
             patientSummary.setFirstCd4(cd4Value.getValueNumeric().toString());
             patientSummary.setFirstCd4Date(formatDate(cd4Value.getObsDatetime()));
@@ -301,7 +285,7 @@ public class SummariesFragmentController {
             patientSummary.setFirstCd4Date("");
         }
         //date enrolled into care
-        CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()), context);
+        CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()), summary.getContext());
         PatientProgram program = EmrCalculationUtils.resultForPatient(enrolled, patient.getPatientId());
         if(program != null) {
             patientSummary.setDateEnrolledIntoCare(formatDate(program.getDateEnrolled()));
@@ -310,8 +294,7 @@ public class SummariesFragmentController {
             patientSummary.setDateEnrolledIntoCare("");
         }
         //who staging
-        CalculationResultMap whoStage = Calculations.firstObs(Dictionary.getConcept(Dictionary.CURRENT_WHO_STAGE), Arrays.asList(patient.getPatientId()), context);
-        Obs firstWhoStageObs = EmrCalculationUtils.obsResultForPatient(whoStage, patient.getPatientId());
+        Obs firstWhoStageObs = summary.firstObs(Dictionary.CURRENT_WHO_STAGE);
         if(firstWhoStageObs != null){
             patientSummary.setWhoStagingAtEnrollment(whoStaging(firstWhoStageObs.getValueCoded()));
         }
@@ -319,8 +302,7 @@ public class SummariesFragmentController {
             patientSummary.setWhoStagingAtEnrollment("");
         }
         //CaCx
-        CalculationResultMap cacxMap = Calculations.firstObs(Dictionary.getConcept(Dictionary.CACX_SCREENING), Arrays.asList(patient.getPatientId()), context);
-        Obs cacxObs = EmrCalculationUtils.obsResultForPatient(cacxMap, patient.getPatientId());
+        Obs cacxObs = summary.firstObs(Dictionary.CACX_SCREENING);
         if(cacxObs != null){
             patientSummary.setCaxcScreeningOutcome(cacxScreeningOutcome(cacxObs.getValueCoded()));
         }
@@ -328,8 +310,7 @@ public class SummariesFragmentController {
             patientSummary.setCaxcScreeningOutcome("");
         }
         //STI SCREENING
-        CalculationResultMap stiScreen = Calculations.firstObs(Dictionary.getConcept(Dictionary.STI_SCREENING), Arrays.asList(patient.getPatientId()), context);
-        Obs stiObs = EmrCalculationUtils.obsResultForPatient(stiScreen, patient.getPatientId());
+        Obs stiObs = summary.firstObs(Dictionary.STI_SCREENING);
         if(stiObs != null) {
             patientSummary.setStiScreeningOutcome(stiScreeningOutcome(stiObs.getValueCoded()));
         }
@@ -338,8 +319,7 @@ public class SummariesFragmentController {
 
         }
 //
-        CalculationResultMap fplanning = Calculations.firstObs(Dictionary.getConcept(Dictionary.FAMILY_PLANNING_METHODS), Arrays.asList(patient.getPatientId()), context);
-        Obs fmObs = EmrCalculationUtils.obsResultForPatient(fplanning, patient.getPatientId());
+        Obs fmObs = summary.firstObs(Dictionary.FAMILY_PLANNING_METHODS);
         if(fmObs != null) {
             patientSummary.setFamilyProtection(familyPlanningMethods(fmObs.getValueCoded()));
         }
@@ -348,8 +328,7 @@ public class SummariesFragmentController {
 
         }
         //patient entry point
-        CalculationResultMap entryPointMap = Calculations.firstObs(Dictionary.getConcept(Dictionary.METHOD_OF_ENROLLMENT), Arrays.asList(patient.getPatientId()), context);
-        Obs entryPointObs = EmrCalculationUtils.obsResultForPatient(entryPointMap, patient.getPatientId());
+        Obs entryPointObs = summary.firstObs(Dictionary.METHOD_OF_ENROLLMENT);
         if(entryPointObs != null) {
             patientSummary.setPatientEntryPoint(entryPointAbbriviations(entryPointObs.getValueCoded()));
             patientSummary.setDateEntryPoint(formatDate(entryPointObs.getObsDatetime()));
@@ -359,8 +338,7 @@ public class SummariesFragmentController {
             patientSummary.setDateEntryPoint("");
         }
         ///TB Start date
-        CalculationResultMap tbConfirmation = Calculations.firstObs(Dictionary.getConcept(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE), Arrays.asList(patient.getPatientId()), context);
-        Obs tbDateConfirmed = EmrCalculationUtils.obsResultForPatient(tbConfirmation, patient.getPatientId());
+        Obs tbDateConfirmed = summary.firstObs(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE);
         if(tbDateConfirmed != null) {
             patientSummary.setDateEnrolledInTb(formatDate(tbDateConfirmed.getObsDatetime()));
         }
@@ -375,7 +353,7 @@ public class SummariesFragmentController {
         }
 
         //transfer in date
-        CalculationResult transferInResults = EmrCalculationUtils.evaluateForPatient(TransferInDateCalculation.class, null, patient);
+        CalculationResult transferInResults = summary.calculate(TransferInDateCalculation.class);
         String tiDate;
         if(transferInResults.isEmpty()){
             tiDate = "N/A";
@@ -384,8 +362,7 @@ public class SummariesFragmentController {
             tiDate = formatDate((Date) transferInResults.getValue());
         }
         //facility transferred form
-        CalculationResultMap transferInFacilty = Calculations.lastObs(Dictionary.getConcept(Dictionary.TRANSFER_FROM_FACILITY), Arrays.asList(patient.getPatientId()), context);
-        Obs faciltyObs = EmrCalculationUtils.obsResultForPatient(transferInFacilty, patient.getPatientId());
+        Obs faciltyObs = summary.lastObs(Dictionary.TRANSFER_FROM_FACILITY);
         if(faciltyObs != null){
             patientSummary.setTransferInFacility(faciltyObs.getValueText());
         }
@@ -393,13 +370,10 @@ public class SummariesFragmentController {
             patientSummary.setTransferInFacility("N/A");
         }
         //treatment suppoter details
-        CalculationResultMap treatmentSupporterName = Calculations.lastObs(Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_NAME), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap treatmentSupporterRelation = Calculations.lastObs(Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_RELATION), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap treatmentSupporterContacts = Calculations.lastObs(Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_CONTACTS), Arrays.asList(patient.getPatientId()), context);
+        Obs treatmentSupporterNameObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_NAME);
+        Obs treatmentSupporterRelationObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_RELATION);
+        Obs treatmentSupporterContactsObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_CONTACTS);
 
-        Obs treatmentSupporterNameObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterName, patient.getPatientId());
-        Obs treatmentSupporterRelationObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterRelation, patient.getPatientId());
-        Obs treatmentSupporterContactsObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterContacts, patient.getPatientId());
         if(treatmentSupporterNameObs != null){
             patientSummary.setNameOfTreatmentSupporter(treatmentSupporterNameObs.getValueText());
         }
@@ -421,9 +395,7 @@ public class SummariesFragmentController {
             patientSummary.setContactOfTreatmentSupporter("");
         }
         // tbScreening
-        CalculationResultMap chronicIllness = Calculations.allObs(Dictionary.getConcept(Dictionary.CHRONIC_ILLNESS), Arrays.asList(patient.getPatientId()), context);
-        ListResult chronicIllnessResults = (ListResult) chronicIllness.get(patient.getPatientId());
-        List<Obs> listOfChronicIllness = CalculationUtils.extractResultValues(chronicIllnessResults);
+        List<Obs> listOfChronicIllness = summary.allObs(Dictionary.CHRONIC_ILLNESS);
         String chronicDisease = "";
         if(listOfChronicIllness.size() == 0){
             chronicDisease = "None";
@@ -440,9 +412,7 @@ public class SummariesFragmentController {
         }
 
         //allergies
-        CalculationResultMap alergies = Calculations.allObs(Dictionary.getConcept(Dictionary.ALLERGIES), Arrays.asList(patient.getPatientId()), context);
-        ListResult allergyResults = (ListResult) alergies.get(patient.getPatientId());
-        List<Obs> listOfAllergies = CalculationUtils.extractResultValues(allergyResults);
+        List<Obs> listOfAllergies = summary.allObs(Dictionary.ALLERGIES);
         String allergies = "";
         if(listOfAllergies.size() == 0){
             allergies = "None";
@@ -459,8 +429,7 @@ public class SummariesFragmentController {
         }
 
         //previous art details
-        CalculationResultMap previousArt = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART), Arrays.asList(patient.getPatientId()), context);
-        Obs previousArtObs = EmrCalculationUtils.obsResultForPatient(previousArt,patient.getPatientId());
+        Obs previousArtObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART);
 
         if (previousArtObs != null && previousArtObs.getValueCoded() != null &&  previousArtObs.getValueCoded().getConceptId() == 1 &&  previousArtObs.getVoided().equals(false)) {
             patientSummary.setPreviousArt("Yes");
@@ -470,12 +439,9 @@ public class SummariesFragmentController {
             patientSummary.setPreviousArt("None");
         }
         //set the purpose for previous art
-        CalculationResultMap previousArtPurposePmtct = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_PMTCT), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap previousArtPurposePep = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_PEP), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap previousArtPurposeHaart = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_HAART), Arrays.asList(patient.getPatientId()), context);
-        Obs previousArtPurposePmtctObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposePmtct, patient.getPatientId());
-        Obs previousArtPurposePepObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposePep, patient.getPatientId());
-        Obs previousArtPurposeHaartObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposeHaart, patient.getPatientId());
+        Obs previousArtPurposePmtctObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_PMTCT);
+        Obs previousArtPurposePepObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_PEP);
+        Obs previousArtPurposeHaartObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_HAART);
         String purposeString = "";
         if(patientSummary.getPreviousArt().equals("None") || patientSummary.getPreviousArt().equals("No")){
             purposeString ="None";
@@ -493,7 +459,7 @@ public class SummariesFragmentController {
         patientSummary.setArtPurpose(purposeString);
 
         //art start date
-        CalculationResult artStartDateResults = EmrCalculationUtils.evaluateForPatient(InitialArtStartDateCalculation.class, null, patient);
+        CalculationResult artStartDateResults = summary.calculate(InitialArtStartDateCalculation.class);
         if(artStartDateResults != null) {
             artStartDate = (Date) artStartDateResults.getValue();
             patientSummary.setDateStartedArt(formatDate((Date) artStartDateResults.getValue()));
@@ -503,7 +469,7 @@ public class SummariesFragmentController {
         }
 
         //Clinical stage at art start
-        CalculationResult whoStageAtArtStartResults = EmrCalculationUtils.evaluateForPatient(WhoStageAtArtStartCalculation.class, null,patient);
+        CalculationResult whoStageAtArtStartResults = summary.calculate(WhoStageAtArtStartCalculation.class);
         if(whoStageAtArtStartResults != null){
             patientSummary.setClinicalStageAtArtStart(intergerToRoman(whoStageAtArtStartResults.getValue().toString()));
         }
@@ -512,7 +478,7 @@ public class SummariesFragmentController {
         }
 
         //cd4 at art initiation
-        CalculationResult cd4AtArtStartResults = EmrCalculationUtils.evaluateForPatient(CD4AtARTInitiationCalculation.class, null,patient);
+        CalculationResult cd4AtArtStartResults = summary.calculate(CD4AtARTInitiationCalculation.class);
         if(cd4AtArtStartResults != null){
             patientSummary.setCd4AtArtStart(cd4AtArtStartResults.getValue().toString());
         }
@@ -520,7 +486,7 @@ public class SummariesFragmentController {
             patientSummary.setCd4AtArtStart("");
         }
         //height at art initiation
-        CalculationResult bmiResults = EmrCalculationUtils.evaluateForPatient(BMICalculation.class, null,patient);
+        CalculationResult bmiResults = summary.calculate(BMICalculation.class);
         if(bmiResults != null){
             patientSummary.setBmi(bmiResults.getValue().toString());
         }
@@ -528,7 +494,7 @@ public class SummariesFragmentController {
             patientSummary.setBmi("");
         }
         //first regimen for the patient
-        CalculationResult firstRegimenResults = EmrCalculationUtils.evaluateForPatient(InitialArtRegimenCalculation.class, null, patient);
+        CalculationResult firstRegimenResults = summary.calculate(InitialArtRegimenCalculation.class);
         String firstRegimen;
         if(firstRegimenResults == null || firstRegimenResults.isEmpty()){
             firstRegimen = "";
@@ -539,13 +505,10 @@ public class SummariesFragmentController {
         //previous drugs/regimens and dates
         String regimens = "";
         String regimenDates = "";
-        CalculationResultMap pmtctRegimenHivEnroll = Calculations.lastObs(Dictionary.getConcept(Dictionary.PMTCT_REGIMEN_HIV_ENROLL), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap pepAndHaartRegimenHivEnroll = Calculations.allObs(Dictionary.getConcept(Dictionary.PEP_REGIMEN_HIV_ENROLL), Arrays.asList(patient.getPatientId()), context);
+        Obs obsPmtctHivEnroll = summary.lastObs(Dictionary.PMTCT_REGIMEN_HIV_ENROLL);
+        List<Obs> pepAndHaartRegimenObsList = summary.allObs(Dictionary.PEP_REGIMEN_HIV_ENROLL);
 
-        Obs obsPmtctHivEnroll = EmrCalculationUtils.obsResultForPatient(pmtctRegimenHivEnroll, patient.getPatientId());
 
-        ListResult listResults = (ListResult) pepAndHaartRegimenHivEnroll.get(patient.getPatientId());
-        List<Obs> pepAndHaartRegimenObsList = CalculationUtils.extractResultValues(listResults);
         if(patientSummary.getPreviousArt().equals("None") || patientSummary.getPreviousArt().equals("No")){
             regimens = "None";
             regimenDates += "None";
@@ -572,9 +535,7 @@ public class SummariesFragmentController {
         patientSummary.setPurposeDate(regimenDates);
 
         //past or current oisg
-        CalculationResultMap problemsAdded = Calculations.allObs(Dictionary.getConcept(Dictionary.PROBLEM_ADDED), Arrays.asList(patient.getPatientId()), context);
-        ListResult problemsAddedList = (ListResult) problemsAdded.get(patient.getPatientId());
-        List<Obs> problemsAddedListObs = CalculationUtils.extractResultValues(problemsAddedList);
+        List<Obs> problemsAddedListObs = summary.allObs(Dictionary.PROBLEM_ADDED);
 
         Set<Integer> ios = new HashSet<Integer>();
         String iosResults = "";
@@ -594,7 +555,7 @@ public class SummariesFragmentController {
         }
 
         //current art regimen
-        CalculationResult currentRegimenResults = EmrCalculationUtils.evaluateForPatient(CurrentArtRegimenCalculation.class, null, patient);
+        CalculationResult currentRegimenResults = summary.calculate(CurrentArtRegimenCalculation.class);
         if(currentRegimenResults != null) {
             String roCurrent = currentRegimenResults.toString();
             if (roCurrent != null) {
@@ -606,7 +567,7 @@ public class SummariesFragmentController {
         }
 
         //current who staging
-        CalculationResult currentWhoStaging = EmrCalculationUtils.evaluateForPatient(LastWhoStageCalculation.class, null, patient);
+        CalculationResult currentWhoStaging = summary.calculate(LastWhoStageCalculation.class);
         if(currentWhoStaging != null){
             patientSummary.setCurrentWhoStaging(whoStaging(((Obs) currentWhoStaging.getValue()).getValueCoded()));
         }
@@ -614,13 +575,10 @@ public class SummariesFragmentController {
             patientSummary.setCurrentWhoStaging("");
         }
         //find whether this patient has been in CTX
-        CalculationResultMap medOrdersMapCtx = Calculations.allObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap medicationDispensedCtx = Calculations.lastObs(Dictionary.getConcept(Dictionary.COTRIMOXAZOLE_DISPENSED), Arrays.asList(patient.getPatientId()), context);
+        List<Obs> listOfObsCtx = summary.allObs(Dictionary.MEDICATION_ORDERS);
+        Obs medicationDispensedCtxObs = summary.lastObs(Dictionary.COTRIMOXAZOLE_DISPENSED);
 
-        ListResult medOrdersMapListResults = (ListResult) medOrdersMapCtx.get(patient.getPatientId());
-        List<Obs> listOfObsCtx = CalculationUtils.extractResultValues(medOrdersMapListResults);
 
-        Obs medicationDispensedCtxObs = EmrCalculationUtils.obsResultForPatient(medicationDispensedCtx, patient.getPatientId());
         String ctxValue = "";
         if(listOfObsCtx.size() > 0){
             Collections.reverse(listOfObsCtx);
@@ -644,8 +602,7 @@ public class SummariesFragmentController {
             ctxValue = "No";
         }
         //Find if a patient is on dapsone
-        CalculationResultMap medOrdersMapDapsone = Calculations.lastObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        Obs medOrdersMapObsDapsone = EmrCalculationUtils.obsResultForPatient(medOrdersMapDapsone, patient.getPatientId());
+        Obs medOrdersMapObsDapsone = summary.lastObs(Dictionary.MEDICATION_ORDERS);
         if(medOrdersMapObsDapsone != null && medOrdersMapObsDapsone.getValueCoded().equals(Dictionary.getConcept(Dictionary.DAPSONE))){
             patientSummary.setDapsone("Yes");
         }
@@ -656,10 +613,8 @@ public class SummariesFragmentController {
             patientSummary.setDapsone("No");
         }
         //on IPT
-        CalculationResultMap medOrdersMapInh = Calculations.lastObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        Obs medOrdersMapObsInh = EmrCalculationUtils.obsResultForPatient(medOrdersMapInh, patient.getPatientId());
-        CalculationResultMap medicationDispensedIpt = Calculations.lastObs(Dictionary.getConcept(Dictionary.ISONIAZID_DISPENSED), Arrays.asList(patient.getPatientId()), context);
-        Obs medicationDispensedIptObs = EmrCalculationUtils.obsResultForPatient(medicationDispensedIpt, patient.getPatientId());
+        Obs medOrdersMapObsInh = summary.lastObs(Dictionary.MEDICATION_ORDERS);
+        Obs medicationDispensedIptObs = summary.lastObs(Dictionary.ISONIAZID_DISPENSED);
         if(medOrdersMapObsInh != null && medOrdersMapObsInh.getValueCoded().equals(Dictionary.getConcept(Dictionary.ISONIAZID))){
             patientSummary.setOnIpt("Yes");
         }
@@ -677,7 +632,7 @@ public class SummariesFragmentController {
         }
 
         //find clinics enrolled
-        CalculationResult clinicsEnrolledResult = EmrCalculationUtils.evaluateForPatient(PatientProgramEnrollmentCalculation.class, null, patient);
+        CalculationResult clinicsEnrolledResult = summary.calculate(PatientProgramEnrollmentCalculation.class);
         Set<String> patientProgramList= new HashSet<String>();
         List<String> setToList = new ArrayList<String>();
         if(clinicsEnrolledResult != null){
@@ -698,7 +653,7 @@ public class SummariesFragmentController {
             }
         }
         //most recent cd4
-        CalculationResult cd4Results = EmrCalculationUtils.evaluateForPatient(LastCd4CountDateCalculation.class, null, patient);
+        CalculationResult cd4Results = summary.calculate(LastCd4CountDateCalculation.class);
         if(cd4Results != null && cd4Results.getValue() != null){
             patientSummary.setMostRecentCd4(((Obs) cd4Results.getValue()).getValueNumeric().toString());
             patientSummary.setMostRecentCd4Date(formatDate(((Obs) cd4Results.getValue()).getObsDatetime()));
@@ -709,12 +664,12 @@ public class SummariesFragmentController {
         }
 
         //All CD4 Count
-        CalculationResult allCd4CountResults = EmrCalculationUtils.evaluateForPatient(AllCd4CountCalculation.class, null, patient);
+        CalculationResult allCd4CountResults = summary.calculate(AllCd4CountCalculation.class);
 
         //All  Vl
-        CalculationResult allVlResults = EmrCalculationUtils.evaluateForPatient(AllVlCountCalculation.class, null, patient);
+        CalculationResult allVlResults = summary.calculate(AllVlCountCalculation.class);
         //most recent viral load
-        CalculationResult vlResults = EmrCalculationUtils.evaluateForPatient(ViralLoadAndLdlCalculation.class, null, patient);
+        CalculationResult vlResults = summary.calculate(ViralLoadAndLdlCalculation.class);
         String viralLoadValue = "None";
         String viralLoadDate = "None";
         if(!vlResults.isEmpty()) {
@@ -750,7 +705,7 @@ public class SummariesFragmentController {
             uniquePatientNumber = wrapper.getUniquePatientNumber();
         }
         // find deceased date
-        CalculationResult deadResults = EmrCalculationUtils.evaluateForPatient(DateOfDeathCalculation.class, null, patient);
+        CalculationResult deadResults = summary.calculate(DateOfDeathCalculation.class);
         String dead;
         if(deadResults.isEmpty()){
             dead = "N/A";
@@ -760,7 +715,7 @@ public class SummariesFragmentController {
         }
 
         // next appointment date
-        CalculationResult returnVisitResults = EmrCalculationUtils.evaluateForPatient(LastReturnVisitDateCalculation.class, null, patient);
+        CalculationResult returnVisitResults = summary.calculate(LastReturnVisitDateCalculation.class);
         if(returnVisitResults != null){
             patientSummary.setNextAppointmentDate(formatDate((Date) returnVisitResults.getValue()));
         }
@@ -768,7 +723,7 @@ public class SummariesFragmentController {
             patientSummary.setNextAppointmentDate("");
         }
         // transfer out date
-        CalculationResult totResults = EmrCalculationUtils.evaluateForPatient(TransferOutDateCalculation.class, null, patient);
+        CalculationResult totResults = summary.calculate(TransferOutDateCalculation.class);
         String toDate;
         if(totResults.isEmpty()){
             toDate = "N/A";
@@ -778,8 +733,7 @@ public class SummariesFragmentController {
         }
         //transfer out to facility
         String toFacility;
-        CalculationResultMap transferOutFacilty = Calculations.lastObs(Dictionary.getConcept(Dictionary.TRANSFER_OUT_FACILITY), Arrays.asList(patient.getPatientId()), context);
-        Obs transferOutFacilityObs = EmrCalculationUtils.obsResultForPatient(transferOutFacilty, patient.getPatientId());
+        Obs transferOutFacilityObs = summary.lastObs(Dictionary.TRANSFER_OUT_FACILITY);
         if(transferOutFacilityObs != null){
             toFacility = transferOutFacilityObs.getValueText();
         }
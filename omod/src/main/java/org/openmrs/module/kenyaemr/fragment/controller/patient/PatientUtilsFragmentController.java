@@ -34,20 +34,17 @@ import org.openmrs.api.OrderService;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
-import org.openmrs.module.kenyaemr.calculation.library.ScheduledVisitOnDayCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.VisitsOnDayCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.regimen.RegimenChange;
 import org.openmrs.module.kenyaemr.regimen.RegimenChangeHistory;
 import org.openmrs.module.kenyaemr.regimen.RegimenManager;
 import org.openmrs.module.kenyaemr.util.EmrUiUtils;
 import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
+import org.openmrs.module.kenyaemr.visit.DailySchedule;
 import org.openmrs.module.kenyaui.KenyaUiUtils;
 import org.openmrs.module.kenyaui.annotation.AppAction;
 import org.openmrs.module.kenyaui.annotation.SharedAction;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
-import org.openmrs.module.reporting.common.DateUtil;
-import org.openmrs.module.reportingcompatibility.service.ReportingCompatibilityService;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.UiUtils;
 import org.openmrs.ui.framework.annotation.SpringBean;
@@ -98,66 +95,42 @@ public class PatientUtilsFragmentController {
 	 * Gets scheduled patients
 	 * @param date the date
 	 * @param ui the UI utils
+	 * @param dailySchedule the daily schedule
 	 * @return the simplified patients
 	 */
 	@SharedAction
-	public List<SimpleObject> getScheduled(@RequestParam("date") Date date, UiUtils ui) {
-		// Run the calculations to get patients with scheduled visits
-		PatientCalculationService cs = Context.getService(PatientCalculationService.class);
-		// Set<Integer> allPatients = Context.getPatientSetService().getAllPatients().getMemberIds();
-		Set<Integer> allPatients = Context.getService(ReportingCompatibilityService.class).getAllPatients().getMemberIds();
-
-		Map<String, Object> params = new HashMap<String, Object>();
-		params.put("date", date);
-		PatientCalculationContext calcContext = cs.createCalculationContext();
-
-		Set<Integer> scheduled = CalculationUtils.patientsThatPass(cs.evaluate(allPatients, new ScheduledVisitOnDayCalculation(), params, calcContext));
-		CalculationResultMap actual = cs.evaluate(scheduled, new VisitsOnDayCalculation(), params, calcContext);
-
+	public List<SimpleObject> getScheduled(@RequestParam("date") Date date, UiUtils ui, @SpringBean DailySchedule dailySchedule) {
 		// Sort patients and convert to simple objects
-		List<Patient> scheduledPatients =Context.getService(ReportingCompatibilityService.class).getPatients(scheduled);
+		List<Patient> scheduledPatients = dailySchedule.getScheduledPatients(date);
 		Collections.sort(scheduledPatients, new PersonByNameComparator());
 
+		Map<Integer, List<Visit>> visitsOnDay = dailySchedule.getVisitsOnDay(scheduledPatients, date);
+
 		List<SimpleObject> simplified = new ArrayList<SimpleObject>();
 		for (Patient p : scheduledPatients) {
 			SimpleObject so = ui.simplifyObject(p);
-
-			ListResult visitsResult = (ListResult) actual.get(p.getPatientId());
-			List<Visit> visits = CalculationUtils.extractResultValues(visitsResult);
-			so.put("visits", ui.simplifyCollection(visits));
-
+			so.put("visits", ui.simplifyCollection(visitsOnDay.get(p.getPatientId())));
 			simplified.add(so);
 		}
 
 		return simplified;
 	}
 
+	/**
+	 * Gets the patients seen on a day
+	 * @param date the date
+	 * @param ui the UI utils
+	 * @param dailySchedule the daily schedule
+	 * @return the simplified patients
+	 */
 	@SharedAction
-	public List<SimpleObject> getSeenPatients(@RequestParam("date") Date date, UiUtils ui) {
-
-		Date startOfDay = DateUtil.getStartOfDay(date);
-		Date endOfDay = DateUtil.getEndOfDay(date);
-		List<Patient> allPatients = Context.getPatientService().getAllPatients();
-		List<Patient> requiredPatients = new ArrayList<Patient>();
+	public List<SimpleObject> getSeenPatients(@RequestParam("date") Date date, UiUtils ui, @SpringBean DailySchedule dailySchedule) {
 		List<SimpleObject> simplifiedObj = new ArrayList<SimpleObject>();
-
-		// look for visits that started before endOfDay and ended after startOfDay
-		List<Visit> visits = Context.getVisitService().getVisits(null, allPatients, null, null, startOfDay, endOfDay, null, null, null, true, true);
-
-		if(visits.size() > 0){
-			for (Visit visit : visits) {
-				requiredPatients.add(visit.getPatient());
-			}
-		}
-		for(Patient p:requiredPatients) {
-			SimpleObject so = ui.simplifyObject(p);
-			List<Visit> patientVisit = Context.getVisitService().getVisits(null, Arrays.asList(p), null, null, startOfDay, endOfDay, null, null, null, true, true);
-			so.put("visits", ui.simplifyCollection(patientVisit));
+		for (Map.Entry<Patient, List<Visit>> entry : dailySchedule.getSeenPatients(date).entrySet()) {
+			SimpleObject so = ui.simplifyObject(entry.getKey());
+			so.put("visits", ui.simplifyCollection(entry.getValue()));
 			simplifiedObj.add(so);
-
 		}
-
-
 		return simplifiedObj;
 	}
 
@@ -16,47 +16,35 @@ import org.openmrs.api.ConceptService;
 import org.openmrs.api.PatientService;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.calculation.result.CalculationResultMap;
-import org.openmrs.calculation.patient.PatientCalculationService;
 import org.openmrs.calculation.result.CalculationResult;
-import org.openmrs.calculation.patient.PatientCalculationContext;
-import org.openmrs.calculation.result.ListResult;
 import org.openmrs.module.kenyaemr.metadata.*;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
-import org.openmrs.module.kenyaemrorderentry.util.Utils;
-import org.openmrs.module.kenyaemr.calculation.library.tb.TbDiseaseClassificationCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.tb.TbPatientClassificationCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.tb.TbTreatmentNumberCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.tb.PatientInTbProgramCalculation;
 import org.openmrs.module.kenyaemr.calculation.EmrCalculationUtils;
+import org.openmrs.module.kenyaemr.calculation.CarePanelEvaluator;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
+import org.openmrs.module.kenyaemr.calculation.PatientSummaryAssembler;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.LastCd4CountDateCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.WhoStageAtArtStartCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.InitialArtStartDateCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.hiv.LastCd4PercentageCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.LastWhoStageCalculation;
-import org.openmrs.module.kenyaemr.calculation.library.hiv.HIVEnrollment;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.ViralLoadAndLdlCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.BMICalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.TransferInDateCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.mchms.EligibleForMchmsDischargeCalculation;
 import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.util.ZScoreUtil;
-import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.kenyaemr.nupi.UpiUtilsDataExchange;
 import org.openmrs.module.kenyaemr.regimen.RegimenConfiguration;
-import org.openmrs.module.kenyaemr.wrapper.EncounterWrapper;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
 import org.openmrs.module.kenyaemr.wrapper.PatientWrapper;
 import org.openmrs.module.kenyaemr.wrapper.Enrollment;
 import org.openmrs.module.kenyacore.CoreContext;
-import org.openmrs.module.kenyacore.calculation.CalculationManager;
-import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
 import org.openmrs.module.kenyacore.form.FormDescriptor;
 import org.openmrs.module.kenyacore.form.FormManager;
 import org.openmrs.module.kenyacore.program.ProgramDescriptor;
 import org.openmrs.module.kenyacore.program.ProgramManager;
 import org.openmrs.module.kenyacore.calculation.Calculations;
-import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.CoreUtils;
 import org.openmrs.module.kenyacore.CoreConstants;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.CD4AtARTInitiationCalculation;
@@ -70,9 +58,6 @@ import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
 import org.openmrs.ui.framework.annotation.SpringBean;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -113,7 +98,6 @@ import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
 import org.codehaus.jackson.node.ObjectNode;
 
-import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -157,6 +141,12 @@ public class KenyaemrCoreRestController extends BaseRestController {
     @Autowired
     private ProgramManager programManager;
 
+    @Autowired
+    private PatientFlagEvaluator patientFlagEvaluator;
+
+    @Autowired
+    private CarePanelEvaluator carePanelEvaluator;
+
     public static String HIV_PROGRAM_UUID = "dfdc6d40-2f2f-463d-ba90-cc97350441a8";
     public static String MCH_CHILD_PROGRAM_UUID = "c2ecdf11-97cd-432a-a971-cfd9bd296b83";
     public static String MCH_MOTHER_PROGRAM_UUID = "b5d9e05f-f5ab-4612-98dd-adb75438ed34";
@@ -180,6 +170,11 @@ public class KenyaemrCoreRestController extends BaseRestController {
 
     public static final Locale LOCALE = Locale.ENGLISH;
 
+    /**
+     * The most patients whose flags can be requested at once, e.g. a full clinic queue
+     */
+    public static final int MAX_FLAGS_PATIENTS = 100;
+
     public String name = null;
 
     public static String ISONIAZID_DRUG_UUID = "78280AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
@@ -286,8 +281,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
      */
     @RequestMapping(method = RequestMethod.GET, value = "/flags") // gets all flags for a patient
     @ResponseBody
-    @Cacheable(value = "patientFlagCache", key = "#patientUuid")
-    public Object getAllPatientFlags(HttpServletRequest request, @RequestParam("patientUuid") String patientUuid, @SpringBean CalculationManager calculationManager) {
+    public Object getAllPatientFlags(HttpServletRequest request, @RequestParam("patientUuid") String patientUuid) {
         if (StringUtils.isBlank(patientUuid)) {
             return new ResponseEntity<Object>("You must specify patientUuid in the request!",
                     new HttpHeaders(), HttpStatus.BAD_REQUEST);
@@ -300,75 +294,49 @@ public class KenyaemrCoreRestController extends BaseRestController {
                     new HttpHeaders(), HttpStatus.NOT_FOUND);
         }
 
-        Map<String,String> patientFlagsMap = new HashMap<>();
+        Map<String,String> patientFlagsMap = patientFlagEvaluator.getFlags(patient);
         ObjectNode flagsObj = JsonNodeFactory.instance.objectNode();
-        CacheManager cacheManager = Context.getRegisteredComponent("apiCacheManager", CacheManager.class);
-        Cache patientFlagCache = cacheManager.getCache("patientFlagCache");
-        List<String> patientFlagsToRefreshOnEveryRequest = Arrays.asList(
-                "EligibleForIDSRFlagsCalculation"
-        );
-        calculationManager.refresh();
-
-        /**
-         * The patientFlagCache is implemented using a map of property and value pair.
-         * For flags, the property (the key), is the simple name of the flags calculation
-         * We append a special property of lastUpdated to keep track of the last updated time.
-         * We can use the property to check if certain flags need refresh or not
-         * We only want to refresh flags which can change in the course of a visit
-         */
-        if (patientFlagCache != null && patientFlagCache.get(patientUuid) != null) {
-            patientFlagsMap = (HashMap<String, String>) cacheManager.getCache("patientFlagCache").get(patientUuid).get();
-            for (PatientFlagCalculation calc : calculationManager.getFlagCalculations()) {
-
-                if (!(calc instanceof PatientFlagCalculation) || !patientFlagsToRefreshOnEveryRequest.contains(calc.getClass().getSimpleName())) {
-                    continue;
-                }
-
-                try {
-                    CalculationResult result = Context.getService(PatientCalculationService.class).evaluate(patient.getId(), calc);
-                    if (result != null && (Boolean) result.getValue()) {
-                        patientFlagsMap.put(calc.getClass().getSimpleName(), calc.getFlagMessage());
-                    }
-                }
-                catch (Exception ex) {
-                    System.out.println("Error evaluating " + ex.getMessage());
-                    log.error("Error evaluating " + calc.getClass(), ex);
-                }
-            }
-            patientFlagsMap.put("lastUpdated", Instant.now().toString());
-            patientFlagCache.put(patient.getUuid(), patientFlagsMap);
+        flagsObj.put("results", composePatientFlagsFromMap(patientFlagsMap));
+        return flagsObj.toString();
+    }
 
-            flagsObj.put("results", composePatientFlagsFromMap(patientFlagsMap));
-            return flagsObj.toString();
+    /**
+     * Gets the flags of several patients, e.g. a clinic queue. Each flag calculation is evaluated once for all the
+     * patients whose flags are not cached
+     * @param request
+     * @param patientUuids comma separated patient uuids, at most {@link #MAX_FLAGS_PATIENTS}
+     * @return
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "/patientsFlags") // gets all flags for several patients
+    @ResponseBody
+    public Object getPatientsFlags(HttpServletRequest request, @RequestParam("patientUuids") String patientUuids) {
+        if (StringUtils.isBlank(patientUuids)) {
+            return new ResponseEntity<Object>("You must specify patientUuids in the request!",
+                    new HttpHeaders(), HttpStatus.BAD_REQUEST);
         }
 
-        // define a hashmap of flag name and value for ease of update in other parts of the code
-        for (PatientFlagCalculation calc : calculationManager.getFlagCalculations()) {
-
-            if (!(calc instanceof PatientFlagCalculation)) { // we are only interested in flags calculation
-                continue;
-            }
+        String[] uuids = StringUtils.split(patientUuids, ",");
+        if (uuids.length > MAX_FLAGS_PATIENTS) {
+            return new ResponseEntity<Object>("You can request the flags of at most " + MAX_FLAGS_PATIENTS + " patients at once!",
+                    new HttpHeaders(), HttpStatus.BAD_REQUEST);
+        }
 
-            try {
-                CalculationResult result = Context.getService(PatientCalculationService.class).evaluate(patient.getId(), calc);
-                if (result != null && (Boolean) result.getValue()) {
-                    patientFlagsMap.put(calc.getClass().getSimpleName(), calc.getFlagMessage());
-                }
-            }
-            catch (Exception ex) {
-                System.out.println("Error evaluating " + ex.getMessage());
-                log.error("Error evaluating " + calc.getClass(), ex);
+        List<Patient> patients = new ArrayList<Patient>();
+        for (String patientUuid : uuids) {
+            Patient patient = Context.getPatientService().getPatientByUuid(patientUuid.trim());
+            if (patient != null) {
+                patients.add(patient);
             }
         }
 
-        // add last update timestamp
-        if (patientFlagCache != null) {
-            patientFlagsMap.put("lastUpdated", Instant.now().toString());
-            patientFlagCache.put(patient.getUuid(), patientFlagsMap);
+        Map<Integer, Map<String, String>> patientsFlags = patientFlagEvaluator.getFlags(patients);
+        ObjectNode flagsObj = JsonNodeFactory.instance.objectNode();
+        ObjectNode results = JsonNodeFactory.instance.objectNode();
+        for (Patient patient : patients) {
+            results.put(patient.getUuid(), composePatientFlagsFromMap(patientsFlags.get(patient.getId())));
         }
-        flagsObj.put("results", composePatientFlagsFromMap(patientFlagsMap));
+        flagsObj.put("results", results);
         return flagsObj.toString();
-
     }
 
     /**
@@ -381,11 +349,8 @@ public class KenyaemrCoreRestController extends BaseRestController {
         if (flagsMap.isEmpty()) {
             return flags;
         }
-        for (Map.Entry<String,String> entry : flagsMap.entrySet()) {
-            if (entry.getKey().equalsIgnoreCase("lastUpdated")) {
-                continue;
-            }
-            flags.add(entry.getValue());
+        for (String message : flagsMap.values()) {
+            flags.add(message);
         }
         return flags;
     }
@@ -477,21 +442,18 @@ public class KenyaemrCoreRestController extends BaseRestController {
 
         Location location = (Location) gp.getValue();
 
-        LocationAttribute operationalStatusAttribute = location.getActiveAttributes(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_ACCREDITATION))
+        LocationAttribute operationalStatusAttribute = location.getActiveAttributes(MetadataCache.locationAttributeType(FacilityMetadata._LocationAttributeType.SHA_ACCREDITATION))
                 .stream()
-                .filter(attr -> attr.getAttributeType().equals(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_ACCREDITATION)))
                 .findFirst()
                 .orElse(null);
 
-        LocationAttribute isSHAFacilityAttribute = location.getActiveAttributes(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_CONTRACTED_FACILITY))
+        LocationAttribute isSHAFacilityAttribute = location.getActiveAttributes(MetadataCache.locationAttributeType(FacilityMetadata._LocationAttributeType.SHA_CONTRACTED_FACILITY))
                 .stream()
-                .filter(attr -> attr.getAttributeType().equals(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_CONTRACTED_FACILITY)))
                 .findFirst()
                 .orElse(null);
 
-        LocationAttribute shaFacilityExpiryDate = location.getActiveAttributes(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_FACILITY_EXPIRY_DATE))
+        LocationAttribute shaFacilityExpiryDate = location.getActiveAttributes(MetadataCache.locationAttributeType(FacilityMetadata._LocationAttributeType.SHA_FACILITY_EXPIRY_DATE))
                 .stream()
-                .filter(attr -> attr.getAttributeType().equals(MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.SHA_FACILITY_EXPIRY_DATE)))
                 .findFirst()
                 .orElse(null);
 
@@ -869,318 +831,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
     @ResponseBody
     public Object getPatientHivCarePanel(@RequestParam("patientUuid") String patientUuid) {
         Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
-
-        Map<String, SimpleObject> carePanelObj = new HashMap<String, SimpleObject>();
-        SimpleObject mchMotherResponseObj = new SimpleObject();
-        SimpleObject mchChildResponseObj = new SimpleObject();
-        SimpleObject hivResponseObj = new SimpleObject();
-        SimpleObject tbResponseObj = new SimpleObject();
-        CalculationResult enrolledInHiv = EmrCalculationUtils.evaluateForPatient(HIVEnrollment.class, null, patient);
-
-        if((Boolean) enrolledInHiv.getValue() == false) {
-            CalculationResult lastWhoStage = EmrCalculationUtils.evaluateForPatient(LastWhoStageCalculation.class, null, patient);
-            if(lastWhoStage != null && lastWhoStage.getValue() != null) {
-                hivResponseObj.put("whoStage", EmrUtils.whoStage(((Obs) lastWhoStage.getValue()).getValueCoded()));
-                hivResponseObj.put("whoStageDate", formatDate(((Obs) lastWhoStage.getValue()).getObsDatetime()));
-            } else {
-                hivResponseObj.put("whoStage", "");
-                hivResponseObj.put("whoStageDate", "");
-            }
-            CalculationResult lastCd4 = EmrCalculationUtils.evaluateForPatient(LastCd4CountDateCalculation.class, null, patient);
-            if(lastCd4 != null  && lastCd4.getValue() != null) {
-                hivResponseObj.put("cd4", ((Obs) lastCd4.getValue()).getValueNumeric().toString());
-                hivResponseObj.put("cd4Date", formatDate(((Obs) lastCd4.getValue()).getObsDatetime()));
-            } else {
-                hivResponseObj.put("cd4", "None");
-                hivResponseObj.put("cd4Date", "");
-            }
-            CalculationResult lastCd4Percent = EmrCalculationUtils.evaluateForPatient(LastCd4PercentageCalculation.class, null, patient);
-            if(lastCd4Percent != null && lastCd4Percent.getValue() != null) {
-                hivResponseObj.put("cd4Percent", ((Obs) lastCd4Percent.getValue()).getValueNumeric().toString());
-                hivResponseObj.put("cd4PercentDate", formatDate(((Obs) lastCd4Percent.getValue()).getObsDatetime()));
-            } else {
-                hivResponseObj.put("cd4Percent", "None");
-                hivResponseObj.put("cd4PercentDate", "");
-            }
-
-            CalculationResult lastViralLoad = EmrCalculationUtils.evaluateForPatient(ViralLoadAndLdlCalculation.class, null, patient);
-            String valuesRequired = "None";
-            Date datesRequired = null;
-            if(!lastViralLoad.isEmpty()){
-                String values = lastViralLoad.getValue().toString();
-                //split by brace
-                String value = values.replaceAll("\\{", "").replaceAll("\\}","");
-                //split by equal sign
-                if(!value.isEmpty()) {
-                    String[] splitByEqualSign = value.split("=");
-                    valuesRequired = splitByEqualSign[0];
-                    //for a date from a string
-                    String dateSplitedBySpace = splitByEqualSign[1].split(" ")[0].trim();
-                    String yearPart = dateSplitedBySpace.split("-")[0].trim();
-                    String monthPart = dateSplitedBySpace.split("-")[1].trim();
-                    String dayPart = dateSplitedBySpace.split("-")[2].trim();
-
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.set(Calendar.YEAR, Integer.parseInt(yearPart));
-                    calendar.set(Calendar.MONTH, Integer.parseInt(monthPart) - 1);
-                    calendar.set(Calendar.DATE, Integer.parseInt(dayPart));
-
-                    datesRequired = calendar.getTime();
-                }
-            }
-            // get default LDL value
-            AdministrationService as = Context.getAdministrationService();
-            hivResponseObj.put("ldlValue", valuesRequired);
-            hivResponseObj.put("ldlDate", formatDate(datesRequired));
-            hivResponseObj.put("enrolledInHiv", (Boolean) enrolledInHiv.getValue());
-
-            Encounter lastEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");
-            SimpleObject lastEncDetails = null;
-            if (lastEnc != null) {
-                lastEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastEnc.getObs(), lastEnc);
-            }
-            hivResponseObj.put("lastEncDetails", lastEncDetails);
-            carePanelObj.put("HIV", hivResponseObj);
-
-        }
-
-        // tb details
-        CalculationResult patientEnrolledInTbProgram = EmrCalculationUtils.evaluateForPatient(PatientInTbProgramCalculation.class, null,patient);
-        if((Boolean) patientEnrolledInTbProgram.getValue() == true) {
-            CalculationResult tbDiseaseClassification = EmrCalculationUtils.evaluateForPatient(TbDiseaseClassificationCalculation.class, null, patient);
-            if(tbDiseaseClassification != null && tbDiseaseClassification.getValue() != null) {
-                tbResponseObj.put("tbDiseaseClassification", ((Obs) tbDiseaseClassification.getValue()).getValueCoded().getName().getName());
-                tbResponseObj.put("tbDiseaseClassificationDate", formatDate(((Obs) tbDiseaseClassification.getValue()).getObsDatetime()));
-            } else {
-                tbResponseObj.put("tbDiseaseClassification", "None");
-                tbResponseObj.put("tbDiseaseClassificationDate", "");
-            }
-
-            CalculationResult tbPatientClassification = EmrCalculationUtils.evaluateForPatient(TbPatientClassificationCalculation.class, null, patient);
-            if(tbPatientClassification != null){
-                Obs obs  = (Obs) tbPatientClassification.getValue();
-                if(obs.getValueCoded().equals(Dictionary.getConcept(Dictionary.SMEAR_POSITIVE_NEW_TUBERCULOSIS_PATIENT))) {
-                    tbResponseObj.put("tbPatientClassification", "New tuberculosis patient");
-                }
-                else {
-                    tbResponseObj.put("tbPatientClassification", obs.getValueCoded().getName().getName());
-                }
-            }
-
-            CalculationResult tbTreatmentNo = EmrCalculationUtils.evaluateForPatient(TbTreatmentNumberCalculation.class, null, patient);
-            if(tbTreatmentNo != null && tbTreatmentNo.getValue() != null) {
-                tbResponseObj.put("tbTreatmentNumber", ((Obs) tbTreatmentNo.getValue()));
-            } else {
-                tbResponseObj.put("tbTreatmentNumber", "None");
-            }
-            Encounter lastTBEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "TB");
-            SimpleObject lastTBEncDetails = null;
-            if (lastTBEnc != null) {
-                lastTBEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastTBEnc.getObs(), lastTBEnc);
-            }
-            tbResponseObj.put("lastTbEncounter", lastTBEncDetails);
-            carePanelObj.put("TB", tbResponseObj);
-        }
-
-        //mch mother details
-        PatientCalculationContext context = Context.getService(PatientCalculationService.class).createCalculationContext();
-        Program hivProgram = MetadataUtils.existing(Program.class, HivMetadata._Program.HIV);
-        PatientWrapper patientWrapper = new PatientWrapper(patient);
-
-        Encounter lastMchEnrollment = patientWrapper.lastEncounter(MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHMS_ENROLLMENT));
-        Encounter lastMchFollowup = patientWrapper.lastEncounter(MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHMS_CONSULTATION));
-
-        if(lastMchEnrollment != null ) {
-            EncounterWrapper lastMchEnrollmentWrapped = null;
-            EncounterWrapper lastMchFollowUpWrapped = null;
-            //Check whether already in hiv program
-            CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()), context);
-            PatientProgram program = EmrCalculationUtils.resultForPatient(enrolled, patient.getPatientId());
-
-            if (lastMchEnrollment != null) {
-                lastMchEnrollmentWrapped = new EncounterWrapper(lastMchEnrollment);
-            }
-            if (lastMchFollowup != null) {
-                lastMchFollowUpWrapped = new EncounterWrapper(lastMchFollowup);
-            }
-
-            Obs hivEnrollmentStatusObs = null;
-            Obs hivFollowUpStatusObs = null;
-
-            if (lastMchEnrollmentWrapped != null) {
-                hivEnrollmentStatusObs = lastMchEnrollmentWrapped.firstObs(Dictionary.getConcept(Dictionary.HIV_STATUS));
-            }
-            if (lastMchFollowUpWrapped != null) {
-                hivFollowUpStatusObs = lastMchFollowUpWrapped.firstObs(Dictionary.getConcept(Dictionary.HIV_STATUS));
-            }
-            //Check if already enrolled in HIV, add regimen
-            if(program != null) {
-                String regimenName = null;
-                String regimenStartDate = null;
-                Encounter lastDrugRegimenEditorEncounter = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");   //last DRUG_REGIMEN_EDITOR encounter
-                if (lastDrugRegimenEditorEncounter != null) {
-                    SimpleObject o = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastDrugRegimenEditorEncounter.getAllObs(), lastDrugRegimenEditorEncounter);
-                    regimenName = o.get("regimenShortDisplay").toString();
-                    regimenStartDate = o.get("startDate").toString();
-                    if (regimenName != null) {
-                        mchMotherResponseObj.put("hivStatus", "Positive");
-                        mchMotherResponseObj.put("hivStatusDate", regimenStartDate);
-                        mchMotherResponseObj.put("onHaart", "Yes (" + regimenName + ")");
-                        mchMotherResponseObj.put("onHaartDate", regimenStartDate);
-                    } else {
-                        mchMotherResponseObj.put("hivStatus", "Positive");
-                        mchMotherResponseObj.put("hivStatusDate", regimenStartDate);
-                        mchMotherResponseObj.put("onHaart", "Not specified");
-                        mchMotherResponseObj.put("onHaartDate", regimenStartDate);
-                    }
-                }
-                //Check mch enrollment and followup forms
-            } else if(hivEnrollmentStatusObs != null || hivFollowUpStatusObs != null) {
-                String regimenName = null;
-                if(hivFollowUpStatusObs != null){
-                    mchMotherResponseObj.put("hivStatus", hivFollowUpStatusObs.getValueCoded().getName().getName());
-                    mchMotherResponseObj.put("hivStatusDate", hivFollowUpStatusObs.getValueDatetime());
-                }else {
-                    mchMotherResponseObj.put("hivStatus", hivEnrollmentStatusObs.getValueCoded().getName().getName());
-                    mchMotherResponseObj.put("hivStatusDate", hivEnrollmentStatusObs.getValueDatetime());
-                }
-                Encounter lastDrugRegimenEditorEncounter = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");   //last DRUG_REGIMEN_EDITOR encounter
-                mchMotherResponseObj.put("onHaart", hivEnrollmentStatusObs.getValueDatetime());
-                if (lastDrugRegimenEditorEncounter != null) {
-                    SimpleObject o = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastDrugRegimenEditorEncounter.getAllObs(), lastDrugRegimenEditorEncounter);
-                    regimenName = o.get("regimenShortDisplay").toString();
-                    if (regimenName != null) {
-                        if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("positive")) {
-                            mchMotherResponseObj.put("onHaart", "Yes (" + regimenName + ")");
-                        } else {
-                            mchMotherResponseObj.put("onHaart", "Not specified");
-                        }
-                    } else {
-                        mchMotherResponseObj.put("onHaart", "Not specified");
-                    }
-
-                } else {
-                    if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("negative")) {
-                        mchMotherResponseObj.put("onHaart", "Not applicable");
-                    }
-                    if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("unknown")) {
-                        mchMotherResponseObj.put("onHaart", "Not applicable");
-                    }
-                    if (hivEnrollmentStatusObs.getValueCoded().getName().getName().equalsIgnoreCase("positive")) {
-                        mchMotherResponseObj.put("onHaart", "Not specified");
-                    }
-                }
-            }
-            carePanelObj.put("mchMother", mchMotherResponseObj);
-
-        }
-
-        //mch child details
-        Encounter lastHeiEnrollmentEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_ENROLLMENT));
-
-        if(lastHeiEnrollmentEncounter != null) {
-            List<Obs> milestones = new ArrayList<Obs>();
-            String prophylaxis;
-            String feeding;
-            String heiOutcomes;
-            Integer prophylaxisQuestion = 1282;
-            Integer feedingMethodQuestion = 1151;
-            Integer heiOutcomesQuestion = 159427;
-
-            EncounterType mchcs_consultation_encounterType = MetadataUtils.existing(EncounterType.class, MchMetadata._EncounterType.MCHCS_CONSULTATION);
-            Encounter lastMchcsConsultation = patientWrapper.lastEncounter(mchcs_consultation_encounterType);
-
-            Encounter lastHeiCWCFollowupEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_CONSULTATION));
-            Encounter lastHeiOutComeEncounter = Utils.lastEncounter(patient, Context.getEncounterService().getEncounterTypeByUuid(MchMetadata._EncounterType.MCHCS_HEI_COMPLETION));
-
-            if(lastHeiOutComeEncounter !=null){
-                for (Obs obs : lastHeiOutComeEncounter.getAllObs() ){
-                    if (obs.getConcept().getConceptId().equals(heiOutcomesQuestion)) {
-                        heiOutcomes = obs.getValueCoded().getName().toString();
-                        mchChildResponseObj.put("heiOutcome", heiOutcomes);
-                        mchChildResponseObj.put("heiOutcomeDate", obs.getValueDatetime());
-                        break;
-                    }
-                }
-            }
-            if (lastHeiEnrollmentEncounter != null) {
-                for (Obs obs : lastHeiEnrollmentEncounter.getObs()) {
-                    if (obs.getConcept().getConceptId().equals(prophylaxisQuestion)) {
-                        Integer heiProphylaxisObsAnswer = obs.getValueCoded().getConceptId();
-                        if (heiProphylaxisObsAnswer.equals(86663)) {
-                            prophylaxis = obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        } else if (heiProphylaxisObsAnswer.equals(80586)) {
-                            prophylaxis =  obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        } else if (heiProphylaxisObsAnswer.equals(1652)) {
-                            prophylaxis =  obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        } else if (heiProphylaxisObsAnswer.equals(1149)) {
-                            prophylaxis =  obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        } else if (heiProphylaxisObsAnswer.equals(1107)) {
-                            prophylaxis =  obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentProphylaxisUsed", prophylaxis);
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        } else {
-                            mchChildResponseObj.put("currentProphylaxisUsed", "Not Specified");
-                            mchChildResponseObj.put("currentProphylaxisUsedDate", obs.getValueDatetime());
-                        }
-                    }
-
-                }
-            }
-            if (lastHeiCWCFollowupEncounter != null) {
-                for (Obs obs : lastHeiCWCFollowupEncounter.getObs()) {
-                    if (obs.getConcept().getConceptId().equals(feedingMethodQuestion)) {
-                        Integer heiBabyFeedingObsAnswer = obs.getValueCoded().getConceptId();
-                        if (heiBabyFeedingObsAnswer.equals(5526)) {
-                            feeding = obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentFeedingOption", feeding);
-                            mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
-                        } else if (heiBabyFeedingObsAnswer.equals(1595)) {
-                            feeding = obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentFeedingOption", feeding);
-                            mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
-                        } else if (heiBabyFeedingObsAnswer.equals(6046)) {
-                            feeding = obs.getValueCoded().getName().toString();
-                            mchChildResponseObj.put("currentFeedingOption", feeding);
-                            mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
-                        } else {
-                            mchChildResponseObj.put("currentFeedingOption", "Not Specified");
-                            mchChildResponseObj.put("currentFeedingOptionDate", obs.getValueDatetime());
-                        }
-                    }
-                }
-            }
-            if (lastMchcsConsultation != null) {
-                EncounterWrapper mchcsConsultationWrapper = new EncounterWrapper(lastMchcsConsultation);
-
-                milestones.addAll(mchcsConsultationWrapper.allObs(Dictionary.getConcept(Dictionary.DEVELOPMENTAL_MILESTONES)));
-                String joined = "";
-                if (milestones.size() > 0) {
-                    StringBuilder sb = new StringBuilder();
-                    for (Obs milestone : milestones) {
-                        sb.append(milestone.getValueCoded().getName().toString());
-                        sb.append(", ");
-                    }
-                    joined = sb.substring(0, sb.length() - 2);
-                    mchChildResponseObj.put("milestonesAttained", joined);
-                } else {
-                    mchChildResponseObj.put("milestonesAttained", "Not Specified");
-                }
-            }
-
-            carePanelObj.put("mchChild", mchChildResponseObj);
-        }
-
-        return carePanelObj;
-
+        return carePanelEvaluator.getCarePanels(patient);
     }
 
     /**
@@ -1693,14 +1344,11 @@ public class KenyaemrCoreRestController extends BaseRestController {
             }
         }
 
-        PatientCalculationContext context = Context.getService(PatientCalculationService.class)
-                .createCalculationContext();
-        context.setNow(new Date());
+        PatientSummaryAssembler summary = new PatientSummaryAssembler(patient);
 
         // get marital status
-        CalculationResultMap civilStatus = Calculations.lastObs(Dictionary.getConcept(Dictionary.CIVIL_STATUS),
-                Arrays.asList(patient.getId()), context);
-        Concept status = EmrCalculationUtils.codedObsResultForPatient(civilStatus, patient.getPatientId());
+        Obs civilStatus = summary.lastObs(Dictionary.CIVIL_STATUS);
+        Concept status = civilStatus != null ? civilStatus.getValueCoded() : null;
         if (status != null) {
             patientSummary.put("maritalStatus", status.getName().getName());
         } else {
@@ -1708,18 +1356,14 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // height
-        CalculationResultMap latestHeight = Calculations.lastObs(Dictionary.getConcept(Dictionary.HEIGHT_CM),
-                Arrays.asList(patient.getId()), context);
-        Obs heightValue = EmrCalculationUtils.obsResultForPatient(latestHeight, patient.getPatientId());
+        Obs heightValue = summary.lastObs(Dictionary.HEIGHT_CM);
         if (heightValue != null) {
             patientSummary.put("height", heightValue.getValueNumeric().toString());
         } else {
             patientSummary.put("height", "");
         }
         // weight
-        CalculationResultMap latestWeight = Calculations.lastObs(Dictionary.getConcept(Dictionary.WEIGHT_KG),
-                Arrays.asList(patient.getId()), context);
-        Obs weightValue = EmrCalculationUtils.obsResultForPatient(latestWeight, patient.getPatientId());
+        Obs weightValue = summary.lastObs(Dictionary.WEIGHT_KG);
         if (weightValue != null) {
             patientSummary.put("weight", weightValue.getValueNumeric().toString());
         } else {
@@ -1727,9 +1371,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // Oxygen Saturation/
-        CalculationResultMap latestOxygen = Calculations.lastObs(Dictionary.getConcept(Dictionary.OXYGEN_SATURATION),
-                Arrays.asList(patient.getId()), context);
-        Obs latestOxygenValue = EmrCalculationUtils.obsResultForPatient(latestOxygen, patient.getPatientId());
+        Obs latestOxygenValue = summary.lastObs(Dictionary.OXYGEN_SATURATION);
         if (latestOxygenValue != null) {
             patientSummary.put("oxygenSaturation", latestOxygenValue.getValueNumeric().toString());
         } else {
@@ -1737,9 +1379,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // pulse rate
-        CalculationResultMap latestPulseRate = Calculations.lastObs(Dictionary.getConcept(Dictionary.PULSE_RATE),
-                Arrays.asList(patient.getId()), context);
-        Obs latestPulseRates = EmrCalculationUtils.obsResultForPatient(latestPulseRate, patient.getPatientId());
+        Obs latestPulseRates = summary.lastObs(Dictionary.PULSE_RATE);
         if (latestPulseRates != null) {
             patientSummary.put("pulseRate", latestPulseRates.getValueNumeric().toString());
         } else {
@@ -1747,9 +1387,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // Blood Pressure
-        CalculationResultMap bloodPressure = Calculations.lastObs(Dictionary.getConcept(Dictionary.BLOOD_PRESSURE),
-                Arrays.asList(patient.getId()), context);
-        Obs latestBloodPressure = EmrCalculationUtils.obsResultForPatient(bloodPressure, patient.getPatientId());
+        Obs latestBloodPressure = summary.lastObs(Dictionary.BLOOD_PRESSURE);
         if (latestBloodPressure != null) {
             patientSummary.put("bloodPressure", latestBloodPressure.getValueNumeric().toString());
         } else {
@@ -1757,9 +1395,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // BP_DIASTOLIC
-        CalculationResultMap bpDiastolic = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.BLOOD_PRESSURE_DIASTOLIC), Arrays.asList(patient.getId()), context);
-        Obs latestBpDiastolic = EmrCalculationUtils.obsResultForPatient(bpDiastolic, patient.getPatientId());
+        Obs latestBpDiastolic = summary.lastObs(Dictionary.BLOOD_PRESSURE_DIASTOLIC);
         if (latestBpDiastolic != null) {
             patientSummary.put("bpDiastolic", latestBpDiastolic.getValueNumeric().toString());
         } else {
@@ -1768,9 +1404,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
 
         // LMP
         if (patient.getGender().equals("F")) {
-            CalculationResultMap latestLmp = Calculations.lastObs(Dictionary.getConcept(Dictionary.LMP),
-                    Arrays.asList(patient.getId()), context);
-            Obs latestLmpResults = EmrCalculationUtils.obsResultForPatient(latestLmp, patient.getPatientId());
+            Obs latestLmpResults = summary.lastObs(Dictionary.LMP);
             if (latestLmpResults != null) {
                 patientSummary.put("lmp", formatDate(latestLmpResults.getObsDatetime()));
             } else {
@@ -1779,9 +1413,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // respitatory Rate/
-        CalculationResultMap respiratoryRate = Calculations.lastObs(Dictionary.getConcept(Dictionary.RESPIRATORY_RATE),
-                Arrays.asList(patient.getId()), context);
-        Obs latestRespiratoryRate = EmrCalculationUtils.obsResultForPatient(respiratoryRate, patient.getPatientId());
+        Obs latestRespiratoryRate = summary.lastObs(Dictionary.RESPIRATORY_RATE);
         if (latestRespiratoryRate != null) {
             patientSummary.put("respiratoryRate", latestRespiratoryRate.getValueNumeric().toString());
         } else {
@@ -1789,9 +1421,8 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // date confirmed hiv positive
-        CalculationResultMap hivConfirmation = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.DATE_OF_HIV_DIAGNOSIS), Arrays.asList(patient.getId()), context);
-        Date dateConfirmed = EmrCalculationUtils.datetimeObsResultForPatient(hivConfirmation, patient.getPatientId());
+        Obs hivConfirmation = summary.lastObs(Dictionary.DATE_OF_HIV_DIAGNOSIS);
+        Date dateConfirmed = hivConfirmation != null ? hivConfirmation.getValueDatetime() : null;
         if (dateConfirmed != null) {
             patientSummary.put("dateConfirmedHIVPositive", formatDate(dateConfirmed));
         } else {
@@ -1799,9 +1430,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // first cd4 count
-        CalculationResultMap firstCd4CountMap = Calculations.firstObs(Dictionary.getConcept(Dictionary.CD4_COUNT),
-                Arrays.asList(patient.getId()), context);
-        Obs cd4Value = EmrCalculationUtils.obsResultForPatient(firstCd4CountMap, patient.getPatientId());
+        Obs cd4Value = summary.firstObs(Dictionary.CD4_COUNT);
         if (cd4Value != null) {
             patientSummary.put("firstCd4", cd4Value.getValueNumeric().toString());
             patientSummary.put("firstCd4Date", formatDate(cd4Value.getObsDatetime()));
@@ -1811,8 +1440,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // date enrolled into care
-        CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()),
-                context);
+        CalculationResultMap enrolled = Calculations.firstEnrollments(hivProgram, Arrays.asList(patient.getPatientId()), summary.getContext());
         PatientProgram program = EmrCalculationUtils.resultForPatient(enrolled, patient.getPatientId());
         if (program != null) {
             patientSummary.put("dateEnrolledIntoCare", formatDate(program.getDateEnrolled()));
@@ -1821,9 +1449,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // who staging
-        CalculationResultMap whoStage = Calculations.firstObs(Dictionary.getConcept(Dictionary.CURRENT_WHO_STAGE),
-                Arrays.asList(patient.getPatientId()), context);
-        Obs firstWhoStageObs = EmrCalculationUtils.obsResultForPatient(whoStage, patient.getPatientId());
+        Obs firstWhoStageObs = summary.firstObs(Dictionary.CURRENT_WHO_STAGE);
         if (firstWhoStageObs != null) {
             patientSummary.put("whoStagingAtEnrollment", firstWhoStageObs.getValueCoded().getName().getName());
         } else {
@@ -1832,9 +1458,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
 
         if (patient.getGender().equals("F")) {
             // CaCx
-            CalculationResultMap cacxMap = Calculations.firstObs(Dictionary.getConcept(Dictionary.CACX_SCREENING),
-                    Arrays.asList(patient.getPatientId()), context);
-            Obs cacxObs = EmrCalculationUtils.obsResultForPatient(cacxMap, patient.getPatientId());
+            Obs cacxObs = summary.firstObs(Dictionary.CACX_SCREENING);
             if (cacxObs != null) {
                 patientSummary.put("caxcScreeningOutcome", cacxScreeningOutcome(cacxObs.getValueCoded()));
             } else {
@@ -1843,9 +1467,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // STI SCREENING
-        CalculationResultMap stiScreen = Calculations.firstObs(Dictionary.getConcept(Dictionary.STI_SCREENING),
-                Arrays.asList(patient.getPatientId()), context);
-        Obs stiObs = EmrCalculationUtils.obsResultForPatient(stiScreen, patient.getPatientId());
+        Obs stiObs = summary.firstObs(Dictionary.STI_SCREENING);
         if (stiObs != null) {
             patientSummary.put("stiScreeningOutcome", stiScreeningOutcome(stiObs.getValueCoded()));
         } else {
@@ -1853,10 +1475,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // Fp protection
-        CalculationResultMap fplanning = Calculations.firstObs(
-                Dictionary.getConcept(Dictionary.FAMILY_PLANNING_METHODS), Arrays.asList(patient.getPatientId()),
-                context);
-        Obs fmObs = EmrCalculationUtils.obsResultForPatient(fplanning, patient.getPatientId());
+        Obs fmObs = summary.firstObs(Dictionary.FAMILY_PLANNING_METHODS);
         if (fmObs != null) {
             patientSummary.put("familyProtection", familyPlanningMethods(fmObs.getValueCoded()));
         } else {
@@ -1864,8 +1483,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // transfer in date
-        CalculationResult transferInResults = EmrCalculationUtils.evaluateForPatient(TransferInDateCalculation.class,
-                null, patient);
+        CalculationResult transferInResults = summary.calculate(TransferInDateCalculation.class);
         if (transferInResults.isEmpty()) {
             patientSummary.put("transferInDate", "N/A");
         } else {
@@ -1873,10 +1491,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // facility transferred form
-        CalculationResultMap transferInFacilty = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.TRANSFER_FROM_FACILITY), Arrays.asList(patient.getPatientId()),
-                context);
-        Obs faciltyObs = EmrCalculationUtils.obsResultForPatient(transferInFacilty, patient.getPatientId());
+        Obs faciltyObs = summary.lastObs(Dictionary.TRANSFER_FROM_FACILITY);
         if (faciltyObs != null) {
             patientSummary.put("transferInFacility", faciltyObs.getValueText());
         } else {
@@ -1884,9 +1499,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // patient entry point
-        CalculationResultMap entryPointMap = Calculations.firstObs(
-                Dictionary.getConcept(Dictionary.METHOD_OF_ENROLLMENT), Arrays.asList(patient.getPatientId()), context);
-        Obs entryPointObs = EmrCalculationUtils.obsResultForPatient(entryPointMap, patient.getPatientId());
+        Obs entryPointObs = summary.firstObs(Dictionary.METHOD_OF_ENROLLMENT);
         if (entryPointObs != null) {
             patientSummary.put("patientEntryPoint", entryPointAbbriviations(entryPointObs.getValueCoded()));
             patientSummary.put("patientEntryPointDate", formatDate(entryPointObs.getObsDatetime()));
@@ -1896,22 +1509,10 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // treatment suppoter details
-        CalculationResultMap treatmentSupporterName = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_NAME), Arrays.asList(patient.getPatientId()),
-                context);
-        CalculationResultMap treatmentSupporterRelation = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_RELATION), Arrays.asList(patient.getPatientId()),
-                context);
-        CalculationResultMap treatmentSupporterContacts = Calculations.lastObs(
-                Dictionary.getConcept(Dictionary.TREATMENT_SUPPORTER_CONTACTS), Arrays.asList(patient.getPatientId()),
-                context);
-
-        Obs treatmentSupporterNameObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterName,
-                patient.getPatientId());
-        Obs treatmentSupporterRelationObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterRelation,
-                patient.getPatientId());
-        Obs treatmentSupporterContactsObs = EmrCalculationUtils.obsResultForPatient(treatmentSupporterContacts,
-                patient.getPatientId());
+        Obs treatmentSupporterNameObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_NAME);
+        Obs treatmentSupporterRelationObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_RELATION);
+        Obs treatmentSupporterContactsObs = summary.lastObs(Dictionary.TREATMENT_SUPPORTER_CONTACTS);
+
         if (treatmentSupporterNameObs != null) {
             patientSummary.put("nameOfTreatmentSupporter", treatmentSupporterNameObs.getValueText());
         } else {
@@ -1932,10 +1533,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // TB Start date
-        CalculationResultMap tbConfirmation = Calculations.firstObs(
-                Dictionary.getConcept(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE),
-                Arrays.asList(patient.getPatientId()), context);
-        Obs tbDateConfirmed = EmrCalculationUtils.obsResultForPatient(tbConfirmation, patient.getPatientId());
+        Obs tbDateConfirmed = summary.firstObs(Dictionary.TUBERCULOSIS_DRUG_TREATMENT_START_DATE);
         if (tbDateConfirmed != null) {
             patientSummary.put("dateEnrolledInTb", formatDate(tbDateConfirmed.getObsDatetime()));
         } else {
@@ -1943,9 +1541,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // TB completion
-        CalculationResultMap tbEndDate = Calculations.firstObs(Dictionary.getConcept(Dictionary.TB_END_DATE),
-                Arrays.asList(patient.getId()), context);
-        Obs tbEndDateValue = EmrCalculationUtils.obsResultForPatient(tbEndDate, patient.getPatientId());
+        Obs tbEndDateValue = summary.firstObs(Dictionary.TB_END_DATE);
         if (tbEndDateValue != null) {
             patientSummary.put("dateCompletedInTb", formatDate(tbEndDateValue.getObsDatetime()));
         } else {
@@ -1953,9 +1549,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         /// TB Screening
-        CalculationResultMap tbMap = Calculations.lastObs(Dictionary.getConcept(Dictionary.TB_SCREENING),
-                Arrays.asList(patient.getPatientId()), context);
-        Obs tbObs = EmrCalculationUtils.obsResultForPatient(tbMap, patient.getPatientId());
+        Obs tbObs = summary.lastObs(Dictionary.TB_SCREENING);
         if (tbObs != null) {
             patientSummary.put("tbScreeningOutcome", tbObs.getValueCoded().getName().getName());
         } else {
@@ -1964,10 +1558,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // chronicDisease
-        CalculationResultMap chronicIllness = Calculations.allObs(Dictionary.getConcept(Dictionary.CHRONIC_ILLNESS),
-                Arrays.asList(patient.getPatientId()), context);
-        ListResult chronicIllnessResults = (ListResult) chronicIllness.get(patient.getPatientId());
-        List<Obs> listOfChronicIllness = CalculationUtils.extractResultValues(chronicIllnessResults);
+        List<Obs> listOfChronicIllness = summary.allObs(Dictionary.CHRONIC_ILLNESS);
         String chronicDisease = "";
         if (listOfChronicIllness.size() == 0) {
             patientSummary.put("chronicDisease", "None");
@@ -1983,10 +1574,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         // allergies
-        CalculationResultMap alergies = Calculations.allObs(Dictionary.getConcept(Dictionary.ALLERGIES),
-                Arrays.asList(patient.getPatientId()), context);
-        ListResult allergyResults = (ListResult) alergies.get(patient.getPatientId());
-        List<Obs> listOfAllergies = CalculationUtils.extractResultValues(allergyResults);
+        List<Obs> listOfAllergies = summary.allObs(Dictionary.ALLERGIES);
         String allergies = "";
         if (listOfAllergies.size() == 0) {
             patientSummary.put("allergies", "None");
@@ -2002,8 +1590,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //previous art details
-        CalculationResultMap previousArt = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART), Arrays.asList(patient.getPatientId()), context);
-        Obs previousArtObs = EmrCalculationUtils.obsResultForPatient(previousArt,patient.getPatientId());
+        Obs previousArtObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART);
         if (previousArtObs != null && previousArtObs.getValueCoded() != null &&  previousArtObs.getValueCoded().getConceptId() == 1 &&  previousArtObs.getVoided().equals(false)) {
             patientSummary.put("previousArtStatus","Yes");
         } else if (previousArtObs != null && previousArtObs.getValueCoded() != null &&  previousArtObs.getValueCoded().getConceptId() == 2 &&  previousArtObs.getVoided().equals(false)) {
@@ -2013,12 +1600,9 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //set the purpose for previous art
-        CalculationResultMap previousArtPurposePmtct = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_PMTCT), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap previousArtPurposePep = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_PEP), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap previousArtPurposeHaart = Calculations.lastObs(Dictionary.getConcept(Dictionary.PREVIOUS_ON_ART_PURPOSE_HAART), Arrays.asList(patient.getPatientId()), context);
-        Obs previousArtPurposePmtctObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposePmtct, patient.getPatientId());
-        Obs previousArtPurposePepObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposePep, patient.getPatientId());
-        Obs previousArtPurposeHaartObs = EmrCalculationUtils.obsResultForPatient(previousArtPurposeHaart, patient.getPatientId());
+        Obs previousArtPurposePmtctObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_PMTCT);
+        Obs previousArtPurposePepObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_PEP);
+        Obs previousArtPurposeHaartObs = summary.lastObs(Dictionary.PREVIOUS_ON_ART_PURPOSE_HAART);
         String purposeString = "";
         if(patientSummary.get("previousArtStatus").equals("None") || patientSummary.get("previousArtStatus").equals("No")){
             purposeString ="None";
@@ -2036,7 +1620,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         patientSummary.put("artPurpose", purposeString);
 
         //art start date
-        CalculationResult artStartDateResults = EmrCalculationUtils.evaluateForPatient(InitialArtStartDateCalculation.class, null, patient);
+        CalculationResult artStartDateResults = summary.calculate(InitialArtStartDateCalculation.class);
         if(artStartDateResults != null) {
             patientSummary.put("dateStartedArt", formatDate((Date) artStartDateResults.getValue()));
         }
@@ -2045,7 +1629,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //Clinical stage at art start
-        CalculationResult whoStageAtArtStartResults = EmrCalculationUtils.evaluateForPatient(WhoStageAtArtStartCalculation.class, null,patient);
+        CalculationResult whoStageAtArtStartResults = summary.calculate(WhoStageAtArtStartCalculation.class);
         if(whoStageAtArtStartResults != null){
             patientSummary.put("whoStageAtArtStart", intergerToRoman(whoStageAtArtStartResults.getValue().toString()));
         }
@@ -2054,7 +1638,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //cd4 at art initiation
-        CalculationResult cd4AtArtStartResults = EmrCalculationUtils.evaluateForPatient(CD4AtARTInitiationCalculation.class, null,patient);
+        CalculationResult cd4AtArtStartResults = summary.calculate(CD4AtARTInitiationCalculation.class);
         if(cd4AtArtStartResults != null){
             patientSummary.put("cd4AtArtStart", cd4AtArtStartResults.getValue().toString());
         }
@@ -2063,7 +1647,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //bmi
-        CalculationResult bmiResults = EmrCalculationUtils.evaluateForPatient(BMICalculation.class, null,patient);
+        CalculationResult bmiResults = summary.calculate(BMICalculation.class);
         if(bmiResults != null){
             patientSummary.put("bmi", bmiResults.getValue().toString());
         }
@@ -2080,13 +1664,10 @@ public class KenyaemrCoreRestController extends BaseRestController {
         //previous drugs/regimens and dates
         String regimens = "";
         String regimenDates = "";
-        CalculationResultMap pmtctRegimenHivEnroll = Calculations.lastObs(Dictionary.getConcept(Dictionary.PMTCT_REGIMEN_HIV_ENROLL), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap pepAndHaartRegimenHivEnroll = Calculations.allObs(Dictionary.getConcept(Dictionary.PEP_REGIMEN_HIV_ENROLL), Arrays.asList(patient.getPatientId()), context);
+        Obs obsPmtctHivEnroll = summary.lastObs(Dictionary.PMTCT_REGIMEN_HIV_ENROLL);
+        List<Obs> pepAndHaartRegimenObsList = summary.allObs(Dictionary.PEP_REGIMEN_HIV_ENROLL);
 
-        Obs obsPmtctHivEnroll = EmrCalculationUtils.obsResultForPatient(pmtctRegimenHivEnroll, patient.getPatientId());
 
-        ListResult listResults = (ListResult) pepAndHaartRegimenHivEnroll.get(patient.getPatientId());
-        List<Obs> pepAndHaartRegimenObsList = CalculationUtils.extractResultValues(listResults);
         if(patientSummary.get("previousArtStatus").equals("None") || patientSummary.get("previousArtStatus").equals("No")){
             regimens = "None";
             regimenDates += "None";
@@ -2108,9 +1689,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //past or current oisg
-        CalculationResultMap problemsAdded = Calculations.allObs(Dictionary.getConcept(Dictionary.PROBLEM_ADDED), Arrays.asList(patient.getPatientId()), context);
-        ListResult problemsAddedList = (ListResult) problemsAdded.get(patient.getPatientId());
-        List<Obs> problemsAddedListObs = CalculationUtils.extractResultValues(problemsAddedList);
+        List<Obs> problemsAddedListObs = summary.allObs(Dictionary.PROBLEM_ADDED);
 
         Set<Integer> ios = new HashSet<Integer>();
         String iosResults = "";
@@ -2137,7 +1716,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //current who staging
-        CalculationResult currentWhoStaging = EmrCalculationUtils.evaluateForPatient(LastWhoStageCalculation.class, null, patient);
+        CalculationResult currentWhoStaging = summary.calculate(LastWhoStageCalculation.class);
         if(currentWhoStaging != null){
             patientSummary.put("currentWhoStaging", whoStaging(((Obs) currentWhoStaging.getValue()).getValueCoded()));
         }
@@ -2146,13 +1725,10 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //find whether this patient has been in CTX
-        CalculationResultMap medOrdersMapCtx = Calculations.allObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        CalculationResultMap medicationDispensedCtx = Calculations.lastObs(Dictionary.getConcept(Dictionary.COTRIMOXAZOLE_DISPENSED), Arrays.asList(patient.getPatientId()), context);
+        List<Obs> listOfObsCtx = summary.allObs(Dictionary.MEDICATION_ORDERS);
+        Obs medicationDispensedCtxObs = summary.lastObs(Dictionary.COTRIMOXAZOLE_DISPENSED);
 
-        ListResult medOrdersMapListResults = (ListResult) medOrdersMapCtx.get(patient.getPatientId());
-        List<Obs> listOfObsCtx = CalculationUtils.extractResultValues(medOrdersMapListResults);
 
-        Obs medicationDispensedCtxObs = EmrCalculationUtils.obsResultForPatient(medicationDispensedCtx, patient.getPatientId());
         String ctxValue = "";
         if(listOfObsCtx.size() > 0){
             Collections.reverse(listOfObsCtx);
@@ -2178,8 +1754,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //Find if a patient is on dapsone
-        CalculationResultMap medOrdersMapDapsone = Calculations.lastObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        Obs medOrdersMapObsDapsone = EmrCalculationUtils.obsResultForPatient(medOrdersMapDapsone, patient.getPatientId());
+        Obs medOrdersMapObsDapsone = summary.lastObs(Dictionary.MEDICATION_ORDERS);
         if(medOrdersMapObsDapsone != null && medOrdersMapObsDapsone.getValueCoded().equals(Dictionary.getConcept(Dictionary.DAPSONE))){
             patientSummary.put("dapsone", "Yes");
         }
@@ -2191,10 +1766,8 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //on IPT
-        CalculationResultMap medOrdersMapInh = Calculations.lastObs(Dictionary.getConcept(Dictionary.MEDICATION_ORDERS), Arrays.asList(patient.getPatientId()), context);
-        Obs medOrdersMapObsInh = EmrCalculationUtils.obsResultForPatient(medOrdersMapInh, patient.getPatientId());
-        CalculationResultMap medicationDispensedIpt = Calculations.lastObs(Dictionary.getConcept(Dictionary.ISONIAZID_DISPENSED), Arrays.asList(patient.getPatientId()), context);
-        Obs medicationDispensedIptObs = EmrCalculationUtils.obsResultForPatient(medicationDispensedIpt, patient.getPatientId());
+        Obs medOrdersMapObsInh = summary.lastObs(Dictionary.MEDICATION_ORDERS);
+        Obs medicationDispensedIptObs = summary.lastObs(Dictionary.ISONIAZID_DISPENSED);
         if(medOrdersMapObsInh != null && medOrdersMapObsInh.getValueCoded().equals(Dictionary.getConcept(Dictionary.ISONIAZID))){
             patientSummary.put("onIpt", "Yes");
         }
@@ -2212,7 +1785,7 @@ public class KenyaemrCoreRestController extends BaseRestController {
         }
 
         //find clinics enrolled
-        CalculationResult clinicsEnrolledResult = EmrCalculationUtils.evaluateForPatient(PatientProgramEnrollmentCalculation.class, null, patient);
+        CalculationResult clinicsEnrolledResult = summary.calculate(PatientProgramEnrollmentCalculation.class);
         Set<String> patientProgramList= new HashSet<String>();
         List<String> setToList = new ArrayList<String>();
         if(clinicsEnrolledResult != null){
@@ -2235,7 +1808,7 @@ else {
         patientSummary.put("clinicsEnrolled", clinicValues);
 
         //most recent cd4
-        CalculationResult cd4Results = EmrCalculationUtils.evaluateForPatient(LastCd4CountDateCalculation.class, null, patient);
+        CalculationResult cd4Results = summary.calculate(LastCd4CountDateCalculation.class);
         if(cd4Results != null && cd4Results.getValue() != null){
             patientSummary.put("mostRecentCd4",((Obs) cd4Results.getValue()).getValueNumeric().toString());
             patientSummary.put("mostRecentCd4Date", formatDate(((Obs) cd4Results.getValue()).getObsDatetime()));
@@ -2248,7 +1821,7 @@ else {
 
 
         // find deceased date
-        CalculationResult deadResults = EmrCalculationUtils.evaluateForPatient(DateOfDeathCalculation.class, null, patient);
+        CalculationResult deadResults = summary.calculate(DateOfDeathCalculation.class);
         if(deadResults.isEmpty()){
             patientSummary.put("deathDate", "N/A");
         }
@@ -2257,7 +1830,7 @@ else {
         }
 
         // next appointment date
-        CalculationResult returnVisitResults = EmrCalculationUtils.evaluateForPatient(LastReturnVisitDateCalculation.class, null, patient);
+        CalculationResult returnVisitResults = summary.calculate(LastReturnVisitDateCalculation.class);
         if(returnVisitResults != null){
             patientSummary.put("nextAppointmentDate", formatDate((Date) returnVisitResults.getValue()));
         }
@@ -2266,7 +1839,7 @@ else {
         }
 
         // transfer out date
-        CalculationResult totResults = EmrCalculationUtils.evaluateForPatient(TransferOutDateCalculation.class, null, patient);
+        CalculationResult totResults = summary.calculate(TransferOutDateCalculation.class);
         if(totResults.isEmpty()){
             patientSummary.put("transferOutDate", "N/A");
         }
@@ -2275,8 +1848,7 @@ else {
         }
 
         //transfer out to facility
-        CalculationResultMap transferOutFacilty = Calculations.lastObs(Dictionary.getConcept(Dictionary.TRANSFER_OUT_FACILITY), Arrays.asList(patient.getPatientId()), context);
-        Obs transferOutFacilityObs = EmrCalculationUtils.obsResultForPatient(transferOutFacilty, patient.getPatientId());
+        Obs transferOutFacilityObs = summary.lastObs(Dictionary.TRANSFER_OUT_FACILITY);
         if(transferOutFacilityObs != null){
             patientSummary.put("transferOutFacility", transferOutFacilityObs.getValueText());
         }
@@ -2285,10 +1857,10 @@ else {
         }
 
         //All  Vl
-        CalculationResult allVlResults = EmrCalculationUtils.evaluateForPatient(AllVlCountCalculation.class, null, patient);
+        CalculationResult allVlResults = summary.calculate(AllVlCountCalculation.class);
         patientSummary.put("allVlResults", allVlResults);
         //most recent viral load
-        CalculationResult vlResults = EmrCalculationUtils.evaluateForPatient(ViralLoadAndLdlCalculation.class, null, patient);
+        CalculationResult vlResults = summary.calculate(ViralLoadAndLdlCalculation.class);
         String viralLoadValue = "None";
         String viralLoadDate = "None";
         if(!vlResults.isEmpty()) {
@@ -2315,7 +1887,7 @@ else {
         }
 
         //All CD4 Count
-        CalculationResult allCd4CountResults = EmrCalculationUtils.evaluateForPatient(AllCd4CountCalculation.class, null, patient);
+        CalculationResult allCd4CountResults = summary.calculate(AllCd4CountCalculation.class);
         patientSummary.put("allCd4CountResults", allCd4CountResults.getValue());
 
         return patientSummary;
@@ -16,16 +16,22 @@ import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
 import org.openmrs.LocationAttributeType;
 import org.openmrs.Patient;
+import org.openmrs.Visit;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.test.TestUtils;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.kenyaemr.metadata.sync.MflFacilityIndex;
 import org.openmrs.module.kenyaemr.test.TestUiUtils;
+import org.openmrs.module.kenyaemr.visit.ActiveVisitIndex;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
+import java.util.List;
+
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 
@@ -45,6 +51,12 @@ public class SearchFragmentControllerTest extends BaseModuleWebContextSensitiveT
 	@Autowired
 	private TestUiUtils ui;
 
+	@Autowired
+	private ActiveVisitIndex activeVisitIndex;
+
+	@Autowired
+	private MflFacilityIndex mflFacilityIndex;
+
 	/**
 	 * Setup each test
 	 */
@@ -68,18 +80,18 @@ public class SearchFragmentControllerTest extends BaseModuleWebContextSensitiveT
 	}
 
 	/**
-	 * @see SearchFragmentController#locations(String, org.openmrs.ui.framework.UiUtils)
+	 * @see SearchFragmentController#locations(String, org.openmrs.ui.framework.UiUtils, MflFacilityIndex)
 	 */
 	@Test
 	public void locations_shouldMatchByPartialName() {
-		SimpleObject[] result = controller.locations("Xan", ui);
+		SimpleObject[] result = controller.locations("Xan", ui, mflFacilityIndex);
 		Assert.assertThat(result.length, is(1));
 		Assert.assertThat(result[0], hasEntry("id", (Object) new Integer(2)));
 		Assert.assertThat(result[0], hasEntry("name", (Object) "Xanadu"));
 	}
 
 	/**
-	 * @see SearchFragmentController#locations(String, org.openmrs.ui.framework.UiUtils)
+	 * @see SearchFragmentController#locations(String, org.openmrs.ui.framework.UiUtils, MflFacilityIndex)
 	 */
 	@Test
 	public void locations_shouldMatchByCompleteMflCode() {
@@ -93,13 +105,46 @@ public class SearchFragmentControllerTest extends BaseModuleWebContextSensitiveT
 		xanadu.addAttribute(attr);
 		Context.getLocationService().saveLocation(xanadu);
 
-		SimpleObject[] result = controller.locations("15002", ui);
+		SimpleObject[] result = controller.locations("15002", ui, mflFacilityIndex);
 		Assert.assertThat(result.length, is(1));
 		Assert.assertThat(result[0], hasEntry("id", (Object) new Integer(2)));
 		Assert.assertThat(result[0], hasEntry("name", (Object) "Xanadu"));
 		Assert.assertThat(result[0], hasEntry("code", (Object) "15002"));
 	}
 
+	/**
+	 * @see SearchFragmentController#locations(String, org.openmrs.ui.framework.UiUtils, MflFacilityIndex)
+	 */
+	@Test
+	public void locations_shouldMatchByNameFragment() {
+		SimpleObject[] result = controller.locations("anad", ui, mflFacilityIndex);
+		Assert.assertThat(result.length, is(1));
+		Assert.assertThat(result[0], hasEntry("id", (Object) new Integer(2)));
+	}
+
+	/**
+	 * @see SearchFragmentController#simpleLocations(String, MflFacilityIndex)
+	 */
+	@Test
+	public void simpleLocations_shouldOnlyIncludeLocationsWithMflCodes() {
+		Assert.assertThat(controller.simpleLocations("Xan", mflFacilityIndex).size(), is(0));
+
+		LocationAttributeType mflCode = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
+		Location xanadu = Context.getLocationService().getLocation(2);
+
+		LocationAttribute attr = new LocationAttribute();
+		attr.setOwner(xanadu);
+		attr.setAttributeType(mflCode);
+		attr.setValue("15002");
+		xanadu.addAttribute(attr);
+		Context.getLocationService().saveLocation(xanadu);
+		mflFacilityIndex.onLocationChanged(xanadu);
+
+		List<SimpleObject> result = controller.simpleLocations("Xan", mflFacilityIndex);
+		Assert.assertThat(result.size(), is(1));
+		Assert.assertThat(result.get(0), hasEntry("mflCode", (Object) "15002-Xanadu"));
+	}
+
 	/**
 	 * @see SearchFragmentController#patient(org.openmrs.Patient, org.openmrs.ui.framework.UiUtils)
 	 */
@@ -110,4 +155,26 @@ public class SearchFragmentControllerTest extends BaseModuleWebContextSensitiveT
 		Assert.assertThat(result, hasEntry("id", (Object) new Integer(7)));
 		Assert.assertThat(result, hasEntry("name", (Object) "Chebaskwony, Collet Test"));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @see SearchFragmentController#patients(String, String, org.openmrs.ui.framework.UiUtils, ActiveVisitIndex)
+	 */
+	@Test
+	public void patients_shouldReturnCheckedInPatientsWithTheirActiveVisit() {
+		Patient patient = TestUtils.getPatient(7);
+		Visit visit = new Visit(patient, Context.getVisitService().getVisitType(1), new Date());
+		Context.getVisitService().saveVisit(visit);
+		activeVisitIndex.invalidate();
+
+		List<SimpleObject> results = controller.patients(null, "checked-in", ui, activeVisitIndex);
+
+		SimpleObject result = null;
+		for (SimpleObject simplePatient : results) {
+			if (new Integer(7).equals(simplePatient.get("id"))) {
+				result = simplePatient;
+			}
+		}
+		Assert.assertThat(result != null, is(true));
+		Assert.assertThat(result.get("activeVisit") != null, is(true));
+	}
+}
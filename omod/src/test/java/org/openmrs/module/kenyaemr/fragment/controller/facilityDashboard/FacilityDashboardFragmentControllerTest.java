@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.fragment.controller.facilityDashboard;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.reporting.builder.hiv.FacilityDashboardSnapshots;
+import org.openmrs.module.kenyaui.KenyaUiUtils;
+import org.openmrs.ui.framework.fragment.FragmentModel;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link FacilityDashboardFragmentController}
+ */
+public class FacilityDashboardFragmentControllerTest extends BaseModuleWebContextSensitiveTest {
+
+	@Autowired
+	private KenyaUiUtils kenyaui;
+
+	private FacilityDashboardFragmentController controller;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		controller = new FacilityDashboardFragmentController();
+	}
+
+	/**
+	 * @see FacilityDashboardFragmentController#controller(org.openmrs.ui.framework.fragment.FragmentModel, org.openmrs.ui.framework.UiUtils, javax.servlet.http.HttpSession, org.openmrs.module.kenyaui.KenyaUiUtils, org.openmrs.module.kenyaemr.reporting.builder.hiv.FacilityDashboardSnapshots)
+	 */
+	@Test
+	public void controller_shouldAddSnapshotCountsToModel() {
+		Context.getAdministrationService().saveGlobalProperty(new GlobalProperty(EmrConstants.GP_DATA_TOOL_URL, "http://datatool"));
+
+		Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+		counts.put("allPatients", 12);
+		counts.put("patientsOnArt", 7);
+
+		FacilityDashboardSnapshots.Snapshot snapshot = mock(FacilityDashboardSnapshots.Snapshot.class);
+		when(snapshot.getCounts()).thenReturn(counts);
+		when(snapshot.getReportPeriod()).thenReturn("Feb-2022");
+
+		FacilityDashboardSnapshots snapshots = mock(FacilityDashboardSnapshots.class);
+		when(snapshots.getFullSnapshot()).thenReturn(snapshot);
+
+		FragmentModel model = new FragmentModel();
+		controller.controller(model, null, null, kenyaui, snapshots);
+
+		verify(snapshots).getFullSnapshot();
+		Assert.assertThat(model, hasEntry("allPatients", (Object) 12));
+		Assert.assertThat(model, hasEntry("patientsOnArt", (Object) 7));
+		Assert.assertThat(model, hasEntry("reportPeriod", (Object) "Feb-2022"));
+		Assert.assertThat(model, hasEntry("dataToolUrl", (Object) "http://datatool"));
+	}
+}